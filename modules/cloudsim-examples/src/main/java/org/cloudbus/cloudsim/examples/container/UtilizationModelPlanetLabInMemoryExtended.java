@@ -36,19 +36,7 @@ public class UtilizationModelPlanetLabInMemoryExtended extends UtilizationModelP
 
     public double calUtilization(double time) {
 //        Log.print(time);
-        double[] data = super.getData();
-        if (time % getSchedulingInterval() == 0) {
-            return data[(int) time / (int) getSchedulingInterval()];
-        }
-        int time1 = (int) Math.floor(time / getSchedulingInterval());
-        int time2 = (int) Math.ceil(time / getSchedulingInterval());
-        double utilization1 = data[time1];
-        double utilization2 = data[time2];
-        double delta = (utilization2 - utilization1) / ((time2 - time1) * getSchedulingInterval());
-        double utilization = utilization1 + delta * (time - time1 * getSchedulingInterval());
-
-        return utilization;
-
+        return super.getUtilization(time);
     }
 
 }
@@ -1,5 +1,6 @@
 package org.cloudbus.cloudsim.examples.power;
 
+import org.cloudbus.cloudsim.power.PowerVm;
 import org.cloudbus.cloudsim.power.models.PowerModel;
 import org.cloudbus.cloudsim.power.models.PowerModelSpecPowerHpProLiantMl110G4Xeon3040;
 import org.cloudbus.cloudsim.power.models.PowerModelSpecPowerHpProLiantMl110G5Xeon3075;
@@ -24,6 +25,24 @@ public class Constants {
 	public final static double SCHEDULING_INTERVAL = 300;
 	public final static double SIMULATION_LIMIT = 24 * 60 * 60;
 
+	/*
+	 * The folder of the checkpoints saved at the end of the warm-up period, set with the
+	 * "checkpoint" system property. When set, the warm-up period, until the VMs have a full
+	 * utilization history, is simulated with the simple VM allocation policy, and the policy of
+	 * the experiment only takes over after it. The first experiment on a workload saves the state
+	 * of the simulation at the end of the warm-up, and the following experiments on the same
+	 * workload, whatever their policies, restore it instead of simulating the warm-up again.
+	 */
+	public final static String CHECKPOINT_FOLDER = System.getProperty("checkpoint");
+	public final static double WARM_UP_TIME = PowerVm.HISTORY_LENGTH * SCHEDULING_INTERVAL;
+
+	/*
+	 * The number of threads the over-utilized hosts are detected with, set with the
+	 * "detectionThreads" system property. With 0, the default, they are detected in the
+	 * simulation thread.
+	 */
+	public final static int DETECTION_THREADS = Integer.getInteger("detectionThreads", 0);
+
 	public final static int CLOUDLET_LENGTH	= 2500 * (int) SIMULATION_LIMIT;
 	public final static int CLOUDLET_PES	= 1;
 
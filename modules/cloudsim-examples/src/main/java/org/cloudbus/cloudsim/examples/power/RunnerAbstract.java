@@ -5,6 +5,7 @@ import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 import org.cloudbus.cloudsim.Cloudlet;
 import org.cloudbus.cloudsim.DatacenterBroker;
@@ -30,19 +31,25 @@ import org.cloudbus.cloudsim.power.*;
 public abstract class RunnerAbstract {
 
 	/** The enable output. */
-	private static boolean enableOutput;
+	private boolean enableOutput;
 
 	/** The broker. */
-	protected static DatacenterBroker broker;
+	protected DatacenterBroker broker;
 
 	/** The cloudlet list. */
-	protected static List<Cloudlet> cloudletList;
+	protected List<Cloudlet> cloudletList;
 
 	/** The vm list. */
-	protected static List<Vm> vmList;
+	protected List<Vm> vmList;
 
 	/** The host list. */
-	protected static List<PowerHost> hostList;
+	protected List<PowerHost> hostList;
+
+	/** The file of the checkpoint at the end of the warm-up period, or null if checkpoints are not used. */
+	private String checkpoint;
+
+	/** The pool the over-utilized hosts are detected in during the run, or null if there is none. */
+	private ForkJoinPool detectionPool;
 
 	/**
 	 * Run.
@@ -79,6 +86,7 @@ public abstract class RunnerAbstract {
 			System.exit(0);
 		}
 
+		checkpoint = getCheckpointFile(workload);
 		init(inputFolder + "/" + workload);
 		start(
 				getExperimentName(workload, vmAllocationPolicy, vmSelectionPolicy, parameter),
@@ -134,6 +142,39 @@ public abstract class RunnerAbstract {
 	 */
 	protected abstract void init(String inputFolder);
 
+	/**
+	 * Gets the file of the checkpoint saved at the end of the warm-up period of a workload. The
+	 * warm-up is simulated with a {@link PowerVmAllocationPolicySimple} whatever the experiment,
+	 * hence the checkpoint is restored by all the experiments on the same workload.
+	 * 
+	 * @param workload the workload
+	 * @return the checkpoint file, or null if checkpoints are not used
+	 */
+	protected String getCheckpointFile(String workload) {
+		if (Constants.CHECKPOINT_FOLDER == null) {
+			return null;
+		}
+		return Constants.CHECKPOINT_FOLDER + "/" + workload + ".checkpoint";
+	}
+
+	/**
+	 * Warms up the simulation with a {@link PowerVmAllocationPolicySimple}, restoring it from the
+	 * checkpoint of the workload if there is one, or simulating it and saving the checkpoint
+	 * otherwise.
+	 * 
+	 * @throws IOException if the checkpoint can't be restored or saved
+	 */
+	protected void warmUp() throws IOException {
+		if (new File(checkpoint).exists()) {
+			CloudSim.restoreCheckpoint(checkpoint);
+			Log.printLine("Restored the simulation at " + CloudSim.clock() + " from " + checkpoint);
+		} else {
+			new File(Constants.CHECKPOINT_FOLDER).mkdirs();
+			CloudSim.runUntil(Constants.WARM_UP_TIME);
+			CloudSim.saveCheckpoint(checkpoint);
+		}
+	}
+
 	/**
 	 * Starts the simulation.
 	 * 
@@ -149,7 +190,7 @@ public abstract class RunnerAbstract {
 					"Datacenter",
 					PowerDatacenter.class,
 					hostList,
-					vmAllocationPolicy);
+					checkpoint == null ? vmAllocationPolicy : new PowerVmAllocationPolicySimple(hostList));
 
 			datacenter.setDisableMigrations(false);
 
@@ -157,6 +198,12 @@ public abstract class RunnerAbstract {
 			broker.submitCloudletList(cloudletList);
 
 			CloudSim.terminateSimulation(Constants.SIMULATION_LIMIT);
+
+			if (checkpoint != null) {
+				warmUp();
+				datacenter.replaceVmAllocationPolicy((PowerVmAllocationPolicyAbstract) vmAllocationPolicy);
+			}
+
 			double lastClock = CloudSim.startSimulation();
 
 			List<Cloudlet> newList = broker.getCloudletReceivedList();
@@ -176,6 +223,11 @@ public abstract class RunnerAbstract {
 			e.printStackTrace();
 			Log.printLine("The simulation has been terminated due to an unexpected error");
 			System.exit(0);
+		} finally {
+			if (detectionPool != null) {
+				detectionPool.shutdown();
+				detectionPool = null;
+			}
 		}
 
 		Log.printLine("Finished " + experimentName);
@@ -292,9 +344,28 @@ public abstract class RunnerAbstract {
 			System.out.println("Unknown VM allocation policy: " + vmAllocationPolicyName);
 			System.exit(0);
 		}
+		if (Constants.DETECTION_THREADS > 0
+				&& vmAllocationPolicy instanceof PowerVmAllocationPolicyMigrationAbstract) {
+			((PowerVmAllocationPolicyMigrationAbstract) vmAllocationPolicy)
+					.setParallelDetection(getDetectionPool());
+		}
 		return vmAllocationPolicy;
 	}
 
+	/**
+	 * Gets the pool the over-utilized hosts are detected in during the run, creating it if needed.
+	 * It is shut down once the simulation is over.
+	 * 
+	 * @return the pool
+	 * @see Constants#DETECTION_THREADS
+	 */
+	protected ForkJoinPool getDetectionPool() {
+		if (detectionPool == null) {
+			detectionPool = new ForkJoinPool(Constants.DETECTION_THREADS);
+		}
+		return detectionPool;
+	}
+
 	/**
 	 * Gets the vm selection policy.
 	 * 
@@ -329,7 +400,7 @@ public abstract class RunnerAbstract {
 	 * @param enableOutput the new enable output
 	 */
 	public void setEnableOutput(boolean enableOutput) {
-		RunnerAbstract.enableOutput = enableOutput;
+		this.enableOutput = enableOutput;
 	}
 
 	/**
@@ -2,6 +2,7 @@ package org.cloudbus.cloudsim.examples.power.planetlab;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -9,7 +10,9 @@ import org.cloudbus.cloudsim.Cloudlet;
 import org.cloudbus.cloudsim.UtilizationModel;
 import org.cloudbus.cloudsim.UtilizationModelNull;
 import org.cloudbus.cloudsim.UtilizationModelPlanetLabInMemory;
+import org.cloudbus.cloudsim.UtilizationModelPlanetLabMapped;
 import org.cloudbus.cloudsim.examples.power.Constants;
+import org.cloudbus.cloudsim.util.PlanetLabTraceFile;
 
 /**
  * A helper class for the running examples for the PlanetLab workload.
@@ -28,15 +31,26 @@ import org.cloudbus.cloudsim.examples.power.Constants;
 public class PlanetLabHelper {
 
 	/**
-	 * Creates the cloudlet list planet lab.
+	 * Creates the cloudlet list planet lab. The input is either a folder of text traces or a
+	 * binary trace file created from such a folder by {@link PlanetLabTraceConverter}.
 	 * 
 	 * @param brokerId the broker id
-	 * @param inputFolderName the input folder name
+	 * @param inputFolderName the input folder name, or the name of a binary trace file
 	 * @return the list
 	 * @throws FileNotFoundException the file not found exception
 	 */
 	public static List<Cloudlet> createCloudletListPlanetLab(int brokerId, String inputFolderName)
 			throws FileNotFoundException {
+		File inputFile = new File(inputFolderName);
+		if (inputFile.isFile()) {
+			try {
+				return createCloudletListPlanetLab(brokerId, PlanetLabTraceFile.open(inputFile));
+			} catch (IOException e) {
+				e.printStackTrace();
+				System.exit(0);
+			}
+		}
+
 		List<Cloudlet> list = new ArrayList<Cloudlet>();
 
 		long fileSize = 300;
@@ -70,4 +84,36 @@ public class PlanetLabHelper {
 		return list;
 	}
 
+	/**
+	 * Creates the cloudlet list planet lab from a binary trace file, in the order of its traces.
+	 * 
+	 * @param brokerId the broker id
+	 * @param traceFile the trace file
+	 * @return the list
+	 */
+	public static List<Cloudlet> createCloudletListPlanetLab(int brokerId, PlanetLabTraceFile traceFile) {
+		List<Cloudlet> list = new ArrayList<Cloudlet>();
+
+		long fileSize = 300;
+		long outputSize = 300;
+		UtilizationModel utilizationModelNull = new UtilizationModelNull();
+
+		for (int i = 0; i < traceFile.getNumberOfTraces(); i++) {
+			Cloudlet cloudlet = new Cloudlet(
+					i,
+					Constants.CLOUDLET_LENGTH,
+					Constants.CLOUDLET_PES,
+					fileSize,
+					outputSize,
+					new UtilizationModelPlanetLabMapped(traceFile, i, Constants.SCHEDULING_INTERVAL),
+					utilizationModelNull,
+					utilizationModelNull);
+			cloudlet.setUserId(brokerId);
+			cloudlet.setVmId(i);
+			list.add(cloudlet);
+		}
+
+		return list;
+	}
+
 }
@@ -0,0 +1,44 @@
+package org.cloudbus.cloudsim.examples.power.planetlab;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.cloudbus.cloudsim.util.PlanetLabTraceFile;
+
+/**
+ * Converts the text traces of a PlanetLab workload into a binary trace file. The path of the
+ * binary file can then be given to {@link PlanetLabHelper#createCloudletListPlanetLab(int, String)}
+ * in place of the workload folder, for instance by giving "20110303.trace" as the workload of a
+ * {@link PlanetLabRunner} after converting the folder 20110303 into the file 20110303.trace next
+ * to it.
+ *
+ * @since CloudSim Toolkit 4.0
+ */
+public class PlanetLabTraceConverter {
+
+	/**
+	 * The main method.
+	 *
+	 * @param args the workload folder and the binary trace file to be written, which defaults to
+	 *            the folder name followed by ".trace"
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length < 1 || args.length > 2) {
+			System.err.println("Usage: PlanetLabTraceConverter <workload folder> [<trace file>]");
+			System.exit(1);
+		}
+		File inputFolder = new File(args[0]);
+		File outputFile = new File(args.length > 1 ? args[1] : args[0] + ".trace");
+
+		long start = System.currentTimeMillis();
+		PlanetLabTraceFile.convert(inputFolder, outputFile, PlanetLabTraceFile.DAY_SAMPLES);
+		System.out.println(String.format(
+				"Converted %s into %s (%d bytes) in %d ms",
+				inputFolder,
+				outputFile,
+				outputFile.length(),
+				System.currentTimeMillis() - start));
+	}
+
+}
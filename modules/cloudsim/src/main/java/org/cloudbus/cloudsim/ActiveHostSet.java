@@ -0,0 +1,159 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim;
+
+import java.io.IOException;
+import java.util.BitSet;
+import java.util.List;
+
+import org.cloudbus.cloudsim.core.CheckpointInput;
+import org.cloudbus.cloudsim.core.CheckpointOutput;
+
+/**
+ * The set of the active hosts of a host list, that is the hosts whose processing has to be updated
+ * at each time frame, identified by their position in the list so that they are visited in the
+ * order of the list. A host is activated as soon as a VM is created on it or starts migrating to
+ * it, and is only deactivated by {@link #deactivateIdleHosts()} once it is
+ * {@link HostDynamicWorkload#isIdle() idle}, that is switched off with nothing left to update.
+ *
+ * <p/>
+ * All the hosts are active at first, so that each one is updated at least once.
+ *
+ * @since CloudSim Toolkit 4.0
+ */
+public class ActiveHostSet {
+
+	/** The host list. */
+	private final List<? extends HostDynamicWorkload> hostList;
+
+	/** The positions of the active hosts in the host list. */
+	private final BitSet active;
+
+	/**
+	 * Instantiates a new set of active hosts, all the hosts of the list being active. The hosts
+	 * are attached to the set, which they then notify of the VMs placed on them.
+	 *
+	 * @param hostList the host list
+	 */
+	public ActiveHostSet(List<? extends HostDynamicWorkload> hostList) {
+		this.hostList = hostList;
+		active = new BitSet(hostList.size());
+		for (int i = 0; i < hostList.size(); i++) {
+			hostList.get(i).setActiveHostSet(this, i);
+		}
+		activateAll();
+	}
+
+	/**
+	 * Activates the host at a given position.
+	 *
+	 * @param position the position of the host in the host list
+	 */
+	void activate(int position) {
+		active.set(position);
+	}
+
+	/**
+	 * Activates all the hosts.
+	 */
+	public void activateAll() {
+		active.set(0, hostList.size());
+	}
+
+	/**
+	 * Deactivates the active hosts that are idle.
+	 *
+	 * @return the number of hosts deactivated
+	 */
+	public int deactivateIdleHosts() {
+		int deactivated = 0;
+		for (int i = active.nextSetBit(0); i >= 0; i = active.nextSetBit(i + 1)) {
+			if (hostList.get(i).isIdle()) {
+				active.clear(i);
+				deactivated++;
+			}
+		}
+		return deactivated;
+	}
+
+	/**
+	 * Gets the position of the first active host at or after a given position. The active hosts
+	 * are iterated with:
+	 *
+	 * <pre>
+	 * for (int i = set.nextActive(0); i &gt;= 0; i = set.nextActive(i + 1))
+	 * </pre>
+	 *
+	 * @param position the position to start from
+	 * @return the position of the host in the host list, or -1 if there is no such host
+	 */
+	public int nextActive(int position) {
+		return active.nextSetBit(position);
+	}
+
+	/**
+	 * Checks if the host at a given position is active.
+	 *
+	 * @param position the position of the host in the host list
+	 * @return true, if the host is active
+	 */
+	public boolean isActive(int position) {
+		return active.get(position);
+	}
+
+	/**
+	 * Gets the number of active hosts.
+	 *
+	 * @return the number of active hosts
+	 */
+	public int size() {
+		return active.cardinality();
+	}
+
+	/**
+	 * Saves the set of the active hosts to a checkpoint.
+	 *
+	 * @param out the checkpoint stream
+	 * @throws IOException if the state can't be written
+	 */
+	public void saveState(CheckpointOutput out) throws IOException {
+		long[] words = active.toLongArray();
+		out.writeInt(words.length);
+		for (long word : words) {
+			out.writeLong(word);
+		}
+	}
+
+	/**
+	 * Restores the set of the active hosts from a checkpoint.
+	 *
+	 * @param in the checkpoint stream
+	 * @throws IOException if the state can't be read
+	 */
+	public void restoreState(CheckpointInput in) throws IOException {
+		long[] words = new long[in.readInt()];
+		for (int i = 0; i < words.length; i++) {
+			words[i] = in.readLong();
+		}
+		active.clear();
+		active.or(BitSet.valueOf(words));
+	}
+
+	/**
+	 * Gets the host list.
+	 *
+	 * @param <T> the generic type
+	 * @return the host list
+	 */
+	@SuppressWarnings("unchecked")
+	public <T extends HostDynamicWorkload> List<T> getHostList() {
+		return (List<T>) hostList;
+	}
+
+}
@@ -7,11 +7,14 @@
  */
 package org.cloudbus.cloudsim;
 
+import java.io.IOException;
 import java.text.DecimalFormat;
 import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 
+import org.cloudbus.cloudsim.core.CheckpointInput;
+import org.cloudbus.cloudsim.core.CheckpointOutput;
 import org.cloudbus.cloudsim.core.CloudSim;
 
 /**
@@ -1634,4 +1637,91 @@ public class Cloudlet {
         return getUtilizationModelBw().getUtilization(time);
     }
 
+    /**
+     * Saves the state of the cloudlet in a checkpoint of the simulation: its
+     * status and times, its execution history on each resource, its costs and
+     * the state of its utilization models.
+     *
+     * @param out the checkpoint stream
+     * @throws IOException if the state can't be written
+     * @see org.cloudbus.cloudsim.core.CloudSim#saveCheckpoint(String)
+     */
+    public void saveState(final CheckpointOutput out) throws IOException {
+        out.writeInt(userId);
+        out.writeLong(cloudletLength);
+        out.writeInt(numberOfPes);
+        out.writeInt(status);
+        out.writeDouble(execStartTime);
+        out.writeDouble(finishTime);
+        out.writeInt(reservationId);
+        out.writeString(history == null ? null : history.toString());
+        out.writeInt(resList.size());
+        for (Resource res : resList) {
+            out.writeDouble(res.submissionTime);
+            out.writeDouble(res.wallClockTime);
+            out.writeDouble(res.actualCPUTime);
+            out.writeDouble(res.costPerSec);
+            out.writeLong(res.finishedSoFar);
+            out.writeInt(res.resourceId);
+            out.writeString(res.resourceName);
+        }
+        out.writeInt(index);
+        out.writeInt(classType);
+        out.writeInt(netToS);
+        out.writeInt(vmId);
+        out.writeDouble(costPerBw);
+        out.writeDouble(accumulatedBwCost);
+        out.writeStringList(requiredFiles);
+        getUtilizationModelCpu().saveState(out);
+        getUtilizationModelRam().saveState(out);
+        getUtilizationModelBw().saveState(out);
+    }
+
+    /**
+     * Restores the state of the cloudlet saved by
+     * {@link #saveState(CheckpointOutput)}.
+     *
+     * @param in the checkpoint stream
+     * @throws IOException if the state can't be read
+     */
+    public void restoreState(final CheckpointInput in) throws IOException {
+        userId = in.readInt();
+        cloudletLength = in.readLong();
+        numberOfPes = in.readInt();
+        status = in.readInt();
+        execStartTime = in.readDouble();
+        finishTime = in.readDouble();
+        reservationId = in.readInt();
+        String savedHistory = in.readString();
+        if (savedHistory != null) {
+            newline = System.getProperty("line.separator");
+            num = new DecimalFormat("#0.00#");
+            history = new StringBuffer(savedHistory);
+        } else {
+            history = null;
+        }
+        resList.clear();
+        for (int i = in.readInt(); i > 0; i--) {
+            Resource res = new Resource();
+            res.submissionTime = in.readDouble();
+            res.wallClockTime = in.readDouble();
+            res.actualCPUTime = in.readDouble();
+            res.costPerSec = in.readDouble();
+            res.finishedSoFar = in.readLong();
+            res.resourceId = in.readInt();
+            res.resourceName = in.readString();
+            resList.add(res);
+        }
+        index = in.readInt();
+        classType = in.readInt();
+        netToS = in.readInt();
+        vmId = in.readInt();
+        costPerBw = in.readDouble();
+        accumulatedBwCost = in.readDouble();
+        requiredFiles = in.readStringList();
+        getUtilizationModelCpu().restoreState(in);
+        getUtilizationModelRam().restoreState(in);
+        getUtilizationModelBw().restoreState(in);
+    }
+
 }
@@ -8,8 +8,12 @@
 
 package org.cloudbus.cloudsim;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+
+import org.cloudbus.cloudsim.core.CheckpointInput;
+import org.cloudbus.cloudsim.core.CheckpointOutput;
 import org.cloudbus.cloudsim.network.datacenter.NetworkCloudletSpaceSharedScheduler;
 
 
@@ -391,4 +395,72 @@ public abstract class CloudletScheduler {
 		this.cloudletFailedList = cloudletFailedList;
 	}
 
+	/**
+	 * Saves the state of the scheduler in a checkpoint of the simulation: its previous time, its
+	 * current MIPS share and its lists of cloudlets. Subclasses keeping some state of their own
+	 * override this method, calling it first, and {@link #restoreState(CheckpointInput)} along with it.
+	 * 
+	 * @param out the checkpoint stream
+	 * @throws IOException if the state can't be written
+	 * @see org.cloudbus.cloudsim.core.CloudSim#saveCheckpoint(String)
+	 */
+	public void saveState(CheckpointOutput out) throws IOException {
+		out.writeDouble(getPreviousTime());
+		out.writeDoubleList(getCurrentMipsShare());
+		saveCloudlets(getCloudletWaitingList(), out);
+		saveCloudlets(getCloudletExecList(), out);
+		saveCloudlets(getCloudletPausedList(), out);
+		saveCloudlets(getCloudletFinishedList(), out);
+		saveCloudlets(getCloudletFailedList(), out);
+	}
+
+	/**
+	 * Restores the state of the scheduler saved by {@link #saveState(CheckpointOutput)}.
+	 * 
+	 * @param in the checkpoint stream
+	 * @throws IOException if the state can't be read
+	 */
+	public void restoreState(CheckpointInput in) throws IOException {
+		setPreviousTime(in.readDouble());
+		setCurrentMipsShare(in.readDoubleList());
+		setCloudletWaitingList(restoreCloudlets(in));
+		setCloudletExecList(restoreCloudlets(in));
+		setCloudletPausedList(restoreCloudlets(in));
+		setCloudletFinishedList(restoreCloudlets(in));
+		setCloudletFailedList(restoreCloudlets(in));
+	}
+
+	/**
+	 * Saves a list of cloudlets, each one by the ids of its user and of its cloudlet, followed by its
+	 * state.
+	 * 
+	 * @param cloudlets the cloudlets
+	 * @param out the checkpoint stream
+	 * @throws IOException if the cloudlets can't be written
+	 */
+	private static void saveCloudlets(List<ResCloudlet> cloudlets, CheckpointOutput out) throws IOException {
+		out.writeInt(cloudlets.size());
+		for (ResCloudlet rcl : cloudlets) {
+			DatacenterBroker.writeCloudletRef(rcl.getCloudlet(), out);
+			rcl.saveState(out);
+		}
+	}
+
+	/**
+	 * Restores a list of cloudlets saved by {@link #saveCloudlets(List, CheckpointOutput)}, finding
+	 * the cloudlets among the cloudlets of their user.
+	 * 
+	 * @param in the checkpoint stream
+	 * @return the cloudlets
+	 * @throws IOException if the cloudlets can't be read
+	 */
+	private static List<ResCloudlet> restoreCloudlets(CheckpointInput in) throws IOException {
+		int size = in.readInt();
+		List<ResCloudlet> cloudlets = new ArrayList<ResCloudlet>(size);
+		for (int i = 0; i < size; i++) {
+			cloudlets.add(new ResCloudlet(DatacenterBroker.readCloudletRef(in), in));
+		}
+		return cloudlets;
+	}
+
 }
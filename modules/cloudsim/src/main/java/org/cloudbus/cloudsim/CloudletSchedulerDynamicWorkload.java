@@ -7,11 +7,14 @@
 
 package org.cloudbus.cloudsim;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.cloudbus.cloudsim.core.CheckpointInput;
+import org.cloudbus.cloudsim.core.CheckpointOutput;
 import org.cloudbus.cloudsim.core.CloudSim;
 
 /**
@@ -349,4 +352,34 @@ public class CloudletSchedulerDynamicWorkload extends CloudletSchedulerTimeShare
 		this.cacheCurrentRequestedMips = cacheCurrentRequestedMips;
 	}
 
+	@Override
+	public void saveState(CheckpointOutput out) throws IOException {
+		super.saveState(out);
+		out.writeDouble(getMips());
+		out.writeInt(getNumberOfPes());
+		out.writeDouble(getTotalMips());
+		out.writeInt(getUnderAllocatedMips().size());
+		for (Map.Entry<String, Double> entry : getUnderAllocatedMips().entrySet()) {
+			out.writeUTF(entry.getKey());
+			out.writeDouble(entry.getValue());
+		}
+		out.writeDouble(getCachePreviousTime());
+		out.writeDoubleList(getCacheCurrentRequestedMips());
+	}
+
+	@Override
+	public void restoreState(CheckpointInput in) throws IOException {
+		super.restoreState(in);
+		setMips(in.readDouble());
+		setNumberOfPes(in.readInt());
+		setTotalMips(in.readDouble());
+		Map<String, Double> underAllocatedMips = new HashMap<String, Double>();
+		for (int i = in.readInt(); i > 0; i--) {
+			underAllocatedMips.put(in.readUTF(), in.readDouble());
+		}
+		setUnderAllocatedMips(underAllocatedMips);
+		setCachePreviousTime(in.readDouble());
+		setCacheCurrentRequestedMips(in.readDoubleList());
+	}
+
 }
@@ -8,9 +8,12 @@
 
 package org.cloudbus.cloudsim;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.cloudbus.cloudsim.core.CheckpointInput;
+import org.cloudbus.cloudsim.core.CheckpointOutput;
 import org.cloudbus.cloudsim.core.CloudSim;
 
 /**
@@ -464,4 +467,18 @@ public class CloudletSchedulerSpaceShared extends CloudletScheduler {
 		return 0;
 	}
 
+	@Override
+	public void saveState(CheckpointOutput out) throws IOException {
+		super.saveState(out);
+		out.writeInt(currentCpus);
+		out.writeInt(usedPes);
+	}
+
+	@Override
+	public void restoreState(CheckpointInput in) throws IOException {
+		super.restoreState(in);
+		currentCpus = in.readInt();
+		usedPes = in.readInt();
+	}
+
 }
@@ -7,9 +7,12 @@
 
 package org.cloudbus.cloudsim;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.cloudbus.cloudsim.core.CheckpointInput;
+import org.cloudbus.cloudsim.core.CheckpointOutput;
 import org.cloudbus.cloudsim.core.CloudSim;
 
 /**
@@ -358,4 +361,16 @@ public class CloudletSchedulerTimeShared extends CloudletScheduler {
 		return bw;
 	}
 
+	@Override
+	public void saveState(CheckpointOutput out) throws IOException {
+		super.saveState(out);
+		out.writeInt(currentCPUs);
+	}
+
+	@Override
+	public void restoreState(CheckpointInput in) throws IOException {
+		super.restoreState(in);
+		currentCPUs = in.readInt();
+	}
+
 }
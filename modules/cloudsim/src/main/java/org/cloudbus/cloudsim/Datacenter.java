@@ -7,12 +7,15 @@
 
 package org.cloudbus.cloudsim;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
+import org.cloudbus.cloudsim.core.CheckpointInput;
+import org.cloudbus.cloudsim.core.CheckpointOutput;
 import org.cloudbus.cloudsim.core.CloudSim;
 import org.cloudbus.cloudsim.core.CloudSimTags;
 import org.cloudbus.cloudsim.core.SimEntity;
@@ -36,6 +39,18 @@ import org.cloudbus.cloudsim.core.SimEvent;
  */
 public class Datacenter extends SimEntity {
 
+	/** The event data written as is in checkpoints. */
+	private static final int EVENT_OTHER = 0;
+
+	/** The event data written as a reference to a cloudlet in checkpoints. */
+	private static final int EVENT_CLOUDLET = 1;
+
+	/** The event data written as a reference to a VM in checkpoints. */
+	private static final int EVENT_VM = 2;
+
+	/** The event data written as a reference to a VM and its destination host in checkpoints. */
+	private static final int EVENT_MIGRATION = 3;
+
 	/** The characteristics. */
 	private DatacenterCharacteristics characteristics;
 
@@ -1061,6 +1076,80 @@ public class Datacenter extends SimEntity {
 		registerOtherEntity();
 	}
 
+	/**
+	 * Saves the state of the datacenter to a checkpoint: the VMs it holds, the state of its hosts
+	 * and the state of its VM allocation policy.
+	 */
+	@Override
+	protected void saveState(CheckpointOutput out) throws IOException {
+		super.saveState(out);
+		out.writeDouble(getLastProcessTime());
+		out.writeInt(getVmList().size());
+		for (Vm vm : getVmList()) {
+			DatacenterBroker.writeVmRef(vm, out);
+		}
+		for (Host host : getHostList()) {
+			host.saveState(out);
+		}
+		getVmAllocationPolicy().saveState(out);
+	}
+
+	@Override
+	protected void restoreState(CheckpointInput in) throws IOException {
+		super.restoreState(in);
+		setLastProcessTime(in.readDouble());
+		List<Vm> vms = new ArrayList<Vm>();
+		for (int i = in.readInt(); i > 0; i--) {
+			vms.add(DatacenterBroker.readVmRef(in));
+		}
+		setVmList(vms);
+		for (Host host : getHostList()) {
+			host.restoreState(in);
+		}
+		getVmAllocationPolicy().restoreState(in);
+	}
+
+	/**
+	 * Writes the data of an event sent to the datacenter to a checkpoint, the cloudlets, VMs and
+	 * migrations it carries being written as references to the objects of the users.
+	 */
+	@Override
+	protected void writeEventData(int tag, Object data, CheckpointOutput out) throws IOException {
+		if (data instanceof Cloudlet) {
+			out.writeByte(EVENT_CLOUDLET);
+			DatacenterBroker.writeCloudletRef((Cloudlet) data, out);
+		} else if (data instanceof Vm) {
+			out.writeByte(EVENT_VM);
+			DatacenterBroker.writeVmRef((Vm) data, out);
+		} else if (tag == CloudSimTags.VM_MIGRATE || tag == CloudSimTags.VM_MIGRATE_ACK) {
+			@SuppressWarnings("unchecked")
+			Map<String, Object> migrate = (Map<String, Object>) data;
+			out.writeByte(EVENT_MIGRATION);
+			DatacenterBroker.writeVmRef((Vm) migrate.get("vm"), out);
+			out.writeInt(getHostList().indexOf(migrate.get("host")));
+		} else {
+			out.writeByte(EVENT_OTHER);
+			super.writeEventData(tag, data, out);
+		}
+	}
+
+	@Override
+	protected Object readEventData(int tag, CheckpointInput in) throws IOException {
+		switch (in.readByte()) {
+			case EVENT_CLOUDLET:
+				return DatacenterBroker.readCloudletRef(in);
+			case EVENT_VM:
+				return DatacenterBroker.readVmRef(in);
+			case EVENT_MIGRATION:
+				Map<String, Object> migrate = new HashMap<String, Object>();
+				migrate.put("vm", DatacenterBroker.readVmRef(in));
+				migrate.put("host", getHostList().get(in.readInt()));
+				return migrate;
+			default:
+				return super.readEventData(tag, in);
+		}
+	}
+
 	/**
 	 * Gets the host list.
 	 * 
@@ -8,12 +8,16 @@
 
 package org.cloudbus.cloudsim;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 
+import org.cloudbus.cloudsim.core.CheckpointInput;
+import org.cloudbus.cloudsim.core.CheckpointOutput;
 import org.cloudbus.cloudsim.core.CloudSim;
 import org.cloudbus.cloudsim.core.CloudSimTags;
 import org.cloudbus.cloudsim.core.SimEntity;
@@ -419,6 +423,271 @@ public class DatacenterBroker extends SimEntity {
 		schedule(getId(), 0, CloudSimTags.RESOURCE_CHARACTERISTICS_REQUEST);
 	}
 
+	/**
+	 * Saves the state of the broker to a checkpoint, including the state of its VMs and cloudlets.
+	 * The lists of the broker are saved as the ids of the VMs and cloudlets they hold.
+	 */
+	@Override
+	protected void saveState(CheckpointOutput out) throws IOException {
+		super.saveState(out);
+		out.writeInt(getVmList().size());
+		for (Vm vm : getVmList()) {
+			out.writeInt(vm.getId());
+			vm.saveState(out);
+		}
+		Map<Integer, Cloudlet> cloudlets = getAllCloudlets();
+		out.writeInt(cloudlets.size());
+		for (Cloudlet cloudlet : cloudlets.values()) {
+			out.writeInt(cloudlet.getCloudletId());
+			cloudlet.saveState(out);
+		}
+
+		saveVmIds(getVmsCreatedList(), out);
+		saveCloudletIds(getCloudletList(), out);
+		saveCloudletIds(getCloudletSubmittedList(), out);
+		saveCloudletIds(getCloudletReceivedList(), out);
+		out.writeInt(cloudletsSubmitted);
+		out.writeInt(getVmsRequested());
+		out.writeInt(getVmsAcks());
+		out.writeInt(getVmsDestroyed());
+		out.writeIntList(getDatacenterIdsList());
+		out.writeIntList(getDatacenterRequestedIdsList());
+		out.writeInt(getVmsToDatacentersMap().size());
+		for (Map.Entry<Integer, Integer> entry : getVmsToDatacentersMap().entrySet()) {
+			out.writeInt(entry.getKey());
+			out.writeInt(entry.getValue());
+		}
+		out.writeIntList(new ArrayList<Integer>(getDatacenterCharacteristicsList().keySet()));
+	}
+
+	/**
+	 * Restores the state of the broker from a checkpoint. The VMs and cloudlets of the restored
+	 * broker are the ones submitted to it when the simulation was built again, and are found by
+	 * their ids.
+	 */
+	@Override
+	protected void restoreState(CheckpointInput in) throws IOException {
+		super.restoreState(in);
+		List<Vm> vms = new ArrayList<Vm>();
+		for (int i = in.readInt(); i > 0; i--) {
+			Vm vm = findVm(getId(), in.readInt());
+			vm.restoreState(in);
+			vms.add(vm);
+		}
+		Map<Integer, Cloudlet> cloudlets = getAllCloudlets();
+		for (int i = in.readInt(); i > 0; i--) {
+			int cloudletId = in.readInt();
+			Cloudlet cloudlet = cloudlets.get(cloudletId);
+			if (cloudlet == null) {
+				throw new IllegalStateException("Cloudlet #" + cloudletId + " of " + getName()
+						+ " is not in the simulation being restored.");
+			}
+			cloudlet.restoreState(in);
+		}
+
+		setVmList(vms);
+		setVmsCreatedList(restoreVms(in));
+		setCloudletList(restoreCloudlets(cloudlets, in));
+		setCloudletSubmittedList(restoreCloudlets(cloudlets, in));
+		setCloudletReceivedList(restoreCloudlets(cloudlets, in));
+		cloudletsSubmitted = in.readInt();
+		setVmsRequested(in.readInt());
+		setVmsAcks(in.readInt());
+		setVmsDestroyed(in.readInt());
+		setDatacenterIdsList(in.readIntList());
+		setDatacenterRequestedIdsList(in.readIntList());
+		setVmsToDatacentersMap(new HashMap<Integer, Integer>());
+		for (int i = in.readInt(); i > 0; i--) {
+			getVmsToDatacentersMap().put(in.readInt(), in.readInt());
+		}
+		setDatacenterCharacteristicsList(new HashMap<Integer, DatacenterCharacteristics>());
+		for (int datacenterId : in.readIntList()) {
+			getDatacenterCharacteristicsList().put(datacenterId, getDatacenter(datacenterId).getCharacteristics());
+		}
+	}
+
+	@Override
+	protected void writeEventData(int tag, Object data, CheckpointOutput out) throws IOException {
+		if (tag == CloudSimTags.RESOURCE_CHARACTERISTICS && data instanceof DatacenterCharacteristics) {
+			out.writeInt(((DatacenterCharacteristics) data).getId());
+		} else if (tag == CloudSimTags.CLOUDLET_RETURN && data instanceof Cloudlet) {
+			writeCloudletRef((Cloudlet) data, out);
+		} else {
+			super.writeEventData(tag, data, out);
+		}
+	}
+
+	@Override
+	protected Object readEventData(int tag, CheckpointInput in) throws IOException {
+		if (tag == CloudSimTags.RESOURCE_CHARACTERISTICS) {
+			return getDatacenter(in.readInt()).getCharacteristics();
+		} else if (tag == CloudSimTags.CLOUDLET_RETURN) {
+			return readCloudletRef(in);
+		}
+		return super.readEventData(tag, in);
+	}
+
+	/**
+	 * Gets all the cloudlets of the broker, whichever list holds them.
+	 *
+	 * @return the cloudlets, by id
+	 */
+	private Map<Integer, Cloudlet> getAllCloudlets() {
+		Map<Integer, Cloudlet> cloudlets = new LinkedHashMap<Integer, Cloudlet>();
+		for (Cloudlet cloudlet : getCloudletList()) {
+			cloudlets.put(cloudlet.getCloudletId(), cloudlet);
+		}
+		for (Cloudlet cloudlet : getCloudletSubmittedList()) {
+			cloudlets.put(cloudlet.getCloudletId(), cloudlet);
+		}
+		for (Cloudlet cloudlet : getCloudletReceivedList()) {
+			cloudlets.put(cloudlet.getCloudletId(), cloudlet);
+		}
+		return cloudlets;
+	}
+
+	private static void saveVmIds(List<? extends Vm> vms, CheckpointOutput out) throws IOException {
+		out.writeInt(vms.size());
+		for (Vm vm : vms) {
+			out.writeInt(vm.getId());
+		}
+	}
+
+	private List<Vm> restoreVms(CheckpointInput in) throws IOException {
+		List<Vm> vms = new ArrayList<Vm>();
+		for (int i = in.readInt(); i > 0; i--) {
+			vms.add(VmList.getById(getVmList(), in.readInt()));
+		}
+		return vms;
+	}
+
+	private static void saveCloudletIds(List<? extends Cloudlet> cloudlets, CheckpointOutput out)
+			throws IOException {
+		out.writeInt(cloudlets.size());
+		for (Cloudlet cloudlet : cloudlets) {
+			out.writeInt(cloudlet.getCloudletId());
+		}
+	}
+
+	private static List<Cloudlet> restoreCloudlets(Map<Integer, Cloudlet> cloudlets, CheckpointInput in)
+			throws IOException {
+		List<Cloudlet> list = new ArrayList<Cloudlet>();
+		for (int i = in.readInt(); i > 0; i--) {
+			list.add(cloudlets.get(in.readInt()));
+		}
+		return list;
+	}
+
+	/**
+	 * Gets a datacenter of the simulation.
+	 *
+	 * @param datacenterId the datacenter id
+	 * @return the datacenter
+	 */
+	private static Datacenter getDatacenter(int datacenterId) {
+		SimEntity entity = CloudSim.getEntity(datacenterId);
+		if (!(entity instanceof Datacenter)) {
+			throw new IllegalStateException("Entity #" + datacenterId + " is not a datacenter.");
+		}
+		return (Datacenter) entity;
+	}
+
+	/**
+	 * Gets the broker of a user, when restoring a checkpoint.
+	 *
+	 * @param userId the user id
+	 * @return the broker
+	 */
+	private static DatacenterBroker getBroker(int userId) {
+		SimEntity entity = CloudSim.getEntity(userId);
+		if (!(entity instanceof DatacenterBroker)) {
+			throw new IllegalStateException("Entity #" + userId + " is not a broker.");
+		}
+		return (DatacenterBroker) entity;
+	}
+
+	/**
+	 * Finds a VM submitted to the broker of its user, when restoring a checkpoint.
+	 *
+	 * @param userId the user id
+	 * @param vmId the VM id
+	 * @return the VM
+	 */
+	static Vm findVm(int userId, int vmId) {
+		DatacenterBroker broker = getBroker(userId);
+		Vm vm = VmList.getById(broker.getVmList(), vmId);
+		if (vm == null) {
+			throw new IllegalStateException("VM #" + vmId + " of " + broker.getName()
+					+ " is not in the simulation being restored.");
+		}
+		return vm;
+	}
+
+	/**
+	 * Finds a cloudlet submitted to the broker of its user, when restoring a checkpoint.
+	 *
+	 * @param userId the user id
+	 * @param cloudletId the cloudlet id
+	 * @return the cloudlet
+	 */
+	static Cloudlet findCloudlet(int userId, int cloudletId) {
+		DatacenterBroker broker = getBroker(userId);
+		Cloudlet cloudlet = broker.getAllCloudlets().get(cloudletId);
+		if (cloudlet == null) {
+			throw new IllegalStateException("Cloudlet #" + cloudletId + " of " + broker.getName()
+					+ " is not in the simulation being restored.");
+		}
+		return cloudlet;
+	}
+
+	/**
+	 * Writes a reference to a VM to a checkpoint.
+	 *
+	 * @param vm the VM
+	 * @param out the checkpoint stream
+	 * @throws IOException if the reference can't be written
+	 */
+	static void writeVmRef(Vm vm, CheckpointOutput out) throws IOException {
+		out.writeInt(vm.getUserId());
+		out.writeInt(vm.getId());
+	}
+
+	/**
+	 * Reads a reference to a VM from a checkpoint.
+	 *
+	 * @param in the checkpoint stream
+	 * @return the VM
+	 * @throws IOException if the reference can't be read
+	 */
+	static Vm readVmRef(CheckpointInput in) throws IOException {
+		int userId = in.readInt();
+		return findVm(userId, in.readInt());
+	}
+
+	/**
+	 * Writes a reference to a cloudlet to a checkpoint.
+	 *
+	 * @param cloudlet the cloudlet
+	 * @param out the checkpoint stream
+	 * @throws IOException if the reference can't be written
+	 */
+	static void writeCloudletRef(Cloudlet cloudlet, CheckpointOutput out) throws IOException {
+		out.writeInt(cloudlet.getUserId());
+		out.writeInt(cloudlet.getCloudletId());
+	}
+
+	/**
+	 * Reads a reference to a cloudlet from a checkpoint.
+	 *
+	 * @param in the checkpoint stream
+	 * @return the cloudlet
+	 * @throws IOException if the reference can't be read
+	 */
+	static Cloudlet readCloudletRef(CheckpointInput in) throws IOException {
+		int userId = in.readInt();
+		return findCloudlet(userId, in.readInt());
+	}
+
 	/**
 	 * Gets the vm list.
 	 * 
@@ -7,9 +7,12 @@
 
 package org.cloudbus.cloudsim;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.cloudbus.cloudsim.core.CheckpointInput;
+import org.cloudbus.cloudsim.core.CheckpointOutput;
 import org.cloudbus.cloudsim.core.CloudSim;
 import org.cloudbus.cloudsim.lists.PeList;
 import org.cloudbus.cloudsim.provisioners.BwProvisioner;
@@ -630,4 +633,81 @@ public class Host {
 		this.datacenter = datacenter;
 	}
 
+	/**
+	 * Saves the state of the host in a checkpoint of the simulation: its storage, its VMs, the VMs
+	 * migrating into it and the state of its provisioners, PEs and VM scheduler. The VMs are saved
+	 * by the ids of their user and of the VM. Subclasses keeping some state of their own override
+	 * this method, calling it first, and {@link #restoreState(CheckpointInput)} along with it.
+	 * 
+	 * @param out the checkpoint stream
+	 * @throws IOException if the state can't be written
+	 * @see org.cloudbus.cloudsim.core.CloudSim#saveCheckpoint(String)
+	 */
+	public void saveState(CheckpointOutput out) throws IOException {
+		out.writeLong(getStorage());
+		out.writeBoolean(isFailed());
+		saveVms(getVmList(), out);
+		saveVms(getVmsMigratingIn(), out);
+		getRamProvisioner().saveState(out);
+		getBwProvisioner().saveState(out);
+		for (Pe pe : getPeList()) {
+			pe.saveState(out);
+		}
+		getVmScheduler().saveState(out);
+	}
+
+	/**
+	 * Restores the state of the host saved by {@link #saveState(CheckpointOutput)}. The VMs are
+	 * found among the VMs of their user, and the VMs running on the host, unlike the VMs migrating
+	 * into it, are placed on it.
+	 * 
+	 * @param in the checkpoint stream
+	 * @throws IOException if the state can't be read
+	 */
+	public void restoreState(CheckpointInput in) throws IOException {
+		setStorage(in.readLong());
+		failed = in.readBoolean();
+		restoreVms(this.<Vm> getVmList(), in);
+		restoreVms(getVmsMigratingIn(), in);
+		getRamProvisioner().restoreState(in);
+		getBwProvisioner().restoreState(in);
+		for (Pe pe : getPeList()) {
+			pe.restoreState(in);
+		}
+		getVmScheduler().restoreState(in);
+		for (Vm vm : getVmList()) {
+			if (!getVmsMigratingIn().contains(vm)) {
+				vm.setHost(this);
+			}
+		}
+	}
+
+	/**
+	 * Saves a list of VMs by the ids of their user and of the VM.
+	 * 
+	 * @param vms the VMs
+	 * @param out the checkpoint stream
+	 * @throws IOException if the VMs can't be written
+	 */
+	private static void saveVms(List<? extends Vm> vms, CheckpointOutput out) throws IOException {
+		out.writeInt(vms.size());
+		for (Vm vm : vms) {
+			DatacenterBroker.writeVmRef(vm, out);
+		}
+	}
+
+	/**
+	 * Restores a list of VMs saved by {@link #saveVms(List, CheckpointOutput)}.
+	 * 
+	 * @param vms the list to restore the VMs into
+	 * @param in the checkpoint stream
+	 * @throws IOException if the VMs can't be read
+	 */
+	private static void restoreVms(List<Vm> vms, CheckpointInput in) throws IOException {
+		vms.clear();
+		for (int i = in.readInt(); i > 0; i--) {
+			vms.add(DatacenterBroker.readVmRef(in));
+		}
+	}
+
 }
@@ -8,10 +8,13 @@
 
 package org.cloudbus.cloudsim;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 
+import org.cloudbus.cloudsim.core.CheckpointInput;
+import org.cloudbus.cloudsim.core.CheckpointOutput;
 import org.cloudbus.cloudsim.core.CloudSim;
 import org.cloudbus.cloudsim.lists.PeList;
 import org.cloudbus.cloudsim.provisioners.BwProvisioner;
@@ -34,6 +37,12 @@ public class HostDynamicWorkload extends Host {
 	/** The host utilization state history. */
 	private final List<HostStateHistoryEntry> stateHistory = new LinkedList<HostStateHistoryEntry>();
 
+	/** The set of active hosts the host belongs to, if any. */
+	private ActiveHostSet activeHostSet;
+
+	/** The position of the host in the host list of its set of active hosts. */
+	private int activeHostPosition;
+
 	/**
 	 * Instantiates a new host.
 	 * 
@@ -135,6 +144,66 @@ public class HostDynamicWorkload extends Host {
 		return smallerTime;
 	}
 
+	@Override
+	public boolean vmCreate(Vm vm) {
+		boolean result = super.vmCreate(vm);
+		if (result) {
+			activate();
+		}
+		return result;
+	}
+
+	@Override
+	public void addMigratingInVm(Vm vm) {
+		activate();
+		super.addMigratingInVm(vm);
+	}
+
+	@Override
+	public void reallocateMigratingInVms() {
+		if (!getVmsMigratingIn().isEmpty()) {
+			activate();
+		}
+		super.reallocateMigratingInVms();
+	}
+
+	/**
+	 * Checks if the host is idle, that is switched off with no VM, and with a state history
+	 * already recording that it is inactive. Updating the processing of an idle host changes
+	 * nothing but the time of its last inactive state, so that a datacenter can skip it until a
+	 * VM is placed on it.
+	 * 
+	 * @return true, if the host is idle
+	 */
+	public boolean isIdle() {
+		return getVmList().isEmpty()
+				&& getVmsMigratingIn().isEmpty()
+				&& getUtilizationMips() == 0
+				&& getPreviousUtilizationMips() == 0
+				&& !getStateHistory().isEmpty()
+				&& !getStateHistory().get(getStateHistory().size() - 1).isActive();
+	}
+
+	/**
+	 * Activates the host in its set of active hosts, if any.
+	 */
+	protected void activate() {
+		if (activeHostSet != null) {
+			activeHostSet.activate(activeHostPosition);
+		}
+	}
+
+	/**
+	 * Attaches the host to a set of active hosts.
+	 * 
+	 * @param activeHostSet the set of active hosts
+	 * @param position the position of the host in the host list of the set
+	 */
+	void setActiveHostSet(ActiveHostSet activeHostSet, int position) {
+		this.activeHostSet = activeHostSet;
+		activeHostPosition = position;
+	}
+
 	/**
 	 * Gets the list of completed vms.
 	 * 
@@ -299,4 +368,30 @@ public class HostDynamicWorkload extends Host {
 		getStateHistory().add(newState);
 	}
 
+	@Override
+	public void saveState(CheckpointOutput out) throws IOException {
+		super.saveState(out);
+		out.writeDouble(getUtilizationMips());
+		out.writeDouble(getPreviousUtilizationMips());
+		out.writeInt(getStateHistory().size());
+		for (HostStateHistoryEntry entry : getStateHistory()) {
+			out.writeDouble(entry.getTime());
+			out.writeDouble(entry.getAllocatedMips());
+			out.writeDouble(entry.getRequestedMips());
+			out.writeBoolean(entry.isActive());
+		}
+	}
+
+	@Override
+	public void restoreState(CheckpointInput in) throws IOException {
+		super.restoreState(in);
+		setUtilizationMips(in.readDouble());
+		setPreviousUtilizationMips(in.readDouble());
+		getStateHistory().clear();
+		for (int i = in.readInt(); i > 0; i--) {
+			getStateHistory().add(new HostStateHistoryEntry(in.readDouble(), in.readDouble(), in.readDouble(),
+					in.readBoolean()));
+		}
+	}
+
 }
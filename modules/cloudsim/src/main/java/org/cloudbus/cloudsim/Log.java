@@ -11,9 +11,14 @@ package org.cloudbus.cloudsim;
 import java.io.IOException;
 import java.io.OutputStream;
 
+import org.cloudbus.cloudsim.core.CloudSim;
+
 /**
  * Logger used for performing logging of the simulation process. It provides the ability to
  * substitute the output stream by any OutputStream subclass.
+ * The output stream and the disabled flag are kept by the simulation context bound
+ * to the current thread (see {@link CloudSim#getContext()}), so that simulations running
+ * concurrently may log to different streams.
  * 
  * @author Anton Beloglazov
  * @since CloudSim Toolkit 2.0
@@ -25,15 +30,14 @@ public class Log {
 	/** The Constant LINE_SEPARATOR. */
 	private static final String LINE_SEPARATOR = System.getProperty("line.separator");
 
-	/** The stream where the log will the outputted. */
-	private static OutputStream output;
+	/** Buffers to avoid creating new string builder upon every print, one per thread printing. */
+	private static final ThreadLocal<StringBuilder> buffer = new ThreadLocal<StringBuilder>() {
 
-	/** Indicates if the logger is disabled or not. If set to true,
-         the call for any print method has no effect. */
-	private static boolean disabled;
-	
-	/** Buffer to avoid creating new string builder upon every print. */
-	private static StringBuilder buffer = new StringBuilder();		    
+		@Override
+		protected StringBuilder initialValue() {
+			return new StringBuilder();
+		}
+	};
 
 	/**
 	 * Prints a message.
@@ -89,6 +93,7 @@ public class Log {
 	 */
 	public static void printConcat(Object... messages) {
 		if (!isDisabled()) {
+			StringBuilder buffer = Log.buffer.get();
 			buffer.setLength(0); // Clear the buffer		    
 			for(int i = 0 ; i < messages.length ; i ++) {
 				buffer.append(String.valueOf(messages[i]));
@@ -104,6 +109,7 @@ public class Log {
 	 */
 	public static void printConcatLine(Object... messages) {
 		if (!isDisabled()) {
+			StringBuilder buffer = Log.buffer.get();
 			buffer.setLength(0); // Clear the buffer		    
 			for(int i = 0 ; i < messages.length ; i ++) {
 				buffer.append(String.valueOf(messages[i]));
@@ -157,7 +163,7 @@ public class Log {
 	 * @param _output the new output
 	 */
 	public static void setOutput(OutputStream _output) {
-		output = _output;
+		CloudSim.getContext().setLogOutput(_output);
 	}
 
 	/**
@@ -166,8 +172,10 @@ public class Log {
 	 * @return the output
 	 */
 	public static OutputStream getOutput() {
+		OutputStream output = CloudSim.getContext().getLogOutput();
 		if (output == null) {
-			setOutput(System.out);
+			output = System.out;
+			setOutput(output);
 		}
 		return output;
 	}
@@ -178,7 +186,7 @@ public class Log {
 	 * @param _disabled the new disabled
 	 */
 	public static void setDisabled(boolean _disabled) {
-		disabled = _disabled;
+		CloudSim.getContext().setLogDisabled(_disabled);
 	}
 
 	/**
@@ -187,7 +195,7 @@ public class Log {
 	 * @return true, if is disable
 	 */
 	public static boolean isDisabled() {
-		return disabled;
+		return CloudSim.getContext().isLogDisabled();
 	}
 
 	/**
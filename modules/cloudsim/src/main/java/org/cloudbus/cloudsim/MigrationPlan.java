@@ -0,0 +1,208 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A list of migrations planned by an allocation policy, each one moving a VM to a host. The VMs
+ * and the hosts are stored in two parallel arrays, in the order the migrations were added, and
+ * the set of destination hosts is kept up to date, so that checking if a host is the destination
+ * of a migration takes constant time.
+ *
+ * <br/>Plans replace the migration maps of {@link VmAllocationPolicy#optimizeAllocation(List)}, a
+ * list of maps with the "vm" and "host" keys: {@link #toMigrationMap()} and
+ * {@link #fromMigrationMap(List)} convert a plan to and from a migration map.
+ *
+ * @param <V> the type of the VMs
+ * @param <H> the type of the hosts
+ * @since CloudSim Toolkit 4.0
+ */
+public class MigrationPlan<V, H> {
+
+	/** The key of the VM in a migration map. */
+	public static final String VM = "vm";
+
+	/** The key of the host in a migration map. */
+	public static final String HOST = "host";
+
+	/** The initial capacity of the arrays. */
+	private static final int INITIAL_CAPACITY = 8;
+
+	/** The VMs to migrate. */
+	private Object[] vms = new Object[INITIAL_CAPACITY];
+
+	/** The destination hosts, hosts[i] being the destination of vms[i]. */
+	private Object[] hosts = new Object[INITIAL_CAPACITY];
+
+	/** The number of migrations. */
+	private int size;
+
+	/** The destination hosts, without duplicates. */
+	private final Set<H> hostSet = new HashSet<H>();
+
+	/**
+	 * Adds a migration at the end of the plan.
+	 *
+	 * @param vm the VM to migrate
+	 * @param host the destination host
+	 */
+	public void add(V vm, H host) {
+		if (size == vms.length) {
+			vms = Arrays.copyOf(vms, size * 2);
+			hosts = Arrays.copyOf(hosts, size * 2);
+		}
+		vms[size] = vm;
+		hosts[size] = host;
+		size++;
+		hostSet.add(host);
+	}
+
+	/**
+	 * Adds the migrations of another plan at the end of the plan.
+	 *
+	 * @param plan the plan
+	 */
+	public void addAll(MigrationPlan<? extends V, ? extends H> plan) {
+		for (int i = 0; i < plan.size(); i++) {
+			add(plan.getVm(i), plan.getHost(i));
+		}
+	}
+
+	/**
+	 * Gets the VM of a migration.
+	 *
+	 * @param index the index of the migration
+	 * @return the VM
+	 */
+	@SuppressWarnings("unchecked")
+	public V getVm(int index) {
+		checkIndex(index);
+		return (V) vms[index];
+	}
+
+	/**
+	 * Gets the destination host of a migration.
+	 *
+	 * @param index the index of the migration
+	 * @return the host
+	 */
+	@SuppressWarnings("unchecked")
+	public H getHost(int index) {
+		checkIndex(index);
+		return (H) hosts[index];
+	}
+
+	/**
+	 * Checks if a host is the destination of a migration.
+	 *
+	 * @param host the host
+	 * @return true, if a VM migrates to the host; false otherwise
+	 */
+	public boolean containsHost(Object host) {
+		return hostSet.contains(host);
+	}
+
+	/**
+	 * Gets the destination hosts, without duplicates.
+	 *
+	 * @return a read-only view of the hosts
+	 */
+	public Set<H> getHosts() {
+		return Collections.unmodifiableSet(hostSet);
+	}
+
+	/**
+	 * Gets the number of migrations.
+	 *
+	 * @return the number of migrations
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Checks if the plan is empty.
+	 *
+	 * @return true, if there is no migration; false otherwise
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Removes all the migrations.
+	 */
+	public void clear() {
+		Arrays.fill(vms, 0, size, null);
+		Arrays.fill(hosts, 0, size, null);
+		size = 0;
+		hostSet.clear();
+	}
+
+	/**
+	 * Gets a migration as a map with the {@link #VM} and {@link #HOST} keys, as sent with the
+	 * {@link org.cloudbus.cloudsim.core.CloudSimTags#VM_MIGRATE} events.
+	 *
+	 * @param index the index of the migration
+	 * @return the migration map
+	 */
+	public Map<String, Object> getMigrationMap(int index) {
+		Map<String, Object> migrate = new HashMap<String, Object>();
+		migrate.put(VM, getVm(index));
+		migrate.put(HOST, getHost(index));
+		return migrate;
+	}
+
+	/**
+	 * Converts the plan to a migration map, a list of maps with the {@link #VM} and {@link #HOST}
+	 * keys.
+	 *
+	 * @return the migration map
+	 */
+	public List<Map<String, Object>> toMigrationMap() {
+		List<Map<String, Object>> migrationMap = new ArrayList<Map<String, Object>>(size);
+		for (int i = 0; i < size; i++) {
+			migrationMap.add(getMigrationMap(i));
+		}
+		return migrationMap;
+	}
+
+	/**
+	 * Converts a migration map, a list of maps with the {@link #VM} and {@link #HOST} keys, to a
+	 * plan. Any other key of the maps is ignored.
+	 *
+	 * @param migrationMap the migration map, or null if there is no migration
+	 * @return the plan
+	 */
+	@SuppressWarnings("unchecked")
+	public static <V, H> MigrationPlan<V, H> fromMigrationMap(List<? extends Map<String, Object>> migrationMap) {
+		MigrationPlan<V, H> plan = new MigrationPlan<V, H>();
+		if (migrationMap != null) {
+			for (Map<String, Object> migrate : migrationMap) {
+				plan.add((V) migrate.get(VM), (H) migrate.get(HOST));
+			}
+		}
+		return plan;
+	}
+
+	private void checkIndex(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		}
+	}
+
+}
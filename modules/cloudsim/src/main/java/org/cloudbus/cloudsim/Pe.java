@@ -8,6 +8,10 @@
 
 package org.cloudbus.cloudsim;
 
+import java.io.IOException;
+
+import org.cloudbus.cloudsim.core.CheckpointInput;
+import org.cloudbus.cloudsim.core.CheckpointOutput;
 import org.cloudbus.cloudsim.provisioners.PeProvisioner;
 
 /**
@@ -173,4 +177,28 @@ public class Pe {
 		return peProvisioner;
 	}
 
+	/**
+	 * Saves the state of the PE in a checkpoint of the simulation: its status and the state of its
+	 * provisioner.
+	 * 
+	 * @param out the checkpoint stream
+	 * @throws IOException if the state can't be written
+	 * @see org.cloudbus.cloudsim.core.CloudSim#saveCheckpoint(String)
+	 */
+	public void saveState(CheckpointOutput out) throws IOException {
+		out.writeInt(getStatus());
+		getPeProvisioner().saveState(out);
+	}
+
+	/**
+	 * Restores the state of the PE saved by {@link #saveState(CheckpointOutput)}.
+	 * 
+	 * @param in the checkpoint stream
+	 * @throws IOException if the state can't be read
+	 */
+	public void restoreState(CheckpointInput in) throws IOException {
+		setStatus(in.readInt());
+		getPeProvisioner().restoreState(in);
+	}
+
 }
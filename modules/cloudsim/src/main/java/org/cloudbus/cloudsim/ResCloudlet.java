@@ -8,6 +8,10 @@
 
 package org.cloudbus.cloudsim;
 
+import java.io.IOException;
+
+import org.cloudbus.cloudsim.core.CheckpointInput;
+import org.cloudbus.cloudsim.core.CheckpointOutput;
 import org.cloudbus.cloudsim.core.CloudSim;
 
 /**
@@ -128,6 +132,33 @@ public class ResCloudlet {
 		init();
 	}
 
+	/**
+	 * Restores a ResCloudlet saved by {@link #saveState(CheckpointOutput)} in a checkpoint of the
+	 * simulation. Unlike the other constructors, it doesn't change the cloudlet, whose state is
+	 * restored separately.
+	 * 
+	 * @param cloudlet the cloudlet of the saved ResCloudlet
+	 * @param in the checkpoint stream
+	 * @throws IOException if the state can't be read
+	 */
+	public ResCloudlet(Cloudlet cloudlet, CheckpointInput in) throws IOException {
+		this.cloudlet = cloudlet;
+		startTime = in.readLong();
+		duration = in.readInt();
+		reservId = in.readInt();
+		pesNumber = in.readInt();
+		arrivalTime = in.readDouble();
+		finishedTime = in.readDouble();
+		cloudletFinishedSoFar = in.readLong();
+		startExecTime = in.readDouble();
+		totalCompletionTime = in.readDouble();
+		machineId = in.readInt();
+		peId = in.readInt();
+		machineArrayId = in.readIntArray();
+		peArrayId = in.readIntArray();
+		index = in.readInt();
+	}
+
 	/**
 	 * Gets the Cloudlet or reservation start time.
 	 * 
@@ -559,4 +590,28 @@ public class ResCloudlet {
 		return getUserId() + "-" + getCloudletId();
 	}
 
+	/**
+	 * Saves the state of the ResCloudlet in a checkpoint of the simulation. It is restored with
+	 * {@link #ResCloudlet(Cloudlet, CheckpointInput)}.
+	 * 
+	 * @param out the checkpoint stream
+	 * @throws IOException if the state can't be written
+	 */
+	public void saveState(CheckpointOutput out) throws IOException {
+		out.writeLong(startTime);
+		out.writeInt(duration);
+		out.writeInt(reservId);
+		out.writeInt(pesNumber);
+		out.writeDouble(arrivalTime);
+		out.writeDouble(finishedTime);
+		out.writeLong(cloudletFinishedSoFar);
+		out.writeDouble(startExecTime);
+		out.writeDouble(totalCompletionTime);
+		out.writeInt(machineId);
+		out.writeInt(peId);
+		out.writeIntArray(machineArrayId);
+		out.writeIntArray(peArrayId);
+		out.writeInt(index);
+	}
+
 }
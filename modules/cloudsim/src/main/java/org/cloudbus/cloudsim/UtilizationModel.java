@@ -8,6 +8,11 @@
 
 package org.cloudbus.cloudsim;
 
+import java.io.IOException;
+
+import org.cloudbus.cloudsim.core.CheckpointInput;
+import org.cloudbus.cloudsim.core.CheckpointOutput;
+
 /**
  * The UtilizationModel interface needs to be implemented in order to provide a fine-grained control
  * over resource usage by a Cloudlet.
@@ -28,4 +33,24 @@ public interface UtilizationModel {
 	 */
 	double getUtilization(double time);
 
+	/**
+	 * Saves the state of the model in a checkpoint of the simulation. The default implementation
+	 * saves nothing, for the models whose utilization only depends on the time.
+	 * 
+	 * @param out the checkpoint stream
+	 * @throws IOException if the state can't be written
+	 * @see org.cloudbus.cloudsim.core.CloudSim#saveCheckpoint(String)
+	 */
+	default void saveState(CheckpointOutput out) throws IOException {
+	}
+
+	/**
+	 * Restores the state of the model saved by {@link #saveState(CheckpointOutput)}.
+	 * 
+	 * @param in the checkpoint stream
+	 * @throws IOException if the state can't be read
+	 */
+	default void restoreState(CheckpointInput in) throws IOException {
+	}
+
 }
\ No newline at end of file
@@ -1,21 +1,26 @@
 package org.cloudbus.cloudsim;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
 
+import org.cloudbus.cloudsim.util.UtilizationInterpolationTable;
+import org.cloudbus.cloudsim.util.UtilizationTrace;
+import org.cloudbus.cloudsim.util.UtilizationTraceCache;
+
 /**
  * Defines the resource utilization model based on 
  * a <a href="https://www.planet-lab.org">PlanetLab</a>
- * datacenter trace file.
+ * datacenter trace file. The trace is read through the {@link UtilizationTraceCache#getDefault()
+ * default trace cache}, so that the models of the same trace file share one copy of it.
  */
 public class UtilizationModelPlanetLabInMemory implements UtilizationModel {
-	
 	/** The scheduling interval. */
 	private double schedulingInterval;
 
-	/** The data (5 min * 288 = 24 hours). */
-	private final double[] data; 
+	/** The data (5 min * 288 = 24 hours), without the last sample, which repeats the one before. */
+	private final UtilizationTrace trace;
+
+	/** The interpolation table of the trace for the scheduling interval. */
+	private UtilizationInterpolationTable table;
 	
 	/**
 	 * Instantiates a new PlanetLab resource utilization model from a trace file.
@@ -28,15 +33,7 @@ public class UtilizationModelPlanetLabInMemory implements UtilizationModel {
 	public UtilizationModelPlanetLabInMemory(String inputPath, double schedulingInterval)
 			throws NumberFormatException,
 			IOException {
-		data = new double[289];
-		setSchedulingInterval(schedulingInterval);
-		BufferedReader input = new BufferedReader(new FileReader(inputPath));
-		int n = data.length;
-		for (int i = 0; i < n - 1; i++) {
-			data[i] = Integer.valueOf(input.readLine()) / 100.0;
-		}
-		data[n - 1] = data[n - 2];
-		input.close();
+		this(inputPath, schedulingInterval, 289);
 	}
 	
 	/**
@@ -51,30 +48,13 @@ public class UtilizationModelPlanetLabInMemory implements UtilizationModel {
 	public UtilizationModelPlanetLabInMemory(String inputPath, double schedulingInterval, int dataSamples)
 			throws NumberFormatException,
 			IOException {
+		trace = UtilizationTraceCache.getDefault().getTrace(inputPath, dataSamples - 1);
 		setSchedulingInterval(schedulingInterval);
-		data = new double[dataSamples];
-		BufferedReader input = new BufferedReader(new FileReader(inputPath));
-		int n = data.length;
-		for (int i = 0; i < n - 1; i++) {
-			data[i] = Integer.valueOf(input.readLine()) / 100.0;
-		}
-		data[n - 1] = data[n - 2];
-		input.close();
 	}
 
 	@Override
 	public double getUtilization(double time) {
-		if (time % getSchedulingInterval() == 0) {
-			return data[(int) time / (int) getSchedulingInterval()];
-		}
-		int time1 = (int) Math.floor(time / getSchedulingInterval());
-		int time2 = (int) Math.ceil(time / getSchedulingInterval());
-		double utilization1 = data[time1];
-		double utilization2 = data[time2];
-		double delta = (utilization2 - utilization1) / ((time2 - time1) * getSchedulingInterval());
-		double utilization = utilization1 + delta * (time - time1 * getSchedulingInterval());
-		return utilization;
-
+		return table.getUtilization(time);
 	}
 
 	/**
@@ -84,6 +64,7 @@ public class UtilizationModelPlanetLabInMemory implements UtilizationModel {
 	 */
 	public void setSchedulingInterval(double schedulingInterval) {
 		this.schedulingInterval = schedulingInterval;
+		table = trace.getInterpolationTable(schedulingInterval);
 	}
 
 	/**
@@ -95,7 +76,17 @@ public class UtilizationModelPlanetLabInMemory implements UtilizationModel {
 		return schedulingInterval;
 	}
 	
+	/**
+	 * Gets a copy of the data. As the trace is shared with the other models of the same trace
+	 * file, changing the copy does not change the model.
+	 * 
+	 * @return the utilization of each sample
+	 */
 	public double[] getData(){
+		double[] data = new double[table.getNumberOfSamples()];
+		for (int i = 0; i < data.length; i++) {
+			data[i] = table.getSample(i);
+		}
 		return data;
 	}
 }
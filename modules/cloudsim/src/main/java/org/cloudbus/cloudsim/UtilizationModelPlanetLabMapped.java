@@ -0,0 +1,116 @@
+package org.cloudbus.cloudsim;
+
+import org.cloudbus.cloudsim.util.PlanetLabTraceFile;
+
+/**
+ * Defines the resource utilization model based on
+ * a <a href="https://www.planet-lab.org">PlanetLab</a>
+ * datacenter trace read from a memory-mapped {@link PlanetLabTraceFile}. It gives the same
+ * utilization as a {@link UtilizationModelPlanetLabInMemory} reading the text file the trace
+ * was converted from, without keeping a copy of the trace: all the models of a trace file
+ * share its mapped pages.
+ *
+ * @since CloudSim Toolkit 4.0
+ */
+public class UtilizationModelPlanetLabMapped implements UtilizationModel {
+
+	/** The scheduling interval. */
+	private double schedulingInterval;
+
+	/** The trace file. */
+	private final PlanetLabTraceFile traceFile;
+
+	/** The index of the trace in the trace file. */
+	private final int trace;
+
+	/**
+	 * Instantiates a new PlanetLab resource utilization model from a trace of a trace file.
+	 *
+	 * @param traceFile the trace file
+	 * @param trace the index of the trace in the trace file
+	 * @param schedulingInterval the scheduling interval
+	 */
+	public UtilizationModelPlanetLabMapped(PlanetLabTraceFile traceFile, int trace,
+			double schedulingInterval) {
+		if (trace < 0 || trace >= traceFile.getNumberOfTraces()) {
+			throw new IllegalArgumentException("The trace file has no trace " + trace);
+		}
+		this.traceFile = traceFile;
+		this.trace = trace;
+		setSchedulingInterval(schedulingInterval);
+	}
+
+	@Override
+	public double getUtilization(double time) {
+		// between two samples, the position of the time gives the segment without the remainder,
+		// floor and ceil below; the slope is computed here, to keep the trace out of the heap
+		double position = time / getSchedulingInterval();
+		int sample = (int) position;
+		if (sample != position && position > 0 && sample < traceFile.getNumberOfSamples()) {
+			double utilization1 = getData(sample);
+			double delta = (getData(sample + 1) - utilization1) / getSchedulingInterval();
+			return utilization1 + delta * (time - sample * getSchedulingInterval());
+		}
+		if (time % getSchedulingInterval() == 0) {
+			return getData((int) time / (int) getSchedulingInterval());
+		}
+		int time1 = (int) Math.floor(time / getSchedulingInterval());
+		int time2 = (int) Math.ceil(time / getSchedulingInterval());
+		double utilization1 = getData(time1);
+		double utilization2 = getData(time2);
+		double delta = (utilization2 - utilization1) / ((time2 - time1) * getSchedulingInterval());
+		double utilization = utilization1 + delta * (time - time1 * getSchedulingInterval());
+		return utilization;
+	}
+
+	/**
+	 * Gets a sample of the trace as a utilization. As in {@link UtilizationModelPlanetLabInMemory},
+	 * the trace has one more sample than the file, repeating the last one.
+	 *
+	 * @param index the index of the sample
+	 * @return the utilization
+	 */
+	private double getData(int index) {
+		if (index == traceFile.getNumberOfSamples()) {
+			index--;
+		}
+		return traceFile.getSample(trace, index) / 100.0;
+	}
+
+	/**
+	 * Sets the scheduling interval.
+	 *
+	 * @param schedulingInterval the new scheduling interval
+	 */
+	public void setSchedulingInterval(double schedulingInterval) {
+		this.schedulingInterval = schedulingInterval;
+	}
+
+	/**
+	 * Gets the scheduling interval.
+	 *
+	 * @return the scheduling interval
+	 */
+	public double getSchedulingInterval() {
+		return schedulingInterval;
+	}
+
+	/**
+	 * Gets the trace file.
+	 *
+	 * @return the trace file
+	 */
+	public PlanetLabTraceFile getTraceFile() {
+		return traceFile;
+	}
+
+	/**
+	 * Gets the index of the trace in the trace file.
+	 *
+	 * @return the index of the trace
+	 */
+	public int getTrace() {
+		return trace;
+	}
+
+}
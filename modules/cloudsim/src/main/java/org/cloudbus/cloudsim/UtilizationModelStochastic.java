@@ -8,14 +8,20 @@
 
 package org.cloudbus.cloudsim;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Random;
 
+import org.cloudbus.cloudsim.core.CheckpointInput;
+import org.cloudbus.cloudsim.core.CheckpointOutput;
+
 /**
  * Implements a model, according to which a Cloudlet generates
  * random resource utilization every time frame.
@@ -128,4 +134,43 @@ public class UtilizationModelStochastic implements UtilizationModel {
 		return randomGenerator;
 	}
 
+	/**
+	 * {@inheritDoc} The model saves its history and the state of its random generator, so that
+	 * the restored model gives the same utilization as the saved one at any time.
+	 */
+	@Override
+	public void saveState(CheckpointOutput out) throws IOException {
+		out.writeInt(getHistory().size());
+		for (Map.Entry<Double, Double> entry : getHistory().entrySet()) {
+			out.writeDouble(entry.getKey());
+			out.writeDouble(entry.getValue());
+		}
+		// the state of a Random is only available in its serialized form
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream oos = new ObjectOutputStream(bytes);
+		oos.writeObject(getRandomGenerator());
+		oos.close();
+		out.writeInt(bytes.size());
+		bytes.writeTo(out);
+	}
+
+	@Override
+	public void restoreState(CheckpointInput in) throws IOException {
+		Map<Double, Double> history = new HashMap<Double, Double>();
+		for (int i = in.readInt(); i > 0; i--) {
+			history.put(in.readDouble(), in.readDouble());
+		}
+		setHistory(history);
+		byte[] bytes = new byte[in.readInt()];
+		in.readFully(bytes);
+		ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes));
+		try {
+			setRandomGenerator((Random) ois.readObject());
+		} catch (ClassNotFoundException e) {
+			throw new IOException(e);
+		} finally {
+			ois.close();
+		}
+	}
+
 }
@@ -7,10 +7,14 @@
 
 package org.cloudbus.cloudsim;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 
+import org.cloudbus.cloudsim.core.CheckpointInput;
+import org.cloudbus.cloudsim.core.CheckpointOutput;
+
 /**
  * Represents a Virtual Machine (VM) that runs inside a Host, sharing a hostList with other VMs. It processes
  * cloudlets. This processing happens according to a policy, defined by the CloudletScheduler. Each
@@ -615,4 +619,61 @@ public class Vm {
 		getStateHistory().add(newState);
 	}
 
+	/**
+	 * Saves the state of the VM in a checkpoint of the simulation: its capacities, its allocated
+	 * resources, its state history and the state of its cloudlet scheduler. The host of the VM is
+	 * restored by the host itself.
+	 * 
+	 * @param out the checkpoint stream
+	 * @throws IOException if the state can't be written
+	 * @see org.cloudbus.cloudsim.core.CloudSim#saveCheckpoint(String)
+	 */
+	public void saveState(CheckpointOutput out) throws IOException {
+		out.writeLong(getSize());
+		out.writeDouble(getMips());
+		out.writeInt(getNumberOfPes());
+		out.writeInt(getRam());
+		out.writeLong(getBw());
+		out.writeBoolean(isInMigration());
+		out.writeLong(getCurrentAllocatedSize());
+		out.writeInt(getCurrentAllocatedRam());
+		out.writeLong(getCurrentAllocatedBw());
+		out.writeDoubleList(getCurrentAllocatedMips());
+		out.writeBoolean(isBeingInstantiated());
+		out.writeInt(getStateHistory().size());
+		for (VmStateHistoryEntry entry : getStateHistory()) {
+			out.writeDouble(entry.getTime());
+			out.writeDouble(entry.getAllocatedMips());
+			out.writeDouble(entry.getRequestedMips());
+			out.writeBoolean(entry.isInMigration());
+		}
+		getCloudletScheduler().saveState(out);
+	}
+
+	/**
+	 * Restores the state of the VM saved by {@link #saveState(CheckpointOutput)}.
+	 * 
+	 * @param in the checkpoint stream
+	 * @throws IOException if the state can't be read
+	 */
+	public void restoreState(CheckpointInput in) throws IOException {
+		setSize(in.readLong());
+		setMips(in.readDouble());
+		setNumberOfPes(in.readInt());
+		setRam(in.readInt());
+		setBw(in.readLong());
+		setInMigration(in.readBoolean());
+		setCurrentAllocatedSize(in.readLong());
+		setCurrentAllocatedRam(in.readInt());
+		setCurrentAllocatedBw(in.readLong());
+		setCurrentAllocatedMips(in.readDoubleList());
+		setBeingInstantiated(in.readBoolean());
+		getStateHistory().clear();
+		for (int i = in.readInt(); i > 0; i--) {
+			getStateHistory().add(new VmStateHistoryEntry(in.readDouble(), in.readDouble(), in.readDouble(),
+					in.readBoolean()));
+		}
+		getCloudletScheduler().restoreState(in);
+	}
+
 }
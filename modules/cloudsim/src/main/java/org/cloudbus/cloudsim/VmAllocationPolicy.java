@@ -8,9 +8,13 @@
 
 package org.cloudbus.cloudsim;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 
+import org.cloudbus.cloudsim.core.CheckpointInput;
+import org.cloudbus.cloudsim.core.CheckpointOutput;
+
 /**
  * VmAllocationPolicy is an abstract class that represents the provisioning policy of hosts to
  * virtual machines in a Datacenter. It allocates hosts for placing VMs. 
@@ -62,16 +66,26 @@ public abstract class VmAllocationPolicy {
 	 * Optimize allocation of the VMs according to current utilization.
 	 * 
 	 * @param vmList the vm list
-	 * @return the array list< hash map< string, object>>
-         * 
-         * @todo It returns a list of maps, where each map key is a string 
-         * and stores an object. What in fact are the keys and values of this
-         * Map? Neither this class or its subclasses implement the method
-         * or have clear documentation. The only sublcass is the {@link VmAllocationPolicySimple}. 
-         * 
+	 * @return the migration map, a list of maps where the "vm" key is a VM to migrate and
+	 *         the "host" key its destination host, or null if there is no migration
+	 * @see #planMigrations(List)
+	 * @see MigrationPlan#toMigrationMap()
 	 */
 	public abstract List<Map<String, Object>> optimizeAllocation(List<? extends Vm> vmList);
 
+	/**
+	 * Optimize allocation of the VMs according to current utilization, returning the migrations
+	 * as a plan. The default implementation converts the migration map returned by
+	 * {@link #optimizeAllocation(List)}; policies that plan migrations should override it and
+	 * implement {@link #optimizeAllocation(List)} with {@link MigrationPlan#toMigrationMap()}.
+	 *
+	 * @param vmList the vm list
+	 * @return the migrations, never null
+	 */
+	public MigrationPlan<? extends Vm, ? extends Host> planMigrations(List<? extends Vm> vmList) {
+		return MigrationPlan.<Vm, Host> fromMigrationMap(optimizeAllocation(vmList));
+	}
+
 	/**
 	 * Releases the host used by a VM.
 	 * 
@@ -103,6 +117,61 @@ public abstract class VmAllocationPolicy {
 	 */
 	public abstract Host getHost(int vmId, int userId);
 
+	/**
+	 * Saves the state of the policy in a checkpoint of the simulation. The policies that keep some
+	 * state of their own override this method and {@link #restoreState(CheckpointInput)}; the
+	 * others can't be saved, and may be replaced once the simulation is restored instead.
+	 * 
+	 * @param out the checkpoint stream
+	 * @throws IOException if the state can't be written
+	 * @throws UnsupportedOperationException if the policy can't be saved
+	 * @see org.cloudbus.cloudsim.core.CloudSim#saveCheckpoint(String)
+	 */
+	public void saveState(CheckpointOutput out) throws IOException {
+		throw new UnsupportedOperationException(getClass().getSimpleName() + " can't be saved in a checkpoint.");
+	}
+
+	/**
+	 * Restores the state of the policy saved by {@link #saveState(CheckpointOutput)}.
+	 * 
+	 * @param in the checkpoint stream
+	 * @throws IOException if the state can't be read
+	 * @throws UnsupportedOperationException if the policy can't be restored
+	 */
+	public void restoreState(CheckpointInput in) throws IOException {
+		throw new UnsupportedOperationException(getClass().getSimpleName() + " can't be restored from a checkpoint.");
+	}
+
+	/**
+	 * Saves a table of the hosts of the VMs, as the positions of the hosts in the host list.
+	 * 
+	 * @param vmTable the table, each key being the uid of a VM
+	 * @param out the checkpoint stream
+	 * @throws IOException if the table can't be written
+	 */
+	protected void saveVmTable(Map<String, Host> vmTable, CheckpointOutput out) throws IOException {
+		out.writeInt(vmTable.size());
+		for (Map.Entry<String, Host> entry : vmTable.entrySet()) {
+			out.writeUTF(entry.getKey());
+			out.writeInt(getHostList().indexOf(entry.getValue()));
+		}
+	}
+
+	/**
+	 * Restores a table saved by {@link #saveVmTable(Map, CheckpointOutput)}.
+	 * 
+	 * @param vmTable the table to restore the hosts into
+	 * @param in the checkpoint stream
+	 * @throws IOException if the table can't be read
+	 */
+	protected void restoreVmTable(Map<String, Host> vmTable, CheckpointInput in) throws IOException {
+		vmTable.clear();
+		for (int i = in.readInt(); i > 0; i--) {
+			String uid = in.readUTF();
+			vmTable.put(uid, getHostList().get(in.readInt()));
+		}
+	}
+
 	/**
 	 * Sets the host list.
 	 * 
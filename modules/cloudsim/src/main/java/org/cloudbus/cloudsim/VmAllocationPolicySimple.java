@@ -8,11 +8,14 @@
 
 package org.cloudbus.cloudsim;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.cloudbus.cloudsim.core.CheckpointInput;
+import org.cloudbus.cloudsim.core.CheckpointOutput;
 import org.cloudbus.cloudsim.core.CloudSim;
 
 /**
@@ -207,4 +210,27 @@ public class VmAllocationPolicySimple extends VmAllocationPolicy {
 
 		return false;
 	}
+
+	@Override
+	public void saveState(CheckpointOutput out) throws IOException {
+		saveVmTable(getVmTable(), out);
+		out.writeInt(getUsedPes().size());
+		for (Map.Entry<String, Integer> entry : getUsedPes().entrySet()) {
+			out.writeUTF(entry.getKey());
+			out.writeInt(entry.getValue());
+		}
+		out.writeIntList(getFreePes());
+	}
+
+	@Override
+	public void restoreState(CheckpointInput in) throws IOException {
+		restoreVmTable(getVmTable(), in);
+		getUsedPes().clear();
+		for (int i = in.readInt(); i > 0; i--) {
+			String uid = in.readUTF();
+			getUsedPes().put(uid, in.readInt());
+		}
+		setFreePes(in.readIntList());
+	}
+
 }
@@ -7,12 +7,16 @@
 
 package org.cloudbus.cloudsim;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.cloudbus.cloudsim.core.CheckpointInput;
+import org.cloudbus.cloudsim.core.CheckpointOutput;
 import org.cloudbus.cloudsim.lists.PeList;
+import org.cloudbus.cloudsim.util.PeakSizeHashMap;
 
 /**
  * VmScheduler is an abstract class that represents the policy used by a Virtual Machine Monitor (VMM) 
@@ -65,7 +69,7 @@ public abstract class VmScheduler {
 	public VmScheduler(List<? extends Pe> pelist) {
 		setPeList(pelist);
 		setPeMap(new HashMap<String, List<Pe>>());
-		setMipsMap(new HashMap<String, List<Double>>());
+		setMipsMap(new PeakSizeHashMap<String, List<Double>>());
 		setAvailableMips(PeList.getTotalMips(getPeList()));
 		setVmsMigratingIn(new ArrayList<String>());
 		setVmsMigratingOut(new ArrayList<String>());
@@ -297,4 +301,110 @@ public abstract class VmScheduler {
 		this.peMap = peMap;
 	}
 
+	/**
+	 * Saves the state of the scheduler in a checkpoint of the simulation: the PEs and MIPS allocated
+	 * to each VM, the available MIPS and the migrating VMs. Subclasses keeping some state of their
+	 * own override this method, calling it first, and {@link #restoreState(CheckpointInput)} along
+	 * with it.
+	 * 
+	 * @param out the checkpoint stream
+	 * @throws IOException if the state can't be written
+	 * @see org.cloudbus.cloudsim.core.CloudSim#saveCheckpoint(String)
+	 */
+	public void saveState(CheckpointOutput out) throws IOException {
+		savePeMap(getPeMap(), out);
+		saveMipsMap(getMipsMap(), out);
+		out.writeDouble(getAvailableMips());
+		out.writeStringList(getVmsMigratingIn());
+		out.writeStringList(getVmsMigratingOut());
+	}
+
+	/**
+	 * Restores the state of the scheduler saved by {@link #saveState(CheckpointOutput)}.
+	 * 
+	 * @param in the checkpoint stream
+	 * @throws IOException if the state can't be read
+	 */
+	public void restoreState(CheckpointInput in) throws IOException {
+		setPeMap(restorePeMap(in));
+		setMipsMap(restoreMipsMap(in));
+		setAvailableMips(in.readDouble());
+		setVmsMigratingIn(in.readStringList());
+		setVmsMigratingOut(in.readStringList());
+	}
+
+	/**
+	 * Saves a map from VM uids to PEs of the host, by the ids of the PEs.
+	 * 
+	 * @param peMap the map
+	 * @param out the checkpoint stream
+	 * @throws IOException if the map can't be written
+	 */
+	protected void savePeMap(Map<String, List<Pe>> peMap, CheckpointOutput out) throws IOException {
+		out.writeInt(peMap.size());
+		for (Map.Entry<String, List<Pe>> entry : peMap.entrySet()) {
+			out.writeUTF(entry.getKey());
+			out.writeInt(entry.getValue().size());
+			for (Pe pe : entry.getValue()) {
+				out.writeInt(pe.getId());
+			}
+		}
+	}
+
+	/**
+	 * Restores a map saved by {@link #savePeMap(Map, CheckpointOutput)}, finding the PEs by their
+	 * ids among the PEs of the host.
+	 * 
+	 * @param in the checkpoint stream
+	 * @return the map
+	 * @throws IOException if the map can't be read
+	 */
+	protected Map<String, List<Pe>> restorePeMap(CheckpointInput in) throws IOException {
+		Map<String, List<Pe>> peMap = new HashMap<String, List<Pe>>();
+		for (int i = in.readInt(); i > 0; i--) {
+			String vmUid = in.readUTF();
+			List<Pe> pes = new ArrayList<Pe>();
+			for (int j = in.readInt(); j > 0; j--) {
+				pes.add(PeList.getById(getPeList(), in.readInt()));
+			}
+			peMap.put(vmUid, pes);
+		}
+		return peMap;
+	}
+
+	/**
+	 * Saves a map from VM uids to MIPS, in its iteration order, along with its peak size if it is a
+	 * {@link PeakSizeHashMap}.
+	 * 
+	 * @param mipsMap the map
+	 * @param out the checkpoint stream
+	 * @throws IOException if the map can't be written
+	 */
+	protected static void saveMipsMap(Map<String, List<Double>> mipsMap, CheckpointOutput out)
+			throws IOException {
+		out.writeInt(mipsMap instanceof PeakSizeHashMap ? ((PeakSizeHashMap<?, ?>) mipsMap).getPeakSize()
+				: mipsMap.size());
+		out.writeInt(mipsMap.size());
+		for (Map.Entry<String, List<Double>> entry : mipsMap.entrySet()) {
+			out.writeUTF(entry.getKey());
+			out.writeDoubleList(entry.getValue());
+		}
+	}
+
+	/**
+	 * Restores a map saved by {@link #saveMipsMap(Map, CheckpointOutput)}. The map has the capacity
+	 * of the saved one, so that it iterates over its entries in the same order.
+	 * 
+	 * @param in the checkpoint stream
+	 * @return the map
+	 * @throws IOException if the map can't be read
+	 */
+	protected static Map<String, List<Double>> restoreMipsMap(CheckpointInput in) throws IOException {
+		Map<String, List<Double>> mipsMap = new PeakSizeHashMap<String, List<Double>>(in.readInt());
+		for (int i = in.readInt(); i > 0; i--) {
+			mipsMap.put(in.readUTF(), in.readDoubleList());
+		}
+		return mipsMap;
+	}
+
 }
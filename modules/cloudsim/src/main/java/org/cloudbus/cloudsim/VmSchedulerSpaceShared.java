@@ -8,12 +8,17 @@
 
 package org.cloudbus.cloudsim;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
+import org.cloudbus.cloudsim.core.CheckpointInput;
+import org.cloudbus.cloudsim.core.CheckpointOutput;
+import org.cloudbus.cloudsim.lists.PeList;
+
 /**
  * VmSchedulerSpaceShared is a VMM allocation policy that allocates one or more PEs from a host to a 
  * Virtual Machine Monitor (VMM), and doesn't allow sharing of PEs. 
@@ -130,4 +135,25 @@ public class VmSchedulerSpaceShared extends VmScheduler {
 		return freePes;
 	}
 
+	@Override
+	public void saveState(CheckpointOutput out) throws IOException {
+		super.saveState(out);
+		savePeMap(getPeAllocationMap(), out);
+		out.writeInt(getFreePes().size());
+		for (Pe pe : getFreePes()) {
+			out.writeInt(pe.getId());
+		}
+	}
+
+	@Override
+	public void restoreState(CheckpointInput in) throws IOException {
+		super.restoreState(in);
+		setPeAllocationMap(restorePeMap(in));
+		List<Pe> freePes = new ArrayList<Pe>();
+		for (int i = in.readInt(); i > 0; i--) {
+			freePes.add(PeList.getById(getPeList(), in.readInt()));
+		}
+		setFreePes(freePes);
+	}
+
 }
@@ -7,15 +7,18 @@
 
 package org.cloudbus.cloudsim;
 
+import java.io.IOException;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 
+import org.cloudbus.cloudsim.core.CheckpointInput;
+import org.cloudbus.cloudsim.core.CheckpointOutput;
 import org.cloudbus.cloudsim.lists.PeList;
 import org.cloudbus.cloudsim.provisioners.PeProvisioner;
+import org.cloudbus.cloudsim.util.PeakSizeHashMap;
 
 /**
  * VmSchedulerTimeShared is a Virtual Machine Monitor (VMM) allocation policy that allocates one or more PEs 
@@ -46,7 +49,7 @@ public class VmSchedulerTimeShared extends VmScheduler {
 	 */
 	public VmSchedulerTimeShared(List<? extends Pe> pelist) {
 		super(pelist);
-		setMipsMapRequested(new HashMap<String, List<Double>>());
+		setMipsMapRequested(new PeakSizeHashMap<String, List<Double>>());
 	}
 
 	@Override
@@ -166,6 +169,8 @@ public class VmSchedulerTimeShared extends VmScheduler {
 
 	@Override
 	public void deallocatePesForVm(Vm vm) {
+		// a VM that leaves the host is no longer migrating out of it
+		getVmsMigratingOut().remove(vm.getUid());
 		getMipsMapRequested().remove(vm.getUid());
 		setPesInUse(0);
 		getMipsMap().clear();
@@ -242,4 +247,18 @@ public class VmSchedulerTimeShared extends VmScheduler {
 		this.mipsMapRequested = mipsMapRequested;
 	}
 
+	@Override
+	public void saveState(CheckpointOutput out) throws IOException {
+		super.saveState(out);
+		saveMipsMap(getMipsMapRequested(), out);
+		out.writeInt(getPesInUse());
+	}
+
+	@Override
+	public void restoreState(CheckpointInput in) throws IOException {
+		super.restoreState(in);
+		setMipsMapRequested(restoreMipsMap(in));
+		setPesInUse(in.readInt());
+	}
+
 }
@@ -2,9 +2,8 @@ package org.cloudbus.cloudsim.container.core;
 
 
 import org.cloudbus.cloudsim.container.lists.ContainerVmPeList;
+import org.cloudbus.cloudsim.lists.KeySort;
 
-import java.util.Collections;
-import java.util.Comparator;
 import java.util.List;
 
 /**
@@ -143,30 +142,12 @@ public class ContainerHostList {
      * @param hostList the vm list
      */
     public static <T extends ContainerHost> void sortByCpuUtilization(List<T> hostList) {
-        Collections.sort(hostList, new Comparator<T>() {
-
-            @Override
-            public int compare(T a, T b) throws ClassCastException {
-                Double aUtilization = ((PowerContainerHost) a).getUtilizationOfCpu();
-                Double bUtilization = ((PowerContainerHost) b).getUtilizationOfCpu();
-                return bUtilization.compareTo(aUtilization);
-            }
-        });
+        KeySort.sortDescending(hostList, host -> ((PowerContainerHost) host).getUtilizationOfCpu());
     }
 
     public static <T extends ContainerHost> void sortByCpuUtilizationDescending(List<T> hostList) {
-
-        Collections.sort(hostList, Collections.reverseOrder(new Comparator<T>() {
-
-            @Override
-            public int compare(T a, T b) throws ClassCastException {
-                Double aUtilization = ((PowerContainerHost) a).getUtilizationOfCpu();
-                Double bUtilization = ((PowerContainerHost) b).getUtilizationOfCpu();
-                return bUtilization.compareTo(aUtilization);
-            }
-        }));
-
-
+        // in fact in ascending order, as the reversed comparator it replaces
+        KeySort.sort(hostList, host -> ((PowerContainerHost) host).getUtilizationOfCpu());
     }
 
 }
@@ -2,9 +2,8 @@ package org.cloudbus.cloudsim.container.lists;
 
 import org.cloudbus.cloudsim.container.core.Container;
 import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.lists.KeySort;
 
-import java.util.Collections;
-import java.util.Comparator;
 import java.util.List;
 
 /**
@@ -19,15 +18,8 @@ public class PowerContainerList {
      * @param containerList the vm list
      */
     public static <T extends Container> void sortByCpuUtilization(List<T> containerList) {
-        Collections.sort(containerList, new Comparator<T>() {
-
-            @Override
-            public int compare(T a, T b) throws ClassCastException {
-                Double aUtilization = a.getTotalUtilizationOfCpuMips(CloudSim.clock());
-                Double bUtilization = b.getTotalUtilizationOfCpuMips(CloudSim.clock());
-                return bUtilization.compareTo(aUtilization);
-            }
-        });
+        final double time = CloudSim.clock();
+        KeySort.sortDescending(containerList, container -> container.getTotalUtilizationOfCpuMips(time));
     }
 
 }
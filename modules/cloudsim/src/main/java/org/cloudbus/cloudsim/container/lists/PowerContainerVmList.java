@@ -2,9 +2,8 @@ package org.cloudbus.cloudsim.container.lists;
 
 import org.cloudbus.cloudsim.container.core.ContainerVm;
 import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.lists.KeySort;
 
-import java.util.Collections;
-import java.util.Comparator;
 import java.util.List;
 
 /**
@@ -18,15 +17,8 @@ public class PowerContainerVmList extends ContainerVmList {
          * @param vmList the vm list
          */
         public static <T extends ContainerVm> void sortByCpuUtilization(List<T> vmList) {
-            Collections.sort(vmList, new Comparator<T>() {
-
-                @Override
-                public int compare(T a, T b) throws ClassCastException {
-                    Double aUtilization = a.getTotalUtilizationOfCpuMips(CloudSim.clock());
-                    Double bUtilization = b.getTotalUtilizationOfCpuMips(CloudSim.clock());
-                    return bUtilization.compareTo(aUtilization);
-                }
-            });
+            final double time = CloudSim.clock();
+            KeySort.sortDescending(vmList, vm -> vm.getTotalUtilizationOfCpuMips(time));
         }
 
     }
@@ -5,6 +5,7 @@ import org.cloudbus.cloudsim.container.vmSelectionPolicies.PowerContainerVmSelec
 import org.cloudbus.cloudsim.container.core.*;
 import org.cloudbus.cloudsim.container.lists.PowerContainerVmList;
 import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.MigrationPlan;
 import org.cloudbus.cloudsim.core.CloudSim;
 import org.cloudbus.cloudsim.util.ExecutionTimeMeasurer;
 
@@ -23,7 +24,7 @@ public abstract class PowerContainerVmAllocationPolicyMigrationAbstract extends
     /**
      * The saved allocation.
      */
-    private final List<Map<String, Object>> savedAllocation = new ArrayList<Map<String, Object>>();
+    private final MigrationPlan<ContainerVm, ContainerHost> savedAllocation = new MigrationPlan<ContainerVm, ContainerHost>();
 
     /**
      * The utilization history.
@@ -99,37 +100,39 @@ public abstract class PowerContainerVmAllocationPolicyMigrationAbstract extends
 
         Log.printLine("Reallocation of VMs from the over-utilized hosts:");
         ExecutionTimeMeasurer.start("optimizeAllocationVmReallocation");
-        List<Map<String, Object>> migrationMap = getNewVmPlacement(vmsToMigrate, new HashSet<ContainerHost>(
+        MigrationPlan<ContainerVm, PowerContainerHost> migrationPlan = getNewVmPlacement(vmsToMigrate, new HashSet<ContainerHost>(
                 overUtilizedHosts));
         getExecutionTimeHistoryVmReallocation().add(
                 ExecutionTimeMeasurer.end("optimizeAllocationVmReallocation"));
         Log.printLine();
 
-        migrationMap.addAll(getMigrationMapFromUnderUtilizedHosts(overUtilizedHosts, migrationMap));
+        migrationPlan.addAll(getMigrationMapFromUnderUtilizedHosts(overUtilizedHosts, migrationPlan));
 
         restoreAllocation();
 
         getExecutionTimeHistoryTotal().add(ExecutionTimeMeasurer.end("optimizeAllocationTotal"));
 
-        return migrationMap;
+        return migrationPlan.toMigrationMap();
     }
 
     /**
      * Gets the migration map from under utilized hosts.
      *
      * @param overUtilizedHosts the over utilized hosts
-     * @return the migration map from under utilized hosts
+     * @param previousPlan the migrations from the over utilized hosts
+     * @return the migrations from under utilized hosts
      */
-    protected List<Map<String, Object>> getMigrationMapFromUnderUtilizedHosts(
-            List<PowerContainerHostUtilizationHistory> overUtilizedHosts, List<Map<String, Object>> previouseMap) {
-        List<Map<String, Object>> migrationMap = new LinkedList<Map<String, Object>>();
+    protected MigrationPlan<ContainerVm, PowerContainerHost> getMigrationMapFromUnderUtilizedHosts(
+            List<PowerContainerHostUtilizationHistory> overUtilizedHosts,
+            MigrationPlan<ContainerVm, PowerContainerHost> previousPlan) {
+        MigrationPlan<ContainerVm, PowerContainerHost> migrationPlan = new MigrationPlan<ContainerVm, PowerContainerHost>();
         List<PowerContainerHost> switchedOffHosts = getSwitchedOffHosts();
 
         // over-utilized hosts + hosts that are selected to migrate VMs to from over-utilized hosts
         Set<PowerContainerHost> excludedHostsForFindingUnderUtilizedHost = new HashSet<>();
         excludedHostsForFindingUnderUtilizedHost.addAll(overUtilizedHosts);
         excludedHostsForFindingUnderUtilizedHost.addAll(switchedOffHosts);
-        excludedHostsForFindingUnderUtilizedHost.addAll(extractHostListFromMigrationMap(previouseMap));
+        excludedHostsForFindingUnderUtilizedHost.addAll(previousPlan.getHosts());
 
         // over-utilized + under-utilized hosts
         Set<PowerContainerHost> excludedHostsForFindingNewVmPlacement = new HashSet<>();
@@ -166,19 +169,19 @@ public abstract class PowerContainerVmAllocationPolicyMigrationAbstract extends
             }
             Log.printLine();
 
-            List<Map<String, Object>> newVmPlacement = getNewVmPlacementFromUnderUtilizedHost(
+            MigrationPlan<ContainerVm, PowerContainerHost> newVmPlacement = getNewVmPlacementFromUnderUtilizedHost(
                     vmsToMigrateFromUnderUtilizedHost,
                     excludedHostsForFindingNewVmPlacement);
 
-            excludedHostsForFindingUnderUtilizedHost.addAll(extractHostListFromMigrationMap(newVmPlacement));
+            excludedHostsForFindingUnderUtilizedHost.addAll(newVmPlacement.getHosts());
 
-            migrationMap.addAll(newVmPlacement);
+            migrationPlan.addAll(newVmPlacement);
             Log.printLine();
         }
 
         excludedHostsForFindingUnderUtilizedHost.clear();
         excludedHostsForFindingNewVmPlacement.clear();
-        return migrationMap;
+        return migrationPlan;
     }
 
     /**
@@ -288,10 +291,10 @@ public abstract class PowerContainerVmAllocationPolicyMigrationAbstract extends
      * @param excludedHosts the excluded hosts
      * @return the new vm placement
      */
-    protected List<Map<String, Object>> getNewVmPlacement(
+    protected MigrationPlan<ContainerVm, PowerContainerHost> getNewVmPlacement(
             List<? extends ContainerVm> vmsToMigrate,
             Set<? extends ContainerHost> excludedHosts) {
-        List<Map<String, Object>> migrationMap = new LinkedList<Map<String, Object>>();
+        MigrationPlan<ContainerVm, PowerContainerHost> migrationPlan = new MigrationPlan<ContainerVm, PowerContainerHost>();
         PowerContainerVmList.sortByCpuUtilization(vmsToMigrate);
         for (ContainerVm vm : vmsToMigrate) {
             PowerContainerHost allocatedHost = findHostForVm(vm, excludedHosts);
@@ -299,13 +302,10 @@ public abstract class PowerContainerVmAllocationPolicyMigrationAbstract extends
                 allocatedHost.containerVmCreate(vm);
                 Log.printConcatLine("VM #", vm.getId(), " allocated to host #", allocatedHost.getId());
 
-                Map<String, Object> migrate = new HashMap<String, Object>();
-                migrate.put("vm", vm);
-                migrate.put("host", allocatedHost);
-                migrationMap.add(migrate);
+                migrationPlan.add(vm, allocatedHost);
             }
         }
-        return migrationMap;
+        return migrationPlan;
     }
 
     /**
@@ -315,10 +315,10 @@ public abstract class PowerContainerVmAllocationPolicyMigrationAbstract extends
      * @param excludedHosts the excluded hosts
      * @return the new vm placement from under utilized host
      */
-    protected List<Map<String, Object>> getNewVmPlacementFromUnderUtilizedHost(
+    protected MigrationPlan<ContainerVm, PowerContainerHost> getNewVmPlacementFromUnderUtilizedHost(
             List<? extends ContainerVm> vmsToMigrate,
             Set<? extends ContainerHost> excludedHosts) {
-        List<Map<String, Object>> migrationMap = new LinkedList<Map<String, Object>>();
+        MigrationPlan<ContainerVm, PowerContainerHost> migrationPlan = new MigrationPlan<ContainerVm, PowerContainerHost>();
         PowerContainerVmList.sortByCpuUtilization(vmsToMigrate);
         for (ContainerVm vm : vmsToMigrate) {
             PowerContainerHost allocatedHost = findHostForVm(vm, excludedHosts);
@@ -326,20 +326,17 @@ public abstract class PowerContainerVmAllocationPolicyMigrationAbstract extends
                 allocatedHost.containerVmCreate(vm);
                 Log.printConcatLine("VM #", vm.getId(), " allocated to host #", allocatedHost.getId());
 
-                Map<String, Object> migrate = new HashMap<String, Object>();
-                migrate.put("vm", vm);
-                migrate.put("host", allocatedHost);
-                migrationMap.add(migrate);
+                migrationPlan.add(vm, allocatedHost);
             } else {
                 Log.printLine("Not all VMs can be reallocated from the host, reallocation cancelled");
-                for (Map<String, Object> map : migrationMap) {
-                    ((ContainerHost) map.get("host")).containerVmDestroy((ContainerVm) map.get("vm"));
+                for (int i = 0; i < migrationPlan.size(); i++) {
+                    migrationPlan.getHost(i).containerVmDestroy(migrationPlan.getVm(i));
                 }
-                migrationMap.clear();
+                migrationPlan.clear();
                 break;
             }
         }
-        return migrationMap;
+        return migrationPlan;
     }
 
     /**
@@ -532,10 +529,7 @@ public abstract class PowerContainerVmAllocationPolicyMigrationAbstract extends
                 if (host.getVmsMigratingIn().contains(vm)) {
                     continue;
                 }
-                Map<String, Object> map = new HashMap<String, Object>();
-                map.put("host", host);
-                map.put("vm", vm);
-                getSavedAllocation().add(map);
+                getSavedAllocation().add(vm, host);
             }
         }
     }
@@ -548,9 +542,9 @@ public abstract class PowerContainerVmAllocationPolicyMigrationAbstract extends
             host.containerVmDestroyAll();
             host.reallocateMigratingInContainerVms();
         }
-        for (Map<String, Object> map : getSavedAllocation()) {
-            ContainerVm vm = (ContainerVm) map.get("vm");
-            PowerContainerHost host = (PowerContainerHost) map.get("host");
+        for (int i = 0; i < getSavedAllocation().size(); i++) {
+            ContainerVm vm = getSavedAllocation().getVm(i);
+            PowerContainerHost host = (PowerContainerHost) getSavedAllocation().getHost(i);
             if (!host.containerVmCreate(vm)) {
                 Log.printConcatLine("Couldn't restore VM #", vm.getId(), " on host #", host.getId());
                 System.exit(0);
@@ -614,9 +608,9 @@ public abstract class PowerContainerVmAllocationPolicyMigrationAbstract extends
     /**
      * Gets the saved allocation.
      *
-     * @return the saved allocation
+     * @return the saved allocation, each VM with its host
      */
-    protected List<Map<String, Object>> getSavedAllocation() {
+    protected MigrationPlan<ContainerVm, ContainerHost> getSavedAllocation() {
         return savedAllocation;
     }
 
@@ -14,6 +14,7 @@ import org.cloudbus.cloudsim.container.utils.IDs;
 import org.cloudbus.cloudsim.container.utils.RandomGen;
 import org.cloudbus.cloudsim.container.vmSelectionPolicies.PowerContainerVmSelectionPolicy;
 import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.MigrationPlan;
 import org.cloudbus.cloudsim.core.CloudSim;
 import org.cloudbus.cloudsim.util.ExecutionTimeMeasurer;
 
@@ -31,6 +32,10 @@ public abstract class PowerContainerVmAllocationPolicyMigrationAbstractContainer
      * The container selection policy.
      */
     private PowerContainerSelectionPolicy containerSelectionPolicy;
+    /**
+     * The saved allocation of the containers, each container with its VM.
+     */
+    private final MigrationPlan<Container, ContainerVm> savedContainerAllocation = new MigrationPlan<Container, ContainerVm>();
     protected int numberOfVmTypes;
     protected int[] vmPes;
     protected float[] vmRam;
@@ -137,7 +142,7 @@ public abstract class PowerContainerVmAllocationPolicyMigrationAbstractContainer
             }
             Log.printLine();
 
-            List<Map<String, Object>> newVmPlacement = getNewVmPlacementFromUnderUtilizedHost(
+            MigrationPlan<ContainerVm, PowerContainerHost> newVmPlacement = getNewVmPlacementFromUnderUtilizedHost(
                     vmsToMigrateFromUnderUtilizedHost,
                     excludedHostsForFindingNewContainerPlacement);
             //Sareh
@@ -147,9 +152,9 @@ public abstract class PowerContainerVmAllocationPolicyMigrationAbstractContainer
 
             }
 
-            excludedHostsForFindingUnderUtilizedHost.addAll(extractHostListFromMigrationMap(newVmPlacement));
+            excludedHostsForFindingUnderUtilizedHost.addAll(newVmPlacement.getHosts());
             //The migration mapp does not have a value for container since the whole vm would be migrated.
-            migrationMap.addAll(newVmPlacement);
+            migrationMap.addAll(newVmPlacement.toMigrationMap());
             Log.printLine();
         }
 
@@ -681,24 +686,26 @@ public abstract class PowerContainerVmAllocationPolicyMigrationAbstractContainer
     @Override
     protected void saveAllocation() {
         getSavedAllocation().clear();
+        getSavedContainerAllocation().clear();
         for (ContainerHost host : getContainerHostList()) {
             for (ContainerVm vm : host.getVmList()) {
                 if (host.getVmsMigratingIn().contains(vm)) {
                     continue;
                 }
+                boolean saved = false;
                 for (Container container : vm.getContainerList()) {
                     if (vm.getContainersMigratingIn().contains(container)) {
                         continue;
                     }
-                    Map<String, Object> map = new HashMap<String, Object>();
-                    map.put("host", host);
-                    map.put("vm", vm);
-                    map.put("container", container);
-                    getSavedAllocation().add(map);
+                    if (!saved) {
+                        getSavedAllocation().add(vm, host);
+                        saved = true;
+                    }
+                    getSavedContainerAllocation().add(container, vm);
                 }
             }
         }
-        Log.printLine(String.format("The length of the saved map is ....%d", getSavedAllocation().size()));
+        Log.printLine(String.format("The length of the saved map is ....%d", getSavedContainerAllocation().size()));
 
     }
 
@@ -716,10 +723,10 @@ public abstract class PowerContainerVmAllocationPolicyMigrationAbstractContainer
             host.containerVmDestroyAll();
             host.reallocateMigratingInContainerVms();
         }
-        for (Map<String, Object> map : getSavedAllocation()) {
-            PowerContainerVm vm = (PowerContainerVm) map.get("vm");
+        for (int i = 0; i < getSavedAllocation().size(); i++) {
+            PowerContainerVm vm = (PowerContainerVm) getSavedAllocation().getVm(i);
 
-            PowerContainerHost host = (PowerContainerHost) map.get("host");
+            PowerContainerHost host = (PowerContainerHost) getSavedAllocation().getHost(i);
             if (!host.getVmList().contains(vm)) {
                 if (!host.containerVmCreate(vm)) {
                     Log.printConcatLine("Couldn't restore VM #", vm.getId(), " on host #", host.getId());
@@ -732,31 +739,28 @@ public abstract class PowerContainerVmAllocationPolicyMigrationAbstractContainer
 //            vm.reallocateMigratingInContainers();
         }
 //        List<ContainerVm > restoredVms = new ArrayList<>();
-        for (Map<String, Object> map : getSavedAllocation()) {
-            PowerContainerVm vm = (PowerContainerVm) map.get("vm");
-            if (map.get("container") != null && map.containsKey("container")) {
-                Container container = (Container) map.get("container");
+        for (int i = 0; i < getSavedContainerAllocation().size(); i++) {
+            PowerContainerVm vm = (PowerContainerVm) getSavedContainerAllocation().getHost(i);
+            Container container = getSavedContainerAllocation().getVm(i);
 //                Log.print(container);
 
-                if (!vm.getContainerList().contains(container)) {
-                    if (!vm.containerCreate(container)) {
-                        Log.printConcatLine("Couldn't restore Container #", container.getId(), " on vm #", vm.getId());
-                        System.exit(0);
-                    }
-                } else {
-
-                    Log.print("The Container is in the VM already");
+            if (!vm.getContainerList().contains(container)) {
+                if (!vm.containerCreate(container)) {
+                    Log.printConcatLine("Couldn't restore Container #", container.getId(), " on vm #", vm.getId());
+                    System.exit(0);
                 }
+            } else {
 
-                if (container.getVm() == null) {
-                    Log.print("The Vm is null");
+                Log.print("The Container is in the VM already");
+            }
 
-                }
-                ((PowerContainerAllocationPolicy) getDatacenter().getContainerAllocationPolicy()).
-                        getContainerTable().put(container.getUid(), vm);
-//            container.setVm(vm);
+            if (container.getVm() == null) {
+                Log.print("The Vm is null");
 
             }
+            ((PowerContainerAllocationPolicy) getDatacenter().getContainerAllocationPolicy()).
+                    getContainerTable().put(container.getUid(), vm);
+//            container.setVm(vm);
         }
 
 
@@ -776,6 +780,15 @@ public abstract class PowerContainerVmAllocationPolicyMigrationAbstractContainer
 
     }
 
+    /**
+     * Gets the saved allocation of the containers.
+     *
+     * @return the saved allocation of the containers, each container with its VM
+     */
+    protected MigrationPlan<Container, ContainerVm> getSavedContainerAllocation() {
+        return savedContainerAllocation;
+    }
+
     public ContainerDatacenter getDatacenter() {
         return datacenter;
     }
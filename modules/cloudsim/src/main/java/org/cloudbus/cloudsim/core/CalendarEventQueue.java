@@ -0,0 +1,458 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A future event queue implemented as a calendar queue, as proposed in
+ * R. Brown, "Calendar Queues: A Fast O(1) Priority Queue Implementation for the
+ * Simulation Event Set Problem", Communications of the ACM, 31(10), 1988.
+ * <p>
+ * The time line is divided into "days" of a fixed {@link #width}, which are mapped
+ * to a circular array of buckets (the "year"). Each bucket keeps its events sorted.
+ * When the event times are evenly spread, adding and polling an event are O(1) on average.
+ * The number of buckets and their width are recomputed when the queue
+ * grows or shrinks by a factor of two.
+ * <p>
+ * The day of each event is computed once, when it is added, as an integer,
+ * so that floating point rounding can't deliver events out of order.
+ *
+ * @since CloudSim Toolkit 4.0
+ * @see EventQueue
+ */
+public class CalendarEventQueue implements EventQueue {
+
+	/** The minimum number of buckets. */
+	private static final int MIN_BUCKETS = 16;
+
+	/** The maximum number of events sampled to compute the bucket width. */
+	private static final int WIDTH_SAMPLES = 32;
+
+	/** Orders the nodes by event time, serial and insertion order. */
+	private static final Comparator<Node> NODE_ORDER = new Comparator<Node>() {
+
+		@Override
+		public int compare(Node n1, Node n2) {
+			return n1.isBefore(n2) ? -1 : (n2.isBefore(n1) ? 1 : 0);
+		}
+	};
+
+	/**
+	 * An entry of a bucket, holding an event and its ordering keys.
+	 */
+	private static final class Node {
+
+		final SimEvent event;
+
+		final double time;
+
+		final long serial;
+
+		final long sequence;
+
+		/** The day the event belongs to, according to the current bucket {@link #width}. */
+		long day;
+
+		Node next;
+
+		Node(SimEvent event, long sequence) {
+			this.event = event;
+			time = event.eventTime();
+			serial = event.getSerial();
+			this.sequence = sequence;
+		}
+
+		boolean isBefore(Node other) {
+			if (time != other.time) {
+				return time < other.time;
+			}
+			if (serial != other.serial) {
+				return serial < other.serial;
+			}
+			return sequence < other.sequence;
+		}
+	}
+
+	/** The buckets of the calendar, each one a sorted linked list of nodes. */
+	private Node[] buckets;
+
+	/** The width of each bucket (day), in simulation time. */
+	private double width;
+
+	/** The day currently being dequeued. */
+	private long currentDay;
+
+	/** The number of events in the queue. */
+	private int size;
+
+	/** A incremental number used for {@link SimEvent#serial} event attribute. */
+	private long serial = 0;
+
+	/** A incremental number that defines the insertion order of the events. */
+	private long sequence = 0;
+
+	/**
+	 * Creates a calendar queue with a default bucket width of 1.
+	 */
+	public CalendarEventQueue() {
+		this(1.0);
+	}
+
+	/**
+	 * Creates a calendar queue with a given initial bucket width.
+	 * The width is automatically adapted as events are added.
+	 *
+	 * @param initialWidth the initial width of the buckets
+	 */
+	public CalendarEventQueue(double initialWidth) {
+		if (!(initialWidth > 0) || Double.isInfinite(initialWidth)) {
+			throw new IllegalArgumentException("The bucket width should be positive, but is: " + initialWidth);
+		}
+		width = initialWidth;
+		buckets = new Node[MIN_BUCKETS];
+	}
+
+	@Override
+	public void addEvent(SimEvent newEvent) {
+		newEvent.setSerial(serial++);
+		insert(new Node(newEvent, sequence++));
+	}
+
+	@Override
+	public void addEventFirst(SimEvent newEvent) {
+		newEvent.setSerial(0);
+		insert(new Node(newEvent, sequence++));
+	}
+
+	@Override
+	public void addRestoredEvent(SimEvent event) {
+		serial = Math.max(serial, event.getSerial() + 1);
+		insert(new Node(event, sequence++));
+	}
+
+	@Override
+	public SimEvent peek() {
+		Node first = findFirst();
+		return first == null ? null : first.event;
+	}
+
+	@Override
+	public SimEvent poll() {
+		Node first = findFirst();
+		if (first == null) {
+			return null;
+		}
+		int index = bucketOf(first.day);
+		buckets[index] = first.next;
+		first.next = null;
+		size--;
+		shrinkIfNeeded();
+		return first.event;
+	}
+
+	@Override
+	public int pollAllAt(double time, List<SimEvent> batch) {
+		Node first = findFirst();
+		if (first == null || first.time != time) {
+			return 0;
+		}
+
+		// Events at the same time belong to the same day, so they are at the head of the same bucket
+		int index = bucketOf(first.day);
+		int count = 0;
+		Node n = first;
+		while (n != null && n.time == time) {
+			batch.add(n.event);
+			Node next = n.next;
+			n.next = null;
+			n = next;
+			count++;
+		}
+		buckets[index] = n;
+		size -= count;
+		shrinkIfNeeded();
+		return count;
+	}
+
+	@Override
+	public Iterator<SimEvent> iterator() {
+		return new Iterator<SimEvent>() {
+
+			private int bucket = -1;
+
+			private Node node = advance(null);
+
+			private Node advance(Node current) {
+				Node n = current == null ? null : current.next;
+				while (n == null && ++bucket < buckets.length) {
+					n = buckets[bucket];
+				}
+				return n;
+			}
+
+			@Override
+			public boolean hasNext() {
+				return node != null;
+			}
+
+			@Override
+			public SimEvent next() {
+				if (node == null) {
+					throw new NoSuchElementException();
+				}
+				Node current = node;
+				node = advance(current);
+				return current.event;
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException("remove");
+			}
+		};
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public boolean remove(SimEvent event) {
+		long day = dayOf(event.eventTime());
+		int index = bucketOf(day);
+		Node previous = null;
+		for (Node n = buckets[index]; n != null; previous = n, n = n.next) {
+			if (n.event == event) {
+				unlink(index, previous, n);
+				shrinkIfNeeded();
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public boolean removeAll(Collection<SimEvent> toRemove) {
+		if (toRemove.isEmpty() || size == 0) {
+			return false;
+		}
+		Set<SimEvent> set = Collections.newSetFromMap(new IdentityHashMap<SimEvent, Boolean>());
+		set.addAll(toRemove);
+
+		int previousSize = size;
+		for (int i = 0; i < buckets.length; i++) {
+			Node previous = null;
+			Node n = buckets[i];
+			while (n != null) {
+				Node next = n.next;
+				if (set.contains(n.event)) {
+					unlink(i, previous, n);
+				} else {
+					previous = n;
+				}
+				n = next;
+			}
+		}
+		shrinkIfNeeded();
+		return size < previousSize;
+	}
+
+	@Override
+	public void clear() {
+		Arrays.fill(buckets, null);
+		size = 0;
+		currentDay = 0;
+	}
+
+	/**
+	 * Gets the current width of the buckets.
+	 *
+	 * @return the bucket width
+	 */
+	public double getWidth() {
+		return width;
+	}
+
+	/**
+	 * Gets the current number of buckets.
+	 *
+	 * @return the number of buckets
+	 */
+	public int getNumberOfBuckets() {
+		return buckets.length;
+	}
+
+	/**
+	 * Inserts a node in its bucket, keeping the bucket sorted.
+	 *
+	 * @param node the node to insert
+	 */
+	private void insert(Node node) {
+		node.day = dayOf(node.time);
+		link(node);
+		if (size == 1 || node.day < currentDay) {
+			currentDay = node.day;
+		}
+		if (size > 2 * buckets.length) {
+			resize(buckets.length * 2);
+		}
+	}
+
+	/**
+	 * Links a node, whose {@link Node#day} is already computed, into its bucket.
+	 *
+	 * @param node the node to link
+	 */
+	private void link(Node node) {
+		int index = bucketOf(node.day);
+		Node n = buckets[index];
+		if (n == null || node.isBefore(n)) {
+			node.next = n;
+			buckets[index] = node;
+		} else {
+			while (n.next != null && !node.isBefore(n.next)) {
+				n = n.next;
+			}
+			node.next = n.next;
+			n.next = node;
+		}
+		size++;
+	}
+
+	/**
+	 * Unlinks a node from a bucket.
+	 */
+	private void unlink(int index, Node previous, Node node) {
+		if (previous == null) {
+			buckets[index] = node.next;
+		} else {
+			previous.next = node.next;
+		}
+		node.next = null;
+		size--;
+	}
+
+	/**
+	 * Finds the first node of the queue, updating the {@link #currentDay}.
+	 *
+	 * @return the first node or <tt>null</tt> if the queue is empty
+	 */
+	private Node findFirst() {
+		if (size == 0) {
+			return null;
+		}
+
+		// Looks for an event of the current day during one year
+		for (int i = 0; i < buckets.length; i++) {
+			Node head = buckets[bucketOf(currentDay)];
+			if (head != null && head.day == currentDay) {
+				return head;
+			}
+			currentDay++;
+		}
+
+		// All the events are more than one year away: direct search
+		Node first = null;
+		for (Node head : buckets) {
+			if (head != null && (first == null || head.isBefore(first))) {
+				first = head;
+			}
+		}
+		currentDay = first.day;
+		return first;
+	}
+
+	/**
+	 * Halves the number of buckets if the queue has become too sparse.
+	 */
+	private void shrinkIfNeeded() {
+		if (buckets.length > MIN_BUCKETS && size < buckets.length / 2) {
+			resize(buckets.length / 2);
+		}
+	}
+
+	/**
+	 * Redistributes all the events into a new number of buckets,
+	 * recomputing the bucket width from the separation of the first events.
+	 *
+	 * @param numberOfBuckets the new number of buckets
+	 */
+	private void resize(int numberOfBuckets) {
+		Node[] nodes = new Node[size];
+		int count = 0;
+		for (Node head : buckets) {
+			for (Node n = head; n != null; n = n.next) {
+				nodes[count++] = n;
+			}
+		}
+		Arrays.sort(nodes, NODE_ORDER);
+
+		// Average separation between distinct times of the first events
+		double gaps = 0;
+		int numberOfGaps = 0;
+		for (int i = 1; i < count && i < WIDTH_SAMPLES; i++) {
+			double gap = nodes[i].time - nodes[i - 1].time;
+			if (gap > 0) {
+				gaps += gap;
+				numberOfGaps++;
+			}
+		}
+		if (numberOfGaps > 0 && !Double.isInfinite(gaps)) {
+			width = 3 * gaps / numberOfGaps;
+		}
+
+		buckets = new Node[numberOfBuckets];
+		Node[] tails = new Node[numberOfBuckets];
+		for (int i = 0; i < count; i++) {
+			// The nodes are sorted, so they are just appended to the tail of their bucket
+			Node node = nodes[i];
+			node.day = dayOf(node.time);
+			node.next = null;
+			int index = bucketOf(node.day);
+			if (tails[index] == null) {
+				buckets[index] = node;
+			} else {
+				tails[index].next = node;
+			}
+			tails[index] = node;
+		}
+		currentDay = count > 0 ? nodes[0].day : 0;
+	}
+
+	/**
+	 * Gets the day a given time belongs to.
+	 *
+	 * @param time the time
+	 * @return the day
+	 */
+	private long dayOf(double time) {
+		return (long) Math.floor(time / width);
+	}
+
+	/**
+	 * Gets the index of the bucket holding the events of a given day.
+	 *
+	 * @param day the day
+	 * @return the bucket index
+	 */
+	private int bucketOf(long day) {
+		return (int) Math.floorMod(day, (long) buckets.length);
+	}
+
+}
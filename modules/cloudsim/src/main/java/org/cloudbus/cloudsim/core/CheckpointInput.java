@@ -0,0 +1,180 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StreamCorruptedException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The stream a checkpoint of the simulation is read from by {@link CloudSim#restoreCheckpoint(String)}.
+ * It reads the values written by a {@link CheckpointOutput}, in the same order.
+ * 
+ * @since CloudSim Toolkit 4.0
+ * @see CheckpointOutput
+ */
+public class CheckpointInput extends DataInputStream {
+
+	/**
+	 * Creates a checkpoint stream.
+	 * 
+	 * @param in the underlying stream
+	 */
+	public CheckpointInput(InputStream in) {
+		super(in);
+	}
+
+	/**
+	 * Reads a string written by {@link CheckpointOutput#writeString(String)}.
+	 * 
+	 * @return the string, which may be null
+	 * @throws IOException if the string can't be read
+	 */
+	public String readString() throws IOException {
+		int length = readInt();
+		if (length < 0) {
+			return null;
+		}
+		byte[] bytes = new byte[length];
+		readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Reads a list written by {@link CheckpointOutput#writeDoubleList(List)}.
+	 * 
+	 * @return the list, which may be null
+	 * @throws IOException if the list can't be read
+	 */
+	public List<Double> readDoubleList() throws IOException {
+		int size = readInt();
+		if (size < 0) {
+			return null;
+		}
+		List<Double> values = new ArrayList<Double>(size);
+		for (int i = 0; i < size; i++) {
+			values.add(readDouble());
+		}
+		return values;
+	}
+
+	/**
+	 * Reads a list written by {@link CheckpointOutput#writeIntList(List)}.
+	 * 
+	 * @return the list, which may be null
+	 * @throws IOException if the list can't be read
+	 */
+	public List<Integer> readIntList() throws IOException {
+		int size = readInt();
+		if (size < 0) {
+			return null;
+		}
+		List<Integer> values = new ArrayList<Integer>(size);
+		for (int i = 0; i < size; i++) {
+			values.add(readInt());
+		}
+		return values;
+	}
+
+	/**
+	 * Reads a list written by {@link CheckpointOutput#writeStringList(List)}.
+	 * 
+	 * @return the list, which may be null
+	 * @throws IOException if the list can't be read
+	 */
+	public List<String> readStringList() throws IOException {
+		int size = readInt();
+		if (size < 0) {
+			return null;
+		}
+		List<String> values = new ArrayList<String>(size);
+		for (int i = 0; i < size; i++) {
+			values.add(readString());
+		}
+		return values;
+	}
+
+	/**
+	 * Reads an array written by {@link CheckpointOutput#writeIntArray(int[])}.
+	 * 
+	 * @return the array, which may be null
+	 * @throws IOException if the array can't be read
+	 */
+	public int[] readIntArray() throws IOException {
+		int length = readInt();
+		if (length < 0) {
+			return null;
+		}
+		int[] values = new int[length];
+		for (int i = 0; i < length; i++) {
+			values[i] = readInt();
+		}
+		return values;
+	}
+
+	/**
+	 * Reads an array written by {@link CheckpointOutput#writeDoubleArray(double[])}.
+	 * 
+	 * @return the array, which may be null
+	 * @throws IOException if the array can't be read
+	 */
+	public double[] readDoubleArray() throws IOException {
+		int length = readInt();
+		if (length < 0) {
+			return null;
+		}
+		double[] values = new double[length];
+		for (int i = 0; i < length; i++) {
+			values[i] = readDouble();
+		}
+		return values;
+	}
+
+	/**
+	 * Reads the data of an event written by {@link CheckpointOutput#writeData(Object)}.
+	 * 
+	 * @return the data
+	 * @throws IOException if the data can't be read
+	 */
+	public Object readData() throws IOException {
+		int type = readByte();
+		switch (type) {
+			case CheckpointOutput.NULL:
+				return null;
+			case CheckpointOutput.INTEGER:
+				return readInt();
+			case CheckpointOutput.LONG:
+				return readLong();
+			case CheckpointOutput.DOUBLE:
+				return readDouble();
+			case CheckpointOutput.BOOLEAN:
+				return readBoolean();
+			case CheckpointOutput.STRING:
+				return readString();
+			case CheckpointOutput.INT_ARRAY:
+				return readIntArray();
+			case CheckpointOutput.DOUBLE_ARRAY:
+				return readDoubleArray();
+			case CheckpointOutput.LIST:
+				int size = readInt();
+				List<Object> list = new ArrayList<Object>(size);
+				for (int i = 0; i < size; i++) {
+					list.add(readData());
+				}
+				return list;
+			default:
+				throw new StreamCorruptedException("Unknown event data type " + type);
+		}
+	}
+
+}
@@ -0,0 +1,214 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * The stream a checkpoint of the simulation is written to by {@link CloudSim#saveCheckpoint(String)}.
+ * The entities and the objects of the simulation write their state to it field by field, in an
+ * explicit format read back by a {@link CheckpointInput} in the same order. Besides the primitive
+ * values of a {@link DataOutputStream}, the stream writes strings which may be null, lists of
+ * values and the simple data of the events.
+ * 
+ * @since CloudSim Toolkit 4.0
+ * @see CheckpointInput
+ */
+public class CheckpointOutput extends DataOutputStream {
+
+	/** The type of a null data. */
+	static final int NULL = 0;
+
+	/** The type of an {@link Integer} data. */
+	static final int INTEGER = 1;
+
+	/** The type of a {@link Long} data. */
+	static final int LONG = 2;
+
+	/** The type of a {@link Double} data. */
+	static final int DOUBLE = 3;
+
+	/** The type of a {@link Boolean} data. */
+	static final int BOOLEAN = 4;
+
+	/** The type of a {@link String} data. */
+	static final int STRING = 5;
+
+	/** The type of an int array data. */
+	static final int INT_ARRAY = 6;
+
+	/** The type of a double array data. */
+	static final int DOUBLE_ARRAY = 7;
+
+	/** The type of a {@link List} data. */
+	static final int LIST = 8;
+
+	/**
+	 * Creates a checkpoint stream.
+	 * 
+	 * @param out the underlying stream
+	 */
+	public CheckpointOutput(OutputStream out) {
+		super(out);
+	}
+
+	/**
+	 * Writes a string which may be null, in UTF-8. Unlike {@link #writeUTF(String)}, the length of
+	 * the string isn't limited, so that it may hold a log, such as the history of a cloudlet.
+	 * 
+	 * @param value the string
+	 * @throws IOException if the string can't be written
+	 */
+	public void writeString(String value) throws IOException {
+		if (value == null) {
+			writeInt(-1);
+			return;
+		}
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		writeInt(bytes.length);
+		write(bytes);
+	}
+
+	/**
+	 * Writes a list of doubles which may be null.
+	 * 
+	 * @param values the list
+	 * @throws IOException if the list can't be written
+	 */
+	public void writeDoubleList(List<Double> values) throws IOException {
+		if (values == null) {
+			writeInt(-1);
+			return;
+		}
+		writeInt(values.size());
+		for (Double value : values) {
+			writeDouble(value);
+		}
+	}
+
+	/**
+	 * Writes a list of integers which may be null.
+	 * 
+	 * @param values the list
+	 * @throws IOException if the list can't be written
+	 */
+	public void writeIntList(List<Integer> values) throws IOException {
+		if (values == null) {
+			writeInt(-1);
+			return;
+		}
+		writeInt(values.size());
+		for (Integer value : values) {
+			writeInt(value);
+		}
+	}
+
+	/**
+	 * Writes a list of strings which may be null.
+	 * 
+	 * @param values the list
+	 * @throws IOException if the list can't be written
+	 */
+	public void writeStringList(List<String> values) throws IOException {
+		if (values == null) {
+			writeInt(-1);
+			return;
+		}
+		writeInt(values.size());
+		for (String value : values) {
+			writeString(value);
+		}
+	}
+
+	/**
+	 * Writes an array of integers which may be null.
+	 * 
+	 * @param values the array
+	 * @throws IOException if the array can't be written
+	 */
+	public void writeIntArray(int[] values) throws IOException {
+		if (values == null) {
+			writeInt(-1);
+			return;
+		}
+		writeInt(values.length);
+		for (int value : values) {
+			writeInt(value);
+		}
+	}
+
+	/**
+	 * Writes an array of doubles which may be null.
+	 * 
+	 * @param values the array
+	 * @throws IOException if the array can't be written
+	 */
+	public void writeDoubleArray(double[] values) throws IOException {
+		if (values == null) {
+			writeInt(-1);
+			return;
+		}
+		writeInt(values.length);
+		for (double value : values) {
+			writeDouble(value);
+		}
+	}
+
+	/**
+	 * Writes the data of an event, which can be null, an {@link Integer}, a {@link Long}, a
+	 * {@link Double}, a {@link Boolean}, a {@link String}, an int or double array, or a {@link List}
+	 * of such values. The entities receiving other data write it themselves, overriding
+	 * {@link SimEntity#writeEventData(int, Object, CheckpointOutput)}.
+	 * 
+	 * @param data the data
+	 * @throws IOException if the data can't be written
+	 * @throws IllegalArgumentException if the data isn't one of the supported types
+	 */
+	public void writeData(Object data) throws IOException {
+		if (data == null) {
+			writeByte(NULL);
+		} else if (data instanceof Integer) {
+			writeByte(INTEGER);
+			writeInt((Integer) data);
+		} else if (data instanceof Long) {
+			writeByte(LONG);
+			writeLong((Long) data);
+		} else if (data instanceof Double) {
+			writeByte(DOUBLE);
+			writeDouble((Double) data);
+		} else if (data instanceof Boolean) {
+			writeByte(BOOLEAN);
+			writeBoolean((Boolean) data);
+		} else if (data instanceof String) {
+			writeByte(STRING);
+			writeString((String) data);
+		} else if (data instanceof int[]) {
+			writeByte(INT_ARRAY);
+			writeIntArray((int[]) data);
+		} else if (data instanceof double[]) {
+			writeByte(DOUBLE_ARRAY);
+			writeDoubleArray((double[]) data);
+		} else if (data instanceof List) {
+			List<?> values = (List<?>) data;
+			writeByte(LIST);
+			writeInt(values.size());
+			for (Object value : values) {
+				writeData(value);
+			}
+		} else {
+			throw new IllegalArgumentException("The event data of type " + data.getClass().getName()
+					+ " can't be saved in a checkpoint.");
+		}
+	}
+
+}
@@ -8,6 +8,7 @@
 
 package org.cloudbus.cloudsim.core;
 
+import java.io.IOException;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.LinkedList;
@@ -76,6 +77,34 @@ public class CloudInformationService extends SimEntity {
 	public void startEntity() {
 	}
 
+	@Override
+	protected void saveState(CheckpointOutput out) throws IOException {
+		super.saveState(out);
+		out.writeIntList(resList);
+		out.writeIntList(arList);
+		out.writeIntList(gisList);
+	}
+
+	@Override
+	protected void restoreState(CheckpointInput in) throws IOException {
+		super.restoreState(in);
+		restoreList(resList, in);
+		restoreList(arList, in);
+		restoreList(gisList, in);
+	}
+
+	/**
+	 * Restores one of the lists of the CIS, which the brokers may hold as well.
+	 * 
+	 * @param list the list
+	 * @param in the checkpoint stream
+	 * @throws IOException if the list can't be read
+	 */
+	private static void restoreList(List<Integer> list, CheckpointInput in) throws IOException {
+		list.clear();
+		list.addAll(in.readIntList());
+	}
+
 	@Override
 	public void processEvent(SimEvent ev) {
 		int id = -1;  // requester id
@@ -8,6 +8,12 @@
 
 package org.cloudbus.cloudsim.core;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.HashMap;
@@ -16,11 +22,15 @@ import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 import org.cloudbus.cloudsim.Log;
 import org.cloudbus.cloudsim.core.predicates.Predicate;
 import org.cloudbus.cloudsim.core.predicates.PredicateAny;
 import org.cloudbus.cloudsim.core.predicates.PredicateNone;
+import org.cloudbus.cloudsim.core.predicates.PredicateType;
 
 /**
  * This class extends the CloudSimCore to enable network simulation in CloudSim. Also, it disables
@@ -39,31 +49,18 @@ public class CloudSim {
 	/** The Constant CLOUDSIM_VERSION_STRING. */
 	private static final String CLOUDSIM_VERSION_STRING = "3.0";
 
-	/** The id of CIS entity. */
-	private static int cisId = -1;
-
-	/** The id of CloudSimShutdown entity. */
-	@SuppressWarnings("unused")
-	private static int shutdownId = -1;
-
-	/** The CIS object. */
-	private static CloudInformationService cis = null;
-
 	/** The Constant NOT_FOUND. */
 	private static final int NOT_FOUND = -1;
 
-	/** The trace flag. */
-	@SuppressWarnings("unused")
-	private static boolean traceFlag = false;
+	/** The magic number at the start of a checkpoint file, "CSCP". */
+	private static final int CHECKPOINT_MAGIC = 0x43534350;
+
+	/** The version of the checkpoint format. */
+	private static final int CHECKPOINT_VERSION = 1;
+
 
-	/** The calendar. */
-	private static Calendar calendar = null;
 
-	/** The termination time. */
-	private static double terminateAt = -1;
 
-	/** The minimal time between events. Events within shorter periods after the last event are discarded. */
-	private static double minTimeBetweenEvents = 0.1;
 	
 	/**
 	 * Initialises all the common attributes.
@@ -78,21 +75,22 @@ public class CloudSim {
 	 */
 	private static void initCommonVariable(Calendar _calendar, boolean _traceFlag, int numUser)
 			throws Exception {
+		SimulationContext context = getContext();
 		initialize();
 		// NOTE: the order for the below 3 lines are important
-		traceFlag = _traceFlag;
+		context.traceFlag = _traceFlag;
 
 		// Set the current Wall clock time as the starting time of
 		// simulation
 		if (_calendar == null) {
-			calendar = Calendar.getInstance();
+			context.calendar = Calendar.getInstance();
 		} else {
-			calendar = _calendar;
+			context.calendar = _calendar;
 		}
 
 		// creates a CloudSimShutdown object
 		CloudSimShutdown shutdown = new CloudSimShutdown("CloudSimShutdown", numUser);
-		shutdownId = shutdown.getId();
+		context.shutdownId = shutdown.getId();
 	}
 
 	/**
@@ -117,14 +115,15 @@ public class CloudSim {
 	 * @post $none
 	 */
 	public static void init(int numUser, Calendar cal, boolean traceFlag) {
+		SimulationContext context = getContext();
 		try {
 			initCommonVariable(cal, traceFlag, numUser);
 
 			// create a GIS object
-			cis = new CloudInformationService("CloudInformationService");
+			context.cis = new CloudInformationService("CloudInformationService");
 
 			// set all the above entity IDs
-			cisId = cis.getId();
+			context.cisId = context.cis.getId();
 		} catch (IllegalArgumentException s) {
 			Log.printLine("CloudSim.init(): The simulation has been terminated due to an unexpected error");
 			Log.printLine(s.getMessage());
@@ -158,12 +157,44 @@ public class CloudSim {
 	 * @post $none
 	 */
 	public static void init(int numUser, Calendar cal, boolean traceFlag, double periodBetweenEvents) {
+		SimulationContext context = getContext();
 	    if (periodBetweenEvents <= 0) {
 		throw new IllegalArgumentException("The minimal time between events should be positive, but is:" + periodBetweenEvents);
 	    }
 	    
 	    init(numUser, cal, traceFlag);
-	    minTimeBetweenEvents = periodBetweenEvents;
+	    context.minTimeBetweenEvents = periodBetweenEvents;
+	}
+
+	/**
+	 * Initialises CloudSim parameters, using a given implementation of the future event queue.
+	 * This method should be called before creating any entities.
+	 * <p>
+	 * All the {@link EventQueue} implementations deliver the events in the same order,
+	 * thus the choice of the queue only affects the simulation performance.
+	 * {@link FutureQueue} is used by default; {@link CalendarEventQueue} and
+	 * {@link HeapEventQueue} are faster when the queue holds many events.
+	 * 
+	 * @param numUser the number of User Entities created
+	 * @param cal starting time for this simulation. If it is <tt>null</tt>, then the time will be
+	 *            taken from <tt>Calendar.getInstance()</tt>
+	 * @param traceFlag <tt>true</tt> if CloudSim trace need to be written
+	 * @param futureQueue an empty queue to be used as the future event queue
+	 * @see #init(int, Calendar, boolean)
+	 * @pre numUser >= 0
+	 * @pre futureQueue != null
+	 * @post $none
+	 */
+	public static void init(int numUser, Calendar cal, boolean traceFlag, EventQueue futureQueue) {
+		SimulationContext context = getContext();
+		if (futureQueue == null || futureQueue.size() > 0) {
+			throw new IllegalArgumentException("The future event queue should be an empty queue.");
+		}
+
+		init(numUser, cal, traceFlag);
+		context.future = futureQueue instanceof IndexedEventQueue
+				? (IndexedEventQueue) futureQueue
+				: new IndexedEventQueue(futureQueue);
 	}
 	
 	
@@ -183,16 +214,17 @@ public class CloudSim {
 	 * @post $none
 	 */
 	public static double startSimulation() throws NullPointerException {
+		SimulationContext context = getContext();
 		Log.printConcatLine("Starting CloudSim version ", CLOUDSIM_VERSION_STRING);
 		try {
 			double clock = run();
 
 			// reset all static variables
-			cisId = -1;
-			shutdownId = -1;
-			cis = null;
-			calendar = null;
-			traceFlag = false;
+			context.cisId = -1;
+			context.shutdownId = -1;
+			context.cis = null;
+			context.calendar = null;
+			context.traceFlag = false;
 
 			return clock;
 		} catch (IllegalArgumentException e) {
@@ -229,7 +261,13 @@ public class CloudSim {
 	 * @return true, if successful; false otherwise.
 	 */
 	public static boolean terminateSimulation() {
-		running = false;
+		SimulationContext context = getContext();
+		if (context.parallel != null && context.parallel.isRunning()) {
+			// Entities running in parallel must keep seeing the simulation running until the tick or window ends
+			context.parallel.requestTermination();
+		} else {
+			context.running = false;
+		}
 		printMessage("Simulation: Reached termination time.");
 		return true;
 	}
@@ -241,10 +279,13 @@ public class CloudSim {
 	 * @return true, if successful otherwise.
 	 */
 	public static boolean terminateSimulation(double time) {
-		if (time <= clock) {
+		SimulationContext context = getContext();
+		if (time <= clock(context)) {
 			return false;
+		} else if (context.parallel != null && context.parallel.isRunning()) {
+			context.parallel.requestTermination(time);
 		} else {
-			terminateAt = time;
+			context.terminateAt = time;
 		}
 		return true;
 	}
@@ -255,7 +296,8 @@ public class CloudSim {
 	 * @return the minimum time between events.
 	 */
 	public static double getMinTimeBetweenEvents() {
-	    return minTimeBetweenEvents;
+		SimulationContext context = getContext();
+	    return context.minTimeBetweenEvents;
 	}
 
 	/**
@@ -268,10 +310,11 @@ public class CloudSim {
 	 * @post $none
 	 */
 	public static Calendar getSimulationCalendar() {
+		SimulationContext context = getContext();
 		// make a new copy
-		Calendar clone = calendar;
-		if (calendar != null) {
-			clone = (Calendar) calendar.clone();
+		Calendar clone = context.calendar;
+		if (context.calendar != null) {
+			clone = (Calendar) context.calendar.clone();
 		}
 
 		return clone;
@@ -285,7 +328,8 @@ public class CloudSim {
 	 * @post $result >= -1
 	 */
 	public static int getCloudInfoServiceEntityId() {
-		return cisId;
+		SimulationContext context = getContext();
+		return context.cisId;
 	}
 
 	/**
@@ -298,61 +342,83 @@ public class CloudSim {
 	 * @post $none
 	 */
 	public static List<Integer> getCloudResourceList() {
-		if (cis == null) {
+		SimulationContext context = getContext();
+		if (context.cis == null) {
 			return null;
 		}
 
-		return cis.getList();
+		return context.cis.getList();
 	}
 
 	// ======== SIMULATION METHODS ===============//
 
-	/** The entities. */
-	private static List<SimEntity> entities;
-
-	/** The future event queue. */
-	protected static FutureQueue future;
-
-	/** The deferred event queue. */
-	protected static DeferredQueue deferred;
+	/** The context used by the threads that have none bound. */
+	private static final SimulationContext defaultContext = new SimulationContext();
 
-	/** 
-         * The current simulation clock.
-         */
-	private static double clock;
+	/** The context bound to each thread, if any. */
+	private static final ThreadLocal<SimulationContext> boundContext = new ThreadLocal<SimulationContext>();
 
-	/** Flag for checking if the simulation is running. */
-	private static boolean running;
-
-	/** The entities by name. */
-	private static Map<String, SimEntity> entitiesByName;
-
-	// The predicates used in entity wait methods
-	/** The wait predicates. */
-	private static Map<Integer, Predicate> waitPredicates;
-
-	/** The paused. */
-	private static boolean paused = false;
+	/**
+	 * Gets the context holding the state of the simulation run by the current thread.
+	 * 
+	 * @return the context bound to the current thread, or the default context if there is none
+	 * @see #setContext(SimulationContext)
+	 */
+	public static SimulationContext getContext() {
+		SimulationContext context = boundContext.get();
+		return context == null ? defaultContext : context;
+	}
 
-	/** The pause at. */
-	private static long pauseAt = -1;
+	/**
+	 * Binds a context to the current thread, so that the static methods of this class called from
+	 * the thread act on the simulation held by the context. This allows several simulations to run
+	 * concurrently in the same JVM, each one in its own thread. The threads with no bound context
+	 * share a default one, which keeps the single simulation usage unchanged.
+	 * 
+	 * @param context the context, or <tt>null</tt> to unbind the current one
+	 */
+	public static void setContext(SimulationContext context) {
+		bindContext(context);
+	}
 
-	/** The abrupt terminate. */
-	private static boolean abruptTerminate = false;
+	/**
+	 * Binds a context to the current thread.
+	 * 
+	 * @param context the context, or <tt>null</tt> to unbind the current one
+	 * @return the context previously bound to the thread, or <tt>null</tt> if there was none
+	 */
+	static SimulationContext bindContext(SimulationContext context) {
+		SimulationContext previous = boundContext.get();
+		if (context == null) {
+			boundContext.remove();
+		} else {
+			boundContext.set(context);
+		}
+		return previous;
+	}
 
 	/**
 	 * Initialise the simulation for stand alone simulations. This function should be called at the
 	 * start of the simulation.
 	 */
 	protected static void initialize() {
+		SimulationContext context = getContext();
 		Log.printLine("Initialising...");
-		entities = new ArrayList<SimEntity>();
-		entitiesByName = new LinkedHashMap<String, SimEntity>();
-		future = new FutureQueue();
-		deferred = new DeferredQueue();
-		waitPredicates = new HashMap<Integer, Predicate>();
-		clock = 0;
-		running = false;
+		context.entities = new ArrayList<SimEntity>();
+		context.entitiesByName = new LinkedHashMap<String, SimEntity>();
+		context.future = new IndexedEventQueue(new FutureQueue());
+		context.deferred = new DeferredQueue();
+		context.waitPredicates = new HashMap<Integer, Predicate>();
+		context.clock = 0;
+		context.running = false;
+		context.eventsDispatchedInLastTick = 0;
+		context.eventsDispatched = 0;
+		context.parallel = null;
+		context.eventPool = null;
+		context.metrics = null;
+		context.eventsAllocated = 0;
+		context.eventsReused = 0;
+		context.eventsRecycled = 0;
 	}
 
 	// The two standard predicates
@@ -371,7 +437,22 @@ public class CloudSim {
 	 * @return the simulation time
 	 */
 	public static double clock() {
-		return clock;
+		SimulationContext context = getContext();
+		return clock(context);
+	}
+
+	/**
+	 * Gets the simulation time seen by the calling thread. While the entities run in parallel
+	 * windows, each logical process has its own clock.
+	 * 
+	 * @param context the context of the simulation
+	 * @return the simulation time
+	 */
+	private static double clock(SimulationContext context) {
+		if (context.parallel != null && context.parallel.isRunning()) {
+			return context.parallel.clock();
+		}
+		return context.clock;
 	}
 
 	/**
@@ -380,7 +461,8 @@ public class CloudSim {
 	 * @return The number of entities
 	 */
 	public static int getNumEntities() {
-		return entities.size();
+		SimulationContext context = getContext();
+		return context.entities.size();
 	}
 
 	/**
@@ -390,7 +472,8 @@ public class CloudSim {
 	 * @return The entity, or if it could not be found
 	 */
 	public static SimEntity getEntity(int id) {
-		return entities.get(id);
+		SimulationContext context = getContext();
+		return context.entities.get(id);
 	}
 
 	/**
@@ -400,7 +483,8 @@ public class CloudSim {
 	 * @return The entity
 	 */
 	public static SimEntity getEntity(String name) {
-		return entitiesByName.get(name);
+		SimulationContext context = getContext();
+		return context.entitiesByName.get(name);
 	}
 
 	/**
@@ -410,7 +494,8 @@ public class CloudSim {
 	 * @return The entity's unique id number
 	 */
 	public static int getEntityId(String name) {
-		SimEntity obj = entitiesByName.get(name);
+		SimulationContext context = getContext();
+		SimEntity obj = context.entitiesByName.get(name);
 		if (obj == null) {
 			return NOT_FOUND;
 		} else {
@@ -457,10 +542,11 @@ public class CloudSim {
 	 * @return the entity iterator
 	 */
 	public static List<SimEntity> getEntityList() {
+		SimulationContext context = getContext();
 		// create a new list to prevent the user from changing
 		// the list of entities used by Simulation
 		List<SimEntity> list = new LinkedList<SimEntity>();
-		list.addAll(entities);
+		list.addAll(context.entities);
 		return list;
 	}
 
@@ -473,17 +559,21 @@ public class CloudSim {
 	 * @param e The new entity
 	 */
 	public static void addEntity(SimEntity e) {
+		SimulationContext context = getContext();
+		if (context.parallel != null && context.parallel.isRunning()) {
+			throw new UnsupportedOperationException("Entities can't be added during a parallel tick.");
+		}
 		SimEvent evt;
-		if (running) {
+		if (context.running) {
 			// Post an event to make this entity
-			evt = new SimEvent(SimEvent.CREATE, clock, 1, 0, 0, e);
-			future.addEvent(evt);
+			evt = newEvent(context, SimEvent.CREATE, context.clock, 1, 0, 0, e);
+			context.future.addEvent(evt);
 		}
 		if (e.getId() == -1) { // Only add once!
-			int id = entities.size();
+			int id = context.entities.size();
 			e.setId(id);
-			entities.add(e);
-			entitiesByName.put(e.getName(), e);
+			context.entities.add(e);
+			context.entitiesByName.put(e.getName(), e);
 		}
 	}
 
@@ -512,53 +602,88 @@ public class CloudSim {
          * its visibility to package.
 	 */
 	public static boolean runClockTick() {
+		SimulationContext context = getContext();
+		runEntities(context);
+		return dispatchEvents(context);
+	}
+
+	/**
+	 * Runs the entities able to process their events, which is the first part of a simulation tick.
+	 * 
+	 * @param context the context of the simulation
+	 */
+	private static void runEntities(SimulationContext context) {
 		SimEntity ent;
-		boolean queue_empty;
-		
-		int entities_size = entities.size();
+		int entities_size = context.entities.size();
 
-		for (int i = 0; i < entities_size; i++) {
-			ent = entities.get(i);
-			if (ent.getState() == SimEntity.RUNNABLE) {
-				ent.run();
+		if (context.parallel == null || !context.parallel.runEntities()) {
+			for (int i = 0; i < entities_size; i++) {
+				ent = context.entities.get(i);
+				if (ent.getState() == SimEntity.RUNNABLE) {
+					ent.run();
+				}
 			}
+		} else if (context.parallel.isTerminationRequested()) {
+			context.running = false;
 		}
-				
+	}
+
+	/**
+	 * Dispatches the next events of the future queue, those happening at the time of the first one,
+	 * which is the last part of a simulation tick.
+	 * 
+	 * @param context the context of the simulation
+	 * @return true, if there are no more future events
+	 */
+	private static boolean dispatchEvents(SimulationContext context) {
+		boolean queue_empty;
+
 		// If there are more future events then deal with them
-		if (future.size() > 0) {
-			List<SimEvent> toRemove = new ArrayList<SimEvent>();
-			Iterator<SimEvent> fit = future.iterator();
+		if (context.future.size() > 0) {
 			queue_empty = false;
-			SimEvent first = fit.next();
-			processEvent(first);
-			future.remove(first);
-
-			fit = future.iterator();
-
-			// Check if next events are at same time...
-			boolean trymore = fit.hasNext();
-			while (trymore) {
-				SimEvent next = fit.next();
-				if (next.eventTime() == first.eventTime()) {
-					processEvent(next);
-					toRemove.add(next);
-					trymore = fit.hasNext();
-				} else {
-					trymore = false;
+
+			// Drains all the events happening at the time of the first one
+			double time = context.future.peek().eventTime();
+			int count = context.future.pollAllAt(time, context.batch);
+			SimulationMetrics metrics = context.metrics;
+			if (metrics != null) {
+				metrics.recordQueueSizes(time, context.future.size() + count, context.deferred.size());
+			}
+			for (int i = 0; i < count; i++) {
+				SimEvent e = context.batch.get(i);
+				if (metrics != null) {
+					recordDispatch(context, metrics, e);
 				}
+				processEvent(context, e);
 			}
+			context.batch.clear();
 
-			future.removeAll(toRemove);
-
+			context.eventsDispatchedInLastTick = count;
+			context.eventsDispatched += count;
 		} else {
+			context.eventsDispatchedInLastTick = 0;
 			queue_empty = true;
-			running = false;
+			context.running = false;
 			printMessage("Simulation: No more future events");
 		}
 
 		return queue_empty;
 	}
 
+	/**
+	 * Records the dispatch of an event in the metrics of the simulation.
+	 * 
+	 * @param context the context of the simulation
+	 * @param metrics the metrics
+	 * @param e the event
+	 */
+	private static void recordDispatch(SimulationContext context, SimulationMetrics metrics, SimEvent e) {
+		int id = e.getType() == SimEvent.SEND ? e.getDestination() : e.getSource();
+		SimEntity entity = e.getType() != SimEvent.CREATE && id >= 0 && id < context.entities.size()
+				? context.entities.get(id) : null;
+		metrics.recordDispatch(e, entity);
+	}
+
 	/**
 	 * Internal method used to stop the simulation. This method should <b>not</b> be used directly.
 	 */
@@ -573,9 +698,10 @@ public class CloudSim {
 	 * @param delay the delay
 	 */
 	public static void hold(int src, long delay) {
-		SimEvent e = new SimEvent(SimEvent.HOLD_DONE, clock + delay, src);
-		future.addEvent(e);
-		entities.get(src).setState(SimEntity.HOLDING);
+		SimulationContext context = getContext();
+		SimEvent e = newEvent(context, SimEvent.HOLD_DONE, clock(context) + delay, src, -1, -1, null);
+		addFutureEvent(e, false);
+		context.entities.get(src).setState(SimEntity.HOLDING);
 	}
 
 	/**
@@ -585,9 +711,10 @@ public class CloudSim {
 	 * @param delay the delay
 	 */
 	public static void pause(int src, double delay) {
-		SimEvent e = new SimEvent(SimEvent.HOLD_DONE, clock + delay, src);
-		future.addEvent(e);
-		entities.get(src).setState(SimEntity.HOLDING);
+		SimulationContext context = getContext();
+		SimEvent e = newEvent(context, SimEvent.HOLD_DONE, clock(context) + delay, src, -1, -1, null);
+		addFutureEvent(e, false);
+		context.entities.get(src).setState(SimEntity.HOLDING);
 	}
 
 	/**
@@ -600,12 +727,13 @@ public class CloudSim {
 	 * @param data the data
 	 */
 	public static void send(int src, int dest, double delay, int tag, Object data) {
+		SimulationContext context = getContext();
 		if (delay < 0) {
 			throw new IllegalArgumentException("Send delay can't be negative.");
 		}
 
-		SimEvent e = new SimEvent(SimEvent.SEND, clock + delay, src, dest, tag, data);
-		future.addEvent(e);
+		SimEvent e = newEvent(context, SimEvent.SEND, clock(context) + delay, src, dest, tag, data);
+		addFutureEvent(e, false);
 	}
 
 	/**
@@ -618,12 +746,86 @@ public class CloudSim {
 	 * @param data the data
 	 */
 	public static void sendFirst(int src, int dest, double delay, int tag, Object data) {
+		SimulationContext context = getContext();
 		if (delay < 0) {
 			throw new IllegalArgumentException("Send delay can't be negative.");
 		}
 
-		SimEvent e = new SimEvent(SimEvent.SEND, clock + delay, src, dest, tag, data);
-		future.addEventFirst(e);
+		SimEvent e = newEvent(context, SimEvent.SEND, clock(context) + delay, src, dest, tag, data);
+		addFutureEvent(e, true);
+	}
+
+	/**
+	 * Creates an event, reusing a recycled one if the events are recycled.
+	 * 
+	 * @param context the context of the simulation
+	 * @param type the internal type of the event
+	 * @param time the time at which the event should occur
+	 * @param src the id of the entity scheduling the event
+	 * @param dest the id of the entity receiving the event
+	 * @param tag the user defined type of the event
+	 * @param data the data carried by the event
+	 * @return the event
+	 */
+	private static SimEvent newEvent(SimulationContext context, int type, double time, int src, int dest, int tag,
+			Object data) {
+		if (context.parallel != null && context.parallel.isRunning()) {
+			// the pool isn't shared between threads; the executor counts these allocations
+			return new SimEvent(type, time, src, dest, tag, data);
+		}
+		if (context.eventPool != null) {
+			SimEvent e = context.eventPool.poll();
+			if (e != null) {
+				e.reset(type, time, src, dest, tag, data);
+				context.eventsReused++;
+				return e;
+			}
+		}
+		context.eventsAllocated++;
+		return new SimEvent(type, time, src, dest, tag, data);
+	}
+
+	/**
+	 * Returns an event to the pool once it has been dispatched, if the events are recycled.
+	 * 
+	 * @param e the event
+	 */
+	static void recycleEvent(SimEvent e) {
+		SimulationContext context = getContext();
+		if (context.eventPool != null && (context.parallel == null || !context.parallel.isRunning())) {
+			recycleEvent(context, e);
+		}
+	}
+
+	/**
+	 * Returns an event to the pool of a simulation that recycles the events.
+	 * 
+	 * @param context the context of the simulation
+	 * @param e the event
+	 */
+	private static void recycleEvent(SimulationContext context, SimEvent e) {
+		if (context.eventPool.recycle(e)) {
+			context.eventsRecycled++;
+		}
+	}
+
+	/**
+	 * Adds an event sent by an entity to the future queue. During a parallel tick,
+	 * the event is only added once all the entities have run.
+	 * 
+	 * @param e the event
+	 * @param first true if the event has priority in the queue
+	 */
+	private static void addFutureEvent(SimEvent e, boolean first) {
+		SimulationContext context = getContext();
+		if (context.parallel != null && context.parallel.schedule(e, first)) {
+			return;
+		}
+		if (first) {
+			context.future.addEventFirst(e);
+		} else {
+			context.future.addEvent(e);
+		}
 	}
 
 	/**
@@ -634,11 +836,22 @@ public class CloudSim {
 	 * @param src the src
 	 * @param p the p
 	 */
-	public static void wait(int src, Predicate p) {
-		entities.get(src).setState(SimEntity.WAITING);
+	public static void wait(final int src, final Predicate p) {
+		SimulationContext context = getContext();
+		context.entities.get(src).setState(SimEntity.WAITING);
 		if (p != SIM_ANY) {
 			// If a predicate has been used store it in order to check it
-			waitPredicates.put(src, p);
+			if (context.parallel != null && context.parallel.isRunning()) {
+				context.parallel.runLocked(new Runnable() {
+
+					@Override
+					public void run() {
+						context.waitPredicates.put(src, p);
+					}
+				});
+			} else {
+				context.waitPredicates.put(src, p);
+			}
 		}
 	}
 
@@ -650,16 +863,8 @@ public class CloudSim {
 	 * @return the int
 	 */
 	public static int waiting(int d, Predicate p) {
-		int count = 0;
-		SimEvent event;
-		Iterator<SimEvent> iterator = deferred.iterator();
-		while (iterator.hasNext()) {
-			event = iterator.next();
-			if ((event.getDestination() == d) && (p.match(event))) {
-				count++;
-			}
-		}
-		return count;
+		SimulationContext context = getContext();
+		return context.deferred.count(d, p);
 	}
 
 	/**
@@ -670,37 +875,50 @@ public class CloudSim {
 	 * @return the sim event
 	 */
 	public static SimEvent select(int src, Predicate p) {
-		SimEvent ev = null;
-		Iterator<SimEvent> iterator = deferred.iterator();
-		while (iterator.hasNext()) {
-			ev = iterator.next();
-			if (ev.getDestination() == src && p.match(ev)) {
-				iterator.remove();
-				break;
-			}
+		SimulationContext context = getContext();
+		SimEvent ev = context.deferred.removeFirst(src, p);
+		if (ev == null) {
+			// Kept for compatibility: the full queue scan used to end on the last deferred event
+			ev = getLastDeferred(src);
 		}
 		return ev;
 	}
 
 	/**
 	 * Find first deferred event matching a predicate.
+	 * <p>
+	 * If there is no matching event, the last event of the deferred queue (whatever its destination)
+	 * is returned, or <tt>null</tt> if the queue is empty. This quirk of the original queue scan is
+	 * kept since the power datacenters rely on it to decide when to update the cloudlet processing
+	 * after VM migrations.
 	 * 
 	 * @param src the src
 	 * @param p the p
 	 * @return the sim event
 	 */
 	public static SimEvent findFirstDeferred(int src, Predicate p) {
-		SimEvent ev = null;
-		Iterator<SimEvent> iterator = deferred.iterator();
-		while (iterator.hasNext()) {
-			ev = iterator.next();
-			if (ev.getDestination() == src && p.match(ev)) {
-				break;
-			}
+		SimulationContext context = getContext();
+		SimEvent ev = context.deferred.findFirst(src, p);
+		if (ev == null) {
+			ev = getLastDeferred(src);
 		}
 		return ev;
 	}
 
+	/**
+	 * Gets the last event of the deferred queue, as seen by an entity.
+	 * 
+	 * @param src the id of the entity
+	 * @return the last deferred event or <tt>null</tt> if the queue is empty
+	 */
+	private static SimEvent getLastDeferred(int src) {
+		SimulationContext context = getContext();
+		if (context.parallel != null && context.parallel.isRunning()) {
+			return context.parallel.getLastDeferred(src);
+		}
+		return context.deferred.getLast();
+	}
+
 	/**
 	 * Removes an event from the event queue.
 	 * 
@@ -709,16 +927,41 @@ public class CloudSim {
 	 * @return the sim event
 	 */
 	public static SimEvent cancel(int src, Predicate p) {
+		SimulationContext context = getContext();
+		if (context.parallel != null && context.parallel.isRunning()) {
+			return context.parallel.cancel(src, p);
+		}
+
+		SimEvent ev = findFirstFuture(context.future, src, p);
+		if (ev != null) {
+			context.future.remove(ev);
+		}
+		return ev;
+	}
+
+	/**
+	 * Finds the first event in a future event queue sent by a given entity that matches a predicate.
+	 * 
+	 * @param future the future queue, which is the simulation one unless the entities run in parallel
+	 * @param src the src
+	 * @param p the p
+	 * @return the sim event
+	 */
+	static SimEvent findFirstFuture(IndexedEventQueue future, int src, Predicate p) {
+		if (isIndexable(src, p)) {
+			return future.findFirst(src, ((PredicateType) p).getTags());
+		}
+
+		// The queue may not be iterated in order, so the earliest matching event is looked for
 		SimEvent ev = null;
 		Iterator<SimEvent> iter = future.iterator();
 		while (iter.hasNext()) {
-			ev = iter.next();
-			if (ev.getSource() == src && p.match(ev)) {
-				iter.remove();
-				break;
+			SimEvent candidate = iter.next();
+			if (candidate.getSource() == src && p.match(candidate)
+					&& (ev == null || candidate.compareTo(ev) < 0)) {
+				ev = candidate;
 			}
 		}
-
 		return ev;
 	}
 
@@ -731,16 +974,49 @@ public class CloudSim {
 	 * @return true, if successful
 	 */
 	public static boolean cancelAll(int src, Predicate p) {
-		SimEvent ev = null;
-		int previousSize = future.size();
+		SimulationContext context = getContext();
+		if (context.parallel != null && context.parallel.isRunning()) {
+			return context.parallel.cancelAll(src, p);
+		}
+		return removeAllFuture(context.future, src, p);
+	}
+
+	/**
+	 * Removes all the events in a future event queue sent by a given entity that match a predicate.
+	 * 
+	 * @param future the future queue, which is the simulation one unless the entities run in parallel
+	 * @param src the src
+	 * @param p the p
+	 * @return true, if at least one event has been removed
+	 */
+	static boolean removeAllFuture(IndexedEventQueue future, int src, Predicate p) {
+		if (isIndexable(src, p)) {
+			return future.removeAll(src, ((PredicateType) p).getTags());
+		}
+
+		List<SimEvent> toRemove = new ArrayList<SimEvent>();
 		Iterator<SimEvent> iter = future.iterator();
 		while (iter.hasNext()) {
-			ev = iter.next();
+			SimEvent ev = iter.next();
 			if (ev.getSource() == src && p.match(ev)) {
-				iter.remove();
+				toRemove.add(ev);
 			}
 		}
-		return previousSize < future.size();
+		return future.removeAll(toRemove);
+	}
+
+	/**
+	 * Checks if the future events matching a given source and predicate can be found
+	 * through the future queue index, instead of scanning the whole queue.
+	 * It is only the case for {@link PredicateType} predicates, since
+	 * they match events only by their tags.
+	 * 
+	 * @param src the src
+	 * @param p the p
+	 * @return true, if the index can be used
+	 */
+	private static boolean isIndexable(int src, Predicate p) {
+		return src >= 0 && p != null && p.getClass() == PredicateType.class;
 	}
 
 	//
@@ -750,16 +1026,17 @@ public class CloudSim {
 	/**
 	 * Processes an event.
 	 * 
+	 * @param context the context of the simulation
 	 * @param e the e
 	 */
-	private static void processEvent(SimEvent e) {
+	private static void processEvent(SimulationContext context, SimEvent e) {
 		int dest, src;
 		SimEntity dest_ent;
 		// Update the system's clock
-		if (e.eventTime() < clock) {
+		if (e.eventTime() < context.clock) {
 			throw new IllegalArgumentException("Past event detected.");
 		}
-		clock = e.eventTime();
+		context.clock = e.eventTime();
 
 		// Ok now process it
 		switch (e.getType()) {
@@ -769,6 +1046,9 @@ public class CloudSim {
 			case SimEvent.CREATE:
 				SimEntity newe = (SimEntity) e.getData();
 				addEntityDynamically(newe);
+				if (context.eventPool != null) {
+					recycleEvent(context, e);
+				}
 				break;
 
 			case SimEvent.SEND:
@@ -778,19 +1058,20 @@ public class CloudSim {
 					throw new IllegalArgumentException("Attempt to send to a null entity detected.");
 				} else {
 					int tag = e.getTag();
-					dest_ent = entities.get(dest);
+					dest_ent = context.entities.get(dest);
 					if (dest_ent.getState() == SimEntity.WAITING) {
 						Integer destObj = Integer.valueOf(dest);
-						Predicate p = waitPredicates.get(destObj);
+						Predicate p = context.waitPredicates.get(destObj);
 						if ((p == null) || (tag == 9999) || (p.match(e))) {
-							dest_ent.setEventBuffer((SimEvent) e.clone());
+							// a recycled event is handed over as is, and recycled once the entity has processed it
+							dest_ent.setEventBuffer(context.eventPool != null ? e : (SimEvent) e.clone());
 							dest_ent.setState(SimEntity.RUNNABLE);
-							waitPredicates.remove(destObj);
+							context.waitPredicates.remove(destObj);
 						} else {
-							deferred.addEvent(e);
+							context.deferred.addEvent(e);
 						}
 					} else {
-						deferred.addEvent(e);
+						context.deferred.addEvent(e);
 					}
 				}
 				break;
@@ -800,7 +1081,10 @@ public class CloudSim {
 				if (src < 0) {
 					throw new IllegalArgumentException("Null entity holding.");
 				} else {
-					entities.get(src).setState(SimEntity.RUNNABLE);
+					context.entities.get(src).setState(SimEntity.RUNNABLE);
+				}
+				if (context.eventPool != null) {
+					recycleEvent(context, e);
 				}
 				break;
 
@@ -814,9 +1098,10 @@ public class CloudSim {
 	 * simulations.
 	 */
 	public static void runStart() {
-		running = true;
+		SimulationContext context = getContext();
+		context.running = true;
 		// Start all the entities
-		for (SimEntity ent : entities) {
+		for (SimEntity ent : context.entities) {
 			ent.startEntity();
 		}
 
@@ -830,7 +1115,8 @@ public class CloudSim {
 	 * @return if the simulation is still running, otherwise
 	 */
 	public static boolean running() {
-		return running;
+		SimulationContext context = getContext();
+		return context.running;
 	}
 
 	/**
@@ -839,8 +1125,15 @@ public class CloudSim {
 	 * @return true, if successful otherwise.
 	 */
 	public static boolean pauseSimulation() {
-		paused = true;
-		return paused;
+		SimulationContext context = getContext();
+		context.pauseLock.lock();
+		try {
+			context.paused = true;
+			context.pauseRequested = true;
+			return context.paused;
+		} finally {
+			context.pauseLock.unlock();
+		}
 	}
 
 	/**
@@ -850,10 +1143,16 @@ public class CloudSim {
 	 * @return true, if successful otherwise.
 	 */
 	public static boolean pauseSimulation(long time) {
-		if (time <= clock) {
+		SimulationContext context = getContext();
+		if (time <= context.clock) {
 			return false;
-		} else {
-			pauseAt = time;
+		}
+		context.pauseLock.lock();
+		try {
+			context.pauseAt = time;
+			context.pauseRequested = true;
+		} finally {
+			context.pauseLock.unlock();
 		}
 		return true;
 	}
@@ -864,50 +1163,419 @@ public class CloudSim {
 	 * @return if the simulation has been restarted or or otherwise.
 	 */
 	public static boolean resumeSimulation() {
-		paused = false;
+		SimulationContext context = getContext();
+		context.pauseLock.lock();
+		try {
+			context.paused = false;
+
+			if (context.pauseAt <= context.clock) {
+				context.pauseAt = -1;
+			}
+			context.pauseChanged.signalAll();
 
-		if (pauseAt <= clock) {
-			pauseAt = -1;
+			return !context.paused;
+		} finally {
+			context.pauseLock.unlock();
 		}
+	}
 
-		return !paused;
+	/**
+	 * Runs the simulation until a given time: the events happening before that time are processed,
+	 * then the simulation pauses with its clock set to that time. This allows to inspect the state
+	 * of the simulation at given points, before resuming it with another call to this method,
+	 * to {@link #step(long)} or to {@link #startSimulation()}, which runs it to its end.
+	 * <p>
+	 * If the simulation isn't running in another thread, it runs in the calling thread, and is
+	 * started if needed; it is then only finished by {@link #startSimulation()}. If it is running
+	 * in another thread (with the same {@link #getContext() context} bound), that thread resumes
+	 * it, and the call blocks until it pauses again or finishes.
+	 * 
+	 * @param time the time at which the simulation has to pause
+	 * @return true, if the simulation paused; false if it has no more events or has finished
+	 * @throws IllegalStateException if called by an entity of the simulation
+	 */
+	public static boolean runUntil(double time) {
+		SimulationContext context = getContext();
+		if (time < context.clock) {
+			throw new IllegalArgumentException("The simulation can't run until a past time.");
+		}
+		return advance(context, time, -1);
 	}
 
 	/**
-	 * Start the simulation running. This should be called after all the entities have been setup
-	 * and added, and their ports linked.
+	 * Runs the simulation until a given number of events have been dispatched, then pauses it.
+	 * Since all the events happening at the same time are dispatched together, more events
+	 * may be dispatched. The simulation runs as with {@link #runUntil(double)}.
 	 * 
-	 * @return the last clock value
+	 * @param events the number of events to dispatch
+	 * @return true, if the simulation paused; false if it has no more events or has finished
+	 * @throws IllegalStateException if called by an entity of the simulation
 	 */
-	public static double run() {
-		if (!running) {
-			runStart();
+	public static boolean step(long events) {
+		SimulationContext context = getContext();
+		if (events <= 0) {
+			throw new IllegalArgumentException("The number of events to dispatch must be positive.");
 		}
+		return advance(context, -1, events);
+	}
+
+	/**
+	 * Runs the simulation until a pause point, either in the calling thread or in the thread
+	 * already running it.
+	 * 
+	 * @param context the context of the simulation
+	 * @param time the time at which the simulation has to pause, or -1 if none
+	 * @param events the number of events after which the simulation has to pause, or -1 if none
+	 * @return true, if the simulation paused; false if it has no more events or has finished
+	 */
+	private static boolean advance(SimulationContext context, double time, long events) {
+		Thread thread = context.simulationThread;
+		if (thread == Thread.currentThread()) {
+			throw new IllegalStateException("The simulation can't be advanced by its own entities.");
+		}
+		context.pauseLock.lock();
+		try {
+			context.runUntil = time;
+			context.pauseAfterEvents = events < 0 ? -1 : context.eventsDispatched + events;
+			context.pauseRequested = true;
+			if (context.pauseAt <= context.clock) {
+				context.pauseAt = -1;
+			}
+			if (thread != null) {
+				// resumes the simulation and waits for it to pause again
+				context.paused = false;
+				context.pauseChanged.signalAll();
+				while (!context.paused && context.simulationThread == thread) {
+					context.pauseChanged.awaitUninterruptibly();
+				}
+				return context.paused;
+			}
+		} finally {
+			context.pauseLock.unlock();
+		}
+
+		context.simulationThread = Thread.currentThread();
+		try {
+			if (!context.running) {
+				runStart();
+			}
+			if (runTicks(context, true)) {
+				finishSimulation();
+				runStop();
+				return false;
+			}
+		} finally {
+			context.simulationThread = null;
+		}
+		return context.future.size() > 0;
+	}
+
+	/**
+	 * Saves the state of the simulation to a file: the clock, the pending events of the future and
+	 * deferred queues and the state of every entity, which includes the state of the objects it
+	 * manages (hosts, VMs, cloudlets, allocation policy, utilization histories...). The simulation
+	 * can then be restored from the file with {@link #restoreCheckpoint(String)}, so as to continue it
+	 * several times without simulating again the period before the checkpoint, for instance with
+	 * other policies. This is done between the simulation ticks, typically once the simulation has
+	 * been run up to a given time with {@link #runUntil(double)}.
+	 * <p>
+	 * The state is written in an explicit binary format by the entities themselves, with
+	 * {@link SimEntity#saveState(CheckpointOutput)} and
+	 * {@link SimEntity#writeEventData(int, Object, CheckpointOutput)}. The settings of the simulation
+	 * (termination time, log output, parallel execution, event recycling, metrics) and the static
+	 * state of some classes, such as the {@link org.cloudbus.cloudsim.NetworkTopology}, are not saved.
+	 * 
+	 * @param file the path of the file
+	 * @throws IOException if the file can't be written
+	 * @throws IllegalStateException if called while the simulation runs a tick, or while an entity
+	 *             waits for an event
+	 * @throws IllegalArgumentException if the data of a pending event can't be saved
+	 */
+	public static void saveCheckpoint(String file) throws IOException {
+		SimulationContext context = getContext();
+		if (context.simulationThread != null && !context.paused) {
+			throw new IllegalStateException("A checkpoint can only be saved between the simulation ticks.");
+		}
+		if (!context.waitPredicates.isEmpty()) {
+			throw new IllegalStateException("A checkpoint can't be saved while an entity waits for an event.");
+		}
+		// the pending events are saved in the order they are polled, then put back with their serials
+		List<SimEvent> futureEvents = new ArrayList<SimEvent>(context.future.size());
+		for (SimEvent event = context.future.poll(); event != null; event = context.future.poll()) {
+			futureEvents.add(event);
+		}
+		for (SimEvent event : futureEvents) {
+			context.future.addRestoredEvent(event);
+		}
+
+		CheckpointOutput out = new CheckpointOutput(new GZIPOutputStream(new BufferedOutputStream(
+				new FileOutputStream(file))));
+		try {
+			out.writeInt(CHECKPOINT_MAGIC);
+			out.writeInt(CHECKPOINT_VERSION);
+			out.writeDouble(context.clock);
+			out.writeBoolean(context.running);
+			out.writeLong(context.eventsDispatched);
+			out.writeInt(context.entities.size());
+			for (SimEntity entity : context.entities) {
+				out.writeUTF(entity.getName());
+				entity.saveState(out);
+			}
+			out.writeInt(futureEvents.size());
+			for (SimEvent event : futureEvents) {
+				writeEvent(context, event, out);
+			}
+			out.writeInt(context.deferred.size());
+			for (Iterator<SimEvent> events = context.deferred.iterator(); events.hasNext();) {
+				writeEvent(context, events.next(), out);
+			}
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Restores the state of a simulation saved by {@link #saveCheckpoint(String)}. The simulation
+	 * has to be built again the same way as the saved one, with {@link #init(int, Calendar, boolean)}
+	 * and the same entities, hosts, VMs and cloudlets, but not started: the saved state then
+	 * replaces the state of its entities and objects, instead of simulating the period before the
+	 * checkpoint. The simulation continues with {@link #startSimulation()}, keeping its own settings,
+	 * such as its termination time.
+	 * 
+	 * @param file the path of the file
+	 * @throws IOException if the file can't be read, or isn't a checkpoint
+	 * @throws IllegalStateException if the simulation has been started, or if it doesn't have the
+	 *             entities and objects of the saved simulation
+	 */
+	public static void restoreCheckpoint(String file) throws IOException {
+		SimulationContext context = getContext();
+		if (context.simulationThread != null || context.running) {
+			throw new IllegalStateException("A checkpoint can only be restored before the simulation is started.");
+		}
+		if (context.future.size() > 0 || context.deferred.size() > 0) {
+			throw new IllegalStateException("A checkpoint can only be restored into a simulation without events.");
+		}
+		CheckpointInput in = new CheckpointInput(new GZIPInputStream(new BufferedInputStream(
+				new FileInputStream(file))));
+		try {
+			if (in.readInt() != CHECKPOINT_MAGIC || in.readInt() != CHECKPOINT_VERSION) {
+				throw new StreamCorruptedException(file + " isn't a checkpoint of this version of CloudSim.");
+			}
+			context.clock = in.readDouble();
+			context.running = in.readBoolean();
+			context.eventsDispatched = in.readLong();
+			int entities = in.readInt();
+			if (entities != context.entities.size()) {
+				throw new IllegalStateException("The checkpoint has " + entities + " entities, but the simulation has "
+						+ context.entities.size() + ".");
+			}
+			for (SimEntity entity : context.entities) {
+				String name = in.readUTF();
+				if (!name.equals(entity.getName())) {
+					throw new IllegalStateException("The checkpoint has the entity " + name + " where the simulation has "
+							+ entity.getName() + ".");
+				}
+				entity.restoreState(in);
+			}
+			for (int i = in.readInt(); i > 0; i--) {
+				context.future.addRestoredEvent(readEvent(context, in));
+			}
+			for (int i = in.readInt(); i > 0; i--) {
+				context.deferred.addEvent(readEvent(context, in));
+			}
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Writes a pending event to a checkpoint, its data being written by its destination entity.
+	 * 
+	 * @param context the context of the simulation
+	 * @param event the event
+	 * @param out the checkpoint stream
+	 * @throws IOException if the event can't be written
+	 */
+	private static void writeEvent(SimulationContext context, SimEvent event, CheckpointOutput out)
+			throws IOException {
+		if (event.getType() == SimEvent.CREATE) {
+			throw new IllegalArgumentException("A checkpoint can't be saved while an entity is being created.");
+		}
+		out.writeByte(event.getType());
+		out.writeDouble(event.eventTime());
+		out.writeDouble(event.endWaitingTime());
+		out.writeInt(event.getSource());
+		out.writeInt(event.getDestination());
+		out.writeInt(event.getTag());
+		out.writeLong(event.getSerial());
+		if (event.getType() == SimEvent.SEND) {
+			context.entities.get(event.getDestination()).writeEventData(event.getTag(), event.getData(), out);
+		}
+	}
+
+	/**
+	 * Reads a pending event written by {@link #writeEvent(SimulationContext, SimEvent, CheckpointOutput)}.
+	 * 
+	 * @param context the context of the simulation
+	 * @param in the checkpoint stream
+	 * @return the event
+	 * @throws IOException if the event can't be read
+	 */
+	private static SimEvent readEvent(SimulationContext context, CheckpointInput in) throws IOException {
+		int type = in.readByte();
+		double time = in.readDouble();
+		double endWaitingTime = in.readDouble();
+		int src = in.readInt();
+		int dest = in.readInt();
+		int tag = in.readInt();
+		long serial = in.readLong();
+		Object data = null;
+		if (type == SimEvent.SEND) {
+			data = context.entities.get(dest).readEventData(tag, in);
+		}
+		SimEvent event = new SimEvent(type, time, src, dest, tag, data);
+		event.setSerial(serial);
+		event.setEndWaitingTime(endWaitingTime);
+		return event;
+	}
+
+	/**
+	 * Runs the ticks of the simulation until it ends or, when it runs in place, until it pauses.
+	 * 
+	 * @param context the context of the simulation
+	 * @param inPlace true to return when the simulation pauses, rather than waiting for it to be resumed
+	 * @return true, if the simulation has ended
+	 */
+	private static boolean runTicks(SimulationContext context, boolean inPlace) {
 		while (true) {
-			if (runClockTick() || abruptTerminate) {
-				break;
+			runEntities(context);
+
+			// the pause state is only checked when a pause has been requested
+			if (context.pauseRequested && pauseBeforeDispatch(context, inPlace)) {
+				return false;
+			}
+
+			if (dispatchEvents(context) || context.abruptTerminate) {
+				return true;
 			}
 
 			// this block allows termination of simulation at a specific time
-			if (terminateAt > 0.0 && clock >= terminateAt) {
+			if (context.terminateAt > 0.0 && context.clock >= context.terminateAt) {
 				terminateSimulation();
-				clock = terminateAt;
-				break;
+				context.clock = context.terminateAt;
+				return true;
 			}
 
-			if (pauseAt != -1
-					&& ((future.size() > 0 && clock <= pauseAt && pauseAt <= future.iterator().next()
-							.eventTime()) || future.size() == 0 && pauseAt <= clock)) {
-				pauseSimulation();
-				clock = pauseAt;
+			if (context.pauseRequested && pauseAfterDispatch(context, inPlace)) {
+				return false;
 			}
+		}
+	}
 
-			while (paused) {
-				try {
-					Thread.sleep(100);
-				} catch (InterruptedException e) {
-					e.printStackTrace();
+	/**
+	 * Pauses the simulation before its next events, when it reaches the pause point set by
+	 * {@link #runUntil(double)} or {@link #step(long)}. The entities have processed all the events
+	 * dispatched so far.
+	 * 
+	 * @param context the context of the simulation
+	 * @param inPlace true to stop running the simulation when it pauses, rather than waiting for it to be resumed
+	 * @return true, if the simulation has to stop running in place
+	 */
+	private static boolean pauseBeforeDispatch(SimulationContext context, boolean inPlace) {
+		context.pauseLock.lock();
+		try {
+			if (context.future.size() == 0) {
+				// the next tick ends the simulation, which is left to the thread finishing it
+				return inPlace;
+			}
+			boolean pause = false;
+			if (context.runUntil != -1 && context.runUntil <= context.future.peek().eventTime()) {
+				if (context.runUntil > context.clock) {
+					context.clock = context.runUntil;
 				}
+				context.runUntil = -1;
+				pause = true;
+			}
+			if (context.pauseAfterEvents != -1 && context.eventsDispatched >= context.pauseAfterEvents) {
+				context.pauseAfterEvents = -1;
+				pause = true;
+			}
+			if (!pause) {
+				return false;
+			}
+			context.paused = true;
+			return awaitResume(context, inPlace);
+		} finally {
+			context.pauseLock.unlock();
+		}
+	}
+
+	/**
+	 * Pauses the simulation after dispatching its events, when paused by
+	 * {@link #pauseSimulation()} or when it reaches the time given to
+	 * {@link #pauseSimulation(long)}. In the latter case the clock is set back to that time,
+	 * and the entities only process the events just dispatched once the simulation is resumed.
+	 * 
+	 * @param context the context of the simulation
+	 * @param inPlace true to stop running the simulation when it pauses, rather than waiting for it to be resumed
+	 * @return true, if the simulation has to stop running in place
+	 */
+	private static boolean pauseAfterDispatch(SimulationContext context, boolean inPlace) {
+		context.pauseLock.lock();
+		try {
+			if (context.pauseAt != -1
+					&& ((context.future.size() > 0 && context.clock <= context.pauseAt && context.pauseAt <= context.future
+							.peek().eventTime()) || context.future.size() == 0 && context.pauseAt <= context.clock)) {
+				context.paused = true;
+				context.clock = context.pauseAt;
+			}
+			return awaitResume(context, inPlace);
+		} finally {
+			context.pauseLock.unlock();
+		}
+	}
+
+	/**
+	 * Waits until the simulation is resumed, if it is paused. The pause lock has to be held.
+	 * 
+	 * @param context the context of the simulation
+	 * @param inPlace true to stop running the simulation when it is paused, rather than waiting for it to be resumed
+	 * @return true, if the simulation has to stop running in place
+	 */
+	private static boolean awaitResume(SimulationContext context, boolean inPlace) {
+		boolean stop = inPlace && context.paused;
+		if (stop) {
+			context.paused = false;
+		}
+		while (context.paused) {
+			context.pauseChanged.signalAll();
+			context.pauseChanged.awaitUninterruptibly();
+		}
+		context.pauseRequested = context.pauseAt != -1 || context.runUntil != -1 || context.pauseAfterEvents != -1;
+		return stop;
+	}
+
+	/**
+	 * Start the simulation running. This should be called after all the entities have been setup
+	 * and added, and their ports linked.
+	 * 
+	 * @return the last clock value
+	 */
+	public static double run() {
+		SimulationContext context = getContext();
+		context.simulationThread = Thread.currentThread();
+		try {
+			if (!context.running) {
+				runStart();
+			}
+			runTicks(context, false);
+		} finally {
+			context.pauseLock.lock();
+			try {
+				context.simulationThread = null;
+				context.pauseChanged.signalAll();
+			} finally {
+				context.pauseLock.unlock();
 			}
 		}
 
@@ -924,39 +1592,51 @@ public class CloudSim {
 	 * in user simulations.
 	 */
 	public static void finishSimulation() {
+		SimulationContext context = getContext();
 		// Allow all entities to exit their body method
-		if (!abruptTerminate) {
-			for (SimEntity ent : entities) {
+		if (!context.abruptTerminate) {
+			for (SimEntity ent : context.entities) {
 				if (ent.getState() != SimEntity.FINISHED) {
 					ent.run();
 				}
 			}
 		}
 
-		for (SimEntity ent : entities) {
+		for (SimEntity ent : context.entities) {
 			ent.shutdownEntity();
 		}
 
+		if (context.metrics != null) {
+			context.metrics.dump();
+		}
+
 		// reset all static variables
 		// Private data members
-		entities = null;
-		entitiesByName = null;
-		future = null;
-		deferred = null;
-		clock = 0L;
-		running = false;
-
-		waitPredicates = null;
-		paused = false;
-		pauseAt = -1;
-		abruptTerminate = false;
+		context.entities = null;
+		context.entitiesByName = null;
+		context.future = null;
+		context.deferred = null;
+		context.clock = 0L;
+		context.running = false;
+
+		context.waitPredicates = null;
+		context.parallel = null;
+		context.eventPool = null;
+		context.metrics = null;
+		context.paused = false;
+		context.pauseAt = -1;
+		context.runUntil = -1;
+		context.pauseAfterEvents = -1;
+		context.pauseRequested = false;
+		context.abruptTerminate = false;
 	}
 
 	/**
 	 * Abruptally terminate.
 	 */
 	public static void abruptallyTerminate() {
-		abruptTerminate = true;
+		SimulationContext context = getContext();
+		context.abruptTerminate = true;
 	}
 
 	/**
@@ -968,13 +1648,202 @@ public class CloudSim {
 		Log.printLine(message);
 	}
 
+	/**
+	 * Gets the number of events dispatched by the last simulation tick, i.e.
+	 * the number of events that happened at the current simulation time.
+	 * 
+	 * @return the number of events dispatched in the last tick
+	 */
+	public static int getEventsDispatchedInLastTick() {
+		SimulationContext context = getContext();
+		return context.eventsDispatchedInLastTick;
+	}
+
+	/**
+	 * Gets the total number of events dispatched since the simulation was initialised.
+	 * 
+	 * @return the number of events dispatched
+	 */
+	public static long getEventsDispatched() {
+		SimulationContext context = getContext();
+		return context.eventsDispatched;
+	}
+
+	/**
+	 * Sets the metrics collected about the events of the simulation: the events dispatched per tag
+	 * and per entity class, the time the entities take to process them and the sizes of the event
+	 * queues. No metrics are collected by default. If their output is set, the metrics are written
+	 * when the simulation finishes. This method should be called after
+	 * {@link #init(int, Calendar, boolean)}.
+	 * 
+	 * @param metrics the metrics, or <tt>null</tt> to not collect them
+	 */
+	public static void setMetrics(SimulationMetrics metrics) {
+		SimulationContext context = getContext();
+		context.metrics = metrics;
+	}
+
+	/**
+	 * Gets the metrics collected about the events of the simulation.
+	 * 
+	 * @return the metrics, or <tt>null</tt> if they are not collected
+	 * @see #setMetrics(SimulationMetrics)
+	 */
+	public static SimulationMetrics getMetrics() {
+		SimulationContext context = getContext();
+		return context.metrics;
+	}
+
+	/**
+	 * Enables or disables the recycling of the events. When enabled, the events are returned
+	 * to a pool once the entities receiving them have processed them, and reused for the
+	 * events sent afterwards, instead of allocating new ones. The entities must thus not keep
+	 * references to the events they receive after processing them (they may keep their data).
+	 * In guard mode, the recycled events are never reused and, when assertions are enabled
+	 * (<tt>-ea</tt>), any access to them throws an {@link IllegalStateException}, which helps to
+	 * find the entities that keep such references.
+	 * The events are not recycled while the entities run in parallel.
+	 * This method should be called after {@link #init(int, Calendar, boolean)}.
+	 * 
+	 * @param recycling true to recycle the events
+	 * @param guard true to detect accesses to the recycled events instead of reusing them
+	 * @see #getEventsAllocated()
+	 * @see #getEventsReused()
+	 */
+	public static void setEventRecycling(boolean recycling, boolean guard) {
+		SimulationContext context = getContext();
+		context.eventPool = recycling ? new SimEventPool(SimEventPool.DEFAULT_CAPACITY, guard) : null;
+	}
+
+	/**
+	 * Checks if the events are recycled.
+	 * 
+	 * @return true, if the events are recycled
+	 * @see #setEventRecycling(boolean, boolean)
+	 */
+	public static boolean isEventRecycling() {
+		SimulationContext context = getContext();
+		return context.eventPool != null;
+	}
+
+	/**
+	 * Gets the number of events allocated by the simulation since it was initialised.
+	 * Along with {@link #getEventsReused()}, it shows how many allocations the recycling
+	 * of the events saves.
+	 * 
+	 * @return the number of events allocated
+	 */
+	public static long getEventsAllocated() {
+		SimulationContext context = getContext();
+		return context.eventsAllocated;
+	}
+
+	/**
+	 * Gets the number of recycled events reused by the simulation since it was initialised.
+	 * 
+	 * @return the number of events reused
+	 * @see #setEventRecycling(boolean, boolean)
+	 */
+	public static long getEventsReused() {
+		SimulationContext context = getContext();
+		return context.eventsReused;
+	}
+
+	/**
+	 * Gets the number of dispatched events recycled since the simulation was initialised.
+	 * 
+	 * @return the number of events recycled
+	 * @see #setEventRecycling(boolean, boolean)
+	 */
+	public static long getEventsRecycled() {
+		SimulationContext context = getContext();
+		return context.eventsRecycled;
+	}
+
+	/**
+	 * Enables the parallel execution of the entities, grouped by their logical processes
+	 * (see {@link SimEntity#setLogicalProcess(int)}). At each tick, the runnable entities of
+	 * different logical processes run concurrently on the given pool, while the entities of the
+	 * same logical process run one after the other. The events sent by the entities and their
+	 * {@link Log} output are applied in the entity order once all of them have run,
+	 * so the results are the same as the sequential execution.
+	 * <p>
+	 * Entities of different logical processes should not share any state (for instance,
+	 * datacenters with their own hosts, VMs and policies); they should only interact through events.
+	 * While running in parallel, an entity can only send, cancel and select its own events,
+	 * no entity can be added, and {@link #terminateSimulation()} only takes effect at the end of the tick.
+	 * This method should be called after {@link #init(int, Calendar, boolean)}.
+	 * 
+	 * @param pool the pool running the entities, or <tt>null</tt> to run them sequentially
+	 * @see #setParallelExecution(ForkJoinPool, double)
+	 */
+	public static void setParallelExecution(ForkJoinPool pool) {
+		setParallelExecution(pool, 0);
+	}
+
+	/**
+	 * Enables the parallel execution of the entities over windows of simulation time, given the
+	 * lookahead of their logical processes (see {@link SimEntity#setLogicalProcess(int)}): the
+	 * minimum delay of the events sent from one logical process to another. No event sent at time
+	 * <tt>t</tt> can then reach another logical process before <tt>t + lookahead</tt>, so the
+	 * logical processes run concurrently up to the end of the window, each one with its own clock
+	 * and its own ticks. The events they send to each other are only delivered once the window
+	 * ends. The log output, the event serials and the deferred queue are settled in the order of
+	 * a sequential run, so the results stay the same as the sequential execution. With a lookahead
+	 * of 0, the windows are the ticks of {@link #setParallelExecution(ForkJoinPool)}.
+	 * <p>
+	 * The restrictions of {@link #setParallelExecution(ForkJoinPool)} apply. In addition, sending
+	 * an event to another logical process before the end of the window throws an
+	 * {@link IllegalStateException}, and so does asking to terminate the simulation at a time
+	 * within the window. Cancelling an event sent to another logical process that happens within
+	 * the window throws an {@link UnsupportedOperationException}. The terminations requested by
+	 * the entities ({@link #terminateSimulation()}, {@link #terminateSimulation(double)},
+	 * {@link #abruptallyTerminate()}) only take effect at the end of the window. The windows are
+	 * cut at the termination time and at the times given to {@link #runUntil(double)}, while the
+	 * simulation runs tick by tick when it has to pause at a given time or after a number of
+	 * events, or when metrics are collected.
+	 * 
+	 * @param pool the pool running the entities, or <tt>null</tt> to run them sequentially
+	 * @param lookahead the minimum delay of the events sent between logical processes
+	 */
+	public static void setParallelExecution(ForkJoinPool pool, double lookahead) {
+		SimulationContext context = getContext();
+		if (lookahead < 0) {
+			throw new IllegalArgumentException("The lookahead can't be negative.");
+		}
+		context.parallel = pool == null ? null : new ParallelExecutor(context, pool, lookahead);
+	}
+
+	/**
+	 * Gets the pool running the entities in parallel.
+	 * 
+	 * @return the pool or <tt>null</tt> if the entities are run sequentially
+	 * @see #setParallelExecution(ForkJoinPool)
+	 */
+	public static ForkJoinPool getParallelExecution() {
+		SimulationContext context = getContext();
+		return context.parallel == null ? null : context.parallel.getPool();
+	}
+
+	/**
+	 * Gets the lookahead of the logical processes run in parallel.
+	 * 
+	 * @return the lookahead, which is 0 if the entities are run tick by tick or sequentially
+	 * @see #setParallelExecution(ForkJoinPool, double)
+	 */
+	public static double getParallelLookahead() {
+		SimulationContext context = getContext();
+		return context.parallel == null ? 0 : context.parallel.getLookahead();
+	}
+
 	/**
 	 * Checks if is paused.
 	 * 
 	 * @return true, if is paused
 	 */
 	public static boolean isPaused() {
-		return paused;
+		SimulationContext context = getContext();
+		return context.paused;
 	}
 
 }
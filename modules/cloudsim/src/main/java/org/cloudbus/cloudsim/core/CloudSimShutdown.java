@@ -8,6 +8,8 @@
 
 package org.cloudbus.cloudsim.core;
 
+import java.io.IOException;
+
 /**
  * CloudimShutdown waits for termination of all CloudSim user entities to determine the end of
  * simulation. This class will be created by CloudSim upon initialisation of the simulation, i.e.
@@ -87,4 +89,16 @@ public class CloudSimShutdown extends SimEntity {
 	public void shutdownEntity() {
 		// do nothing
 	}
+
+	@Override
+	protected void saveState(CheckpointOutput out) throws IOException {
+		super.saveState(out);
+		out.writeInt(numUser);
+	}
+
+	@Override
+	protected void restoreState(CheckpointInput in) throws IOException {
+		super.restoreState(in);
+		numUser = in.readInt();
+	}
 }
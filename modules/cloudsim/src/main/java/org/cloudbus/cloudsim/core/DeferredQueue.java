@@ -8,15 +8,20 @@
 
 package org.cloudbus.cloudsim.core;
 
+import java.util.ArrayList;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.ListIterator;
+import java.util.NoSuchElementException;
+
+import org.cloudbus.cloudsim.core.predicates.Predicate;
 
 /**
- * This class implements the deferred event queue used by {@link CloudSim}. 
- * The event queue uses a linked list to store the events.
- * 
+ * This class implements the deferred event queue used by {@link CloudSim}.
+ * The events are stored in one mailbox per destination entity, so that the lookups
+ * for the events of a given entity only go through the events sent to it.
+ * Each mailbox is a ring buffer keeping its events in temporal order.
+ * The whole queue can still be iterated in temporal order through {@link #iterator()}.
+ *
  * @author Marcos Dias de Assuncao
  * @since CloudSim Toolkit 1.0
  * @see CloudSim
@@ -24,65 +29,412 @@ import java.util.ListIterator;
  */
 public class DeferredQueue {
 
-	/** The list of events. */
-	private final List<SimEvent> list = new LinkedList<SimEvent>();
+	/** The mailboxes, where the i-th element holds the events sent to the entity with id i. */
+	private final List<Mailbox> mailboxes = new ArrayList<Mailbox>();
 
-	/** The max time that an added event is scheduled. */
-	private double maxTime = -1;
+	/** A incremental number that defines the insertion order of the events. */
+	private long sequence = 0;
 
 	/**
 	 * Adds a new event to the queue. Adding a new event to the queue preserves the temporal order
 	 * of the events.
-	 * 
+	 *
 	 * @param newEvent The event to be added to the queue.
+	 * @pre newEvent.getDestination() >= 0
 	 */
 	public void addEvent(SimEvent newEvent) {
-		// The event has to be inserted as the last of all events
-		// with the same event_time(). Yes, this matters.
-		double eventTime = newEvent.eventTime();
-		if (eventTime >= maxTime) {
-			list.add(newEvent);
-			maxTime = eventTime;
-			return;
-		}
-
-		ListIterator<SimEvent> iterator = list.listIterator();
-		SimEvent event;
-		while (iterator.hasNext()) {
-			event = iterator.next();
-			if (event.eventTime() > eventTime) {
-				iterator.previous();
-				iterator.add(newEvent);
-				return;
-			}
+		addEvent(newEvent, sequence++);
+	}
+
+	/**
+	 * Adds a new event to the queue with a given insertion order, leaving the order that the next
+	 * events get unchanged. The logical processes of a parallel window (see {@link ParallelExecutor})
+	 * add their events this way, the orders being settled once the window ends.
+	 *
+	 * @param newEvent the event to be added to the queue
+	 * @param sequence the insertion order of the event
+	 */
+	void addEvent(SimEvent newEvent, long sequence) {
+		int destination = newEvent.getDestination();
+		if (destination < 0) {
+			throw new IllegalArgumentException("Deferred events should have a destination entity.");
 		}
+		reserve(destination + 1);
+		Mailbox mailbox = mailboxes.get(destination);
+		mailbox.add(newEvent, sequence);
+	}
 
-		list.add(newEvent);
+	/**
+	 * Creates the mailboxes of the entities that have none yet, so that the queue structure isn't
+	 * modified when events are added concurrently to the mailboxes of different entities.
+	 *
+	 * @param entities the number of entities, whose ids go from 0 to <tt>entities - 1</tt>
+	 */
+	void reserve(int entities) {
+		while (mailboxes.size() < entities) {
+			mailboxes.add(null);
+		}
+		for (int i = 0; i < entities; i++) {
+			if (mailboxes.get(i) == null) {
+				mailboxes.set(i, new Mailbox());
+			}
+		}
 	}
 
 	/**
-	 * Returns an iterator to the events in the queue.
-	 * 
+	 * Returns an iterator to the events in the queue, in temporal order.
+	 * Events having the same time are iterated in the order they were added.
+	 * The iterator doesn't support {@link Iterator#remove()}.
+	 *
 	 * @return the iterator
 	 */
 	public Iterator<SimEvent> iterator() {
-		return list.iterator();
+		return new Iterator<SimEvent>() {
+
+			/** The position of the next event to iterate in each mailbox. */
+			private final int[] positions = new int[mailboxes.size()];
+
+			/** The index of the mailbox holding the next event, or -1 if there are no more events. */
+			private int next = findNext();
+
+			private int findNext() {
+				int nextIndex = -1;
+				for (int i = 0; i < positions.length; i++) {
+					Mailbox mailbox = mailboxes.get(i);
+					if (mailbox != null && positions[i] < mailbox.count && (nextIndex < 0
+							|| mailbox.isBefore(positions[i], mailboxes.get(nextIndex), positions[nextIndex]))) {
+						nextIndex = i;
+					}
+				}
+				return nextIndex;
+			}
+
+			@Override
+			public boolean hasNext() {
+				return next >= 0;
+			}
+
+			@Override
+			public SimEvent next() {
+				if (next < 0) {
+					throw new NoSuchElementException();
+				}
+				SimEvent event = mailboxes.get(next).get(positions[next]++);
+				next = findNext();
+				return event;
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException("remove");
+			}
+		};
 	}
 
 	/**
 	 * Returns the size of this event queue.
-	 * 
+	 * The size is not kept in a shared counter, since entities running in parallel
+	 * (see {@link CloudSim#setParallelExecution(java.util.concurrent.ForkJoinPool)})
+	 * concurrently remove events from their own mailboxes.
+	 *
 	 * @return the number of events in the queue.
 	 */
 	public int size() {
-		return list.size();
+		int size = 0;
+		for (Mailbox mailbox : mailboxes) {
+			if (mailbox != null) {
+				size += mailbox.count;
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * Returns the number of events sent to a given entity.
+	 *
+	 * @param destination the id of the destination entity
+	 * @return the number of events in the entity's mailbox
+	 */
+	public int size(int destination) {
+		Mailbox mailbox = getMailbox(destination);
+		return mailbox == null ? 0 : mailbox.count;
+	}
+
+	/**
+	 * Counts the events sent to a given entity that match a predicate.
+	 *
+	 * @param destination the id of the destination entity
+	 * @param p the predicate
+	 * @return the number of matching events
+	 */
+	public int count(int destination, Predicate p) {
+		Mailbox mailbox = getMailbox(destination);
+		if (mailbox == null) {
+			return 0;
+		}
+		if (p == CloudSim.SIM_ANY) {
+			return mailbox.count;
+		}
+		int count = 0;
+		for (int i = 0; i < mailbox.count; i++) {
+			if (p.match(mailbox.get(i))) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Finds the first event, in temporal order, sent to a given entity that matches a predicate.
+	 *
+	 * @param destination the id of the destination entity
+	 * @param p the predicate
+	 * @return the event or <tt>null</tt> if no event matches
+	 */
+	public SimEvent findFirst(int destination, Predicate p) {
+		Mailbox mailbox = getMailbox(destination);
+		if (mailbox == null) {
+			return null;
+		}
+		int i = mailbox.indexOf(p);
+		return i < 0 ? null : mailbox.get(i);
+	}
+
+	/**
+	 * Removes the first event, in temporal order, sent to a given entity that matches a predicate.
+	 *
+	 * @param destination the id of the destination entity
+	 * @param p the predicate
+	 * @return the removed event or <tt>null</tt> if no event matches
+	 */
+	public SimEvent removeFirst(int destination, Predicate p) {
+		Mailbox mailbox = getMailbox(destination);
+		if (mailbox == null) {
+			return null;
+		}
+		int i = mailbox.indexOf(p);
+		if (i < 0) {
+			return null;
+		}
+		return mailbox.remove(i);
+	}
+
+	/**
+	 * Gets the last event of the queue in temporal order, whatever its destination.
+	 *
+	 * @return the last event or <tt>null</tt> if the queue is empty
+	 */
+	public SimEvent getLast() {
+		Mailbox last = null;
+		for (Mailbox mailbox : mailboxes) {
+			if (mailbox != null && mailbox.count > 0
+					&& (last == null || last.isBefore(last.count - 1, mailbox, mailbox.count - 1))) {
+				last = mailbox;
+			}
+		}
+		return last == null ? null : last.get(last.count - 1);
+	}
+
+	/**
+	 * Gets the last event, in temporal order, sent to a given entity.
+	 *
+	 * @param destination the id of the destination entity
+	 * @return the last event or <tt>null</tt> if the entity's mailbox is empty
+	 */
+	SimEvent getLast(int destination) {
+		Mailbox mailbox = getMailbox(destination);
+		return mailbox == null || mailbox.count == 0 ? null : mailbox.get(mailbox.count - 1);
+	}
+
+	/**
+	 * Gets the insertion order of the last event sent to a given entity, which breaks the ties
+	 * between the last events of several mailboxes having the same time.
+	 *
+	 * @param destination the id of the destination entity
+	 * @return the insertion order or -1 if the entity's mailbox is empty
+	 */
+	long getLastSequence(int destination) {
+		Mailbox mailbox = getMailbox(destination);
+		return mailbox == null || mailbox.count == 0 ? -1 : mailbox.sequences[mailbox.physical(mailbox.count - 1)];
+	}
+
+	/**
+	 * Gets the insertion order of the i-th event sent to a given entity.
+	 *
+	 * @param destination the id of the destination entity
+	 * @param i the position of the event in the entity's mailbox
+	 * @return the insertion order
+	 */
+	long getSequence(int destination, int i) {
+		Mailbox mailbox = getMailbox(destination);
+		return mailbox.sequences[mailbox.physical(i)];
+	}
+
+	/**
+	 * Sets the insertion order of the i-th event sent to a given entity. The order must keep
+	 * the events of the mailbox having the same time in the order they were added.
+	 *
+	 * @param destination the id of the destination entity
+	 * @param i the position of the event in the entity's mailbox
+	 * @param sequence the insertion order
+	 */
+	void setSequence(int destination, int i, long sequence) {
+		Mailbox mailbox = getMailbox(destination);
+		mailbox.sequences[mailbox.physical(i)] = sequence;
+	}
+
+	/**
+	 * Gets the insertion order that the next event added to the queue will get.
+	 *
+	 * @return the insertion order
+	 */
+	long getSequence() {
+		return sequence;
+	}
+
+	/**
+	 * Sets the insertion order that the next event added to the queue will get.
+	 *
+	 * @param sequence the insertion order
+	 */
+	void setSequence(long sequence) {
+		this.sequence = sequence;
 	}
 
 	/**
 	 * Clears the queue.
 	 */
 	public void clear() {
-		list.clear();
+		mailboxes.clear();
+	}
+
+	/**
+	 * Gets the mailbox of a given entity.
+	 *
+	 * @param destination the id of the entity
+	 * @return the mailbox or <tt>null</tt> if no event has been sent to the entity
+	 */
+	private Mailbox getMailbox(int destination) {
+		if (destination < 0 || destination >= mailboxes.size()) {
+			return null;
+		}
+		return mailboxes.get(destination);
+	}
+
+	/**
+	 * A ring buffer of events sorted by time and then by insertion order.
+	 * Events are usually appended to the tail and removed from the head, both in O(1).
+	 */
+	private static final class Mailbox {
+
+		private SimEvent[] events = new SimEvent[8];
+
+		/** The insertion order of the {@link #events}, to merge the mailboxes in a global order. */
+		private long[] sequences = new long[8];
+
+		/** The physical position of the first event. */
+		private int head = 0;
+
+		/** The number of events in the mailbox. */
+		private int count = 0;
+
+		/**
+		 * Gets the physical position of the i-th event.
+		 */
+		private int physical(int i) {
+			return (head + i) & (events.length - 1);
+		}
+
+		SimEvent get(int i) {
+			return events[physical(i)];
+		}
+
+		/**
+		 * Checks if the i-th event of this mailbox comes before the j-th event of another one.
+		 */
+		boolean isBefore(int i, Mailbox other, int j) {
+			double time = get(i).eventTime();
+			double otherTime = other.get(j).eventTime();
+			if (time != otherTime) {
+				return time < otherTime;
+			}
+			return sequences[physical(i)] < other.sequences[other.physical(j)];
+		}
+
+		void add(SimEvent event, long sequence) {
+			if (count == events.length) {
+				grow();
+			}
+
+			// The event has to be inserted as the last of all events
+			// with the same event_time(). Yes, this matters.
+			double time = event.eventTime();
+			int position = count;
+			if (count > 0 && get(count - 1).eventTime() > time) {
+				int low = 0;
+				int high = count - 1;
+				while (low < high) {
+					int middle = (low + high) >>> 1;
+					if (get(middle).eventTime() > time) {
+						high = middle;
+					} else {
+						low = middle + 1;
+					}
+				}
+				position = low;
+				for (int i = count; i > position; i--) {
+					events[physical(i)] = events[physical(i - 1)];
+					sequences[physical(i)] = sequences[physical(i - 1)];
+				}
+			}
+			events[physical(position)] = event;
+			sequences[physical(position)] = sequence;
+			count++;
+		}
+
+		int indexOf(Predicate p) {
+			for (int i = 0; i < count; i++) {
+				if (p.match(get(i))) {
+					return i;
+				}
+			}
+			return -1;
+		}
+
+		SimEvent remove(int i) {
+			SimEvent event = get(i);
+			if (i < count / 2) {
+				for (int j = i; j > 0; j--) {
+					events[physical(j)] = events[physical(j - 1)];
+					sequences[physical(j)] = sequences[physical(j - 1)];
+				}
+				events[head] = null;
+				head = physical(1);
+			} else {
+				for (int j = i; j < count - 1; j++) {
+					events[physical(j)] = events[physical(j + 1)];
+					sequences[physical(j)] = sequences[physical(j + 1)];
+				}
+				events[physical(count - 1)] = null;
+			}
+			count--;
+			return event;
+		}
+
+		/**
+		 * Doubles the capacity, moving the events to the beginning of the new arrays.
+		 */
+		private void grow() {
+			SimEvent[] newEvents = new SimEvent[events.length * 2];
+			long[] newSequences = new long[events.length * 2];
+			for (int i = 0; i < count; i++) {
+				newEvents[i] = get(i);
+				newSequences[i] = sequences[physical(i)];
+			}
+			events = newEvents;
+			sequences = newSequences;
+			head = 0;
+		}
 	}
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,134 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * The common interface for the future event queues used by {@link CloudSim}.
+ * Every implementation must deliver the events in the order defined by
+ * {@link SimEvent#compareTo(SimEvent)}, that is, by event time and then by
+ * {@link SimEvent#serial}. Events having the same time and serial
+ * (which happens when several events are added with {@link #addEventFirst(SimEvent)})
+ * are delivered in the order they were added.
+ * This guarantees that a simulation produces exactly the same results
+ * whatever the queue implementation used.
+ *
+ * @since CloudSim Toolkit 4.0
+ * @see FutureQueue
+ * @see CalendarEventQueue
+ * @see HeapEventQueue
+ * @see CloudSim#init(int, java.util.Calendar, boolean, EventQueue)
+ */
+public interface EventQueue {
+
+	/**
+	 * Adds a new event to the queue. Adding a new event to the queue preserves the temporal order of
+	 * the events in the queue.
+	 *
+	 * @param newEvent The event to be put in the queue.
+	 */
+	void addEvent(SimEvent newEvent);
+
+	/**
+	 * Adds a new event to the head of the queue, i.e. before any other event
+	 * having the same time.
+	 *
+	 * @param newEvent The event to be put in the queue.
+	 */
+	void addEventFirst(SimEvent newEvent);
+
+	/**
+	 * Adds an event restored from a checkpoint, keeping the serial it had in the saved queue.
+	 * The events of a queue restored in the order they were polled from the saved queue are
+	 * polled in the same order, and the events added next get serials following the restored ones.
+	 * The default implementation throws an {@link UnsupportedOperationException}.
+	 *
+	 * @param event the restored event
+	 * @see CloudSim#restoreCheckpoint(String)
+	 */
+	default void addRestoredEvent(SimEvent event) {
+		throw new UnsupportedOperationException(getClass().getSimpleName() + " can't restore events");
+	}
+
+	/**
+	 * Gets the first event of the queue, without removing it.
+	 *
+	 * @return the first event or <tt>null</tt> if the queue is empty
+	 */
+	SimEvent peek();
+
+	/**
+	 * Removes and returns the first event of the queue.
+	 *
+	 * @return the first event or <tt>null</tt> if the queue is empty
+	 */
+	SimEvent poll();
+
+	/**
+	 * Removes all the events happening at a given time from the head of the queue,
+	 * appending them to a batch in the order they have to be processed.
+	 * The batch is supplied by the caller so it can be reused between calls,
+	 * avoiding allocations when the queue is drained at each simulation tick.
+	 *
+	 * @param time the time of the events to remove, usually the time of the {@link #peek() first event}
+	 * @param batch the list to which the removed events are appended
+	 * @return the number of events removed
+	 */
+	default int pollAllAt(double time, List<SimEvent> batch) {
+		int count = 0;
+		SimEvent next = peek();
+		while (next != null && next.eventTime() == time) {
+			batch.add(poll());
+			count++;
+			next = peek();
+		}
+		return count;
+	}
+
+	/**
+	 * Returns an iterator to the queue. The iteration order is implementation-specific
+	 * and the iterator is not required to support {@link Iterator#remove()}.
+	 * Use {@link #remove(SimEvent)} or {@link #removeAll(Collection)} to remove events.
+	 *
+	 * @return the iterator
+	 */
+	Iterator<SimEvent> iterator();
+
+	/**
+	 * Returns the size of this event queue.
+	 *
+	 * @return the size
+	 */
+	int size();
+
+	/**
+	 * Removes the event from the queue.
+	 *
+	 * @param event the event
+	 * @return true, if successful
+	 */
+	boolean remove(SimEvent event);
+
+	/**
+	 * Removes all the events from the queue.
+	 *
+	 * @param events the events
+	 * @return true, if successful
+	 */
+	boolean removeAll(Collection<SimEvent> events);
+
+	/**
+	 * Clears the queue.
+	 */
+	void clear();
+
+}
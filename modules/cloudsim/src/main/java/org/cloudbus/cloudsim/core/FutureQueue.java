@@ -10,7 +10,6 @@ package org.cloudbus.cloudsim.core;
 
 import java.util.Collection;
 import java.util.Iterator;
-import java.util.SortedSet;
 import java.util.TreeSet;
 
 /**
@@ -21,14 +20,12 @@ import java.util.TreeSet;
  * @since CloudSim Toolkit 1.0
  * @see Simulation
  * @see java.util.TreeSet
- * 
- * @todo It would be used a common interface for queues
- * such as this one and {@link DeferredQueue}
+ * @see EventQueue
  */
-public class FutureQueue {
+public class FutureQueue implements EventQueue {
 
 	/** The sorted set of events. */
-	private final SortedSet<SimEvent> sortedSet = new TreeSet<SimEvent>();
+	private final TreeSet<SimEvent> sortedSet = new TreeSet<SimEvent>();
 
 	/** A incremental number used for {@link SimEvent#serial} event attribute.
          */
@@ -40,6 +37,7 @@ public class FutureQueue {
 	 * 
 	 * @param newEvent The event to be put in the queue.
 	 */
+	@Override
 	public void addEvent(SimEvent newEvent) {
 		newEvent.setSerial(serial++);
 		sortedSet.add(newEvent);
@@ -50,16 +48,34 @@ public class FutureQueue {
 	 * 
 	 * @param newEvent The event to be put in the queue.
 	 */
+	@Override
 	public void addEventFirst(SimEvent newEvent) {
 		newEvent.setSerial(0);
 		sortedSet.add(newEvent);
 	}
 
+	@Override
+	public void addRestoredEvent(SimEvent event) {
+		serial = Math.max(serial, event.getSerial() + 1);
+		sortedSet.add(event);
+	}
+
+	@Override
+	public SimEvent peek() {
+		return sortedSet.isEmpty() ? null : sortedSet.first();
+	}
+
+	@Override
+	public SimEvent poll() {
+		return sortedSet.pollFirst();
+	}
+
 	/**
-	 * Returns an iterator to the queue.
+	 * Returns an iterator to the queue. The events are iterated in their temporal order.
 	 * 
 	 * @return the iterator
 	 */
+	@Override
 	public Iterator<SimEvent> iterator() {
 		return sortedSet.iterator();
 	}
@@ -69,6 +85,7 @@ public class FutureQueue {
 	 * 
 	 * @return the size
 	 */
+	@Override
 	public int size() {
 		return sortedSet.size();
 	}
@@ -79,8 +96,22 @@ public class FutureQueue {
 	 * @param event the event
 	 * @return true, if successful
 	 */
+	@Override
 	public boolean remove(SimEvent event) {
-		return sortedSet.remove(event);
+		if (sortedSet.remove(event)) {
+			return true;
+		}
+
+		// Events sharing the same time and serial (added by addEventFirst) can't always
+		// be found by the tree search, since compareTo doesn't tell them apart
+		Iterator<SimEvent> iterator = sortedSet.iterator();
+		while (iterator.hasNext()) {
+			if (iterator.next() == event) {
+				iterator.remove();
+				return true;
+			}
+		}
+		return false;
 	}
 
 	/**
@@ -89,13 +120,19 @@ public class FutureQueue {
 	 * @param events the events
 	 * @return true, if successful
 	 */
+	@Override
 	public boolean removeAll(Collection<SimEvent> events) {
-		return sortedSet.removeAll(events);
+		boolean removed = false;
+		for (SimEvent event : events) {
+			removed |= remove(event);
+		}
+		return removed;
 	}
 
 	/**
 	 * Clears the queue.
 	 */
+	@Override
 	public void clear() {
 		sortedSet.clear();
 	}
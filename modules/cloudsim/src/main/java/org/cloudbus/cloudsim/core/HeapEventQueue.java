@@ -0,0 +1,336 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A future event queue backed by an array-based d-ary heap (a 4-ary heap by default).
+ * The ordering keys of the events (time, serial and insertion order) are kept in
+ * primitive arrays parallel to the event array, so comparisons don't
+ * need to dereference the events and no node is allocated per added event.
+ * Adding, polling and removing an event are O(log n), since the heap keeps track
+ * of the position of each event.
+ *
+ * @since CloudSim Toolkit 4.0
+ * @see EventQueue
+ */
+public class HeapEventQueue implements EventQueue {
+
+	/** The default arity of the heap. */
+	public static final int DEFAULT_ARITY = 4;
+
+	/** The default initial capacity of the heap. */
+	private static final int DEFAULT_CAPACITY = 64;
+
+	/** The number of children of each heap node. */
+	private final int arity;
+
+	/** The events in heap order. */
+	private SimEvent[] events;
+
+	/** The times of the {@link #events}. */
+	private double[] times;
+
+	/** The serials of the {@link #events}. */
+	private long[] serials;
+
+	/** The insertion order of the {@link #events}, used to break ties between equal serials. */
+	private long[] sequences;
+
+	/** The number of events in the queue. */
+	private int size;
+
+	/** A incremental number used for {@link SimEvent#serial} event attribute. */
+	private long serial = 0;
+
+	/** A incremental number that defines the insertion order of the events. */
+	private long sequence = 0;
+
+	/**
+	 * Creates a 4-ary heap event queue.
+	 */
+	public HeapEventQueue() {
+		this(DEFAULT_ARITY);
+	}
+
+	/**
+	 * Creates a d-ary heap event queue.
+	 *
+	 * @param arity the number of children of each heap node
+	 */
+	public HeapEventQueue(int arity) {
+		if (arity < 2) {
+			throw new IllegalArgumentException("The heap arity should be at least 2, but is: " + arity);
+		}
+		this.arity = arity;
+		events = new SimEvent[DEFAULT_CAPACITY];
+		times = new double[DEFAULT_CAPACITY];
+		serials = new long[DEFAULT_CAPACITY];
+		sequences = new long[DEFAULT_CAPACITY];
+	}
+
+	@Override
+	public void addEvent(SimEvent newEvent) {
+		newEvent.setSerial(serial++);
+		insert(newEvent);
+	}
+
+	@Override
+	public void addEventFirst(SimEvent newEvent) {
+		newEvent.setSerial(0);
+		insert(newEvent);
+	}
+
+	@Override
+	public void addRestoredEvent(SimEvent event) {
+		serial = Math.max(serial, event.getSerial() + 1);
+		insert(event);
+	}
+
+	@Override
+	public SimEvent peek() {
+		return size == 0 ? null : events[0];
+	}
+
+	@Override
+	public SimEvent poll() {
+		if (size == 0) {
+			return null;
+		}
+		SimEvent first = events[0];
+		removeAt(0);
+		first.queuePosition = -1;
+		return first;
+	}
+
+	@Override
+	public Iterator<SimEvent> iterator() {
+		return new Iterator<SimEvent>() {
+
+			private int index = 0;
+
+			@Override
+			public boolean hasNext() {
+				return index < size;
+			}
+
+			@Override
+			public SimEvent next() {
+				if (index >= size) {
+					throw new NoSuchElementException();
+				}
+				return events[index++];
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException("remove");
+			}
+		};
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public boolean remove(SimEvent event) {
+		int position = event.queuePosition;
+		if (position >= 0 && position < size && events[position] == event) {
+			removeAt(position);
+			return true;
+		}
+		for (int i = 0; i < size; i++) {
+			if (events[i] == event) {
+				removeAt(i);
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public boolean removeAll(Collection<SimEvent> toRemove) {
+		if (toRemove.isEmpty() || size == 0) {
+			return false;
+		}
+		Set<SimEvent> set = Collections.newSetFromMap(new IdentityHashMap<SimEvent, Boolean>());
+		set.addAll(toRemove);
+
+		int kept = 0;
+		for (int i = 0; i < size; i++) {
+			if (!set.contains(events[i])) {
+				move(i, kept++);
+			}
+		}
+		if (kept == size) {
+			return false;
+		}
+		Arrays.fill(events, kept, size, null);
+		size = kept;
+
+		// Rebuilds the heap property bottom-up
+		for (int i = (size - 2) / arity; i >= 0; i--) {
+			siftDown(i);
+		}
+		return true;
+	}
+
+	@Override
+	public void clear() {
+		Arrays.fill(events, 0, size, null);
+		size = 0;
+	}
+
+	/**
+	 * Inserts an event whose serial has already been set.
+	 *
+	 * @param event the event to insert
+	 */
+	private void insert(SimEvent event) {
+		if (size == events.length) {
+			int capacity = events.length * 2;
+			events = Arrays.copyOf(events, capacity);
+			times = Arrays.copyOf(times, capacity);
+			serials = Arrays.copyOf(serials, capacity);
+			sequences = Arrays.copyOf(sequences, capacity);
+		}
+		int i = size++;
+		events[i] = event;
+		times[i] = event.eventTime();
+		serials[i] = event.getSerial();
+		sequences[i] = sequence++;
+		siftUp(i);
+	}
+
+	/**
+	 * Removes the event at a given position of the heap.
+	 *
+	 * @param i the position of the event
+	 */
+	private void removeAt(int i) {
+		int last = --size;
+		if (i != last) {
+			move(last, i);
+			events[last] = null;
+			if (siftDown(i) == i) {
+				siftUp(i);
+			}
+		} else {
+			events[last] = null;
+		}
+	}
+
+	/**
+	 * Moves an event towards the root until the heap property is restored.
+	 *
+	 * @param i the position of the event
+	 * @return the new position of the event
+	 */
+	private int siftUp(int i) {
+		SimEvent event = events[i];
+		double time = times[i];
+		long eventSerial = serials[i];
+		long eventSequence = sequences[i];
+		while (i > 0) {
+			int parent = (i - 1) / arity;
+			if (!less(time, eventSerial, eventSequence, parent)) {
+				break;
+			}
+			move(parent, i);
+			i = parent;
+		}
+		events[i] = event;
+		times[i] = time;
+		serials[i] = eventSerial;
+		sequences[i] = eventSequence;
+		event.queuePosition = i;
+		return i;
+	}
+
+	/**
+	 * Moves an event towards the leaves until the heap property is restored.
+	 *
+	 * @param i the position of the event
+	 * @return the new position of the event
+	 */
+	private int siftDown(int i) {
+		SimEvent event = events[i];
+		double time = times[i];
+		long eventSerial = serials[i];
+		long eventSequence = sequences[i];
+		while (true) {
+			int firstChild = arity * i + 1;
+			if (firstChild >= size) {
+				break;
+			}
+			int lastChild = Math.min(firstChild + arity, size);
+			int min = firstChild;
+			for (int c = firstChild + 1; c < lastChild; c++) {
+				if (less(times[c], serials[c], sequences[c], min)) {
+					min = c;
+				}
+			}
+			if (!less(times[min], serials[min], sequences[min], time, eventSerial, eventSequence)) {
+				break;
+			}
+			move(min, i);
+			i = min;
+		}
+		events[i] = event;
+		times[i] = time;
+		serials[i] = eventSerial;
+		sequences[i] = eventSequence;
+		event.queuePosition = i;
+		return i;
+	}
+
+	/**
+	 * Copies the event at a given position (and its keys) to another position.
+	 *
+	 * @param from the source position
+	 * @param to the destination position
+	 */
+	private void move(int from, int to) {
+		events[to] = events[from];
+		events[to].queuePosition = to;
+		times[to] = times[from];
+		serials[to] = serials[from];
+		sequences[to] = sequences[from];
+	}
+
+	/**
+	 * Checks if a given key is ordered before the key of the event at a given position.
+	 */
+	private boolean less(double time, long eventSerial, long eventSequence, int j) {
+		return less(time, eventSerial, eventSequence, times[j], serials[j], sequences[j]);
+	}
+
+	/**
+	 * Checks if the first key is ordered before the second one.
+	 */
+	private static boolean less(double t1, long s1, long q1, double t2, long s2, long q2) {
+		if (t1 != t2) {
+			return t1 < t2;
+		}
+		if (s1 != s2) {
+			return s1 < s2;
+		}
+		return q1 < q2;
+	}
+
+}
@@ -0,0 +1,299 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A future event queue that wraps another {@link EventQueue}, keeping a secondary index
+ * of its events by source entity and tag. The index allows {@link CloudSim#cancel(int, org.cloudbus.cloudsim.core.predicates.Predicate)}
+ * and {@link CloudSim#cancelAll(int, org.cloudbus.cloudsim.core.predicates.Predicate)}
+ * to find the events matching a {@link org.cloudbus.cloudsim.core.predicates.PredicateType}
+ * without scanning the whole queue.
+ * <p>
+ * A (source, tag) pair is only indexed after events with such a source and tag are cancelled for
+ * the first time. That first cancellation scans the queue to build the index entry,
+ * which is then kept up to date as events are added and removed. This way, the events that are
+ * never cancelled don't pay for the index.
+ *
+ * @since CloudSim Toolkit 4.0
+ * @see EventQueue
+ */
+public class IndexedEventQueue implements EventQueue {
+
+	/** The queue actually holding the events. */
+	private final EventQueue queue;
+
+	/**
+	 * The index of events, where the i-th element maps the indexed tags of the entity with id i
+	 * to the events having such a tag. An element is <tt>null</tt> when no tag is indexed for the entity.
+	 */
+	private final List<Map<Integer, Set<SimEvent>>> index = new ArrayList<Map<Integer, Set<SimEvent>>>();
+
+	/**
+	 * Creates an indexed queue.
+	 *
+	 * @param queue the empty queue to wrap, which should only be accessed through this one from now on
+	 */
+	public IndexedEventQueue(EventQueue queue) {
+		if (queue == null) {
+			throw new IllegalArgumentException("The wrapped event queue can't be null.");
+		}
+		if (queue.size() > 0) {
+			throw new IllegalArgumentException("The wrapped event queue should be empty.");
+		}
+		this.queue = queue;
+	}
+
+	/**
+	 * Gets the wrapped queue.
+	 *
+	 * @return the wrapped queue
+	 */
+	public EventQueue getQueue() {
+		return queue;
+	}
+
+	@Override
+	public void addEvent(SimEvent newEvent) {
+		queue.addEvent(newEvent);
+		indexEvent(newEvent);
+	}
+
+	@Override
+	public void addEventFirst(SimEvent newEvent) {
+		queue.addEventFirst(newEvent);
+		indexEvent(newEvent);
+	}
+
+	@Override
+	public void addRestoredEvent(SimEvent event) {
+		queue.addRestoredEvent(event);
+		indexEvent(event);
+	}
+
+	@Override
+	public SimEvent peek() {
+		return queue.peek();
+	}
+
+	@Override
+	public SimEvent poll() {
+		SimEvent event = queue.poll();
+		if (event != null) {
+			unindexEvent(event);
+		}
+		return event;
+	}
+
+	@Override
+	public int pollAllAt(double time, List<SimEvent> batch) {
+		int start = batch.size();
+		int count = queue.pollAllAt(time, batch);
+		for (int i = start; i < start + count; i++) {
+			unindexEvent(batch.get(i));
+		}
+		return count;
+	}
+
+	@Override
+	public Iterator<SimEvent> iterator() {
+		final Iterator<SimEvent> iterator = queue.iterator();
+		return new Iterator<SimEvent>() {
+
+			@Override
+			public boolean hasNext() {
+				return iterator.hasNext();
+			}
+
+			@Override
+			public SimEvent next() {
+				return iterator.next();
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException("remove");
+			}
+		};
+	}
+
+	@Override
+	public int size() {
+		return queue.size();
+	}
+
+	@Override
+	public boolean remove(SimEvent event) {
+		if (queue.remove(event)) {
+			unindexEvent(event);
+			return true;
+		}
+		return false;
+	}
+
+	@Override
+	public boolean removeAll(Collection<SimEvent> events) {
+		if (queue.removeAll(events)) {
+			// The index only holds events in the queue, so they all have been removed
+			for (SimEvent event : events) {
+				unindexEvent(event);
+			}
+			return true;
+		}
+		return false;
+	}
+
+	@Override
+	public void clear() {
+		queue.clear();
+		index.clear();
+	}
+
+	/**
+	 * Finds the first event, according to the queue order, sent by a given entity
+	 * with one of the given tags.
+	 *
+	 * @pre source >= 0
+	 * @param source the id of the entity that sent the event
+	 * @param tags the tags of the event
+	 * @return the event or <tt>null</tt> if there isn't a matching event
+	 */
+	public SimEvent findFirst(int source, int[] tags) {
+		SimEvent first = null;
+		for (int tag : tags) {
+			for (SimEvent event : getIndexedEvents(source, tag)) {
+				if (first == null || event.compareTo(first) < 0) {
+					first = event;
+				}
+			}
+		}
+		return first;
+	}
+
+	/**
+	 * Removes the first event, according to the queue order, sent by a given entity
+	 * with one of the given tags.
+	 *
+	 * @pre source >= 0
+	 * @param source the id of the entity that sent the event
+	 * @param tags the tags of the event
+	 * @return the removed event or <tt>null</tt> if there isn't a matching event
+	 */
+	public SimEvent removeFirst(int source, int[] tags) {
+		SimEvent first = findFirst(source, tags);
+		if (first != null) {
+			remove(first);
+		}
+		return first;
+	}
+
+	/**
+	 * Removes all the events sent by a given entity with one of the given tags.
+	 *
+	 * @pre source >= 0
+	 * @param source the id of the entity that sent the events
+	 * @param tags the tags of the events
+	 * @return true if at least one event has been removed, false otherwise
+	 */
+	public boolean removeAll(int source, int[] tags) {
+		boolean removed = false;
+		for (int tag : tags) {
+			Set<SimEvent> events = getIndexedEvents(source, tag);
+			if (events.isEmpty()) {
+				continue;
+			}
+			for (SimEvent event : events) {
+				queue.remove(event);
+			}
+			events.clear();
+			removed = true;
+		}
+		return removed;
+	}
+
+	/**
+	 * Gets the indexed events having a given source and tag,
+	 * building the index entry if it doesn't exist yet.
+	 *
+	 * @param source the id of the entity that sent the events
+	 * @param tag the tag of the events
+	 * @return the set of events, which is updated as the queue changes
+	 */
+	private Set<SimEvent> getIndexedEvents(int source, int tag) {
+		while (index.size() <= source) {
+			index.add(null);
+		}
+		Map<Integer, Set<SimEvent>> tags = index.get(source);
+		if (tags == null) {
+			tags = new HashMap<Integer, Set<SimEvent>>();
+			index.set(source, tags);
+		}
+
+		Set<SimEvent> events = tags.get(tag);
+		if (events == null) {
+			events = new HashSet<SimEvent>();
+			for (Iterator<SimEvent> it = queue.iterator(); it.hasNext();) {
+				SimEvent event = it.next();
+				if (event.getSource() == source && event.getTag() == tag) {
+					events.add(event);
+				}
+			}
+			tags.put(tag, events);
+		}
+		return events;
+	}
+
+	/**
+	 * Gets the index entry of the events having the source and tag of a given event.
+	 *
+	 * @param event the event
+	 * @return the set of events or <tt>null</tt> if such source and tag are not indexed
+	 */
+	private Set<SimEvent> getIndexEntry(SimEvent event) {
+		int source = event.getSource();
+		if (source < 0 || source >= index.size()) {
+			return null;
+		}
+		Map<Integer, Set<SimEvent>> tags = index.get(source);
+		return tags == null ? null : tags.get(event.getTag());
+	}
+
+	/**
+	 * Adds an event to the index, if its source and tag are indexed.
+	 *
+	 * @param event the event
+	 */
+	private void indexEvent(SimEvent event) {
+		Set<SimEvent> events = getIndexEntry(event);
+		if (events != null) {
+			events.add(event);
+		}
+	}
+
+	/**
+	 * Removes an event from the index, if its source and tag are indexed.
+	 *
+	 * @param event the event
+	 */
+	private void unindexEvent(SimEvent event) {
+		Set<SimEvent> events = getIndexEntry(event);
+		if (events != null) {
+			events.remove(event);
+		}
+	}
+
+}
@@ -0,0 +1,895 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RecursiveAction;
+
+import org.cloudbus.cloudsim.core.predicates.Predicate;
+
+/**
+ * A logical process run by a {@link ParallelExecutor} over a window of simulation time. The
+ * process has its own clock and its own future queue, which holds the events of the window sent
+ * to its entities. It dispatches them and runs its entities tick by tick, as a sequential run
+ * would, until the end of the window. The events sent to other logical processes are kept aside
+ * until then, since they can't happen within the window.
+ * <p>
+ * Each step of a tick is identified by a {@link Point}: first the dispatch of the events, then the
+ * run of each entity. A sequential run goes through the points of all the logical processes in
+ * order, so the side effects of the window (log output, event serials, deferred queue order) are
+ * settled in that order once it ends.
+ *
+ * @since CloudSim Toolkit 4.0
+ * @see CloudSim#setParallelExecution(java.util.concurrent.ForkJoinPool, double)
+ */
+final class LogicalProcess extends RecursiveAction {
+
+	/** The point before all the points of a window. */
+	static final Point START = new Point(Double.NEGATIVE_INFINITY, 0, 0);
+
+	/** The point after all the points of a window. */
+	static final Point END = new Point(Double.POSITIVE_INFINITY, 0, 0);
+
+	/** The executor running the logical process. */
+	private final ParallelExecutor executor;
+
+	/** The context of the simulation. */
+	private final SimulationContext context;
+
+	/** The entities of the logical process, in the order of their ids. */
+	private final List<SimEntity> entities = new ArrayList<SimEntity>();
+
+	/** The future events of the logical process, indexed to speed up event cancellations. */
+	private final IndexedEventQueue future = new IndexedEventQueue(new FutureQueue());
+
+	/** The buffer receiving the events dispatched at each tick. */
+	private final List<SimEvent> batch = new ArrayList<SimEvent>();
+
+	/** The order of the events of the window known by the logical process, in a sequential run. */
+	private final Map<SimEvent, EventOrder> orders = new IdentityHashMap<SimEvent, EventOrder>();
+
+	/** The events sent to other logical processes during the window. */
+	private final List<SimEvent> outgoing = new ArrayList<SimEvent>();
+
+	/**
+	 * The events sent by the entities before the window to other logical processes, which dispatch
+	 * them within the window.
+	 */
+	private final List<SimEvent> across = new ArrayList<SimEvent>();
+
+	/** The end of the window. */
+	private double end;
+
+	/** The clock of the logical process. */
+	private double clock;
+
+	/** The round of the current tick, which counts the ticks at the same time since the window started. */
+	private int round;
+
+	/** The point being run. */
+	private Point point;
+
+	/** The next point to run, all the points before it having been run. */
+	private volatile Point progress = END;
+
+	/** The serial of the next event sent within the logical process. */
+	private long serial;
+
+	/** The id of the entity being run, or -1 if none is. */
+	private int running = -1;
+
+	/** The number of events sent by the entity being run. */
+	private int sent;
+
+	/** The insertion order that the next event added to the deferred queue had when the window started. */
+	private long deferredBase;
+
+	/**
+	 * The events added to the deferred queue during the window, in the order they were added.
+	 * Their insertion orders in the queue are the indexes in this list plus {@link #deferredBase}
+	 * until the window ends.
+	 */
+	private final List<DeferredOrder> deferred = new ArrayList<DeferredOrder>();
+
+	/** The last deferred event of the entities of the logical process, or <tt>null</tt> if there is none. */
+	private DeferredOrder last;
+
+	/** The points at which the last deferred event changed. Guarded by itself. */
+	private final List<Point> historyPoints = new ArrayList<Point>();
+
+	/** The last deferred event after each of the {@link #historyPoints}. Guarded by {@link #historyPoints}. */
+	private final List<DeferredOrder> history = new ArrayList<DeferredOrder>();
+
+	/** The log output of the entities. */
+	private final ByteArrayOutputStream log = new ByteArrayOutputStream();
+
+	/** The points that wrote to the {@link #log}, in order. */
+	private final List<Point> logPoints = new ArrayList<Point>();
+
+	/** The position in the {@link #log} where the output of each of the {@link #logPoints} starts. */
+	private final List<Integer> logStarts = new ArrayList<Integer>();
+
+	/** The number of events allocated during the window. */
+	private int allocated;
+
+	/** The number of events dispatched during the window. */
+	private int dispatched;
+
+	/** The point of the last dispatch, or <tt>null</tt> if no event was dispatched. */
+	private Point lastDispatch;
+
+	/** The number of events dispatched by the last dispatch. */
+	private int lastDispatchCount;
+
+	/**
+	 * Creates a logical process.
+	 *
+	 * @param executor the executor running it
+	 * @param context the context of the simulation
+	 */
+	LogicalProcess(ParallelExecutor executor, SimulationContext context) {
+		this.executor = executor;
+		this.context = context;
+	}
+
+	/**
+	 * Gets the entities of the logical process, to which the executor adds them in the order of their ids.
+	 *
+	 * @return the entities
+	 */
+	List<SimEntity> getEntities() {
+		return entities;
+	}
+
+	/**
+	 * Prepares the logical process for a window, before its events are added. The entities are kept.
+	 *
+	 * @param start the start of the window, which is the current time
+	 */
+	void reset(double start) {
+		clock = start;
+		round = 0;
+		point = null;
+		serial = 1;
+		allocated = 0;
+		dispatched = 0;
+		lastDispatch = null;
+		lastDispatchCount = 0;
+	}
+
+	/**
+	 * Adds an event of the window sent before it started to the logical process.
+	 *
+	 * @param event the event
+	 * @param order the order of the event in the future queue
+	 */
+	void add(SimEvent event, EventOrder order) {
+		serial = Math.max(serial, event.getSerial() + 1);
+		future.addRestoredEvent(event);
+		orders.put(event, order);
+	}
+
+	/**
+	 * Adds an event of the window sent by an entity of the logical process before it started,
+	 * but dispatched by another logical process.
+	 *
+	 * @param event the event
+	 * @param order the order of the event in the future queue
+	 */
+	void addAcross(SimEvent event, EventOrder order) {
+		across.add(event);
+		orders.put(event, order);
+	}
+
+	/**
+	 * Starts the window, once its events have been added.
+	 *
+	 * @param end the end of the window, excluded
+	 * @param deferredBase the insertion order that the next event added to the deferred queue has
+	 * @return true if the logical process has to be run, false if it has nothing to do in the window
+	 */
+	boolean start(double end, long deferredBase) {
+		this.end = end;
+		this.deferredBase = deferredBase;
+		updateLast();
+		record(START);
+		boolean runnable = future.size() > 0;
+		for (SimEntity entity : entities) {
+			runnable |= entity.getState() == SimEntity.RUNNABLE;
+		}
+		progress = runnable ? new Point(clock, round, -1) : END;
+		return runnable;
+	}
+
+	@Override
+	protected void compute() {
+		// The entities act on the simulation through the static methods of CloudSim
+		SimulationContext previous = CloudSim.bindContext(context);
+		executor.setCurrent(this);
+		try {
+			runEntities();
+			while (future.size() > 0 && future.peek().eventTime() < end) {
+				double time = future.peek().eventTime();
+				if (time == clock) {
+					round++;
+				} else {
+					clock = time;
+					round = 0;
+				}
+				dispatch(time);
+				runEntities();
+			}
+		} finally {
+			// Releases the logical processes waiting for this one, even after a failure
+			running = -1;
+			executor.setCurrent(null);
+			setProgress(END);
+			CloudSim.bindContext(previous);
+		}
+	}
+
+	/**
+	 * Dispatches the events happening at the current time, as
+	 * {@link CloudSim#runClockTick()} would do.
+	 *
+	 * @param time the current time
+	 */
+	private void dispatch(double time) {
+		setProgress(new Point(time, round, -1));
+		int count = future.pollAllAt(time, batch);
+		DeferredOrder previousLast = last;
+		for (int i = 0; i < count; i++) {
+			SimEvent e = batch.get(i);
+			switch (e.getType()) {
+				case SimEvent.ENULL:
+					throw new IllegalArgumentException("Event has a null type.");
+
+				case SimEvent.SEND:
+					int dest = e.getDestination();
+					if (dest < 0) {
+						throw new IllegalArgumentException("Attempt to send to a null entity detected.");
+					}
+					SimEntity destEnt = context.entities.get(dest);
+					if (destEnt.getState() == SimEntity.WAITING && executor.wakeUp(dest, e)) {
+						destEnt.setEventBuffer(context.eventPool != null ? e : (SimEvent) e.clone());
+						destEnt.setState(SimEntity.RUNNABLE);
+					} else {
+						last = new DeferredOrder(e, time, round, orders.get(e));
+						context.deferred.addEvent(e, deferredBase + deferred.size());
+						deferred.add(last);
+					}
+					break;
+
+				case SimEvent.HOLD_DONE:
+					int src = e.getSource();
+					if (src < 0) {
+						throw new IllegalArgumentException("Null entity holding.");
+					}
+					context.entities.get(src).setState(SimEntity.RUNNABLE);
+					break;
+
+				default:
+					break;
+			}
+		}
+		batch.clear();
+		dispatched += count;
+		lastDispatch = point;
+		lastDispatchCount = count;
+		if (last != previousLast) {
+			record(point);
+		}
+	}
+
+	/**
+	 * Runs the runnable entities of the logical process, in the order of their ids.
+	 */
+	private void runEntities() {
+		for (SimEntity entity : entities) {
+			if (entity.getState() == SimEntity.RUNNABLE) {
+				run(entity);
+			}
+		}
+	}
+
+	/**
+	 * Runs an entity.
+	 *
+	 * @param entity the entity
+	 */
+	private void run(SimEntity entity) {
+		int id = entity.getId();
+		setProgress(new Point(clock, round, id));
+		DeferredOrder previousLast = last;
+		running = id;
+		sent = 0;
+		try {
+			entity.run();
+		} finally {
+			running = -1;
+		}
+		if (last != null && last.event.getDestination() == id && context.deferred.getLast(id) != last.event) {
+			// the entity processed the last deferred event of the logical process
+			updateLast();
+		}
+		if (last != previousLast) {
+			record(point);
+		}
+	}
+
+	/**
+	 * Sets the point being run, which is also the progress of the logical process.
+	 *
+	 * @param next the point
+	 */
+	private void setProgress(Point next) {
+		point = next;
+		progress = next;
+		executor.progressed();
+	}
+
+	/**
+	 * Gets the next point the logical process will run, all the points before it having been run.
+	 *
+	 * @return the progress, which is {@link #END} once the logical process has run the window
+	 */
+	Point getProgress() {
+		return progress;
+	}
+
+	/**
+	 * Gets the clock of the logical process.
+	 *
+	 * @return the clock
+	 */
+	double getClock() {
+		return clock;
+	}
+
+	/**
+	 * Ensures that the calling entity is the one being run, since entities can only act on their own
+	 * behalf during a parallel window.
+	 *
+	 * @param src the id of the entity acting
+	 * @throws UnsupportedOperationException if the entity isn't the one being run
+	 */
+	private void checkRunning(int src) {
+		if (running < 0 || running != src) {
+			throw new UnsupportedOperationException("During a parallel window, an entity can only act on its own behalf.");
+		}
+	}
+
+	/**
+	 * Sends an event from the entity being run: the event is queued if it happens within the
+	 * logical process, or kept until the end of the window otherwise.
+	 *
+	 * @param event the event
+	 * @param first true if the event has priority in the queue
+	 * @throws IllegalStateException if the event is sent to another logical process within the window
+	 */
+	void send(SimEvent event, boolean first) {
+		checkRunning(event.getSource());
+		allocated++;
+		orders.put(event, new EventOrder(first, new Point(clock, round, running), sent++));
+		LogicalProcess destination = event.getType() == SimEvent.SEND ? executor.getProcess(event.getDestination())
+				: this;
+		if (destination == null || destination == this) {
+			event.setSerial(first ? 0 : serial++);
+			future.addRestoredEvent(event);
+		} else if (event.eventTime() < end) {
+			throw new IllegalStateException("Entity #" + running + " sent an event to entity #"
+					+ event.getDestination() + " of another logical process for time " + event.eventTime()
+					+ ", within the parallel window ending at " + end
+					+ ": the events sent between logical processes must have a delay of at least the lookahead.");
+		} else {
+			outgoing.add(event);
+		}
+	}
+
+	/**
+	 * Removes the first event matching a predicate sent by the entity being run, wherever it is.
+	 *
+	 * @param src the id of the entity
+	 * @param p the predicate
+	 * @return the removed event or <tt>null</tt> if no event matches
+	 * @throws UnsupportedOperationException if the event is dispatched by another logical process within the window
+	 */
+	SimEvent cancel(int src, Predicate p) {
+		checkRunning(src);
+		SimEvent first = CloudSim.findFirstFuture(future, src, p);
+		int firstOutgoing = -1;
+		for (int i = 0; i < outgoing.size(); i++) {
+			SimEvent event = outgoing.get(i);
+			if (event.getSource() == src && p.match(event)
+					&& (firstOutgoing == -1 || isBefore(event, outgoing.get(firstOutgoing)))) {
+				firstOutgoing = i;
+			}
+		}
+		if (firstOutgoing >= 0 && (first == null || isBefore(outgoing.get(firstOutgoing), first))) {
+			first = outgoing.get(firstOutgoing);
+		} else {
+			firstOutgoing = -1;
+		}
+		for (SimEvent event : across) {
+			if (isPendingAcross(event, src, p) && (first == null || isBefore(event, first))) {
+				throw cannotCancel(src);
+			}
+		}
+
+		// The events left in the future queue of the simulation happen at the end of the window or after
+		if (first == null || first.eventTime() >= end) {
+			synchronized (executor.getLock()) {
+				SimEvent queued = CloudSim.findFirstFuture(context.future, src, p);
+				if (queued != null && (first == null || isBefore(queued, first))) {
+					context.future.remove(queued);
+					return queued;
+				}
+			}
+		}
+		if (firstOutgoing >= 0) {
+			outgoing.remove(firstOutgoing);
+		} else if (first != null) {
+			future.remove(first);
+		}
+		return first;
+	}
+
+	/**
+	 * Removes all the events matching a predicate sent by the entity being run, wherever they are.
+	 *
+	 * @param src the id of the entity
+	 * @param p the predicate
+	 * @return true if at least one event has been removed
+	 * @throws UnsupportedOperationException if one of the events is dispatched by another logical process within the window
+	 */
+	boolean cancelAll(int src, Predicate p) {
+		checkRunning(src);
+		for (SimEvent event : across) {
+			if (isPendingAcross(event, src, p)) {
+				throw cannotCancel(src);
+			}
+		}
+		boolean removed = CloudSim.removeAllFuture(future, src, p);
+		for (Iterator<SimEvent> iterator = outgoing.iterator(); iterator.hasNext();) {
+			SimEvent event = iterator.next();
+			if (event.getSource() == src && p.match(event)) {
+				iterator.remove();
+				removed = true;
+			}
+		}
+		synchronized (executor.getLock()) {
+			return CloudSim.removeAllFuture(context.future, src, p) || removed;
+		}
+	}
+
+	/**
+	 * Checks that the entity being run can ask the simulation to terminate at a given time: the
+	 * other logical processes may have run past any time within the window.
+	 *
+	 * @param time the termination time
+	 * @return the point asking for the termination
+	 * @throws IllegalStateException if the time is within the window
+	 */
+	Point checkTermination(double time) {
+		if (time < end) {
+			throw new IllegalStateException("Entity #" + running + " asked to terminate the simulation at " + time
+					+ ", within the parallel window ending at " + end
+					+ ": the termination time must be at least the lookahead after the current time.");
+		}
+		return point;
+	}
+
+	/**
+	 * Checks if an event sent to another logical process before the window still is in the future
+	 * queue of a sequential run, at the point being run.
+	 */
+	private boolean isPendingAcross(SimEvent event, int src, Predicate p) {
+		return event.getSource() == src && event.eventTime() > clock && p.match(event);
+	}
+
+	private UnsupportedOperationException cannotCancel(int src) {
+		return new UnsupportedOperationException("Entity #" + src
+				+ " can't cancel an event that another logical process dispatches within the current parallel window.");
+	}
+
+	/**
+	 * Checks if an event comes before another one in the future queue of a sequential run.
+	 */
+	private boolean isBefore(SimEvent event, SimEvent other) {
+		if (event.eventTime() != other.eventTime()) {
+			return event.eventTime() < other.eventTime();
+		}
+		return EventOrder.compare(getOrder(event), getOrder(other)) < 0;
+	}
+
+	private EventOrder getOrder(SimEvent event) {
+		EventOrder order = orders.get(event);
+		return order != null ? order : new EventOrder(event.getSerial(), -1);
+	}
+
+	/**
+	 * Gets the last event of the deferred queue, whatever its destination, as a sequential run would
+	 * see it from the entity being run. This waits for the other logical processes to run the points
+	 * before the current one.
+	 *
+	 * @param src the id of the entity
+	 * @return the last deferred event or <tt>null</tt> if there is none
+	 * @see CloudSim#findFirstDeferred(int, Predicate)
+	 */
+	SimEvent getLastDeferred(int src) {
+		checkRunning(src);
+		// the entity may have processed the last deferred event of the logical process
+		updateLast();
+		DeferredOrder lastDeferred = last;
+		for (LogicalProcess process : executor.getProcesses()) {
+			if (process != this) {
+				executor.awaitProgress(process, point);
+				DeferredOrder order = process.getLastBefore(point);
+				if (order != null && (lastDeferred == null || order.compareTo(lastDeferred) > 0)) {
+					lastDeferred = order;
+				}
+			}
+		}
+		return lastDeferred == null ? null : lastDeferred.event;
+	}
+
+	/**
+	 * Finds the last deferred event of the entities of the logical process.
+	 */
+	private void updateLast() {
+		last = null;
+		for (SimEntity entity : entities) {
+			int id = entity.getId();
+			SimEvent event = context.deferred.getLast(id);
+			if (event != null) {
+				long sequence = context.deferred.getLastSequence(id);
+				DeferredOrder order = sequence < deferredBase ? new DeferredOrder(event, sequence)
+						: deferred.get((int) (sequence - deferredBase));
+				if (last == null || order.compareTo(last) > 0) {
+					last = order;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Records the last deferred event once a point has been run.
+	 */
+	private void record(Point recorded) {
+		synchronized (historyPoints) {
+			historyPoints.add(recorded);
+			history.add(last);
+		}
+	}
+
+	/**
+	 * Gets the last deferred event of the entities of the logical process once the points before
+	 * a given one have been run, which they must have been.
+	 *
+	 * @param before the point
+	 * @return the last deferred event with its order, or <tt>null</tt> if there is none
+	 */
+	DeferredOrder getLastBefore(Point before) {
+		synchronized (historyPoints) {
+			int i = historyPoints.size() - 1;
+			while (historyPoints.get(i).compareTo(before) >= 0) {
+				i--;
+			}
+			return history.get(i);
+		}
+	}
+
+	/**
+	 * Writes to the log output of the point being run.
+	 *
+	 * @param b the data
+	 * @param off the start offset in the data
+	 * @param len the number of bytes to write
+	 */
+	void writeLog(byte[] b, int off, int len) {
+		if (logPoints.isEmpty() || logPoints.get(logPoints.size() - 1) != point) {
+			logPoints.add(point);
+			logStarts.add(log.size());
+		}
+		log.write(b, off, len);
+	}
+
+	/**
+	 * Gets the points that wrote to the log output during the window, in order.
+	 *
+	 * @return the points
+	 */
+	List<Point> getLogPoints() {
+		return logPoints;
+	}
+
+	/**
+	 * Writes the log output of the i-th point that wrote to it.
+	 *
+	 * @param i the index of the point in {@link #getLogPoints()}
+	 * @param bytes the log output of the logical process
+	 * @param output the output
+	 * @throws IOException if the output can't be written
+	 */
+	void writeLog(int i, byte[] bytes, OutputStream output) throws IOException {
+		int start = logStarts.get(i);
+		int stop = i + 1 < logStarts.size() ? logStarts.get(i + 1) : bytes.length;
+		output.write(bytes, start, stop - start);
+	}
+
+	/**
+	 * Gets the log output of the logical process during the window.
+	 *
+	 * @return the log output
+	 */
+	byte[] getLog() {
+		return log.toByteArray();
+	}
+
+	/**
+	 * Gets the events sent during the window that haven't been dispatched, to be added to the
+	 * future queue of the simulation.
+	 *
+	 * @param events the list to which the events are added
+	 * @param eventOrders the list to which the orders of the events are added
+	 */
+	void getPending(List<SimEvent> events, List<EventOrder> eventOrders) {
+		for (Iterator<SimEvent> iterator = future.iterator(); iterator.hasNext();) {
+			SimEvent event = iterator.next();
+			events.add(event);
+			eventOrders.add(orders.get(event));
+		}
+		for (SimEvent event : outgoing) {
+			events.add(event);
+			eventOrders.add(orders.get(event));
+		}
+	}
+
+	/**
+	 * Gets the events added to the deferred queue during the window.
+	 *
+	 * @return the events with their orders, in the order they were added
+	 */
+	List<DeferredOrder> getDeferred() {
+		return deferred;
+	}
+
+	/**
+	 * Sets the insertion orders in the deferred queue of the events deferred during the window,
+	 * once their {@link DeferredOrder#sequence} have been settled.
+	 */
+	void resequence() {
+		DeferredQueue queue = context.deferred;
+		for (SimEntity entity : entities) {
+			int id = entity.getId();
+			for (int i = 0; i < queue.size(id); i++) {
+				long sequence = queue.getSequence(id, i);
+				if (sequence >= deferredBase) {
+					queue.setSequence(id, i, deferred.get((int) (sequence - deferredBase)).sequence);
+				}
+			}
+		}
+	}
+
+	int getAllocated() {
+		return allocated;
+	}
+
+	int getDispatched() {
+		return dispatched;
+	}
+
+	Point getLastDispatch() {
+		return lastDispatch;
+	}
+
+	int getLastDispatchCount() {
+		return lastDispatchCount;
+	}
+
+	/**
+	 * Releases the events and the output of the window.
+	 */
+	void clear() {
+		future.clear();
+		orders.clear();
+		outgoing.clear();
+		across.clear();
+		deferred.clear();
+		last = null;
+		synchronized (historyPoints) {
+			historyPoints.clear();
+			history.clear();
+		}
+		log.reset();
+		logPoints.clear();
+		logStarts.clear();
+		point = null;
+		progress = END;
+	}
+
+	/**
+	 * A step of a simulation tick: the dispatch of the events happening at a given time (a slot
+	 * of -1), then the run of each entity (a slot giving the id of the entity). The ticks at the
+	 * same time are told apart by their round. The points are ordered as a sequential run goes
+	 * through them.
+	 */
+	static final class Point implements Comparable<Point> {
+
+		final double time;
+
+		final int round;
+
+		final int slot;
+
+		Point(double time, int round, int slot) {
+			this.time = time;
+			this.round = round;
+			this.slot = slot;
+		}
+
+		@Override
+		public int compareTo(Point other) {
+			if (time != other.time) {
+				return time < other.time ? -1 : 1;
+			}
+			if (round != other.round) {
+				return round < other.round ? -1 : 1;
+			}
+			return slot < other.slot ? -1 : slot == other.slot ? 0 : 1;
+		}
+	}
+
+	/**
+	 * The order of an event among the events happening at the same time in the future queue of a
+	 * sequential run. The events queued before the window come in the order of the queue, which is
+	 * known when the window starts. Those sent during the window have a greater serial than them,
+	 * unless they have priority, and come in the order they were sent.
+	 */
+	static final class EventOrder {
+
+		/** True for an event sent during the window, false for one queued before it. */
+		final boolean sentInWindow;
+
+		/** The serial of an event queued before the window. */
+		final long serial;
+
+		/** The position in the future queue of an event queued before the window, or -1 if unknown. */
+		final long index;
+
+		/** True if an event sent during the window has priority in the queue. */
+		final boolean first;
+
+		/** The point that sent an event during the window. */
+		final Point point;
+
+		/** The number of events sent before an event during the run of the same entity. */
+		final int sequence;
+
+		/**
+		 * Creates the order of an event queued before the window.
+		 */
+		EventOrder(long serial, long index) {
+			sentInWindow = false;
+			this.serial = serial;
+			this.index = index;
+			first = false;
+			point = null;
+			sequence = 0;
+		}
+
+		/**
+		 * Creates the order of an event sent during the window.
+		 */
+		EventOrder(boolean first, Point point, int sequence) {
+			sentInWindow = true;
+			serial = -1;
+			index = -1;
+			this.first = first;
+			this.point = point;
+			this.sequence = sequence;
+		}
+
+		/**
+		 * Compares the orders of two events happening at the same time. Events sent with priority get
+		 * a serial of 0, thus come after the events queued before them with a serial of 0 and before
+		 * the others.
+		 */
+		static int compare(EventOrder order, EventOrder other) {
+			if (!order.sentInWindow && !other.sentInWindow) {
+				if (order.index >= 0 && other.index >= 0) {
+					return Long.compare(order.index, other.index);
+				}
+				return Long.compare(order.serial, other.serial);
+			} else if (!order.sentInWindow) {
+				return other.first && order.serial != 0 ? 1 : -1;
+			} else if (!other.sentInWindow) {
+				return order.first && other.serial != 0 ? -1 : 1;
+			} else if (order.first != other.first) {
+				return order.first ? -1 : 1;
+			}
+			int result = order.point.compareTo(other.point);
+			return result != 0 ? result : Integer.compare(order.sequence, other.sequence);
+		}
+	}
+
+	/**
+	 * The order of an event in the deferred queue of a sequential run, where the events are added
+	 * as they are dispatched.
+	 */
+	static final class DeferredOrder implements Comparable<DeferredOrder> {
+
+		/** The event. */
+		final SimEvent event;
+
+		/** The time of the event. */
+		final double time;
+
+		/** True if the event was added to the deferred queue before the window. */
+		final boolean previous;
+
+		/** The round of the tick that dispatched an event during the window. */
+		final int round;
+
+		/** The order in the future queue of an event dispatched during the window. */
+		final EventOrder order;
+
+		/**
+		 * The insertion order of the event in the deferred queue, settled when the window ends
+		 * for the events dispatched during it.
+		 */
+		long sequence;
+
+		/**
+		 * Creates the order of an event added to the deferred queue before the window.
+		 */
+		DeferredOrder(SimEvent event, long sequence) {
+			this.event = event;
+			time = event.eventTime();
+			previous = true;
+			round = 0;
+			order = null;
+			this.sequence = sequence;
+		}
+
+		/**
+		 * Creates the order of an event dispatched during the window.
+		 */
+		DeferredOrder(SimEvent event, double time, int round, EventOrder order) {
+			this.event = event;
+			this.time = time;
+			previous = false;
+			this.round = round;
+			this.order = order;
+			sequence = -1;
+		}
+
+		@Override
+		public int compareTo(DeferredOrder other) {
+			if (time != other.time) {
+				return time < other.time ? -1 : 1;
+			} else if (previous != other.previous) {
+				return previous ? -1 : 1;
+			} else if (previous) {
+				return Long.compare(sequence, other.sequence);
+			} else if (round != other.round) {
+				return round < other.round ? -1 : 1;
+			}
+			return EventOrder.compare(order, other.order);
+		}
+	}
+
+}
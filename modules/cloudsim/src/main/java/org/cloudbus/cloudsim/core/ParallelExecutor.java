@@ -0,0 +1,1098 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.core.LogicalProcess.DeferredOrder;
+import org.cloudbus.cloudsim.core.LogicalProcess.EventOrder;
+import org.cloudbus.cloudsim.core.LogicalProcess.Point;
+import org.cloudbus.cloudsim.core.predicates.Predicate;
+
+/**
+ * Runs the entities of a simulation tick in parallel, grouping them by logical process
+ * (see {@link SimEntity#setLogicalProcess(int)}). The entities of each logical process run on
+ * a {@link ForkJoinPool}, one after the other in the order of their ids, while the logical
+ * processes run concurrently.
+ * <p>
+ * The execution is conservative: a tick only runs the entities having events at the current time,
+ * and the events they send are only delivered at the next tick, even when sent without delay. Thus,
+ * no entity can receive an event from another logical process while it runs, whatever the send delays.
+ * To keep the results identical to the sequential execution, the side effects of the entities are
+ * buffered while they run and applied in the order of the entity ids afterwards: the sent events are
+ * added to the future queue (getting the same serials they would get in a sequential run)
+ * and the {@link Log} output is written.
+ * <p>
+ * Given a lookahead, the minimum delay of the events sent between logical processes, the executor
+ * rather runs windows of simulation time: no event sent from the start of a window can reach
+ * another logical process before its end, so each {@link LogicalProcess} runs the ticks of its
+ * own entities up to there with its own clock. The side effects of the window are then settled
+ * in the order of a sequential run.
+ *
+ * @since CloudSim Toolkit 4.0
+ * @see CloudSim#setParallelExecution(ForkJoinPool)
+ * @see CloudSim#setParallelExecution(ForkJoinPool, double)
+ */
+final class ParallelExecutor {
+
+	/** The context of the simulation whose entities are run. */
+	private final SimulationContext context;
+
+	/** The pool running the logical processes. */
+	private final ForkJoinPool pool;
+
+	/** The minimum delay of the events sent between logical processes, or 0 to run tick by tick. */
+	private final double lookahead;
+
+	/** The side effects of the entity being run by the current thread, if any. */
+	private final ThreadLocal<EntityEffects> current = new ThreadLocal<EntityEffects>();
+
+	/** The lock guarding the future queue and the tick state shared by the logical processes. */
+	private final Object lock = new Object();
+
+	/** Flag for checking if the entities are being run in parallel. */
+	private volatile boolean running;
+
+	/** Flag for checking if an entity asked to terminate the simulation during the tick. */
+	private volatile boolean terminationRequested;
+
+	/** The last termination time requested during the tick or window, or -1 if none was. Guarded by {@link #lock}. */
+	private double terminationTime = -1;
+
+	/** The point that requested the {@link #terminationTime}. Guarded by {@link #lock}. */
+	private Point terminationPoint;
+
+	/** The side effects of the entities run in the current tick, by entity id. */
+	private EntityEffects[] effects;
+
+	/** The last deferred event of each entity when the tick started. */
+	private SimEvent[] startLast;
+
+	/** The insertion order of the {@link #startLast} events. */
+	private long[] startLastSequence;
+
+	/** The last deferred event of each entity after it has run. */
+	private SimEvent[] endLast;
+
+	/** The insertion order of the {@link #endLast} events. */
+	private long[] endLastSequence;
+
+	/** Flags for checking if each entity won't run anymore in the current tick. */
+	private boolean[] done;
+
+	/** The task of each logical process that ever had runnable entities, kept from tick to tick. */
+	private final Map<Integer, ProcessTask> processes = new LinkedHashMap<Integer, ProcessTask>();
+
+	/** The tasks of the logical processes having runnable entities in the current tick. */
+	private final List<ProcessTask> tasks = new ArrayList<ProcessTask>();
+
+	/** The side effects of each entity, kept from tick to tick to be cleared and reused. */
+	private EntityEffects[] effectsPool = new EntityEffects[0];
+
+	/** The task running the tasks of the logical processes of a tick. */
+	private final RecursiveAction tick = new RecursiveAction() {
+
+		@Override
+		protected void compute() {
+			ForkJoinTask.invokeAll(tasks);
+		}
+	};
+
+	/** The logical process run by the current thread during a window, if any. */
+	private final ThreadLocal<LogicalProcess> currentProcess = new ThreadLocal<LogicalProcess>();
+
+	/** The logical processes that ever had entities, kept from window to window. */
+	private final Map<Integer, LogicalProcess> logicalProcesses = new LinkedHashMap<Integer, LogicalProcess>();
+
+	/** The logical processes having entities in the current window. */
+	private final List<LogicalProcess> windowProcesses = new ArrayList<LogicalProcess>();
+
+	/** The logical processes having something to run in the current window. */
+	private final List<LogicalProcess> windowTasks = new ArrayList<LogicalProcess>();
+
+	/** The logical process of each entity in the current window, by entity id. */
+	private LogicalProcess[] processOf = new LogicalProcess[0];
+
+	/** The number of threads waiting for the progress of a logical process. */
+	private volatile int waiters;
+
+	/** The task running the logical processes of a window. */
+	private final RecursiveAction window = new RecursiveAction() {
+
+		@Override
+		protected void compute() {
+			ForkJoinTask.invokeAll(windowTasks);
+		}
+	};
+
+	/**
+	 * Creates a parallel executor.
+	 *
+	 * @param context the context of the simulation whose entities are run
+	 * @param pool the pool running the logical processes
+	 * @param lookahead the minimum delay of the events sent between logical processes, or 0 to run tick by tick
+	 */
+	ParallelExecutor(SimulationContext context, ForkJoinPool pool, double lookahead) {
+		if (pool == null) {
+			throw new IllegalArgumentException("The pool can't be null.");
+		}
+		this.context = context;
+		this.pool = pool;
+		this.lookahead = lookahead;
+	}
+
+	/**
+	 * Gets the pool running the logical processes.
+	 *
+	 * @return the pool
+	 */
+	ForkJoinPool getPool() {
+		return pool;
+	}
+
+	/**
+	 * Gets the minimum delay of the events sent between logical processes.
+	 *
+	 * @return the lookahead, or 0 if the entities are run tick by tick
+	 */
+	double getLookahead() {
+		return lookahead;
+	}
+
+	/**
+	 * Checks if the entities are being run in parallel.
+	 *
+	 * @return true, if a parallel tick or window is running
+	 */
+	boolean isRunning() {
+		return running;
+	}
+
+	/**
+	 * Gets the simulation time seen by the current thread, which is the clock of its logical process
+	 * during a window.
+	 *
+	 * @return the simulation time
+	 */
+	double clock() {
+		LogicalProcess process = currentProcess.get();
+		return process != null ? process.getClock() : context.clock;
+	}
+
+	/**
+	 * Runs the runnable entities of the current tick, if they belong to more than one logical process.
+	 * Given a lookahead, the entities rather run up to the end of a window, unless the simulation has
+	 * to pause at a given time or after a number of events, or metrics are collected.
+	 *
+	 * @return true if the entities have been run, false if they have to be run sequentially
+	 * @throws UncheckedIOException if the buffered {@link Log} output can't be written
+	 */
+	boolean runEntities() {
+		if (lookahead > 0 && context.metrics == null && context.pauseAt == -1 && context.pauseAfterEvents == -1) {
+			return runWindow();
+		}
+		List<SimEntity> entities = context.entities;
+		int size = entities.size();
+		for (ProcessTask task : processes.values()) {
+			task.process.clear();
+		}
+		tasks.clear();
+		for (int i = 0; i < size; i++) {
+			SimEntity ent = entities.get(i);
+			if (ent.getState() == SimEntity.RUNNABLE) {
+				ProcessTask task = processes.get(ent.getLogicalProcess());
+				if (task == null) {
+					task = new ProcessTask();
+					processes.put(ent.getLogicalProcess(), task);
+				}
+				if (task.process.isEmpty()) {
+					task.reinitialize();
+					tasks.add(task);
+				}
+				task.process.add(ent);
+			}
+		}
+		if (tasks.size() < 2) {
+			return false;
+		}
+
+		if (effects == null || effects.length != size) {
+			effects = new EntityEffects[size];
+			startLast = new SimEvent[size];
+			startLastSequence = new long[size];
+			endLast = new SimEvent[size];
+			endLastSequence = new long[size];
+			done = new boolean[size];
+			effectsPool = Arrays.copyOf(effectsPool, size);
+		}
+		for (int i = 0; i < size; i++) {
+			startLast[i] = endLast[i] = context.deferred.getLast(i);
+			startLastSequence[i] = endLastSequence[i] = context.deferred.getLastSequence(i);
+			done[i] = entities.get(i).getState() != SimEntity.RUNNABLE;
+		}
+
+		OutputStream output = Log.getOutput();
+		try {
+			Log.setOutput(new EffectsOutputStream(output));
+			terminationRequested = false;
+			running = true;
+			try {
+				tick.reinitialize();
+				pool.invoke(tick);
+			} finally {
+				running = false;
+				Log.setOutput(output);
+			}
+
+			// Applies the side effects in the order of a sequential run
+			for (EntityEffects entityEffects : effects) {
+				if (entityEffects != null) {
+					context.eventsAllocated += entityEffects.allocated;
+					entityEffects.apply(context.future, output);
+				}
+			}
+			applyTermination();
+		} finally {
+			// Releases the events of the tick, the arrays are reused by the next one
+			for (EntityEffects entityEffects : effects) {
+				if (entityEffects != null) {
+					entityEffects.clear();
+				}
+			}
+			Arrays.fill(effects, null);
+			Arrays.fill(startLast, null);
+			Arrays.fill(endLast, null);
+		}
+		return true;
+	}
+
+	/**
+	 * Runs the logical processes up to the end of a window, if the entities belong to more than
+	 * one logical process. The window starts at the current time, once the events happening then
+	 * have been dispatched, and lasts for the lookahead. It ends sooner if the simulation has to
+	 * terminate or to pause, or to add an entity.
+	 *
+	 * @return true if the window has been run, false if the entities have to be run sequentially
+	 * @throws UncheckedIOException if the buffered {@link Log} output can't be written
+	 */
+	private boolean runWindow() {
+		List<SimEntity> entities = context.entities;
+		int size = entities.size();
+		for (LogicalProcess process : logicalProcesses.values()) {
+			process.getEntities().clear();
+		}
+		windowProcesses.clear();
+		if (processOf.length != size) {
+			processOf = new LogicalProcess[size];
+		}
+		for (int i = 0; i < size; i++) {
+			SimEntity ent = entities.get(i);
+			LogicalProcess process = logicalProcesses.get(ent.getLogicalProcess());
+			if (process == null) {
+				process = new LogicalProcess(this, context);
+				logicalProcesses.put(ent.getLogicalProcess(), process);
+			}
+			if (process.getEntities().isEmpty()) {
+				windowProcesses.add(process);
+			}
+			process.getEntities().add(ent);
+			processOf[i] = process;
+		}
+		if (windowProcesses.size() < 2) {
+			return false;
+		}
+
+		double start = context.clock;
+		double end = start + lookahead;
+		if (context.terminateAt > 0.0 && context.terminateAt < end) {
+			end = context.terminateAt;
+		}
+		if (context.runUntil != -1 && context.runUntil < end) {
+			end = context.runUntil;
+		}
+		for (LogicalProcess process : windowProcesses) {
+			process.reset(start);
+		}
+
+		// Hands the events of the window to the logical processes dispatching them
+		List<SimEvent> batch = context.batch;
+		long index = 0;
+		while (context.future.size() > 0 && context.future.peek().eventTime() < end) {
+			double time = context.future.peek().eventTime();
+			int count = context.future.pollAllAt(time, batch);
+			if (containsCreate(batch)) {
+				// the new entity has to be added by a sequential tick
+				for (int i = 0; i < count; i++) {
+					context.future.addRestoredEvent(batch.get(i));
+				}
+				batch.clear();
+				end = time;
+				break;
+			}
+			for (int i = 0; i < count; i++) {
+				SimEvent e = batch.get(i);
+				EventOrder order = new EventOrder(e.getSerial(), index++);
+				LogicalProcess source = getProcess(e.getSource());
+				LogicalProcess destination = e.getType() == SimEvent.SEND ? getProcess(e.getDestination()) : source;
+				if (destination == null) {
+					destination = source != null ? source : windowProcesses.get(0);
+				}
+				destination.add(e, order);
+				if (source != null && source != destination) {
+					source.addAcross(e, order);
+				}
+			}
+			batch.clear();
+		}
+
+		context.deferred.reserve(size);
+		long deferredBase = context.deferred.getSequence();
+		windowTasks.clear();
+		for (LogicalProcess process : windowProcesses) {
+			if (process.start(end, deferredBase)) {
+				process.reinitialize();
+				windowTasks.add(process);
+			}
+		}
+
+		OutputStream output = Log.getOutput();
+		try {
+			Log.setOutput(new EffectsOutputStream(output));
+			terminationRequested = false;
+			running = true;
+			try {
+				window.reinitialize();
+				pool.invoke(window);
+			} finally {
+				running = false;
+				Log.setOutput(output);
+			}
+
+			// Settles the side effects in the order of a sequential run
+			writeLogs(output);
+			addPendingEvents();
+			settleDeferred(deferredBase);
+			Point lastDispatch = null;
+			int lastDispatchCount = 0;
+			for (LogicalProcess process : windowProcesses) {
+				context.eventsAllocated += process.getAllocated();
+				context.eventsDispatched += process.getDispatched();
+				context.clock = Math.max(context.clock, process.getClock());
+				Point point = process.getLastDispatch();
+				if (point != null) {
+					// the logical processes dispatching at the same time and round share the last tick
+					int compared = lastDispatch == null ? 1 : point.compareTo(lastDispatch);
+					if (compared > 0) {
+						lastDispatch = point;
+						lastDispatchCount = process.getLastDispatchCount();
+					} else if (compared == 0) {
+						lastDispatchCount += process.getLastDispatchCount();
+					}
+				}
+			}
+			if (lastDispatch != null) {
+				context.eventsDispatchedInLastTick = lastDispatchCount;
+			}
+			applyTermination();
+		} finally {
+			// Releases the events of the window, the logical processes are reused by the next one
+			for (LogicalProcess process : windowProcesses) {
+				process.clear();
+			}
+			windowTasks.clear();
+		}
+		return true;
+	}
+
+	/**
+	 * Checks if a batch of events contains an entity creation.
+	 */
+	private static boolean containsCreate(List<SimEvent> batch) {
+		for (SimEvent e : batch) {
+			if (e.getType() == SimEvent.CREATE) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Writes the log output of the logical processes in the order of a sequential run.
+	 *
+	 * @param output the actual output
+	 * @throws UncheckedIOException if the log output can't be written
+	 */
+	private void writeLogs(OutputStream output) {
+		final List<Point> points = new ArrayList<Point>();
+		List<LogicalProcess> writers = new ArrayList<LogicalProcess>();
+		List<Integer> chunks = new ArrayList<Integer>();
+		for (LogicalProcess process : windowProcesses) {
+			List<Point> logPoints = process.getLogPoints();
+			for (int i = 0; i < logPoints.size(); i++) {
+				points.add(logPoints.get(i));
+				writers.add(process);
+				chunks.add(i);
+			}
+		}
+		if (points.isEmpty()) {
+			return;
+		}
+		Integer[] order = sortedIndexes(points.size(), new Comparator<Integer>() {
+
+			@Override
+			public int compare(Integer i, Integer j) {
+				return points.get(i).compareTo(points.get(j));
+			}
+		});
+		Map<LogicalProcess, byte[]> logs = new LinkedHashMap<LogicalProcess, byte[]>();
+		try {
+			for (int i : order) {
+				LogicalProcess process = writers.get(i);
+				byte[] log = logs.get(process);
+				if (log == null) {
+					log = process.getLog();
+					logs.put(process, log);
+				}
+				process.writeLog(chunks.get(i), log, output);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException("Can't write the log output of the parallel window.", e);
+		}
+	}
+
+	/**
+	 * Adds the events sent during the window that haven't been dispatched to the future queue,
+	 * in the order they would have been sent by a sequential run.
+	 */
+	private void addPendingEvents() {
+		final List<SimEvent> events = new ArrayList<SimEvent>();
+		final List<EventOrder> orders = new ArrayList<EventOrder>();
+		for (LogicalProcess process : windowProcesses) {
+			process.getPending(events, orders);
+		}
+		Integer[] order = sortedIndexes(events.size(), new Comparator<Integer>() {
+
+			@Override
+			public int compare(Integer i, Integer j) {
+				double time = events.get(i).eventTime();
+				double other = events.get(j).eventTime();
+				if (time != other) {
+					return time < other ? -1 : 1;
+				}
+				return EventOrder.compare(orders.get(i), orders.get(j));
+			}
+		});
+		for (int i : order) {
+			if (orders.get(i).first) {
+				context.future.addEventFirst(events.get(i));
+			} else {
+				context.future.addEvent(events.get(i));
+			}
+		}
+	}
+
+	/**
+	 * Sets the insertion orders of the events added to the deferred queue during the window to the
+	 * orders of a sequential run.
+	 *
+	 * @param deferredBase the insertion order that the next event added to the queue had when the window started
+	 */
+	private void settleDeferred(long deferredBase) {
+		List<DeferredOrder> deferred = new ArrayList<DeferredOrder>();
+		for (LogicalProcess process : windowProcesses) {
+			deferred.addAll(process.getDeferred());
+		}
+		Collections.sort(deferred);
+		for (int i = 0; i < deferred.size(); i++) {
+			deferred.get(i).sequence = deferredBase + i;
+		}
+		for (LogicalProcess process : windowProcesses) {
+			process.resequence();
+		}
+		context.deferred.setSequence(deferredBase + deferred.size());
+	}
+
+	/**
+	 * Sorts the indexes of a list.
+	 *
+	 * @param size the size of the list
+	 * @param comparator the comparator of the indexes
+	 * @return the sorted indexes
+	 */
+	private static Integer[] sortedIndexes(int size, Comparator<Integer> comparator) {
+		Integer[] indexes = new Integer[size];
+		for (int i = 0; i < size; i++) {
+			indexes[i] = i;
+		}
+		Arrays.sort(indexes, comparator);
+		return indexes;
+	}
+
+	/**
+	 * Runs the entities of a logical process, in the order of their ids.
+	 *
+	 * @param process the entities of the logical process
+	 */
+	private void runProcess(List<SimEntity> process) {
+		// The entities act on the simulation through the static methods of CloudSim
+		SimulationContext previous = CloudSim.bindContext(context);
+		int i = 0;
+		try {
+			for (; i < process.size(); i++) {
+				int id = process.get(i).getId();
+				EntityEffects entityEffects = effectsPool[id];
+				if (entityEffects == null) {
+					entityEffects = new EntityEffects(id);
+					effectsPool[id] = entityEffects;
+				}
+				effects[id] = entityEffects;
+				current.set(entityEffects);
+				try {
+					process.get(i).run();
+				} finally {
+					current.remove();
+				}
+				synchronized (lock) {
+					endLast[id] = context.deferred.getLast(id);
+					endLastSequence[id] = context.deferred.getLastSequence(id);
+					done[id] = true;
+					lock.notifyAll();
+				}
+			}
+		} finally {
+			// Releases the other logical processes waiting for the entities that won't run after a failure
+			synchronized (lock) {
+				for (; i < process.size(); i++) {
+					done[process.get(i).getId()] = true;
+				}
+				lock.notifyAll();
+			}
+			CloudSim.bindContext(previous);
+		}
+	}
+
+	/**
+	 * Buffers an event sent by the entity being run by the current thread.
+	 *
+	 * @param event the event
+	 * @param first true if the event has priority in the queue
+	 * @return true if the event has been buffered, false if it has to be added to the queue
+	 */
+	boolean schedule(SimEvent event, boolean first) {
+		if (!running) {
+			return false;
+		}
+		LogicalProcess process = currentProcess.get();
+		if (process != null) {
+			process.send(event, first);
+			return true;
+		}
+		getEffects(event.getSource()).add(event, first);
+		return true;
+	}
+
+	/**
+	 * Removes the first event matching a predicate sent by the entity being run by the current thread,
+	 * either from its buffered events or from the future queue.
+	 *
+	 * @param src the id of the entity
+	 * @param p the predicate
+	 * @return the removed event or <tt>null</tt> if no event matches
+	 */
+	SimEvent cancel(int src, Predicate p) {
+		LogicalProcess process = currentProcess.get();
+		if (process != null) {
+			return process.cancel(src, p);
+		}
+		EntityEffects entityEffects = getEffects(src);
+		int buffered = entityEffects.indexOfFirst(p);
+		synchronized (lock) {
+			SimEvent queued = CloudSim.findFirstFuture(context.future, src, p);
+			if (buffered >= 0 && (queued == null || entityEffects.isBefore(buffered, queued))) {
+				return entityEffects.remove(buffered);
+			}
+			if (queued != null) {
+				context.future.remove(queued);
+			}
+			return queued;
+		}
+	}
+
+	/**
+	 * Removes all the events matching a predicate sent by the entity being run by the current thread,
+	 * either from its buffered events or from the future queue.
+	 *
+	 * @param src the id of the entity
+	 * @param p the predicate
+	 * @return true if at least one event has been removed
+	 */
+	boolean cancelAll(int src, Predicate p) {
+		LogicalProcess process = currentProcess.get();
+		if (process != null) {
+			return process.cancelAll(src, p);
+		}
+		boolean removed = getEffects(src).removeAll(p);
+		synchronized (lock) {
+			return CloudSim.removeAllFuture(context.future, src, p) || removed;
+		}
+	}
+
+	/**
+	 * Runs an action on shared simulation state, such as the wait predicates, while the lock is held.
+	 *
+	 * @param action the action
+	 */
+	void runLocked(Runnable action) {
+		synchronized (lock) {
+			action.run();
+		}
+	}
+
+	/**
+	 * Asks the simulation to terminate at the end of the current tick or window, so that the entities
+	 * running in parallel see the same state whatever their execution order.
+	 */
+	void requestTermination() {
+		terminationRequested = true;
+	}
+
+	/**
+	 * Asks the simulation to terminate at a given time, which is set at the end of the current tick
+	 * or window. When several entities ask for it, the last one in the order of a sequential run wins.
+	 *
+	 * @param time the termination time
+	 * @throws IllegalStateException if the time is within the current window
+	 */
+	void requestTermination(double time) {
+		LogicalProcess process = currentProcess.get();
+		Point point;
+		if (process != null) {
+			point = process.checkTermination(time);
+		} else {
+			EntityEffects entityEffects = current.get();
+			point = new Point(context.clock, 0, entityEffects == null ? -1 : entityEffects.id);
+		}
+		synchronized (lock) {
+			if (terminationPoint == null || point.compareTo(terminationPoint) >= 0) {
+				terminationPoint = point;
+				terminationTime = time;
+			}
+		}
+	}
+
+	/**
+	 * Sets the termination time requested during the tick or window, if any.
+	 */
+	private void applyTermination() {
+		synchronized (lock) {
+			if (terminationPoint != null) {
+				context.terminateAt = terminationTime;
+				terminationPoint = null;
+				terminationTime = -1;
+			}
+		}
+	}
+
+	/**
+	 * Checks if an entity asked to terminate the simulation during the last parallel tick.
+	 *
+	 * @return true, if the termination has been requested
+	 */
+	boolean isTerminationRequested() {
+		return terminationRequested;
+	}
+
+	/**
+	 * Gets the last event of the deferred queue, whatever its destination, as a sequential run would
+	 * see it from the entity being run by the current thread. Such a run would see the deferred events
+	 * of the entities with a lower id after they have run and those of the entities with a greater id
+	 * before they run, so this method may wait for the entities with a lower id to run.
+	 *
+	 * @param src the id of the entity
+	 * @return the last deferred event or <tt>null</tt> if there is none
+	 * @see CloudSim#findFirstDeferred(int, Predicate)
+	 */
+	SimEvent getLastDeferred(int src) {
+		LogicalProcess process = currentProcess.get();
+		if (process != null) {
+			return process.getLastDeferred(src);
+		}
+		getEffects(src);
+		SimEvent last = context.deferred.getLast(src);
+		long lastSequence = context.deferred.getLastSequence(src);
+		for (int i = 0; i < done.length; i++) {
+			SimEvent event;
+			long sequence;
+			if (i == src) {
+				continue;
+			} else if (i > src) {
+				event = startLast[i];
+				sequence = startLastSequence[i];
+			} else {
+				awaitDone(i);
+				synchronized (lock) {
+					event = endLast[i];
+					sequence = endLastSequence[i];
+				}
+			}
+			if (event != null && (last == null || event.eventTime() > last.eventTime()
+					|| event.eventTime() == last.eventTime() && sequence > lastSequence)) {
+				last = event;
+				lastSequence = sequence;
+			}
+		}
+		return last;
+	}
+
+	/**
+	 * Waits until an entity won't run anymore in the current tick.
+	 *
+	 * @param id the id of the entity
+	 */
+	private void awaitDone(final int id) {
+		try {
+			ForkJoinPool.managedBlock(new ForkJoinPool.ManagedBlocker() {
+
+				@Override
+				public boolean isReleasable() {
+					synchronized (lock) {
+						return done[id];
+					}
+				}
+
+				@Override
+				public boolean block() throws InterruptedException {
+					synchronized (lock) {
+						while (!done[id]) {
+							lock.wait();
+						}
+					}
+					return true;
+				}
+			});
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for entity #" + id + ".", e);
+		}
+	}
+
+	/**
+	 * Sets the logical process run by the current thread.
+	 *
+	 * @param process the logical process, or <tt>null</tt> once it has run
+	 */
+	void setCurrent(LogicalProcess process) {
+		if (process != null) {
+			currentProcess.set(process);
+		} else {
+			currentProcess.remove();
+		}
+	}
+
+	/**
+	 * Gets the logical process of an entity in the current window.
+	 *
+	 * @param id the id of the entity
+	 * @return the logical process, or <tt>null</tt> if there is no such entity
+	 */
+	LogicalProcess getProcess(int id) {
+		return id >= 0 && id < processOf.length ? processOf[id] : null;
+	}
+
+	/**
+	 * Gets the logical processes having entities in the current window.
+	 *
+	 * @return the logical processes
+	 */
+	Collection<LogicalProcess> getProcesses() {
+		return windowProcesses;
+	}
+
+	/**
+	 * Gets the lock guarding the future queue and the state shared by the logical processes.
+	 *
+	 * @return the lock
+	 */
+	Object getLock() {
+		return lock;
+	}
+
+	/**
+	 * Checks if an event wakes up its destination entity, which is waiting for it, and removes the
+	 * predicate the entity was waiting with if it does. The checks are those of a sequential run.
+	 *
+	 * @param dest the id of the destination entity
+	 * @param e the event
+	 * @return true if the entity has to process the event
+	 */
+	boolean wakeUp(int dest, SimEvent e) {
+		synchronized (lock) {
+			Integer destObj = Integer.valueOf(dest);
+			Predicate p = context.waitPredicates.get(destObj);
+			if ((p == null) || (e.getTag() == 9999) || (p.match(e))) {
+				context.waitPredicates.remove(destObj);
+				return true;
+			}
+			return false;
+		}
+	}
+
+	/**
+	 * Notifies the threads waiting for the progress of a logical process, if any.
+	 */
+	void progressed() {
+		if (waiters > 0) {
+			synchronized (lock) {
+				lock.notifyAll();
+			}
+		}
+	}
+
+	/**
+	 * Waits until a logical process has run the points before a given one.
+	 *
+	 * @param process the logical process
+	 * @param point the point
+	 */
+	void awaitProgress(final LogicalProcess process, final Point point) {
+		if (process.getProgress().compareTo(point) > 0) {
+			return;
+		}
+		try {
+			ForkJoinPool.managedBlock(new ForkJoinPool.ManagedBlocker() {
+
+				@Override
+				public boolean isReleasable() {
+					return process.getProgress().compareTo(point) > 0;
+				}
+
+				@Override
+				public boolean block() throws InterruptedException {
+					synchronized (lock) {
+						waiters++;
+						try {
+							while (process.getProgress().compareTo(point) <= 0) {
+								lock.wait();
+							}
+						} finally {
+							waiters--;
+						}
+					}
+					return true;
+				}
+			});
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for a logical process.", e);
+		}
+	}
+
+	/**
+	 * Gets the side effects of the entity being run by the current thread.
+	 *
+	 * @param src the id of the entity acting
+	 * @return the side effects
+	 * @throws UnsupportedOperationException if the current thread isn't running such an entity
+	 */
+	private EntityEffects getEffects(int src) {
+		EntityEffects entityEffects = current.get();
+		if (entityEffects == null || entityEffects.id != src) {
+			throw new UnsupportedOperationException("During a parallel tick, an entity can only act on its own behalf.");
+		}
+		return entityEffects;
+	}
+
+	/**
+	 * The side effects of an entity run in a parallel tick.
+	 */
+	private static final class EntityEffects {
+
+		/** The id of the entity. */
+		private final int id;
+
+		/** The events sent by the entity, in the order they were sent. */
+		private final List<SimEvent> events = new ArrayList<SimEvent>();
+
+		/** Flags for checking if each of the {@link #events} has priority in the queue. */
+		private final List<Boolean> firsts = new ArrayList<Boolean>();
+
+		/** The log output of the entity. */
+		private ByteArrayOutputStream log;
+
+		/** The number of events allocated by the entity. */
+		private int allocated = 0;
+
+		EntityEffects(int id) {
+			this.id = id;
+		}
+
+		/**
+		 * Clears the side effects, for the entity to run again in a later tick.
+		 */
+		void clear() {
+			events.clear();
+			firsts.clear();
+			if (log != null) {
+				log.reset();
+			}
+			allocated = 0;
+		}
+
+		void add(SimEvent event, boolean first) {
+			allocated++;
+			events.add(event);
+			firsts.add(first);
+		}
+
+		SimEvent remove(int i) {
+			firsts.remove(i);
+			return events.remove(i);
+		}
+
+		/**
+		 * Finds the buffered event matching a predicate that will come first in the future queue.
+		 * Events having priority come before the others of the same time, and the events
+		 * are otherwise queued in the order they were sent.
+		 */
+		int indexOfFirst(Predicate p) {
+			int first = -1;
+			for (int i = 0; i < events.size(); i++) {
+				SimEvent event = events.get(i);
+				if (p.match(event) && (first == -1 || event.eventTime() < events.get(first).eventTime()
+						|| event.eventTime() == events.get(first).eventTime() && firsts.get(i) && !firsts.get(first))) {
+					first = i;
+				}
+			}
+			return first;
+		}
+
+		/**
+		 * Checks if the i-th buffered event will come before an event already in the future queue.
+		 * Buffered events get greater serials than queued ones, unless they have priority.
+		 */
+		boolean isBefore(int i, SimEvent queued) {
+			SimEvent event = events.get(i);
+			if (event.eventTime() != queued.eventTime()) {
+				return event.eventTime() < queued.eventTime();
+			}
+			return firsts.get(i) && queued.getSerial() != 0;
+		}
+
+		boolean removeAll(Predicate p) {
+			boolean removed = false;
+			for (int i = events.size() - 1; i >= 0; i--) {
+				if (p.match(events.get(i))) {
+					remove(i);
+					removed = true;
+				}
+			}
+			return removed;
+		}
+
+		OutputStream getLog() {
+			if (log == null) {
+				log = new ByteArrayOutputStream();
+			}
+			return log;
+		}
+
+		/**
+		 * Adds the buffered events to the future queue and writes the buffered log output.
+		 *
+		 * @throws UncheckedIOException if the log output can't be written
+		 */
+		void apply(EventQueue future, OutputStream output) {
+			for (int i = 0; i < events.size(); i++) {
+				if (firsts.get(i)) {
+					future.addEventFirst(events.get(i));
+				} else {
+					future.addEvent(events.get(i));
+				}
+			}
+			if (log != null && log.size() > 0) {
+				try {
+					log.writeTo(output);
+				} catch (IOException e) {
+					throw new UncheckedIOException("Can't write the log output of entity #" + id + ".", e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * The task running the entities of a logical process, reused by the ticks in which the logical
+	 * process has runnable entities.
+	 */
+	private final class ProcessTask extends RecursiveAction {
+
+		/** The runnable entities of the logical process in the current tick, in the order of their ids. */
+		private final List<SimEntity> process = new ArrayList<SimEntity>();
+
+		@Override
+		protected void compute() {
+			runProcess(process);
+		}
+	}
+
+	/**
+	 * The {@link Log} output used during a parallel tick or window, which buffers the output of each entity.
+	 */
+	private final class EffectsOutputStream extends OutputStream {
+
+		/** The actual output, used when the current thread isn't running an entity. */
+		private final OutputStream output;
+
+		EffectsOutputStream(OutputStream output) {
+			this.output = output;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			write(new byte[] { (byte) b }, 0, 1);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			LogicalProcess process = currentProcess.get();
+			EntityEffects entityEffects = current.get();
+			if (process != null) {
+				process.writeLog(b, off, len);
+			} else if (entityEffects != null) {
+				entityEffects.getLog().write(b, off, len);
+			} else {
+				synchronized (lock) {
+					output.write(b, off, len);
+				}
+			}
+		}
+
+		@Override
+		public void flush() throws IOException {
+			synchronized (lock) {
+				output.flush();
+			}
+		}
+	}
+
+}
@@ -8,6 +8,8 @@
 
 package org.cloudbus.cloudsim.core;
 
+import java.io.IOException;
+
 import org.cloudbus.cloudsim.Log;
 import org.cloudbus.cloudsim.NetworkTopology;
 import org.cloudbus.cloudsim.core.predicates.Predicate;
@@ -46,6 +48,9 @@ public abstract class SimEntity implements Cloneable {
 	/** The entity's current state. */
 	private int state;
 
+	/** The logical process of the entity, used by the parallel execution mode. */
+	private int logicalProcess = 0;
+
 	/**
 	 * Creates a new entity.
 	 * 
@@ -79,6 +84,30 @@ public abstract class SimEntity implements Cloneable {
 		return id;
 	}
 
+	/**
+	 * Gets the logical process this entity belongs to.
+	 * 
+	 * @return the logical process
+	 * @see #setLogicalProcess(int)
+	 */
+	public int getLogicalProcess() {
+		return logicalProcess;
+	}
+
+	/**
+	 * Sets the logical process this entity belongs to. When the parallel execution mode is enabled
+	 * (see {@link CloudSim#setParallelExecution(java.util.concurrent.ForkJoinPool)}), entities of
+	 * different logical processes may run concurrently, while the entities of a logical process
+	 * always run one after the other. Entities should only be placed in different logical processes
+	 * if they don't share any state, interacting only through events. All entities belong to the
+	 * logical process 0 by default.
+	 * 
+	 * @param logicalProcess the logical process
+	 */
+	public void setLogicalProcess(int logicalProcess) {
+		this.logicalProcess = logicalProcess;
+	}
+
 	// The schedule functions
 
 	/**
@@ -421,9 +450,18 @@ public abstract class SimEntity implements Cloneable {
          */
 	public void run() {
 		SimEvent ev = evbuf != null ? evbuf : getNextEvent();
+		SimulationMetrics metrics = CloudSim.getMetrics();
 
 		while (ev != null) {
-			processEvent(ev);
+			if (metrics == null) {
+				processEvent(ev);
+			} else {
+				int tag = ev.getTag();
+				long start = System.nanoTime();
+				processEvent(ev);
+				metrics.recordProcessing(tag, this, System.nanoTime() - start);
+			}
+			CloudSim.recycleEvent(ev);
 			if (state != RUNNABLE) {
 				break;
 			}
@@ -671,6 +709,61 @@ public abstract class SimEntity implements Cloneable {
 		send(entityName, 0, cloudSimTag, null);
 	}
 
+	// --------------- CHECKPOINT METHODS ------------------
+
+	/**
+	 * Saves the state of the entity in a checkpoint of the simulation, written by
+	 * {@link CloudSim#saveCheckpoint(String)}. The base implementation saves the state of the entity
+	 * in the run loop; subclasses keeping some state of their own override this method, calling it
+	 * first, and {@link #restoreState(CheckpointInput)} along with it.
+	 * 
+	 * @param out the checkpoint stream
+	 * @throws IOException if the state can't be written
+	 */
+	protected void saveState(CheckpointOutput out) throws IOException {
+		out.writeInt(state);
+	}
+
+	/**
+	 * Restores the state of the entity saved by {@link #saveState(CheckpointOutput)}, in the same
+	 * order. The entity is the one which has been created the same way as the saved entity, when the
+	 * simulation has been built again before restoring the checkpoint.
+	 * 
+	 * @param in the checkpoint stream
+	 * @throws IOException if the state can't be read
+	 */
+	protected void restoreState(CheckpointInput in) throws IOException {
+		state = in.readInt();
+	}
+
+	/**
+	 * Writes the data of a pending event sent to this entity, when the simulation is saved in a
+	 * checkpoint. The base implementation writes the data with
+	 * {@link CheckpointOutput#writeData(Object)}, which only supports simple values; entities
+	 * receiving other objects override this method and {@link #readEventData(int, CheckpointInput)}.
+	 * 
+	 * @param tag the tag of the event
+	 * @param data the data of the event
+	 * @param out the checkpoint stream
+	 * @throws IOException if the data can't be written
+	 */
+	protected void writeEventData(int tag, Object data, CheckpointOutput out) throws IOException {
+		out.writeData(data);
+	}
+
+	/**
+	 * Reads the data of a pending event sent to this entity, written by
+	 * {@link #writeEventData(int, Object, CheckpointOutput)}.
+	 * 
+	 * @param tag the tag of the event
+	 * @param in the checkpoint stream
+	 * @return the data of the event
+	 * @throws IOException if the data can't be read
+	 */
+	protected Object readEventData(int tag, CheckpointInput in) throws IOException {
+		return in.readData();
+	}
+
 	/**
 	 * Gets the network delay associated to the sent of a message from a given source to a given
 	 * destination.
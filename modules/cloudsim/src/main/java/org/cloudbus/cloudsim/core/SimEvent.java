@@ -18,10 +18,10 @@ package org.cloudbus.cloudsim.core;
 public class SimEvent implements Cloneable, Comparable<SimEvent> {
 
 	/** Internal event type. **/
-	private final int etype;
+	private int etype;
 
 	/** The time that this event was scheduled, at which it should occur. **/
-	private final double time;
+	private double time;
 
 	/** Time that the event was removed from the queue to start service. **/
 	private double endWaitingTime;
@@ -33,7 +33,7 @@ public class SimEvent implements Cloneable, Comparable<SimEvent> {
 	private int entDst;
 
 	/** The user defined type of the event. **/
-	private final int tag;
+	private int tag;
 
 	/** 
          * Any data the event is carrying. 
@@ -41,7 +41,7 @@ public class SimEvent implements Cloneable, Comparable<SimEvent> {
          * But this modification would incur several changes in the simulator core
          * that has to be assessed first.
          **/
-	private final Object data;
+	private Object data;
 
         /**
          * An attribute to help CloudSim to identify the order of received events
@@ -53,6 +53,18 @@ public class SimEvent implements Cloneable, Comparable<SimEvent> {
          */
 	private long serial = -1;
 
+	/**
+	 * The position of the event inside the {@link EventQueue} holding it, if such a queue
+	 * keeps track of its events' positions (as {@link HeapEventQueue} does).
+	 */
+	int queuePosition = -1;
+
+	/**
+	 * Indicates if the event was returned to a {@link SimEventPool} once dispatched,
+	 * and thus must no longer be accessed until it is reused.
+	 */
+	private boolean recycled = false;
+
 	// Internal event types
 
 	public static final int ENULL = 0;
@@ -95,10 +107,66 @@ public class SimEvent implements Cloneable, Comparable<SimEvent> {
 		data = null;
 	}
 
+	/**
+	 * Reinitialises a recycled event so that it can be sent again.
+	 */
+	void reset(int evtype, double time, int src, int dest, int tag, Object edata) {
+		etype = evtype;
+		this.time = time;
+		endWaitingTime = 0;
+		entSrc = src;
+		entDst = dest;
+		this.tag = tag;
+		data = edata;
+		serial = -1;
+		queuePosition = -1;
+		recycled = false;
+	}
+
+	/**
+	 * Marks the event as recycled, releasing the data it carries.
+	 */
+	void recycle() {
+		recycled = true;
+		data = null;
+	}
+
+	/**
+	 * Checks if the event was recycled.
+	 *
+	 * @return true, if the event is recycled
+	 */
+	boolean isRecycled() {
+		return recycled;
+	}
+
+	/**
+	 * Ensures that the event is not accessed after being recycled. The accessors only call it
+	 * in assertions, so that it costs nothing unless assertions are enabled (<tt>-ea</tt>).
+	 *
+	 * @return true, for the method to be called from an assertion
+	 * @throws IllegalStateException if the event was recycled
+	 */
+	private boolean checkNotRecycled() {
+		if (recycled) {
+			throw new IllegalStateException("Event accessed after being recycled: an entity kept a reference to it after its dispatch.");
+		}
+		return true;
+	}
+
 	protected void setSerial(long serial) {
 		this.serial = serial;
 	}
 
+	/**
+	 * Gets the serial number used to order events happening at the same time.
+	 *
+	 * @return the serial
+	 */
+	long getSerial() {
+		return serial;
+	}
+
 	/**
 	 * Sets the time that the event was removed from the queue to start service. 
 	 * 
@@ -122,6 +190,7 @@ public class SimEvent implements Cloneable, Comparable<SimEvent> {
 	 * @return
 	 */
 	public int getType() {
+		assert checkNotRecycled();
 		return etype;
 	}
 
@@ -149,6 +218,7 @@ public class SimEvent implements Cloneable, Comparable<SimEvent> {
 	 * @return the id number
 	 */
 	public int getDestination() {
+		assert checkNotRecycled();
 		return entDst;
 	}
 
@@ -158,6 +228,7 @@ public class SimEvent implements Cloneable, Comparable<SimEvent> {
 	 * @return the id number
 	 */
 	public int getSource() {
+		assert checkNotRecycled();
 		return entSrc;
 	}
 
@@ -167,6 +238,7 @@ public class SimEvent implements Cloneable, Comparable<SimEvent> {
 	 * @return The simulation time
 	 */
 	public double eventTime() {
+		assert checkNotRecycled();
 		return time;
 	}
 
@@ -176,6 +248,7 @@ public class SimEvent implements Cloneable, Comparable<SimEvent> {
 	 * @return The simulation time
 	 */
 	public double endWaitingTime() {
+		assert checkNotRecycled();
 		return endWaitingTime;
 	}
 
@@ -185,6 +258,7 @@ public class SimEvent implements Cloneable, Comparable<SimEvent> {
 	 * @return The tag
 	 */
 	public int type() {
+		assert checkNotRecycled();
 		return tag;
 	}
 
@@ -194,6 +268,7 @@ public class SimEvent implements Cloneable, Comparable<SimEvent> {
 	 * @return the id number
 	 */
 	public int scheduledBy() {
+		assert checkNotRecycled();
 		return entSrc;
 	}
 
@@ -203,6 +278,7 @@ public class SimEvent implements Cloneable, Comparable<SimEvent> {
 	 * @return The tag
 	 */
 	public int getTag() {
+		assert checkNotRecycled();
 		return tag;
 	}
 
@@ -212,11 +288,13 @@ public class SimEvent implements Cloneable, Comparable<SimEvent> {
 	 * @return A reference to the data
 	 */
 	public Object getData() {
+		assert checkNotRecycled();
 		return data;
 	}
 
 	@Override
 	public Object clone() {
+		assert checkNotRecycled();
 		return new SimEvent(etype, time, entSrc, entDst, tag, data);
 	}
 
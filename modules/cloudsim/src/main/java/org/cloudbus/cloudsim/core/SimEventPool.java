@@ -0,0 +1,100 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+/**
+ * A pool of the {@link SimEvent events} already dispatched to their entities, which are reused
+ * by the simulation instead of allocating new ones. An event is only recycled once the entity
+ * receiving it has processed it, so the entities must not keep references to the events
+ * they receive. In <i>guard</i> mode, the recycled events are never reused, and with assertions
+ * enabled any access to them throws an {@link IllegalStateException}, which helps to find the
+ * entities that do so.
+ *
+ * @since CloudSim Toolkit 4.0
+ * @see CloudSim#setEventRecycling(boolean, boolean)
+ */
+final class SimEventPool {
+
+	/** The default maximum number of events kept by the pool. */
+	static final int DEFAULT_CAPACITY = 4096;
+
+	/** The recycled events. */
+	private final SimEvent[] events;
+
+	/** The number of recycled events in the pool. */
+	private int size = 0;
+
+	/** Indicates if the recycled events are kept out of use to detect accesses to them. */
+	private final boolean guard;
+
+	/**
+	 * Creates a pool.
+	 *
+	 * @param capacity the maximum number of events kept by the pool
+	 * @param guard true to never reuse the recycled events, so as to detect accesses to them
+	 */
+	SimEventPool(int capacity, boolean guard) {
+		if (capacity < 0) {
+			throw new IllegalArgumentException("The capacity of the pool can't be negative.");
+		}
+		events = new SimEvent[guard ? 0 : capacity];
+		this.guard = guard;
+	}
+
+	/**
+	 * Checks if the pool never reuses the recycled events.
+	 *
+	 * @return true, if the pool is in guard mode
+	 */
+	boolean isGuard() {
+		return guard;
+	}
+
+	/**
+	 * Takes a recycled event out of the pool.
+	 *
+	 * @return the event, which has to be {@link SimEvent#reset reset} before use,
+	 *         or <tt>null</tt> if the pool is empty
+	 */
+	SimEvent poll() {
+		if (size == 0) {
+			return null;
+		}
+		SimEvent event = events[--size];
+		events[size] = null;
+		return event;
+	}
+
+	/**
+	 * Returns a dispatched event to the pool. Events already recycled are ignored.
+	 *
+	 * @param event the event
+	 * @return true, if the event has been recycled
+	 */
+	boolean recycle(SimEvent event) {
+		if (event.isRecycled()) {
+			return false;
+		}
+		event.recycle();
+		if (size < events.length) {
+			events[size++] = event;
+		}
+		return true;
+	}
+
+	/**
+	 * Gets the number of recycled events in the pool.
+	 *
+	 * @return the size of the pool
+	 */
+	int size() {
+		return size;
+	}
+
+}
@@ -0,0 +1,195 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.cloudbus.cloudsim.core.predicates.Predicate;
+
+/**
+ * The state of a simulation: its entities, event queues, clock and settings.
+ * The static methods of {@link CloudSim} act on the context bound to the current thread
+ * (see {@link CloudSim#setContext(SimulationContext)}), or on a default context shared
+ * by the threads that have none bound. Thus, several simulations can run concurrently
+ * in the same JVM, each one in its own thread with its own context:
+ *
+ * <pre>
+ * CloudSim.setContext(new SimulationContext());
+ * try {
+ * 	CloudSim.init(numUser, calendar, traceFlag);
+ * 	// creates the entities
+ * 	CloudSim.startSimulation();
+ * } finally {
+ * 	CloudSim.setContext(null);
+ * }
+ * </pre>
+ *
+ * The {@link org.cloudbus.cloudsim.Log} settings are also kept by the context,
+ * so that each simulation may have its own log output.
+ *
+ * @since CloudSim Toolkit 4.0
+ * @see CloudSim
+ */
+public class SimulationContext {
+
+	/** The id of CIS entity. */
+	int cisId = -1;
+
+	/** The id of CloudSimShutdown entity. */
+	int shutdownId = -1;
+
+	/** The CIS object. */
+	CloudInformationService cis = null;
+
+	/** The trace flag. */
+	boolean traceFlag = false;
+
+	/** The calendar. */
+	Calendar calendar = null;
+
+	/** The termination time. */
+	double terminateAt = -1;
+
+	/** The minimal time between events. Events within shorter periods after the last event are discarded. */
+	double minTimeBetweenEvents = 0.1;
+
+	/** The entities. */
+	List<SimEntity> entities;
+
+	/** The future event queue, indexed to speed up event cancellations. */
+	IndexedEventQueue future;
+
+	/** The deferred event queue. */
+	DeferredQueue deferred;
+
+	/** The current simulation clock. */
+	double clock;
+
+	/** Flag for checking if the simulation is running. */
+	boolean running;
+
+	/** The entities by name. */
+	Map<String, SimEntity> entitiesByName;
+
+	/** The predicates used in entity wait methods. */
+	Map<Integer, Predicate> waitPredicates;
+
+	/** The lock guarding the pause state of the simulation, which other threads may change. */
+	final ReentrantLock pauseLock = new ReentrantLock();
+
+	/** Signalled when the simulation is paused, resumed or stops running in its thread. */
+	final Condition pauseChanged = pauseLock.newCondition();
+
+	/**
+	 * Flag for checking if the simulation has to check whether to pause before its next events,
+	 * so that it only does so when a pause has been requested.
+	 */
+	volatile boolean pauseRequested = false;
+
+	/** The paused. */
+	volatile boolean paused = false;
+
+	/** The time at which the simulation has to pause, set by pauseSimulation(long), or -1 if none. */
+	double pauseAt = -1;
+
+	/** The time until which the simulation runs before pausing, set by runUntil, or -1 if none. */
+	double runUntil = -1;
+
+	/** The number of dispatched events after which the simulation has to pause, or -1 if none. */
+	long pauseAfterEvents = -1;
+
+	/** The thread running the simulation, or <tt>null</tt> if it isn't running in any thread. */
+	volatile Thread simulationThread = null;
+
+	/** The abrupt terminate. */
+	boolean abruptTerminate = false;
+
+	/**
+	 * The buffer that receives the events drained from the {@link #future} queue at each tick.
+	 * It is reused between ticks to avoid allocating a new list for each one.
+	 */
+	final List<SimEvent> batch = new ArrayList<SimEvent>();
+
+	/** The number of events dispatched by the last simulation tick. */
+	int eventsDispatchedInLastTick = 0;
+
+	/** The total number of events dispatched since the simulation was initialised. */
+	long eventsDispatched = 0;
+
+	/** The executor running the entities in parallel, or <tt>null</tt> if they are run sequentially. */
+	ParallelExecutor parallel = null;
+
+	/** The pool of the dispatched events to reuse, or <tt>null</tt> if the events are not recycled. */
+	SimEventPool eventPool = null;
+
+	/** The number of events allocated since the simulation was initialised. */
+	long eventsAllocated = 0;
+
+	/** The number of recycled events reused since the simulation was initialised. */
+	long eventsReused = 0;
+
+	/** The number of dispatched events recycled since the simulation was initialised. */
+	long eventsRecycled = 0;
+
+	/** The metrics collected about the events, or <tt>null</tt> if they are not collected. */
+	SimulationMetrics metrics = null;
+
+	/** The stream where the log is outputted, or <tt>null</tt> to use the standard output. */
+	private OutputStream logOutput;
+
+	/** Indicates if the log is disabled. */
+	private boolean logDisabled;
+
+	/**
+	 * Gets the stream where the log of this simulation is outputted.
+	 *
+	 * @return the log output, or <tt>null</tt> if it hasn't been set
+	 * @see org.cloudbus.cloudsim.Log#getOutput()
+	 */
+	public OutputStream getLogOutput() {
+		return logOutput;
+	}
+
+	/**
+	 * Sets the stream where the log of this simulation is outputted.
+	 *
+	 * @param logOutput the log output
+	 * @see org.cloudbus.cloudsim.Log#setOutput(OutputStream)
+	 */
+	public void setLogOutput(OutputStream logOutput) {
+		this.logOutput = logOutput;
+	}
+
+	/**
+	 * Checks if the log of this simulation is disabled.
+	 *
+	 * @return true, if the log is disabled
+	 * @see org.cloudbus.cloudsim.Log#isDisabled()
+	 */
+	public boolean isLogDisabled() {
+		return logDisabled;
+	}
+
+	/**
+	 * Sets if the log of this simulation is disabled.
+	 *
+	 * @param logDisabled true to disable the log
+	 * @see org.cloudbus.cloudsim.Log#setDisabled(boolean)
+	 */
+	public void setLogDisabled(boolean logDisabled) {
+		this.logDisabled = logDisabled;
+	}
+
+}
@@ -0,0 +1,432 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Collects metrics about the events of a simulation: the number of events dispatched and the
+ * wall-clock time entities take to process them, in nanoseconds, both per event tag and per
+ * entity class, as well as the size of the event queues over the simulation time.
+ * The metrics are only collected once set with {@link CloudSim#setMetrics(SimulationMetrics)},
+ * so that simulations not using them don't incur any cost. If an output path is set, the metrics
+ * are written to CSV and JSON files when the simulation finishes:
+ *
+ * <pre>
+ * CloudSim.init(numUser, calendar, traceFlag);
+ * SimulationMetrics metrics = new SimulationMetrics();
+ * metrics.setOutput("output/metrics/experiment");
+ * CloudSim.setMetrics(metrics);
+ * </pre>
+ *
+ * The recording methods are synchronized, since the entities may process events in parallel
+ * (see {@link CloudSim#setParallelExecution(java.util.concurrent.ForkJoinPool)}).
+ *
+ * @since CloudSim Toolkit 4.0
+ * @see org.cloudbus.cloudsim.util.ExecutionTimeMeasurer
+ */
+public class SimulationMetrics {
+
+	/** The metrics of the events, by tag. */
+	private final Map<Integer, EventMetrics> tags = new TreeMap<Integer, EventMetrics>();
+
+	/** The metrics of the events, by the class name of the entity receiving them. */
+	private final Map<String, EventMetrics> entityClasses = new TreeMap<String, EventMetrics>();
+
+	/** The simulation times at which the queue sizes were sampled. */
+	private double[] sampleTimes = new double[64];
+
+	/** The sizes of the future queue at each sample time. */
+	private int[] futureSizes = new int[64];
+
+	/** The sizes of the deferred queue at each sample time. */
+	private int[] deferredSizes = new int[64];
+
+	/** The number of queue size samples. */
+	private int samples = 0;
+
+	/** The base path of the files the metrics are written to, or <tt>null</tt> to not write them. */
+	private String output;
+
+	/**
+	 * Sets the base path of the files the metrics are written to when the simulation finishes:
+	 * <tt>output_events.csv</tt> with the event metrics, <tt>output_queue.csv</tt> with the
+	 * queue sizes and <tt>output.json</tt> with both.
+	 *
+	 * @param output the base path of the files, or <tt>null</tt> to not write them
+	 */
+	public void setOutput(String output) {
+		this.output = output;
+	}
+
+	/**
+	 * Gets the base path of the files the metrics are written to.
+	 *
+	 * @return the base path of the files, or <tt>null</tt> if they are not written
+	 */
+	public String getOutput() {
+		return output;
+	}
+
+	/**
+	 * Records the dispatch of an event by the simulation.
+	 *
+	 * @param event the event
+	 * @param entity the entity the event is dispatched to
+	 */
+	synchronized void recordDispatch(SimEvent event, SimEntity entity) {
+		tagMetrics(event.getTag()).dispatched++;
+		if (entity != null) {
+			entityMetrics(entity).dispatched++;
+		}
+	}
+
+	/**
+	 * Records the processing of an event by an entity.
+	 *
+	 * @param tag the tag of the event
+	 * @param entity the entity that processed the event
+	 * @param nanos the time taken to process the event, in nanoseconds
+	 */
+	synchronized void recordProcessing(int tag, SimEntity entity, long nanos) {
+		tagMetrics(tag).latency.add(nanos);
+		entityMetrics(entity).latency.add(nanos);
+	}
+
+	/**
+	 * Records the sizes of the event queues.
+	 *
+	 * @param time the current simulation time
+	 * @param futureSize the size of the future queue
+	 * @param deferredSize the size of the deferred queue
+	 */
+	synchronized void recordQueueSizes(double time, int futureSize, int deferredSize) {
+		if (samples == sampleTimes.length) {
+			sampleTimes = Arrays.copyOf(sampleTimes, samples * 2);
+			futureSizes = Arrays.copyOf(futureSizes, samples * 2);
+			deferredSizes = Arrays.copyOf(deferredSizes, samples * 2);
+		}
+		sampleTimes[samples] = time;
+		futureSizes[samples] = futureSize;
+		deferredSizes[samples] = deferredSize;
+		samples++;
+	}
+
+	private EventMetrics tagMetrics(int tag) {
+		EventMetrics metrics = tags.get(tag);
+		if (metrics == null) {
+			metrics = new EventMetrics();
+			tags.put(tag, metrics);
+		}
+		return metrics;
+	}
+
+	private EventMetrics entityMetrics(SimEntity entity) {
+		String name = entity.getClass().getName();
+		EventMetrics metrics = entityClasses.get(name);
+		if (metrics == null) {
+			metrics = new EventMetrics();
+			entityClasses.put(name, metrics);
+		}
+		return metrics;
+	}
+
+	/**
+	 * Gets the metrics of the events having a tag.
+	 *
+	 * @param tag the tag
+	 * @return the metrics, or <tt>null</tt> if no event with that tag was recorded
+	 */
+	public synchronized EventMetrics getTagMetrics(int tag) {
+		return tags.get(tag);
+	}
+
+	/**
+	 * Gets the metrics of the events received by the entities of a class.
+	 *
+	 * @param entityClass the class of the entities
+	 * @return the metrics, or <tt>null</tt> if no event for such entities was recorded
+	 */
+	public synchronized EventMetrics getEntityMetrics(Class<? extends SimEntity> entityClass) {
+		return entityClasses.get(entityClass.getName());
+	}
+
+	/**
+	 * Gets the number of queue size samples, one per simulation tick.
+	 *
+	 * @return the number of samples
+	 */
+	public synchronized int getQueueSamples() {
+		return samples;
+	}
+
+	/**
+	 * Gets the largest size of the future queue sampled.
+	 *
+	 * @return the maximum size of the future queue
+	 */
+	public synchronized int getMaxFutureSize() {
+		int max = 0;
+		for (int i = 0; i < samples; i++) {
+			max = Math.max(max, futureSizes[i]);
+		}
+		return max;
+	}
+
+	/**
+	 * Writes the metrics to the files under the {@link #getOutput() output path}, if set.
+	 * This is done when the simulation finishes.
+	 */
+	void dump() {
+		if (output == null) {
+			return;
+		}
+		try {
+			Writer writer = new FileWriter(output + "_events.csv");
+			try {
+				writeEventsCsv(writer);
+			} finally {
+				writer.close();
+			}
+			writer = new FileWriter(output + "_queue.csv");
+			try {
+				writeQueueCsv(writer);
+			} finally {
+				writer.close();
+			}
+			writer = new FileWriter(output + ".json");
+			try {
+				writeJson(writer);
+			} finally {
+				writer.close();
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Writes the event metrics as CSV, one line per tag and per entity class.
+	 *
+	 * @param writer the writer
+	 */
+	public synchronized void writeEventsCsv(Writer writer) {
+		PrintWriter out = new PrintWriter(writer);
+		out.println("kind,key,dispatched,processed,total_ns,mean_ns,min_ns,max_ns,p50_ns,p99_ns");
+		for (Map.Entry<Integer, EventMetrics> entry : tags.entrySet()) {
+			out.println("tag," + entry.getKey() + "," + entry.getValue().toCsv());
+		}
+		for (Map.Entry<String, EventMetrics> entry : entityClasses.entrySet()) {
+			out.println("entity," + entry.getKey() + "," + entry.getValue().toCsv());
+		}
+		out.flush();
+	}
+
+	/**
+	 * Writes the sizes of the event queues as CSV, one line per simulation tick.
+	 *
+	 * @param writer the writer
+	 */
+	public synchronized void writeQueueCsv(Writer writer) {
+		PrintWriter out = new PrintWriter(writer);
+		out.println("time,future,deferred");
+		for (int i = 0; i < samples; i++) {
+			out.println(sampleTimes[i] + "," + futureSizes[i] + "," + deferredSizes[i]);
+		}
+		out.flush();
+	}
+
+	/**
+	 * Writes all the metrics as a JSON object.
+	 *
+	 * @param writer the writer
+	 */
+	public synchronized void writeJson(Writer writer) {
+		PrintWriter out = new PrintWriter(writer);
+		out.println("{");
+		out.println("  \"tags\": {");
+		int i = 0;
+		for (Map.Entry<Integer, EventMetrics> entry : tags.entrySet()) {
+			out.print("    \"" + entry.getKey() + "\": " + entry.getValue().toJson());
+			out.println(++i < tags.size() ? "," : "");
+		}
+		out.println("  },");
+		out.println("  \"entities\": {");
+		i = 0;
+		for (Map.Entry<String, EventMetrics> entry : entityClasses.entrySet()) {
+			out.print("    \"" + entry.getKey() + "\": " + entry.getValue().toJson());
+			out.println(++i < entityClasses.size() ? "," : "");
+		}
+		out.println("  },");
+		out.println("  \"queue\": [");
+		for (i = 0; i < samples; i++) {
+			out.print("    {\"time\": " + sampleTimes[i] + ", \"future\": " + futureSizes[i] + ", \"deferred\": "
+					+ deferredSizes[i] + "}");
+			out.println(i + 1 < samples ? "," : "");
+		}
+		out.println("  ]");
+		out.println("}");
+		out.flush();
+	}
+
+	/**
+	 * The metrics of a group of events: the number of them dispatched by the simulation
+	 * and the time the entities took to process them.
+	 */
+	public static class EventMetrics {
+
+		/** The number of events dispatched. */
+		private long dispatched = 0;
+
+		/** The processing latencies of the events. */
+		private final LatencyHistogram latency = new LatencyHistogram();
+
+		/**
+		 * Gets the number of events dispatched by the simulation.
+		 *
+		 * @return the number of events dispatched
+		 */
+		public long getDispatched() {
+			return dispatched;
+		}
+
+		/**
+		 * Gets the histogram of the time the entities took to process the events.
+		 *
+		 * @return the latency histogram
+		 */
+		public LatencyHistogram getLatency() {
+			return latency;
+		}
+
+		String toCsv() {
+			return dispatched + "," + latency.getCount() + "," + latency.getTotal() + "," + latency.getMean() + ","
+					+ latency.getMin() + "," + latency.getMax() + "," + latency.getPercentile(50) + ","
+					+ latency.getPercentile(99);
+		}
+
+		String toJson() {
+			return "{\"dispatched\": " + dispatched + ", \"processed\": " + latency.getCount() + ", \"total_ns\": "
+					+ latency.getTotal() + ", \"mean_ns\": " + latency.getMean() + ", \"min_ns\": " + latency.getMin()
+					+ ", \"max_ns\": " + latency.getMax() + ", \"p50_ns\": " + latency.getPercentile(50)
+					+ ", \"p99_ns\": " + latency.getPercentile(99) + "}";
+		}
+	}
+
+	/**
+	 * A histogram of latencies in nanoseconds, whose buckets are powers of two.
+	 * The percentiles are thus approximated by the upper bound of their bucket.
+	 */
+	public static class LatencyHistogram {
+
+		/** The number of latencies in each bucket: bucket i holds latencies below 2^i. */
+		private final long[] buckets = new long[64];
+
+		/** The number of latencies. */
+		private long count = 0;
+
+		/** The sum of the latencies. */
+		private long total = 0;
+
+		/** The smallest latency. */
+		private long min = Long.MAX_VALUE;
+
+		/** The largest latency. */
+		private long max = 0;
+
+		/**
+		 * Adds a latency to the histogram.
+		 *
+		 * @param nanos the latency in nanoseconds
+		 */
+		void add(long nanos) {
+			if (nanos < 0) {
+				nanos = 0;
+			}
+			buckets[64 - Long.numberOfLeadingZeros(nanos)]++;
+			count++;
+			total += nanos;
+			min = Math.min(min, nanos);
+			max = Math.max(max, nanos);
+		}
+
+		/**
+		 * Gets the number of latencies.
+		 *
+		 * @return the count
+		 */
+		public long getCount() {
+			return count;
+		}
+
+		/**
+		 * Gets the sum of the latencies.
+		 *
+		 * @return the total in nanoseconds
+		 */
+		public long getTotal() {
+			return total;
+		}
+
+		/**
+		 * Gets the mean latency.
+		 *
+		 * @return the mean in nanoseconds, or 0 if there is no latency
+		 */
+		public long getMean() {
+			return count == 0 ? 0 : total / count;
+		}
+
+		/**
+		 * Gets the smallest latency.
+		 *
+		 * @return the minimum in nanoseconds, or 0 if there is no latency
+		 */
+		public long getMin() {
+			return count == 0 ? 0 : min;
+		}
+
+		/**
+		 * Gets the largest latency.
+		 *
+		 * @return the maximum in nanoseconds
+		 */
+		public long getMax() {
+			return max;
+		}
+
+		/**
+		 * Gets an approximation of a percentile of the latencies, the upper bound of its bucket.
+		 *
+		 * @param percentile the percentile, between 0 and 100
+		 * @return the percentile in nanoseconds, or 0 if there is no latency
+		 */
+		public long getPercentile(double percentile) {
+			if (percentile < 0 || percentile > 100) {
+				throw new IllegalArgumentException("The percentile must be between 0 and 100.");
+			}
+			long rank = (long) Math.ceil(count * percentile / 100);
+			long seen = 0;
+			for (int i = 0; i < buckets.length; i++) {
+				seen += buckets[i];
+				if (seen >= rank && seen > 0) {
+					return Math.min(max, i == 0 ? 0 : (1L << i) - 1);
+				}
+			}
+			return 0;
+		}
+	}
+
+}
@@ -0,0 +1,119 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.lists;
+
+import java.util.List;
+import java.util.ListIterator;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * KeySort sorts lists by a double key computed once for each element, instead of twice for each
+ * comparison as a comparator does. The keys are stored in an array and the positions of the
+ * elements are sorted by key with a stable merge sort, so that the order is the same as the one
+ * of {@link java.util.Collections#sort(List, java.util.Comparator)} with a comparator that
+ * compares the keys with {@link Double#compare(double, double)}, ties included.
+ *
+ * @since CloudSim Toolkit 4.0
+ */
+public class KeySort {
+
+	/** The length of the runs sorted by insertion before they are merged. */
+	private static final int INSERTION_SORT_THRESHOLD = 16;
+
+	/**
+	 * Sorts a list in ascending order of a key.
+	 *
+	 * @param list the list to be sorted
+	 * @param key the function computing the key of an element
+	 */
+	public static <T> void sort(List<T> list, ToDoubleFunction<? super T> key) {
+		sort(list, key, false);
+	}
+
+	/**
+	 * Sorts a list in descending order of a key.
+	 *
+	 * @param list the list to be sorted
+	 * @param key the function computing the key of an element
+	 */
+	public static <T> void sortDescending(List<T> list, ToDoubleFunction<? super T> key) {
+		sort(list, key, true);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> void sort(List<T> list, ToDoubleFunction<? super T> key, boolean descending) {
+		int size = list.size();
+		if (size < 2) {
+			return;
+		}
+		Object[] elements = list.toArray();
+		double[] keys = new double[size];
+		int[] order = new int[size];
+		for (int i = 0; i < size; i++) {
+			keys[i] = key.applyAsDouble((T) elements[i]);
+			order[i] = i;
+		}
+		mergeSort(order, new int[size], keys, descending, 0, size);
+
+		ListIterator<T> iterator = list.listIterator();
+		for (int i = 0; i < size; i++) {
+			iterator.next();
+			iterator.set((T) elements[order[i]]);
+		}
+	}
+
+	/**
+	 * Sorts a range of positions by key, keeping positions with equal keys in order.
+	 *
+	 * @param order the positions
+	 * @param buffer a work array as long as the positions
+	 * @param keys the keys, by position
+	 * @param descending whether the keys are sorted in descending order
+	 * @param from the start of the range, inclusive
+	 * @param to the end of the range, exclusive
+	 */
+	private static void mergeSort(int[] order, int[] buffer, double[] keys, boolean descending, int from,
+			int to) {
+		if (to - from <= INSERTION_SORT_THRESHOLD) {
+			for (int i = from + 1; i < to; i++) {
+				int position = order[i];
+				double value = keys[position];
+				int j = i - 1;
+				while (j >= from && compare(keys[order[j]], value, descending) > 0) {
+					order[j + 1] = order[j];
+					j--;
+				}
+				order[j + 1] = position;
+			}
+			return;
+		}
+		int middle = (from + to) >>> 1;
+		mergeSort(order, buffer, keys, descending, from, middle);
+		mergeSort(order, buffer, keys, descending, middle, to);
+		if (compare(keys[order[middle - 1]], keys[order[middle]], descending) <= 0) {
+			return;
+		}
+		System.arraycopy(order, from, buffer, from, to - from);
+		int left = from;
+		int right = middle;
+		for (int i = from; i < to; i++) {
+			if (right >= to || left < middle
+					&& compare(keys[buffer[left]], keys[buffer[right]], descending) <= 0) {
+				order[i] = buffer[left++];
+			} else {
+				order[i] = buffer[right++];
+			}
+		}
+	}
+
+	private static int compare(double a, double b, boolean descending) {
+		return descending ? Double.compare(b, a) : Double.compare(a, b);
+	}
+
+}
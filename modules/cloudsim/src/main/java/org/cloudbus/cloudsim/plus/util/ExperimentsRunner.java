@@ -1,11 +1,14 @@
 package org.cloudbus.cloudsim.plus.util;
 
 import org.apache.commons.lang3.SystemUtils;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.SimulationContext;
 
 import java.io.File;
 import java.io.IOException;
 import java.lang.management.ManagementFactory;
 import java.lang.management.RuntimeMXBean;
+import java.lang.reflect.Method;
 import java.util.*;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -13,11 +16,16 @@ import java.util.concurrent.Future;
 
 /**
  * 
- * A utility that runs a set of experiments in different JVM processes. Since
- * CloudSim makes heavy use of static data, experiments can not be run in
- * multiple threads within the same JVM. With this utility class one can spawn
- * multiple independent JVM process, redirect their standard outputs to a single
- * place and synchronize with their ends.
+ * A utility that runs a set of experiments in different JVM processes. With
+ * this utility class one can spawn multiple independent JVM process, redirect
+ * their standard outputs to a single place and synchronize with their ends.
+ * 
+ * <br>
+ * <br>
+ * Alternatively, {@link #runExperimentsInThreads(List, int)} runs the
+ * experiments as threads of the current JVM, each one with its own
+ * {@link SimulationContext}. This avoids the JVM startup of each experiment,
+ * and lets them share what is already loaded in the JVM.
  * 
  * <br>
  * <br>
@@ -102,6 +110,64 @@ public class ExperimentsRunner {
         System.err.println("All experiments are finished");
     }
 
+    /**
+     * Runs a set of experiments as threads of the current JVM. Each experiment
+     * runs its main method in a thread bound to a new
+     * {@link SimulationContext}, so the experiments don't share any CloudSim
+     * state. The JVM arguments of the experiments (i.e. the heap sizes and the
+     * arguments starting with -X or -D) are ignored, since the experiments run
+     * in the current JVM.
+     * 
+     * @param experimentsDefs
+     *            - the experiments' definitions.
+     * @param numFreeCPUs
+     *            - number of processors to leave unused. Must be non-negative
+     *            and less than the number processors - 1.
+     * 
+     * @throws Exception
+     *             - if something goes wrong.
+     */
+    public static synchronized void runExperimentsInThreads(final List<ExperimentDefinition> experimentsDefs,
+            final int numFreeCPUs) throws Exception {
+
+        if (!experimentsDefs.isEmpty()) {
+            // If possible leave the requested processors free
+            int cores = Runtime.getRuntime().availableProcessors();
+            int coresToUse = cores <= numFreeCPUs ? 1 : cores - numFreeCPUs;
+
+            ExecutorService pool = Executors.newFixedThreadPool(coresToUse);
+            Collection<Future<?>> futures = new ArrayList<Future<?>>();
+
+            for (final ExperimentDefinition def : experimentsDefs) {
+                Runnable runnable = new Runnable() {
+                    @Override
+                    public void run() {
+                        CloudSim.setContext(new SimulationContext());
+                        try {
+                            execInThread(def);
+                        } catch (Exception e) {
+                            e.printStackTrace();
+                            System.err.println("!!! Experiment " + def.getMainClass().getCanonicalName()
+                                    + " has failed!!!");
+                        } finally {
+                            CloudSim.setContext(null);
+                        }
+                    }
+                };
+                futures.add(pool.submit(runnable));
+            }
+
+            // Wait until all are finished
+            for (Future<?> future : futures) {
+                future.get();
+            }
+
+            pool.shutdown();
+        }
+        System.err.println();
+        System.err.println("All experiments are finished");
+    }
+
     @SuppressWarnings("unused")
     private static int[] getHeapArgs() {
         RuntimeMXBean runtimeMxBean = ManagementFactory.getRuntimeMXBean();
@@ -206,6 +272,24 @@ public class ExperimentsRunner {
         return process.exitValue();
     }
 
+    /**
+     * Runs the main method of an experiment in the current thread.
+     * 
+     * @param def
+     * @throws Exception
+     */
+    private static void execInThread(final ExperimentDefinition def) throws Exception {
+        List<String> appParams = new ArrayList<>();
+        for (String param : def.getArguements()) {
+            if (!param.startsWith("-X") && !param.startsWith("-D")) {
+                appParams.add(param);
+            }
+        }
+
+        Method main = def.getMainClass().getMethod("main", String[].class);
+        main.invoke(null, (Object) appParams.toArray(new String[0]));
+    }
+
     private static void printPIDInformation() throws IOException {
         if (SystemUtils.IS_OS_LINUX) {
             byte[] bo = new byte[100];
@@ -8,15 +8,21 @@
 
 package org.cloudbus.cloudsim.power;
 
+import java.io.IOException;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 
+import org.cloudbus.cloudsim.ActiveHostSet;
 import org.cloudbus.cloudsim.Datacenter;
 import org.cloudbus.cloudsim.DatacenterCharacteristics;
+import org.cloudbus.cloudsim.Host;
 import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.MigrationPlan;
 import org.cloudbus.cloudsim.Storage;
 import org.cloudbus.cloudsim.Vm;
 import org.cloudbus.cloudsim.VmAllocationPolicy;
+import org.cloudbus.cloudsim.core.CheckpointInput;
+import org.cloudbus.cloudsim.core.CheckpointOutput;
 import org.cloudbus.cloudsim.core.CloudSim;
 import org.cloudbus.cloudsim.core.CloudSimTags;
 import org.cloudbus.cloudsim.core.SimEvent;
@@ -43,6 +49,15 @@ public class PowerDatacenter extends Datacenter {
 	/** The datacenter consumed power. */
 	private double power;
 
+	/** The energy consumed by the hosts in the last time frame. */
+	private double timeFrameEnergy;
+
+	/** The energy consumed by each host since the start, by position in the host list. */
+	private double[] hostEnergy = new double[0];
+
+	/** The length of the last time frame. */
+	private double timeFrameLength;
+
 	/** Indicates if migrations are disabled or not. */
 	private boolean disableMigrations;
 
@@ -52,6 +67,9 @@ public class PowerDatacenter extends Datacenter {
 	/** The VM migration count. */
 	private int migrationCount;
 
+	/** The hosts whose processing is updated at each time frame. */
+	private final ActiveHostSet activeHostSet;
+
 	/**
 	 * Instantiates a new PowerDatacenter.
 	 * 
@@ -74,6 +92,7 @@ public class PowerDatacenter extends Datacenter {
 		setDisableMigrations(false);
 		setCloudletSubmitted(-1);
 		setMigrationCount(0);
+		activeHostSet = new ActiveHostSet(this.<PowerHost> getHostList());
 	}
 
 	@Override
@@ -92,43 +111,41 @@ public class PowerDatacenter extends Datacenter {
 			double minTime = updateCloudetProcessingWithoutSchedulingFutureEventsForce();
 
 			if (!isDisableMigrations()) {
-				List<Map<String, Object>> migrationMap = getVmAllocationPolicy().optimizeAllocation(
-						getVmList());
-
-				if (migrationMap != null) {
-					for (Map<String, Object> migrate : migrationMap) {
-						Vm vm = (Vm) migrate.get("vm");
-						PowerHost targetHost = (PowerHost) migrate.get("host");
-						PowerHost oldHost = (PowerHost) vm.getHost();
-
-						if (oldHost == null) {
-							Log.formatLine(
-									"%.2f: Migration of VM #%d to Host #%d is started",
-									currentTime,
-									vm.getId(),
-									targetHost.getId());
-						} else {
-							Log.formatLine(
-									"%.2f: Migration of VM #%d from Host #%d to Host #%d is started",
-									currentTime,
-									vm.getId(),
-									oldHost.getId(),
-									targetHost.getId());
-						}
-
-						targetHost.addMigratingInVm(vm);
-						incrementMigrationCount();
-
-						/** VM migration delay = RAM / bandwidth **/
-						// we use BW / 2 to model BW available for migration purposes, the other
-						// half of BW is for VM communication
-						// around 16 seconds for 1024 MB using 1 Gbit/s network
-						send(
-								getId(),
-								vm.getRam() / ((double) targetHost.getBw() / (2 * 8000)),
-								CloudSimTags.VM_MIGRATE,
-								migrate);
+				MigrationPlan<? extends Vm, ? extends Host> migrationPlan = getVmAllocationPolicy()
+						.planMigrations(getVmList());
+
+				for (int i = 0; i < migrationPlan.size(); i++) {
+					Vm vm = migrationPlan.getVm(i);
+					PowerHost targetHost = (PowerHost) migrationPlan.getHost(i);
+					PowerHost oldHost = (PowerHost) vm.getHost();
+
+					if (oldHost == null) {
+						Log.formatLine(
+								"%.2f: Migration of VM #%d to Host #%d is started",
+								currentTime,
+								vm.getId(),
+								targetHost.getId());
+					} else {
+						Log.formatLine(
+								"%.2f: Migration of VM #%d from Host #%d to Host #%d is started",
+								currentTime,
+								vm.getId(),
+								oldHost.getId(),
+								targetHost.getId());
 					}
+
+					targetHost.addMigratingInVm(vm);
+					incrementMigrationCount();
+
+					/** VM migration delay = RAM / bandwidth **/
+					// we use BW / 2 to model BW available for migration purposes, the other
+					// half of BW is for VM communication
+					// around 16 seconds for 1024 MB using 1 Gbit/s network
+					send(
+							getId(),
+							vm.getRam() / ((double) targetHost.getBw() / (2 * 8000)),
+							CloudSimTags.VM_MIGRATE,
+							migrationPlan.getMigrationMap(i));
 				}
 			}
 
@@ -175,19 +192,27 @@ public class PowerDatacenter extends Datacenter {
 		Log.printLine("\n\n--------------------------------------------------------------\n\n");
 		Log.formatLine("New resource usage for the time frame starting at %.2f:", currentTime);
 
-		for (PowerHost host : this.<PowerHost> getHostList()) {
+		// the idle hosts are switched off and consume no energy, only the active hosts are updated,
+		// in the order of the host list; the idle ones are only listed when the log is enabled
+		List<PowerHost> hosts = this.<PowerHost> getHostList();
+		for (int i = nextHostOfTimeFrame(0); i >= 0; i = nextHostOfTimeFrame(i + 1)) {
+			PowerHost host = hosts.get(i);
 			Log.printLine();
 
-			double time = host.updateVmsProcessing(currentTime); // inform VMs to update processing
-			if (time < minTime) {
-				minTime = time;
+			if (getActiveHostSet().isActive(i)) {
+				double time = host.updateVmsProcessing(currentTime); // inform VMs to update processing
+				if (time < minTime) {
+					minTime = time;
+				}
 			}
 
-			Log.formatLine(
-					"%.2f: [Host #%d] utilization is %.2f%%",
-					currentTime,
-					host.getId(),
-					host.getUtilizationOfCpu() * 100);
+			if (!Log.isDisabled()) {
+				Log.formatLine(
+						"%.2f: [Host #%d] utilization is %.2f%%",
+						currentTime,
+						host.getId(),
+						host.getUtilizationOfCpu() * 100);
+			}
 		}//虚拟机进程更新
 
 		if (timeDiff > 0) {
@@ -196,34 +221,46 @@ public class PowerDatacenter extends Datacenter {
 					getLastProcessTime(),
 					currentTime);
 
-			for (PowerHost host : this.<PowerHost> getHostList()) { //统计每个物理机能耗
+			if (hostEnergy.length < hosts.size()) {
+				hostEnergy = Arrays.copyOf(hostEnergy, hosts.size());
+			}
+			for (int i = nextHostOfTimeFrame(0); i >= 0; i = nextHostOfTimeFrame(i + 1)) { //统计每个物理机能耗
+				PowerHost host = hosts.get(i);
 				double previousUtilizationOfCpu = host.getPreviousUtilizationOfCpu(); //5分钟前物理机CPU利用率
 				double utilizationOfCpu = host.getUtilizationOfCpu(); //当前时刻物理机CPU利用率
-				double timeFrameHostEnergy = host.getEnergyLinearInterpolation( //物理机能耗，通过线性插值获得
-						previousUtilizationOfCpu,
-						utilizationOfCpu,
-						timeDiff);
-				timeFrameDatacenterEnergy += timeFrameHostEnergy;//将主机能耗累加得到数据中心能耗
+				double timeFrameHostEnergy = 0;
+				if (getActiveHostSet().isActive(i)) {
+					timeFrameHostEnergy = host.getEnergy( //物理机能耗，沿利用率变化精确积分获得
+							previousUtilizationOfCpu,
+							utilizationOfCpu,
+							timeDiff);
+					timeFrameDatacenterEnergy += timeFrameHostEnergy;//将主机能耗累加得到数据中心能耗
+					hostEnergy[i] += timeFrameHostEnergy;
+				}
 
-				Log.printLine();
-				Log.formatLine(
-						"%.2f: [Host #%d] utilization at %.2f was %.2f%%, now is %.2f%%",
-						currentTime,
-						host.getId(),
-						getLastProcessTime(),
-						previousUtilizationOfCpu * 100,
-						utilizationOfCpu * 100);
-				Log.formatLine(
-						"%.2f: [Host #%d] energy is %.2f W*sec",
-						currentTime,
-						host.getId(),
-						timeFrameHostEnergy);
+				if (!Log.isDisabled()) {
+					Log.printLine();
+					Log.formatLine(
+							"%.2f: [Host #%d] utilization at %.2f was %.2f%%, now is %.2f%%",
+							currentTime,
+							host.getId(),
+							getLastProcessTime(),
+							previousUtilizationOfCpu * 100,
+							utilizationOfCpu * 100);
+					Log.formatLine(
+							"%.2f: [Host #%d] energy is %.2f W*sec",
+							currentTime,
+							host.getId(),
+							timeFrameHostEnergy);
+				}
 			}
 
 			Log.formatLine(
 					"\n%.2f: Data center's energy is %.2f W*sec\n",
 					currentTime,
 					timeFrameDatacenterEnergy);
+
+			setTimeFrameEnergy(timeFrameDatacenterEnergy, timeDiff);
 		}
 
 		setPower(getPower() + timeFrameDatacenterEnergy);//更新能耗值
@@ -231,13 +268,15 @@ public class PowerDatacenter extends Datacenter {
 		checkCloudletCompletion();
 
 		/** Remove completed VMs **/
-		for (PowerHost host : this.<PowerHost> getHostList()) {
+		for (int i = getActiveHostSet().nextActive(0); i >= 0; i = getActiveHostSet().nextActive(i + 1)) {
+			PowerHost host = hosts.get(i);
 			for (Vm vm : host.getCompletedVms()) {
 				getVmAllocationPolicy().deallocateHostForVm(vm);
 				getVmList().remove(vm);
 				Log.printLine("VM #" + vm.getId() + " has been deallocated from host #" + host.getId());
 			}
 		}
+		getActiveHostSet().deactivateIdleHosts();
 
 		Log.printLine();
 
@@ -245,6 +284,21 @@ public class PowerDatacenter extends Datacenter {
 		return minTime;
 	}
 
+	/**
+	 * Gets the position of the next host to visit in a time frame: the next active host, or the
+	 * next host of the list when the log is enabled, the idle hosts being listed with no
+	 * utilization and no energy.
+	 * 
+	 * @param position the position to start from
+	 * @return the position of the host in the host list, or -1 if there is no such host
+	 */
+	private int nextHostOfTimeFrame(int position) {
+		if (Log.isDisabled()) {
+			return getActiveHostSet().nextActive(position);
+		}
+		return position < getHostList().size() ? position : -1;
+	}
+
 	@Override
 	protected void processVmMigrate(SimEvent ev, boolean ack) {
 		updateCloudetProcessingWithoutSchedulingFutureEvents();
@@ -279,6 +333,73 @@ public class PowerDatacenter extends Datacenter {
 		this.power = power;
 	}
 
+	/**
+	 * Gets the set of the hosts whose processing is updated at each time frame. The other hosts are
+	 * idle: switched off with no VM, they are skipped until a VM is created on them or starts
+	 * migrating to them.
+	 * 
+	 * @return the set of active hosts
+	 */
+	public ActiveHostSet getActiveHostSet() {
+		return activeHostSet;
+	}
+
+	/**
+	 * Gets the energy consumed by a host since the start of the simulation, accumulated while the
+	 * processing of the cloudlets is updated. The sum over all the hosts is {@link #getPower()}.
+	 * 
+	 * @param hostIndex the position of the host in the host list
+	 * @return the energy in W*sec, or 0 if no time frame has been processed yet
+	 */
+	public double getHostEnergy(int hostIndex) {
+		if (hostIndex < 0 || hostIndex >= getHostList().size()) {
+			throw new IndexOutOfBoundsException("No host at position " + hostIndex);
+		}
+		return hostIndex < hostEnergy.length ? hostEnergy[hostIndex] : 0;
+	}
+
+	/**
+	 * Gets the energy consumed by the hosts in the last time frame processed, that is accumulated
+	 * while the processing of the cloudlets is updated.
+	 * 
+	 * @return the energy in W*sec, or 0 if no time frame has been processed yet
+	 */
+	public double getTimeFrameEnergy() {
+		return timeFrameEnergy;
+	}
+
+	/**
+	 * Gets the length of the last time frame processed.
+	 * 
+	 * @return the length of the time frame, or 0 if no time frame has been processed yet
+	 */
+	public double getTimeFrameLength() {
+		return timeFrameLength;
+	}
+
+	/**
+	 * Gets the average power of the hosts during the last time frame processed.
+	 * 
+	 * @return the power in W, or 0 if no time frame has been processed yet
+	 */
+	public double getTimeFramePower() {
+		if (timeFrameLength == 0) {
+			return 0;
+		}
+		return timeFrameEnergy / timeFrameLength;
+	}
+
+	/**
+	 * Sets the energy consumed by the hosts in the last time frame processed.
+	 * 
+	 * @param timeFrameEnergy the energy
+	 * @param timeFrameLength the length of the time frame
+	 */
+	protected void setTimeFrameEnergy(double timeFrameEnergy, double timeFrameLength) {
+		this.timeFrameEnergy = timeFrameEnergy;
+		this.timeFrameLength = timeFrameLength;
+	}
+
 	/**
 	 * Checks if PowerDatacenter is in migration.
 	 * 
@@ -295,6 +416,49 @@ public class PowerDatacenter extends Datacenter {
 		return result;
 	}
 
+	@Override
+	protected void saveState(CheckpointOutput out) throws IOException {
+		super.saveState(out);
+		out.writeDouble(getPower());
+		out.writeDouble(timeFrameEnergy);
+		out.writeDoubleArray(hostEnergy);
+		out.writeDouble(timeFrameLength);
+		out.writeBoolean(isDisableMigrations());
+		out.writeDouble(getCloudletSubmitted());
+		out.writeInt(getMigrationCount());
+		activeHostSet.saveState(out);
+	}
+
+	@Override
+	protected void restoreState(CheckpointInput in) throws IOException {
+		super.restoreState(in);
+		setPower(in.readDouble());
+		timeFrameEnergy = in.readDouble();
+		hostEnergy = in.readDoubleArray();
+		timeFrameLength = in.readDouble();
+		setDisableMigrations(in.readBoolean());
+		setCloudletSubmitted(in.readDouble());
+		setMigrationCount(in.readInt());
+		activeHostSet.restoreState(in);
+	}
+
+	/**
+	 * Replaces the VM allocation policy of the datacenter while the simulation runs, for instance
+	 * to continue with another policy a simulation restored from a checkpoint
+	 * (see {@link CloudSim#restoreCheckpoint(String)}). The new policy, created over the hosts
+	 * of the datacenter, takes over the current placement of the VMs.
+	 * 
+	 * @param vmAllocationPolicy the new VM allocation policy
+	 */
+	public void replaceVmAllocationPolicy(PowerVmAllocationPolicyAbstract vmAllocationPolicy) {
+		for (PowerHost host : this.<PowerHost> getHostList()) {
+			for (Vm vm : host.getVmList()) {
+				vmAllocationPolicy.getVmTable().put(vm.getUid(), host);
+			}
+		}
+		setVmAllocationPolicy(vmAllocationPolicy);
+	}
+
 	/**
 	 * Checks if migrations are disabled.
 	 * 
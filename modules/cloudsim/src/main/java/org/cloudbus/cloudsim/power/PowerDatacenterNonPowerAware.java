@@ -9,10 +9,11 @@
 package org.cloudbus.cloudsim.power;
 
 import java.util.List;
-import java.util.Map;
 
 import org.cloudbus.cloudsim.DatacenterCharacteristics;
+import org.cloudbus.cloudsim.Host;
 import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.MigrationPlan;
 import org.cloudbus.cloudsim.Storage;
 import org.cloudbus.cloudsim.Vm;
 import org.cloudbus.cloudsim.VmAllocationPolicy;
@@ -129,40 +130,38 @@ public class PowerDatacenterNonPowerAware extends PowerDatacenter {
 			Log.printLine();
 
 			if (!isDisableMigrations()) {
-				List<Map<String, Object>> migrationMap = getVmAllocationPolicy().optimizeAllocation(
-						getVmList());
-
-				if (migrationMap != null) {
-					for (Map<String, Object> migrate : migrationMap) {
-						Vm vm = (Vm) migrate.get("vm");
-						PowerHost targetHost = (PowerHost) migrate.get("host");
-						PowerHost oldHost = (PowerHost) vm.getHost();
-
-						if (oldHost == null) {
-							Log.formatLine(
-									"%.2f: Migration of VM #%d to Host #%d is started",
-									CloudSim.clock(),
-									vm.getId(),
-									targetHost.getId());
-						} else {
-							Log.formatLine(
-									"%.2f: Migration of VM #%d from Host #%d to Host #%d is started",
-									CloudSim.clock(),
-									vm.getId(),
-									oldHost.getId(),
-									targetHost.getId());
-						}
-
-						targetHost.addMigratingInVm(vm);
-						incrementMigrationCount();
-
-						/** VM migration delay = RAM / bandwidth + C (C = 10 sec) **/
-						send(
-								getId(),
-								vm.getRam() / ((double) vm.getBw() / 8000) + 10,
-								CloudSimTags.VM_MIGRATE,
-								migrate);
+				MigrationPlan<? extends Vm, ? extends Host> migrationPlan = getVmAllocationPolicy()
+						.planMigrations(getVmList());
+
+				for (int i = 0; i < migrationPlan.size(); i++) {
+					Vm vm = migrationPlan.getVm(i);
+					PowerHost targetHost = (PowerHost) migrationPlan.getHost(i);
+					PowerHost oldHost = (PowerHost) vm.getHost();
+
+					if (oldHost == null) {
+						Log.formatLine(
+								"%.2f: Migration of VM #%d to Host #%d is started",
+								CloudSim.clock(),
+								vm.getId(),
+								targetHost.getId());
+					} else {
+						Log.formatLine(
+								"%.2f: Migration of VM #%d from Host #%d to Host #%d is started",
+								CloudSim.clock(),
+								vm.getId(),
+								oldHost.getId(),
+								targetHost.getId());
 					}
+
+					targetHost.addMigratingInVm(vm);
+					incrementMigrationCount();
+
+					/** VM migration delay = RAM / bandwidth + C (C = 10 sec) **/
+					send(
+							getId(),
+							vm.getRam() / ((double) vm.getBw() / 8000) + 10,
+							CloudSimTags.VM_MIGRATE,
+							migrationPlan.getMigrationMap(i));
 				}
 			}
 
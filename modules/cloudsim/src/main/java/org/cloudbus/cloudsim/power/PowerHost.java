@@ -120,6 +120,28 @@ public class PowerHost extends HostDynamicWorkload {
 		return (fromPower + (toPower - fromPower) / 2) * time;
 	}
 
+	/**
+	 * Gets the energy consumption while the utilization changes linearly, integrating the power
+	 * model exactly along the utilization change. Unlike
+	 * {@link #getEnergyLinearInterpolation(double, double, double)}, it does not approximate the
+	 * power by a straight line between the power at both ends, unless the power model is one that
+	 * does not integrate its power.
+	 * 
+	 * @param fromUtilization the initial utilization percentage
+	 * @param toUtilization the final utilization percentage
+	 * @param time the time
+	 * @return the energy
+	 * @throws IllegalArgumentException when a utilization percentage is not between [0 and 1]
+	 * @see PowerModel#getMeanPower(double, double)
+	 */
+	public double getEnergy(double fromUtilization, double toUtilization, double time)
+			throws IllegalArgumentException {
+		if (fromUtilization == 0) {
+			return 0;
+		}
+		return getPowerModel().getMeanPower(fromUtilization, toUtilization) * time;
+	}
+
 	/**
 	 * Sets the power model.
 	 * 
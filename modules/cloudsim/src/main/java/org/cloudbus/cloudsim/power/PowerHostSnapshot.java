@@ -0,0 +1,377 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.power;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.util.MathUtil;
+
+/**
+ * An immutable view of the capacity of a power host (free MIPS, RAM, bandwidth and storage) and of
+ * the VMs placed on it. VM allocation and selection policies use it to evaluate tentative
+ * placements: placing a VM on a snapshot or removing a VM from it gives a new snapshot, and the
+ * host itself is never modified.
+ *
+ * <br/>A snapshot accounts for the resources the way
+ * {@link org.cloudbus.cloudsim.Host#vmCreate(Vm)} and {@link org.cloudbus.cloudsim.Host#vmDestroy(Vm)}
+ * do with the simple RAM and bandwidth provisioners and the time-shared VM schedulers, as long as
+ * the VMs placed fit in the free MIPS of the host: each virtual PE gets the MIPS it requests, capped
+ * to the capacity of a physical PE.
+ *
+ * @since CloudSim Toolkit 4.0
+ */
+public final class PowerHostSnapshot {
+
+	/** The host. */
+	private final PowerHost host;
+
+	/** The VMs placed on the host. */
+	private final List<Vm> vmList;
+
+	/** The MIPS allocated to each VM of {@link #vmList}. */
+	private final double[] allocatedMips;
+
+	/** The RAM allocated to each VM of {@link #vmList}. */
+	private final int[] allocatedRam;
+
+	/** The bandwidth allocated to each VM of {@link #vmList}. */
+	private final long[] allocatedBw;
+
+	/** The free MIPS of the host. */
+	private final double availableMips;
+
+	/** The free RAM of the host. */
+	private final int availableRam;
+
+	/** The free bandwidth of the host. */
+	private final long availableBw;
+
+	/** The free storage of the host. */
+	private final long availableStorage;
+
+	/**
+	 * The CPU utilization percentage history of the host, not trimmed, computed the first time it
+	 * is needed.
+	 */
+	private double[] utilizationHistory;
+
+	/**
+	 * Creates a snapshot of the current state of a host.
+	 *
+	 * @param host the host
+	 */
+	public PowerHostSnapshot(PowerHost host) {
+		this.host = host;
+		vmList = Collections.unmodifiableList(new ArrayList<Vm>(host.getVmList()));
+		int size = vmList.size();
+		allocatedMips = new double[size];
+		allocatedRam = new int[size];
+		allocatedBw = new long[size];
+		for (int i = 0; i < size; i++) {
+			Vm vm = vmList.get(i);
+			allocatedMips[i] = host.getTotalAllocatedMipsForVm(vm);
+			allocatedRam[i] = host.getRamProvisioner().getAllocatedRamForVm(vm);
+			allocatedBw[i] = host.getBwProvisioner().getAllocatedBwForVm(vm);
+		}
+		availableMips = host.getVmScheduler().getAvailableMips();
+		availableRam = host.getRamProvisioner().getAvailableRam();
+		availableBw = host.getBwProvisioner().getAvailableBw();
+		availableStorage = host.getStorage();
+	}
+
+	private PowerHostSnapshot(
+			PowerHost host,
+			List<Vm> vmList,
+			double[] allocatedMips,
+			int[] allocatedRam,
+			long[] allocatedBw,
+			double availableMips,
+			int availableRam,
+			long availableBw,
+			long availableStorage) {
+		this.host = host;
+		this.vmList = Collections.unmodifiableList(vmList);
+		this.allocatedMips = allocatedMips;
+		this.allocatedRam = allocatedRam;
+		this.allocatedBw = allocatedBw;
+		this.availableMips = availableMips;
+		this.availableRam = availableRam;
+		this.availableBw = availableBw;
+		this.availableStorage = availableStorage;
+	}
+
+	/**
+	 * Checks if the host has enough free resources to place a VM, as
+	 * {@link org.cloudbus.cloudsim.Host#isSuitableForVm(Vm)} does.
+	 *
+	 * @param vm the VM
+	 * @return true, if the VM can be placed on the host; false otherwise
+	 */
+	public boolean isSuitableForVm(Vm vm) {
+		return getPeCapacity() >= vm.getCurrentRequestedMaxMips()
+				&& availableMips >= vm.getCurrentRequestedTotalMips()
+				&& availableRam + getAllocatedRamForVm(vm) >= getRequestedRam(vm)
+				&& availableBw + getAllocatedBwForVm(vm) >= vm.getCurrentRequestedBw();
+	}
+
+	/**
+	 * Gets the snapshot of the host after placing a VM on it.
+	 *
+	 * @param vm the VM
+	 * @return the snapshot with the VM placed, or null if the host doesn't have enough resources
+	 */
+	public PowerHostSnapshot withVm(Vm vm) {
+		int index = vmList.lastIndexOf(vm);
+		int ram = getRequestedRam(vm);
+		long bw = vm.getCurrentRequestedBw();
+		int newAvailableRam = availableRam + (index < 0 ? 0 : allocatedRam[index]) - ram;
+		long newAvailableBw = availableBw + (index < 0 ? 0 : allocatedBw[index]) - bw;
+		if (availableStorage < vm.getSize() || newAvailableRam < 0 || newAvailableBw < 0) {
+			return null;
+		}
+
+		String uid = vm.getUid();
+		boolean migratingIn = host.getVmScheduler().getVmsMigratingIn().contains(uid);
+		boolean migratingOut = host.getVmScheduler().getVmsMigratingOut().contains(uid);
+		double peCapacity = getPeCapacity();
+		double requestedMips = 0;
+		double mips = 0;
+		for (double peMips : vm.getCurrentRequestedMips()) {
+			if (peMips > peCapacity) {
+				peMips = peCapacity;
+			}
+			requestedMips += peMips;
+			if (migratingOut) {
+				peMips *= 0.9;
+			} else if (migratingIn) {
+				peMips *= 0.1;
+			}
+			mips += peMips;
+		}
+		if (migratingIn) {
+			requestedMips *= 0.1;
+		}
+		if (availableMips < requestedMips) {
+			return null;
+		}
+
+		int size = vmList.size();
+		List<Vm> newVmList = new ArrayList<Vm>(size + 1);
+		newVmList.addAll(vmList);
+		newVmList.add(vm);
+		double[] newAllocatedMips = Arrays.copyOf(allocatedMips, size + 1);
+		newAllocatedMips[size] = mips;
+		int[] newAllocatedRam = Arrays.copyOf(allocatedRam, size + 1);
+		newAllocatedRam[size] = ram;
+		long[] newAllocatedBw = Arrays.copyOf(allocatedBw, size + 1);
+		newAllocatedBw[size] = bw;
+		PowerHostSnapshot snapshot = new PowerHostSnapshot(host, newVmList, newAllocatedMips, newAllocatedRam,
+				newAllocatedBw, availableMips - requestedMips, newAvailableRam, newAvailableBw, availableStorage
+						- vm.getSize());
+		if (utilizationHistory != null && vm instanceof PowerVm) {
+			// the VM is the last one of the list, so its history is added last as when computed
+			double[] newUtilizationHistory = utilizationHistory.clone();
+			PowerHostUtilizationHistory.addUtilizationHistory(newUtilizationHistory, (PowerVm) vm, getTotalMips());
+			snapshot.utilizationHistory = newUtilizationHistory;
+		}
+		return snapshot;
+	}
+
+	/**
+	 * Gets the snapshot of the host after removing a VM from it.
+	 *
+	 * @param vm the VM
+	 * @return the snapshot without the VM, or this snapshot if the VM is not placed on the host
+	 */
+	public PowerHostSnapshot withoutVm(Vm vm) {
+		int index = vmList.indexOf(vm);
+		if (index < 0) {
+			return this;
+		}
+		List<Vm> newVmList = new ArrayList<Vm>(vmList);
+		newVmList.remove(index);
+		return new PowerHostSnapshot(host, newVmList, remove(allocatedMips, index), remove(allocatedRam, index),
+				remove(allocatedBw, index), availableMips + allocatedMips[index], availableRam
+						+ allocatedRam[index], availableBw + allocatedBw[index], availableStorage + vm.getSize());
+	}
+
+	/**
+	 * Gets the CPU utilization of the host in MIPS, counting the additional potential CPU usage of
+	 * the VMs migrating in.
+	 *
+	 * @return the utilization of the CPU in MIPS
+	 */
+	public double getUtilizationOfCpuMips() {
+		double hostUtilizationMips = 0;
+		for (int i = 0; i < vmList.size(); i++) {
+			if (host.getVmsMigratingIn().contains(vmList.get(i))) {
+				hostUtilizationMips += allocatedMips[i] * 0.9 / 0.1;
+			}
+			hostUtilizationMips += allocatedMips[i];
+		}
+		return hostUtilizationMips;
+	}
+
+	/**
+	 * Gets the CPU utilization percentage history of the host, computed from the VMs placed on it.
+	 *
+	 * @return the host CPU utilization percentage history
+	 */
+	public double[] getUtilizationHistory() {
+		if (utilizationHistory == null) {
+			double[] history = new double[PowerVm.HISTORY_LENGTH];
+			for (PowerVm vm : this.<PowerVm> getVmList()) {
+				PowerHostUtilizationHistory.addUtilizationHistory(history, vm, getTotalMips());
+			}
+			utilizationHistory = history;
+		}
+		return MathUtil.trimZeroTail(utilizationHistory);
+	}
+
+	/**
+	 * Gets the host.
+	 *
+	 * @return the host
+	 */
+	public PowerHost getHost() {
+		return host;
+	}
+
+	/**
+	 * Gets the VMs placed on the host.
+	 *
+	 * @param <T> the generic type
+	 * @return the VM list
+	 */
+	@SuppressWarnings("unchecked")
+	public <T extends Vm> List<T> getVmList() {
+		return (List<T>) vmList;
+	}
+
+	/**
+	 * Gets the total MIPS capacity of the host.
+	 *
+	 * @return the total MIPS
+	 */
+	public double getTotalMips() {
+		return host.getTotalMips();
+	}
+
+	/**
+	 * Gets the MIPS capacity of a PE of the host.
+	 *
+	 * @return the PE capacity
+	 */
+	public double getPeCapacity() {
+		return host.getVmScheduler().getPeCapacity();
+	}
+
+	/**
+	 * Gets the free MIPS of the host.
+	 *
+	 * @return the available MIPS
+	 */
+	public double getAvailableMips() {
+		return availableMips;
+	}
+
+	/**
+	 * Gets the free RAM of the host.
+	 *
+	 * @return the available RAM
+	 */
+	public int getAvailableRam() {
+		return availableRam;
+	}
+
+	/**
+	 * Gets the free bandwidth of the host.
+	 *
+	 * @return the available bandwidth
+	 */
+	public long getAvailableBw() {
+		return availableBw;
+	}
+
+	/**
+	 * Gets the free storage of the host.
+	 *
+	 * @return the available storage
+	 */
+	public long getAvailableStorage() {
+		return availableStorage;
+	}
+
+	/**
+	 * Gets the bandwidth capacity of the host.
+	 *
+	 * @return the bandwidth
+	 */
+	public long getBw() {
+		return host.getBw();
+	}
+
+	/**
+	 * Gets the RAM allocated to a VM on the host.
+	 *
+	 * @param vm the VM
+	 * @return the allocated RAM, or 0 if the VM is not placed on the host
+	 */
+	public int getAllocatedRamForVm(Vm vm) {
+		int index = vmList.lastIndexOf(vm);
+		return index < 0 ? 0 : allocatedRam[index];
+	}
+
+	/**
+	 * Gets the bandwidth allocated to a VM on the host.
+	 *
+	 * @param vm the VM
+	 * @return the allocated bandwidth, or 0 if the VM is not placed on the host
+	 */
+	public long getAllocatedBwForVm(Vm vm) {
+		int index = vmList.lastIndexOf(vm);
+		return index < 0 ? 0 : allocatedBw[index];
+	}
+
+	/**
+	 * Gets the RAM to allocate to a VM, which is never more than the RAM of the VM.
+	 *
+	 * @param vm the VM
+	 * @return the RAM to allocate
+	 */
+	private static int getRequestedRam(Vm vm) {
+		return Math.min(vm.getCurrentRequestedRam(), vm.getRam());
+	}
+
+	private static double[] remove(double[] array, int index) {
+		double[] result = new double[array.length - 1];
+		System.arraycopy(array, 0, result, 0, index);
+		System.arraycopy(array, index + 1, result, index, result.length - index);
+		return result;
+	}
+
+	private static int[] remove(int[] array, int index) {
+		int[] result = new int[array.length - 1];
+		System.arraycopy(array, 0, result, 0, index);
+		System.arraycopy(array, index + 1, result, index, result.length - index);
+		return result;
+	}
+
+	private static long[] remove(long[] array, int index) {
+		long[] result = new long[array.length - 1];
+		System.arraycopy(array, 0, result, 0, index);
+		System.arraycopy(array, index + 1, result, index, result.length - index);
+		return result;
+	}
+
+}
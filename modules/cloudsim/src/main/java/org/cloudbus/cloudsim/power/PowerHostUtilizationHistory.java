@@ -15,6 +15,7 @@ import org.cloudbus.cloudsim.VmScheduler;
 import org.cloudbus.cloudsim.power.models.PowerModel;
 import org.cloudbus.cloudsim.provisioners.BwProvisioner;
 import org.cloudbus.cloudsim.provisioners.RamProvisioner;
+import org.cloudbus.cloudsim.util.DoubleRingBuffer;
 import org.cloudbus.cloudsim.util.MathUtil;
 
 /**
@@ -64,14 +65,36 @@ public class PowerHostUtilizationHistory extends PowerHost {
 	 * @return the host CPU utilization percentage history
 	 */
 	protected double[] getUtilizationHistory() {
+		return getUtilizationHistory(this.<PowerVm> getVmList(), getTotalMips());
+	}
+
+	/**
+	 * Gets the CPU utilization percentage history of a host running a given list of VMs.
+	 * 
+	 * @param vmList the VMs running on the host
+	 * @param hostMips the total MIPS of the host
+	 * @return the host CPU utilization percentage history
+	 */
+	protected static double[] getUtilizationHistory(List<? extends PowerVm> vmList, double hostMips) {
 		double[] utilizationHistory = new double[PowerVm.HISTORY_LENGTH];
-		double hostMips = getTotalMips();
-		for (PowerVm vm : this.<PowerVm> getVmList()) {
-			for (int i = 0; i < vm.getUtilizationHistory().size(); i++) {
-				utilizationHistory[i] += vm.getUtilizationHistory().get(i) * vm.getMips() / hostMips;
-			}
+		for (PowerVm vm : vmList) {
+			addUtilizationHistory(utilizationHistory, vm, hostMips);
 		}
 		return MathUtil.trimZeroTail(utilizationHistory);
 	}
 
+	/**
+	 * Adds the CPU utilization percentage history of a VM to the history of its host.
+	 * 
+	 * @param utilizationHistory the host CPU utilization percentage history, not trimmed
+	 * @param vm the VM
+	 * @param hostMips the total MIPS of the host
+	 */
+	static void addUtilizationHistory(double[] utilizationHistory, PowerVm vm, double hostMips) {
+		DoubleRingBuffer vmUtilizationHistory = vm.getUtilizationHistory();
+		for (int i = 0; i < vmUtilizationHistory.size(); i++) {
+			utilizationHistory[i] += vmUtilizationHistory.get(i) * vm.getMips() / hostMips;
+		}
+	}
+
 }
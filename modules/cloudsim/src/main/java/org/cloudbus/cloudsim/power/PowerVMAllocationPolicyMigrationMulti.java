@@ -12,6 +12,8 @@ public class PowerVMAllocationPolicyMigrationMulti extends PowerVmAllocationPoli
 
     protected double energyMax; //DC最大可容忍能耗
 
+    private static final double ENERGY_TIME_FRAME = 300; //估算数据中心能耗的时间段，300秒
+
     private PowerVmAllocationPolicyMigrationAbstract fallbackVmAllocationPolicy;
 
     public PowerVMAllocationPolicyMigrationMulti(
@@ -24,19 +26,27 @@ public class PowerVMAllocationPolicyMigrationMulti extends PowerVmAllocationPoli
         setFallbackVmAllocationPolicy(fallbackVmAllocationPolicy);
     }
 
+    /**
+     * Updates the dynamic over-utilization threshold once per optimization round, from the energy
+     * the datacenter consumed in the last time frame, then optimizes the allocation.
+     */
+    @Override
+    public MigrationPlan<Vm, PowerHost> planMigrations(List<? extends Vm> vmList) {
+        updateHigherUtilizationThreshold(); //每轮优化只更新一次动态阈值
+        return super.planMigrations(vmList);
+    }
+
     //超载主机判断
     @Override
-    protected boolean isHostOverUtilized(PowerHost host) {
+    protected boolean isHostOverUtilized(PowerHostSnapshot host) {
         int count = 0;
-        PowerHostUtilizationHistory _host = (PowerHostUtilizationHistory) host; //获取历史负载
-        double[] utilizationHistory = _host.getUtilizationHistory();
+        double[] utilizationHistory = host.getUtilizationHistory(); //获取历史负载
         int length = 10;
 
         if (utilizationHistory.length < length) { //历史负载长度小于10，直接判断，不采用防抖动防误触处理
             return getFallbackVmAllocationPolicy().isHostOverUtilized(host);
         }
 
-        updateHigherUtilizationThreshold(); //动态更新阈值
         for (int i = 0; i < length; i++) {
             if (utilizationHistory[length - i - 1] > getHigherUtilizationThreshold())
                 //获取主机最新的10个负载记录
@@ -49,86 +59,68 @@ public class PowerVMAllocationPolicyMigrationMulti extends PowerVmAllocationPoli
     }
 
     public PowerHost findHostForVm2(Vm vm, Set<? extends Host> excludedHosts) {
-        double minPower = Double.MAX_VALUE;
-        PowerHost allocatedHost = null;
-
-        for (PowerHost host : this.<PowerHost> getHostList()) {
-            if (excludedHosts.contains(host)) { //排除超载主机
-                continue;
-            }
-            if (host.isSuitableForVm(vm)) { //满足资源约束
-                if (getUtilizationOfCpuMips(host) != 0 && isHostOverUtilizedAfterAllocation(host, vm)) {
-                    //if 主机为开机状态 且迁入虚拟机后会超载  then 跳过该主机
-                    continue;
-                }
-                try {
-                    //主要目标：选择一个能耗变化最小的host
-                    double powerAfterAllocation = getPowerAfterAllocation(host, vm);//并未将虚拟机实际分配给主机进行的能耗计算
-                    if (powerAfterAllocation != -1) {
-                        double powerDiff = powerAfterAllocation - host.getPower();
-//                        if (powerDiff < minPower) { //只测试算法一
-                        if ((powerDiff < minPower) && utilization(host) ) { //测试算法一、算法三的综合效果
-                                minPower = powerDiff;
-                                allocatedHost = host;
-                        }
-                    }
-                } catch (Exception e) {
-                }
-            }
-        }
-        return allocatedHost;
+        //主要目标：选择一个能耗变化最小的host，且只选择负载适中的主机
+        return findHostForVm(vm, excludedHosts, this::utilization);
     }
 
     protected  boolean utilization (PowerHost host) {
         double totalRequestedMips = 0;
-        for (Vm vm : host.getVmList()) {
+        for (Vm vm : getSnapshot(host).getVmList()) {
             totalRequestedMips += vm.getCurrentRequestedTotalMips();
         }
         double utilization = totalRequestedMips / host.getTotalMips();
         return utilization < 0.7 && utilization > 0.5;
     }
 
-    protected List<Map<String, Object>> getNewVmPlacement(
+    protected MigrationPlan<Vm, PowerHost> getNewVmPlacement(
             List<? extends Vm> vmsToMigrate,
             Set<? extends Host> excludedHosts) {
-        List<Map<String, Object>> migrationMap = new LinkedList<Map<String, Object>>();
+        MigrationPlan<Vm, PowerHost> migrationPlan = new MigrationPlan<Vm, PowerHost>();
         PowerVmList.sortByCpuUtilization(vmsToMigrate);
         for (Vm vm : vmsToMigrate) {
             PowerHost allocatedHost = findHostForVm2(vm, excludedHosts);
             if (allocatedHost != null) {
-                allocatedHost.vmCreate(vm); //在主机上创建虚拟机
+                planVmCreate(allocatedHost, vm); //在主机快照上放置虚拟机
                 Log.printConcatLine("VM #", vm.getId(), " allocated to host #", allocatedHost.getId());
 
-                Map<String, Object> migrate = new HashMap<String, Object>();
-                migrate.put("vm", vm);
-                migrate.put("host", allocatedHost);
-                migrationMap.add(migrate);
+                migrationPlan.add(vm, allocatedHost);
             }
         }
-        return migrationMap;
+        return migrationPlan;
     }
 
-    //获得低载主机
-    protected PowerHost getUnderUtilizedHost(Set<? extends Host> excludedHosts) {
-        for (PowerHost host : this.<PowerHost> getHostList()) {
-            if (excludedHosts.contains(host)) {
-                continue;
-            }
-            double utilization = host.getUtilizationOfCpu();
-            if (utilization > 0 && utilization <= getLowerUtilizationThreshold())
-                return host;
+    //获得低载主机：主机列表中第一个负载不超过低载阈值的主机
+    @Override
+    protected double getUnderUtilizationKey(PowerHost host) {
+        double utilization = host.getUtilizationOfCpu();
+        if (utilization > 0 && utilization <= getLowerUtilizationThreshold()) {
+            return 0;
         }
-        return null;
+        return Double.NaN;
+    }
+
+    @Override
+    protected boolean isUnderUtilizedHostCandidate(PowerHost host) {
+        return true;
     }
 
-    //获得当前时刻的数据中心能耗
+    /**
+     * Gets the energy the datacenter consumes in a time frame of 300 seconds. It is estimated from
+     * the energy {@link PowerDatacenter} accumulated over its last time frame, or computed from the
+     * utilization of the hosts if they don't belong to a power datacenter that processed one yet.
+     */
     protected double getEnergy() {
+        PowerDatacenter datacenter = getDatacenter();
+        if (datacenter != null && datacenter.getTimeFrameLength() > 0) {
+            return datacenter.getTimeFramePower() * ENERGY_TIME_FRAME;
+        }
+
         double DatacenterEnergy = 0;
-        double timeDiff = 300; //300秒
+        double timeDiff = ENERGY_TIME_FRAME;
         for (PowerHost host : this.<PowerHost> getHostList()) {
             double previousUtilizationOfCpu = host.getPreviousUtilizationOfCpu(); //5分钟前物理机CPU利用率
             double utilizationOfCpu = host.getUtilizationOfCpu(); //当前时刻物理机CPU利用率
-            double HostEnergy = host.getEnergyLinearInterpolation( //物理机能耗，通过线性插值获得
+            double HostEnergy = host.getEnergy( //物理机能耗，沿利用率变化精确积分获得
                     previousUtilizationOfCpu,
                     utilizationOfCpu,
                     timeDiff);
@@ -137,6 +129,18 @@ public class PowerVMAllocationPolicyMigrationMulti extends PowerVmAllocationPoli
         return DatacenterEnergy;
     }
 
+    //获得主机所在的数据中心
+    protected PowerDatacenter getDatacenter() {
+        if (getHostList().isEmpty()) {
+            return null;
+        }
+        Datacenter datacenter = getHostList().get(0).getDatacenter();
+        if (datacenter instanceof PowerDatacenter) {
+            return (PowerDatacenter) datacenter;
+        }
+        return null;
+    }
+
     protected void updateHigherUtilizationThreshold() { //能耗感知的动态超载阈值
         double energy = getEnergy() / (3600 * 1000); //kWh
         if (energy < 0.5 * getEnergyMax()) { //理想低能耗状态时
@@ -8,13 +8,16 @@
 
 package org.cloudbus.cloudsim.power;
 
-import java.util.LinkedList;
+import java.io.IOException;
 import java.util.List;
 
 import org.cloudbus.cloudsim.CloudletScheduler;
 import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.core.CheckpointInput;
+import org.cloudbus.cloudsim.core.CheckpointOutput;
 import org.cloudbus.cloudsim.core.CloudSim;
-import org.cloudbus.cloudsim.util.MathUtil;
+import org.cloudbus.cloudsim.util.DoubleRingBuffer;
+import org.cloudbus.cloudsim.util.WindowStatistics;
 
 /**
  * A class of VM that stores its CPU utilization percentage history. The history is used by VM allocation
@@ -39,7 +42,7 @@ public class PowerVm extends Vm {
 	public static final int HISTORY_LENGTH = 30;
 
 	/** The CPU utilization percentage history. */
-	private final List<Double> utilizationHistory = new LinkedList<Double>();
+	private final DoubleRingBuffer utilizationHistory = new DoubleRingBuffer(HISTORY_LENGTH);
 
 	/** The previous time that cloudlets were processed. */
 	private double previousTime;
@@ -100,16 +103,7 @@ public class PowerVm extends Vm {
 	public double getUtilizationMad() {
 		double mad = 0;
 		if (!getUtilizationHistory().isEmpty()) {
-			int n = HISTORY_LENGTH;
-			if (HISTORY_LENGTH > getUtilizationHistory().size()) {
-				n = getUtilizationHistory().size();
-			}
-			double median = MathUtil.median(getUtilizationHistory());
-			double[] deviationSum = new double[n];
-			for (int i = 0; i < n; i++) {
-				deviationSum[i] = Math.abs(median - getUtilizationHistory().get(i));
-			}
-			mad = MathUtil.median(deviationSum);
+			mad = WindowStatistics.forCurrentThread().mad(getUtilizationHistory().toArray());
 		}
 		return mad;
 	}
@@ -120,18 +114,7 @@ public class PowerVm extends Vm {
 	 * @return the utilization mean in MIPS
 	 */
 	public double getUtilizationMean() {
-		double mean = 0;
-		if (!getUtilizationHistory().isEmpty()) {
-			int n = HISTORY_LENGTH;
-			if (HISTORY_LENGTH > getUtilizationHistory().size()) {
-				n = getUtilizationHistory().size();
-			}
-			for (int i = 0; i < n; i++) {
-				mean += getUtilizationHistory().get(i);
-			}
-			mean /= n;
-		}
-		return mean * getMips();
+		return getUtilizationHistory().getMean() * getMips();
 	}
 
 	/**
@@ -140,20 +123,7 @@ public class PowerVm extends Vm {
 	 * @return the utilization variance in MIPS
 	 */
 	public double getUtilizationVariance() {
-		double mean = getUtilizationMean();
-		double variance = 0;
-		if (!getUtilizationHistory().isEmpty()) {
-			int n = HISTORY_LENGTH;
-			if (HISTORY_LENGTH > getUtilizationHistory().size()) {
-				n = getUtilizationHistory().size();
-			}
-			for (int i = 0; i < n; i++) {
-				double tmp = getUtilizationHistory().get(i) * getMips() - mean;
-				variance += tmp * tmp;
-			}
-			variance /= n;
-		}
-		return variance;
+		return getUtilizationHistory().getVariance() * getMips() * getMips();
 	}
 
 	/**
@@ -162,18 +132,15 @@ public class PowerVm extends Vm {
 	 * @param utilization the CPU utilization percentage to add
 	 */
 	public void addUtilizationHistoryValue(final double utilization) {
-		getUtilizationHistory().add(0, utilization);
-		if (getUtilizationHistory().size() > HISTORY_LENGTH) {
-			getUtilizationHistory().remove(HISTORY_LENGTH);
-		}
+		getUtilizationHistory().add(utilization);
 	}
 
 	/**
-	 * Gets the CPU utilization percentage history.
+	 * Gets the CPU utilization percentage history, the latest value first.
 	 * 
 	 * @return the CPU utilization percentage history
 	 */
-	protected List<Double> getUtilizationHistory() {
+	protected DoubleRingBuffer getUtilizationHistory() {
 		return utilizationHistory;
 	}
 
@@ -213,4 +180,20 @@ public class PowerVm extends Vm {
 		this.schedulingInterval = schedulingInterval;
 	}
 
+	@Override
+	public void saveState(CheckpointOutput out) throws IOException {
+		super.saveState(out);
+		getUtilizationHistory().writeState(out);
+		out.writeDouble(getPreviousTime());
+		out.writeDouble(getSchedulingInterval());
+	}
+
+	@Override
+	public void restoreState(CheckpointInput in) throws IOException {
+		super.restoreState(in);
+		getUtilizationHistory().readState(in);
+		setPreviousTime(in.readDouble());
+		setSchedulingInterval(in.readDouble());
+	}
+
 }
@@ -8,6 +8,7 @@
 
 package org.cloudbus.cloudsim.power;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -16,6 +17,8 @@ import org.cloudbus.cloudsim.Host;
 import org.cloudbus.cloudsim.Log;
 import org.cloudbus.cloudsim.Vm;
 import org.cloudbus.cloudsim.VmAllocationPolicy;
+import org.cloudbus.cloudsim.core.CheckpointInput;
+import org.cloudbus.cloudsim.core.CheckpointOutput;
 import org.cloudbus.cloudsim.core.CloudSim;
 
 /**
@@ -106,6 +109,16 @@ public abstract class PowerVmAllocationPolicyAbstract extends VmAllocationPolicy
 		return getVmTable().get(Vm.getUid(userId, vmId));
 	}
 
+	@Override
+	public void saveState(CheckpointOutput out) throws IOException {
+		saveVmTable(getVmTable(), out);
+	}
+
+	@Override
+	public void restoreState(CheckpointInput in) throws IOException {
+		restoreVmTable(getVmTable(), in);
+	}
+
 	/**
 	 * Gets the vm table.
 	 * 
@@ -8,19 +8,30 @@
 
 package org.cloudbus.cloudsim.power;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+import java.util.function.Predicate;
 
 import org.cloudbus.cloudsim.Host;
 import org.cloudbus.cloudsim.HostDynamicWorkload;
 import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.MigrationPlan;
 import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.core.CheckpointInput;
+import org.cloudbus.cloudsim.core.CheckpointOutput;
 import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.SimulationContext;
 import org.cloudbus.cloudsim.power.lists.PowerVmList;
 import org.cloudbus.cloudsim.util.ExecutionTimeMeasurer;
 
@@ -46,12 +57,17 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract extends PowerVmAl
 	/** The vm selection policy. */
 	private PowerVmSelectionPolicy vmSelectionPolicy;
 
-	/** A list of maps between a VM and the host where it is place.
-         * @todo This list of map is implemented in the worst way.
-         * It should be used just a Map<Vm, Host> to find out 
-         * what PM is hosting a given VM.
+	/** The snapshots of the hosts while the new VM placement is planned, with the tentative
+         * placements made so far, or null if no placement is being planned.
+         * @see #planMigrations(java.util.List)
          */
-	private final List<Map<String, Object>> savedAllocation = new ArrayList<Map<String, Object>>();
+	private Map<Host, PowerHostSnapshot> plannedHosts;
+
+	/** The pool the over-utilized hosts are detected and the VMs to migrate from them are
+         * selected in, or null to do it in the simulation thread.
+         * @see #setParallelDetection(java.util.concurrent.ForkJoinPool)
+         */
+	private ForkJoinPool detectionPool;
 
 	/** A map of CPU utilization history (in percentage) for each host,
          where each key is a host id and each value is the CPU utilization percentage history.*/
@@ -72,28 +88,34 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract extends PowerVmAl
 
 	/** The history of time spent in VM selection 
          * every time the optimization of VM allocation method is called. 
-         * @see #optimizeAllocation(java.util.List) 
+         * @see #planMigrations(java.util.List) 
          */
 	private final List<Double> executionTimeHistoryVmSelection = new LinkedList<Double>();
 
 	/** The history of time spent in host selection 
          * every time the optimization of VM allocation method is called. 
-         * @see #optimizeAllocation(java.util.List) 
+         * @see #planMigrations(java.util.List) 
          */
 	private final List<Double> executionTimeHistoryHostSelection = new LinkedList<Double>();
 
 	/** The history of time spent in VM reallocation 
          * every time the optimization of VM allocation method is called. 
-         * @see #optimizeAllocation(java.util.List) 
+         * @see #planMigrations(java.util.List) 
          */
 	private final List<Double> executionTimeHistoryVmReallocation = new LinkedList<Double>();
 
 	/** The history of total time spent in every call of the 
          * optimization of VM allocation method. 
-         * @see #optimizeAllocation(java.util.List) 
+         * @see #planMigrations(java.util.List) 
          */
 	private final List<Double> executionTimeHistoryTotal = new LinkedList<Double>();
 
+	/** The history of the number of hosts examined to find the under-utilized hosts
+         * every time the optimization of VM allocation method is called. 
+         * @see #getMigrationMapFromUnderUtilizedHosts(java.util.List) 
+         */
+	private final List<Integer> underUtilizedHostsExaminedHistory = new LinkedList<Integer>();
+
 	/**
 	 * Instantiates a new PowerVmAllocationPolicyMigrationAbstract.
 	 * 
@@ -109,54 +131,79 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract extends PowerVmAl
 
 	/**
 	 * Optimize allocation of the VMs according to current utilization.
-	 * 该函数中没有实际迁移VM，没有修改全局的savedAllocation，最终该函数返回迁移列表migrationMap
+	 * 
 	 * @param vmList the vm list
 	 * 
-	 * @return the array list< hash map< string, object>>
+	 * @return the migration map
+	 * @see #planMigrations(List)
 	 */
 	@Override
 	public List<Map<String, Object>> optimizeAllocation(List<? extends Vm> vmList) {
-		ExecutionTimeMeasurer.start("optimizeAllocationTotal");
-
-		ExecutionTimeMeasurer.start("optimizeAllocationHostSelection");
-		List<PowerHostUtilizationHistory> overUtilizedHosts = getOverUtilizedHosts();
-		getExecutionTimeHistoryHostSelection().add(
-				ExecutionTimeMeasurer.end("optimizeAllocationHostSelection"));
-
-		printOverUtilizedHosts(overUtilizedHosts);
-
-		saveAllocation(); //更新分配
-
-		ExecutionTimeMeasurer.start("optimizeAllocationVmSelection");
-		List<? extends Vm> vmsToMigrate = getVmsToMigrateFromHosts(overUtilizedHosts); //选择迁出虚拟机
-		getExecutionTimeHistoryVmSelection().add(ExecutionTimeMeasurer.end("optimizeAllocationVmSelection"));
+		return planMigrations(vmList).toMigrationMap();
+	}
 
-		Log.printLine("Reallocation of VMs from the over-utilized hosts:");
-		ExecutionTimeMeasurer.start("optimizeAllocationVmReallocation");
-		List<Map<String, Object>> migrationMap = getNewVmPlacement(vmsToMigrate, new HashSet<Host>(
-				overUtilizedHosts)); //完成实际分配（即完成在主机上创建虚拟机），返回主机虚拟机映射列表
-		getExecutionTimeHistoryVmReallocation().add(
-				ExecutionTimeMeasurer.end("optimizeAllocationVmReallocation"));
-		Log.printLine();
+	/**
+	 * Optimize allocation of the VMs according to current utilization.
+	 * 该函数中没有实际迁移VM，所有的放置都是在主机快照上进行的，最终该函数返回迁移计划migrationPlan
+	 * 
+	 * <br/>The new placement is planned on snapshots of the hosts, so that the hosts are not
+	 * modified: only the returned migration plan is carried out by the datacenter.
+	 * 
+	 * @param vmList the vm list
+	 * 
+	 * @return the migrations
+	 */
+	@Override
+	public MigrationPlan<Vm, PowerHost> planMigrations(List<? extends Vm> vmList) {
+		ExecutionTimeMeasurer.start("optimizeAllocationTotal");
 
-		migrationMap.addAll(getMigrationMapFromUnderUtilizedHosts(overUtilizedHosts));//完成低载主机的迁移
+		plannedHosts = new HashMap<Host, PowerHostSnapshot>(); //开始在主机快照上规划
+		MigrationPlan<Vm, PowerHost> migrationPlan;
+		try {
+			ExecutionTimeMeasurer.start("optimizeAllocationHostSelection");
+			List<PowerHostUtilizationHistory> overUtilizedHosts = getOverUtilizedHosts();
+			getExecutionTimeHistoryHostSelection().add(
+					ExecutionTimeMeasurer.end("optimizeAllocationHostSelection"));
+
+			printOverUtilizedHosts(overUtilizedHosts);
+
+			ExecutionTimeMeasurer.start("optimizeAllocationVmSelection");
+			List<? extends Vm> vmsToMigrate = getVmsToMigrateFromHosts(overUtilizedHosts); //选择迁出虚拟机
+			getExecutionTimeHistoryVmSelection().add(ExecutionTimeMeasurer.end("optimizeAllocationVmSelection"));
+
+			Log.printLine("Reallocation of VMs from the over-utilized hosts:");
+			ExecutionTimeMeasurer.start("optimizeAllocationVmReallocation");
+			migrationPlan = getNewVmPlacement(vmsToMigrate, new HashSet<Host>(
+					overUtilizedHosts)); //完成规划分配（即在主机快照上放置虚拟机），返回迁移计划
+			getExecutionTimeHistoryVmReallocation().add(
+					ExecutionTimeMeasurer.end("optimizeAllocationVmReallocation"));
+			Log.printLine();
 
-		restoreAllocation(); //恢复分配
+			migrationPlan.addAll(getMigrationMapFromUnderUtilizedHosts(overUtilizedHosts));//完成低载主机的迁移
+		} finally {
+			plannedHosts = null; //丢弃主机快照
+		}
 
 		getExecutionTimeHistoryTotal().add(ExecutionTimeMeasurer.end("optimizeAllocationTotal"));
 
-		return migrationMap;
+		return migrationPlan;
 	}
 
 	/**
 	 * Gets the migration map from under utilized hosts.
 	 * 
+	 * <br/>The under-utilized hosts are taken from a heap of the candidate hosts built once per
+	 * round, by {@link #getUnderUtilizationKey(PowerHost)}. The keys are read from the hosts,
+	 * not from their snapshots, so they don't change while VMs are placed; a host is dropped
+	 * from the heap once it is excluded or found not to be a candidate. The hosts are chosen in
+	 * the same order as by repeated calls of {@link #getUnderUtilizedHost(Set)}.
+	 * 
 	 * @param overUtilizedHosts the over utilized hosts
-	 * @return the migration map from under utilized hosts
+	 * @return the migrations from under utilized hosts
 	 */
-	protected List<Map<String, Object>> getMigrationMapFromUnderUtilizedHosts(
+	protected MigrationPlan<Vm, PowerHost> getMigrationMapFromUnderUtilizedHosts(
 			List<PowerHostUtilizationHistory> overUtilizedHosts) {
-		List<Map<String, Object>> migrationMap = new LinkedList<Map<String, Object>>();
+		MigrationPlan<Vm, PowerHost> migrationPlan = new MigrationPlan<Vm, PowerHost>();
 		List<PowerHost> switchedOffHosts = getSwitchedOffHosts(); //获取被关闭的主机
 
 		// over-utilized hosts + hosts that are selected to migrate VMs to from over-utilized hosts
@@ -164,7 +211,7 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract extends PowerVmAl
 		Set<PowerHost> excludedHostsForFindingUnderUtilizedHost = new HashSet<PowerHost>(); //不可迁出集合
 		excludedHostsForFindingUnderUtilizedHost.addAll(overUtilizedHosts); //低载主机排除超载主机
 		excludedHostsForFindingUnderUtilizedHost.addAll(switchedOffHosts); //低载主机排除关闭主机
-		excludedHostsForFindingUnderUtilizedHost.addAll(extractHostListFromMigrationMap(migrationMap));
+		excludedHostsForFindingUnderUtilizedHost.addAll(migrationPlan.getHosts());
 		                                                    //低载主机排除超载迁移目的地主机
 
 		// over-utilized + under-utilized hosts 低载迁移目的主机，排除超载主机和关闭状态主机
@@ -173,13 +220,17 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract extends PowerVmAl
 		excludedHostsForFindingNewVmPlacement.addAll(switchedOffHosts);
 
 		int numberOfHosts = getHostList().size();
+		PriorityQueue<UnderUtilizedHostCandidate> candidates = getUnderUtilizedHostCandidates(
+				excludedHostsForFindingUnderUtilizedHost); //按负载建立候选低载主机的最小堆
+		int numberOfCandidates = candidates.size();
 
 		while (true) {//这里永真循环的方式与超载处理的不同，所以低载主机判断返回方式，以及低载主机的寻找方式都跟超载主机有所区别
 			if (numberOfHosts == excludedHostsForFindingUnderUtilizedHost.size()) {
 				break;
 			}
 
-			PowerHost underUtilizedHost = getUnderUtilizedHost(excludedHostsForFindingUnderUtilizedHost);
+			PowerHost underUtilizedHost = pollUnderUtilizedHost(candidates,
+					excludedHostsForFindingUnderUtilizedHost);
 			if (underUtilizedHost == null) {
 				break;
 			}
@@ -203,17 +254,18 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract extends PowerVmAl
 			}
 			Log.printLine();
 
-			List<Map<String, Object>> newVmPlacement = getNewVmPlacementFromUnderUtilizedHost(
+			MigrationPlan<Vm, PowerHost> newVmPlacement = getNewVmPlacementFromUnderUtilizedHost(
 					vmsToMigrateFromUnderUtilizedHost,
 					excludedHostsForFindingNewVmPlacement); //这里也是用的初始化放置算法，后面需要修改成自定义算法
 
-			excludedHostsForFindingUnderUtilizedHost.addAll(extractHostListFromMigrationMap(newVmPlacement));
+			excludedHostsForFindingUnderUtilizedHost.addAll(newVmPlacement.getHosts());
 
-			migrationMap.addAll(newVmPlacement);
+			migrationPlan.addAll(newVmPlacement);
 			Log.printLine();
 		}
 
-		return migrationMap;
+		getUnderUtilizedHostsExaminedHistory().add(numberOfHosts + numberOfCandidates - candidates.size());
+		return migrationPlan;
 	}
 
 	/**
@@ -242,32 +294,97 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract extends PowerVmAl
 	 * @return the host found to host the VM
 	 */
 	public PowerHost findHostForVm(Vm vm, Set<? extends Host> excludedHosts) {
-		double minPower = Double.MAX_VALUE;
-		PowerHost allocatedHost = null;
+		return findHostForVm(vm, excludedHosts, null);
+	}
 
+	/**
+	 * Finds a PM that has enough resources to host a given VM, that will not be overloaded
+	 * after placing the VM on it and that is accepted by a filter. The selected host will be
+	 * that one with most efficient power usage for the given VM, the first one in the host list
+	 * when several hosts have the same power increase.
+	 * 
+	 * <br/>Checking if a host will be overloaded is far more expensive than computing its power
+	 * increase. The hosts having enough resources are
+	 * then ranked by power increase first, and only checked in that order until one of them
+	 * will not be overloaded. The host found is the same as checking every host, as long as
+	 * {@link #isHostOverUtilized(PowerHostSnapshot)} has no side effect on the decisions.
+	 * 
+	 * @param vm the VM
+	 * @param excludedHosts the excluded hosts
+	 * @param filter the filter the host has to be accepted by, or null to accept any host
+	 * @return the host found to host the VM
+	 */
+	protected PowerHost findHostForVm(Vm vm, Set<? extends Host> excludedHosts, Predicate<PowerHost> filter) {
+		List<HostCandidate> candidates = new ArrayList<HostCandidate>();
 		for (PowerHost host : this.<PowerHost> getHostList()) {
-			if (excludedHosts.contains(host)) {
+			if (excludedHosts.contains(host) || !getSnapshot(host).isSuitableForVm(vm)) {
+				continue;
+			}
+			if (filter != null && !filter.test(host)) {
 				continue;
 			}
-			if (host.isSuitableForVm(vm)) {
-				if (getUtilizationOfCpuMips(host) != 0 && isHostOverUtilizedAfterAllocation(host, vm)) {
+			boolean active = getUtilizationOfCpuMips(host) != 0;
+			if (active && getMaxUtilizationAfterAllocation(host, vm) > 1) {
+				// the power model may not accept the utilization, so it is only computed if the
+				// host will not be overloaded
+				if (isHostOverUtilizedAfterAllocation(host, vm)) {
 					continue;
 				}
-
-				try {
-					double powerAfterAllocation = getPowerAfterAllocation(host, vm);
-					if (powerAfterAllocation != -1) {
-						double powerDiff = powerAfterAllocation - host.getPower();
-						if (powerDiff < minPower) {
-							minPower = powerDiff;
-							allocatedHost = host;
-						}
+				active = false;
+			}
+			try {
+				double powerAfterAllocation = getPowerAfterAllocation(host, vm);
+				if (powerAfterAllocation != -1) {
+					double powerDiff = powerAfterAllocation - host.getPower();
+					if (powerDiff < Double.MAX_VALUE) {
+						candidates.add(new HostCandidate(host, candidates.size(), powerDiff, active));
 					}
-				} catch (Exception e) {
 				}
+			} catch (Exception e) {
+			}
+		}
+
+		Collections.sort(candidates);
+		for (HostCandidate candidate : candidates) {
+			if (!candidate.active || !isHostOverUtilizedAfterAllocation(candidate.host, vm)) {
+				return candidate.host;
 			}
 		}
-		return allocatedHost;
+		return null;
+	}
+
+	/**
+	 * A host that can be selected to place a VM, ranked by the power increase of placing the VM
+	 * on it and then by its position in the host list.
+	 */
+	private static final class HostCandidate implements Comparable<HostCandidate> {
+
+		/** The host. */
+		private final PowerHost host;
+
+		/** The position of the host among the candidates, following the host list. */
+		private final int index;
+
+		/** The power increase of placing the VM on the host. */
+		private final double powerDiff;
+
+		/** Whether the host has to be checked not to be overloaded after placing the VM. */
+		private final boolean active;
+
+		HostCandidate(PowerHost host, int index, double powerDiff, boolean active) {
+			this.host = host;
+			this.index = index;
+			this.powerDiff = powerDiff;
+			this.active = active;
+		}
+
+		@Override
+		public int compareTo(HostCandidate other) {
+			if (powerDiff != other.powerDiff) {
+				return powerDiff < other.powerDiff ? -1 : 1;
+			}
+			return index - other.index;
+		}
 	}
 
 	/**
@@ -278,35 +395,92 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract extends PowerVmAl
 	 * @return true, if the host will be over utilized after VM placement; false otherwise
 	 */
 	protected boolean isHostOverUtilizedAfterAllocation(PowerHost host, Vm vm) {
-		boolean isHostOverUtilizedAfterAllocation = true;
-		if (host.vmCreate(vm)) {
-			isHostOverUtilizedAfterAllocation = isHostOverUtilized(host);
-			host.vmDestroy(vm);
+		PowerHostSnapshot snapshot = getSnapshot(host).withVm(vm);
+		return snapshot == null || isHostOverUtilized(snapshot);
+	}
+
+	/**
+	 * Gets the snapshot of a host. While the new VM placement is planned, it includes the
+	 * tentative placements made so far on the host.
+	 * 
+	 * @param host the host
+	 * @return the snapshot of the host
+	 */
+	protected PowerHostSnapshot getSnapshot(PowerHost host) {
+		if (plannedHosts == null) {
+			return new PowerHostSnapshot(host);
 		}
-		return isHostOverUtilizedAfterAllocation;
+		PowerHostSnapshot snapshot = plannedHosts.get(host);
+		if (snapshot == null) {
+			snapshot = new PowerHostSnapshot(host);
+			plannedHosts.put(host, snapshot);
+		}
+		return snapshot;
 	}
 
-	@Override
-	public PowerHost findHostForVm(Vm vm) {
-		Set<Host> excludedHosts = new HashSet<Host>();
-		if (vm.getHost() != null) {
-			excludedHosts.add(vm.getHost());
+	/**
+	 * Tentatively places a VM on a host while the new VM placement is planned. The host itself is
+	 * not modified.
+	 * 
+	 * @param host the host
+	 * @param vm the VM
+	 * @return true, if the host has enough resources for the VM; false otherwise
+	 */
+	protected boolean planVmCreate(PowerHost host, Vm vm) {
+		PowerHostSnapshot snapshot = getPlannedSnapshot(host).withVm(vm);
+		if (snapshot == null) {
+			return false;
 		}
-		return findHostForVm(vm, excludedHosts);
+		setPlannedSnapshot(host, snapshot);
+		return true;
 	}
 
 	/**
-	 * Extracts the host list from a migration map.
+	 * Tentatively removes a VM from a host while the new VM placement is planned. The host itself
+	 * is not modified.
 	 * 
-	 * @param migrationMap the migration map
-	 * @return the list
+	 * @param host the host
+	 * @param vm the VM
+	 */
+	protected void planVmDestroy(PowerHost host, Vm vm) {
+		setPlannedSnapshot(host, getPlannedSnapshot(host).withoutVm(vm));
+	}
+
+	/**
+	 * Gets the snapshot of a host while the new VM placement is planned.
+	 * 
+	 * @param host the host
+	 * @return the snapshot of the host
+	 * @throws IllegalStateException if no placement is being planned
 	 */
-	protected List<PowerHost> extractHostListFromMigrationMap(List<Map<String, Object>> migrationMap) {
-		List<PowerHost> hosts = new LinkedList<PowerHost>();
-		for (Map<String, Object> map : migrationMap) {
-			hosts.add((PowerHost) map.get("host"));
+	private PowerHostSnapshot getPlannedSnapshot(PowerHost host) {
+		if (plannedHosts == null) {
+			throw new IllegalStateException("No VM placement is being planned");
 		}
-		return hosts;
+		return getSnapshot(host);
+	}
+
+	/**
+	 * Sets the snapshot of a host while the new VM placement is planned.
+	 * 
+	 * @param host the host
+	 * @param snapshot the snapshot of the host, with the tentative placements made on it
+	 * @throws IllegalStateException if no placement is being planned
+	 */
+	private void setPlannedSnapshot(PowerHost host, PowerHostSnapshot snapshot) {
+		if (plannedHosts == null) {
+			throw new IllegalStateException("No VM placement is being planned");
+		}
+		plannedHosts.put(host, snapshot);
+	}
+
+	@Override
+	public PowerHost findHostForVm(Vm vm) {
+		Set<Host> excludedHosts = new HashSet<Host>();
+		if (vm.getHost() != null) {
+			excludedHosts.add(vm.getHost());
+		}
+		return findHostForVm(vm, excludedHosts);
 	}
 
 	/**
@@ -314,26 +488,23 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract extends PowerVmAl
 	 * 
 	 * @param vmsToMigrate the list of VMs to migrate
 	 * @param excludedHosts the list of hosts that aren't selected as destination hosts
-	 * @return the new vm placement map
+	 * @return the new vm placement
 	 */
-	protected List<Map<String, Object>> getNewVmPlacement(
+	protected MigrationPlan<Vm, PowerHost> getNewVmPlacement(
 			List<? extends Vm> vmsToMigrate,
 			Set<? extends Host> excludedHosts) {
-		List<Map<String, Object>> migrationMap = new LinkedList<Map<String, Object>>();
+		MigrationPlan<Vm, PowerHost> migrationPlan = new MigrationPlan<Vm, PowerHost>();
 		PowerVmList.sortByCpuUtilization(vmsToMigrate);
 		for (Vm vm : vmsToMigrate) {
 			PowerHost allocatedHost = findHostForVm(vm, excludedHosts);
 			if (allocatedHost != null) {
-				allocatedHost.vmCreate(vm);
+				planVmCreate(allocatedHost, vm);
 				Log.printConcatLine("VM #", vm.getId(), " allocated to host #", allocatedHost.getId());
 
-				Map<String, Object> migrate = new HashMap<String, Object>();
-				migrate.put("vm", vm);
-				migrate.put("host", allocatedHost);
-				migrationMap.add(migrate);
+				migrationPlan.add(vm, allocatedHost);
 			}
 		}
-		return migrationMap;
+		return migrationPlan;
 	}
 
 	/**
@@ -343,54 +514,68 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract extends PowerVmAl
 	 * @param excludedHosts the list of hosts that aren't selected as destination hosts
 	 * @return the new vm placement from under utilized host
 	 */
-	protected List<Map<String, Object>> getNewVmPlacementFromUnderUtilizedHost(
+	protected MigrationPlan<Vm, PowerHost> getNewVmPlacementFromUnderUtilizedHost(
 			List<? extends Vm> vmsToMigrate,
 			Set<? extends Host> excludedHosts) {
-		List<Map<String, Object>> migrationMap = new LinkedList<Map<String, Object>>();
+		MigrationPlan<Vm, PowerHost> migrationPlan = new MigrationPlan<Vm, PowerHost>();
 		PowerVmList.sortByCpuUtilization(vmsToMigrate);
 		for (Vm vm : vmsToMigrate) {
 			PowerHost allocatedHost = findHostForVm(vm, excludedHosts); //按道理这个也应该修改
 			if (allocatedHost != null) {
-				allocatedHost.vmCreate(vm);
+				planVmCreate(allocatedHost, vm);
 				Log.printConcatLine("VM #", vm.getId(), " allocated to host #", allocatedHost.getId());
 
-				Map<String, Object> migrate = new HashMap<String, Object>();
-				migrate.put("vm", vm);
-				migrate.put("host", allocatedHost);
-				migrationMap.add(migrate);
+				migrationPlan.add(vm, allocatedHost);
 			} else {
 				Log.printLine("Not all VMs can be reallocated from the host, reallocation cancelled");
-				for (Map<String, Object> map : migrationMap) {
-					((Host) map.get("host")).vmDestroy((Vm) map.get("vm"));
+				for (int i = 0; i < migrationPlan.size(); i++) {
+					planVmDestroy(migrationPlan.getHost(i), migrationPlan.getVm(i));
 				}
-				migrationMap.clear();
+				migrationPlan.clear();
 				break;
 			}
 		}
-		return migrationMap;
+		return migrationPlan;
 	}
 
 	/**
-	 * Gets the VMs to migrate from hosts.
+	 * Gets the VMs to migrate from hosts, selecting them on the detection pool if there is one.
 	 * 
 	 * @param overUtilizedHosts the over utilized hosts
 	 * @return the VMs to migrate from hosts
+	 * @see #setParallelDetection(ForkJoinPool)
 	 */
 	protected List<? extends Vm>
 	  getVmsToMigrateFromHosts(List<PowerHostUtilizationHistory> overUtilizedHosts) {
-		List<Vm> vmsToMigrate = new LinkedList<Vm>();
-		for (PowerHostUtilizationHistory host : overUtilizedHosts) {
+		int size = overUtilizedHosts.size();
+		final PowerHostSnapshot[] snapshots = new PowerHostSnapshot[size];
+		for (int i = 0; i < size; i++) {
+			snapshots[i] = getSnapshot(overUtilizedHosts.get(i));
+		}
+		cacheRequestedMips(snapshots);
+		final List<List<Vm>> selectedVms = new ArrayList<List<Vm>>(Collections.<List<Vm>> nCopies(size, null));
+		forEachHost(size, i -> {
+			PowerHostSnapshot snapshot = snapshots[i];
+			List<Vm> vms = new ArrayList<Vm>();
 			while (true) {
-				Vm vm = getVmSelectionPolicy().getVmToMigrate(host);
+				Vm vm = getVmSelectionPolicy().getVmToMigrate(snapshot);
 				if (vm == null) {
 					break;
 				}
-				vmsToMigrate.add(vm);
-				host.vmDestroy(vm);
-				if (!isHostOverUtilized(host)) {
+				vms.add(vm);
+				snapshot = snapshot.withoutVm(vm);
+				if (!isHostOverUtilized(snapshot)) {
 					break;
 				}
 			}
+			snapshots[i] = snapshot;
+			selectedVms.set(i, vms);
+		});
+
+		List<Vm> vmsToMigrate = new LinkedList<Vm>();
+		for (int i = 0; i < size; i++) {
+			vmsToMigrate.addAll(selectedVms.get(i));
+			setPlannedSnapshot(overUtilizedHosts.get(i), snapshots[i]);
 		}
 		return vmsToMigrate;
 	}
@@ -403,7 +588,7 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract extends PowerVmAl
 	 */
 	protected List<? extends Vm> getVmsToMigrateFromUnderUtilizedHost(PowerHost host) {
 		List<Vm> vmsToMigrate = new LinkedList<Vm>();
-		for (Vm vm : host.getVmList()) {
+		for (Vm vm : getSnapshot(host).getVmList()) {
 			if (!vm.isInMigration()) {
 				vmsToMigrate.add(vm);
 			}
@@ -412,20 +597,113 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract extends PowerVmAl
 	}
 
 	/**
-	 * Gets the over utilized hosts.
+	 * Gets the over utilized hosts, checking them on the detection pool if there is one.
 	 * 
 	 * @return the over utilized hosts
+	 * @see #setParallelDetection(ForkJoinPool)
 	 */
 	protected List<PowerHostUtilizationHistory> getOverUtilizedHosts() {
+		List<PowerHostUtilizationHistory> hosts = this.<PowerHostUtilizationHistory> getHostList();
+		int size = hosts.size();
+		final PowerHostSnapshot[] snapshots = new PowerHostSnapshot[size];
+		for (int i = 0; i < size; i++) {
+			snapshots[i] = getSnapshot(hosts.get(i));
+		}
+		cacheRequestedMips(snapshots);
+		final boolean[] overUtilized = new boolean[size];
+		forEachHost(size, i -> overUtilized[i] = isHostOverUtilized(snapshots[i]));
+
 		List<PowerHostUtilizationHistory> overUtilizedHosts = new LinkedList<PowerHostUtilizationHistory>();
-		for (PowerHostUtilizationHistory host : this.<PowerHostUtilizationHistory> getHostList()) {
-			if (isHostOverUtilized(host)) {
-				overUtilizedHosts.add(host);
+		for (int i = 0; i < size; i++) {
+			if (overUtilized[i]) {
+				overUtilizedHosts.add(hosts.get(i));
 			}
 		}
 		return overUtilizedHosts;
 	}
 
+	/**
+	 * Gets the requested MIPS of the VMs of host snapshots in the current thread, before the hosts
+	 * are checked on the {@link #getParallelDetection() detection pool}. The cloudlet schedulers
+	 * cache these values when they are first requested at a given time, so the tasks then only
+	 * read them, even for a VM being migrated, which is in the VM lists of both its hosts.
+	 * 
+	 * @param snapshots the snapshots of the hosts
+	 */
+	private void cacheRequestedMips(PowerHostSnapshot[] snapshots) {
+		if (detectionPool == null || snapshots.length < 2) {
+			return;
+		}
+		for (PowerHostSnapshot snapshot : snapshots) {
+			for (Vm vm : snapshot.getVmList()) {
+				vm.getCurrentRequestedMips();
+			}
+		}
+	}
+
+	/**
+	 * Runs an action for each host index, on the {@link #getParallelDetection() detection pool} if
+	 * there is one, or in the current thread otherwise. The action for a host must only modify
+	 * state of its own, or the history entries of the host.
+	 * 
+	 * @param size the number of hosts
+	 * @param action the action, called with the index of each host
+	 */
+	private void forEachHost(int size, IntConsumer action) {
+		if (detectionPool == null || size < 2) {
+			for (int i = 0; i < size; i++) {
+				action.accept(i);
+			}
+		} else {
+			detectionPool.invoke(new HostRangeAction(CloudSim.getContext(), action, 0, size));
+		}
+	}
+
+	/**
+	 * A task running an action for a range of host indexes, splitting the range among
+	 * workers of the pool. The workers are bound to the context of the simulation, so that
+	 * the action sees the clock of the simulation thread.
+	 */
+	private static final class HostRangeAction extends RecursiveAction {
+
+		/** The number of hosts under which a range is not split anymore. */
+		private static final int THRESHOLD = 8;
+
+		private final SimulationContext context;
+
+		private final IntConsumer action;
+
+		private final int from;
+
+		private final int to;
+
+		HostRangeAction(SimulationContext context, IntConsumer action, int from, int to) {
+			this.context = context;
+			this.action = action;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from > THRESHOLD) {
+				int middle = (from + to) >>> 1;
+				invokeAll(new HostRangeAction(context, action, from, middle),
+						new HostRangeAction(context, action, middle, to));
+				return;
+			}
+			SimulationContext previous = CloudSim.getContext();
+			CloudSim.setContext(context);
+			try {
+				for (int i = from; i < to; i++) {
+					action.accept(i);
+				}
+			} finally {
+				CloudSim.setContext(previous);
+			}
+		}
+	}
+
 	/**
 	 * Gets the switched off hosts. 获取被关闭的主机
 	 * 
@@ -442,28 +720,123 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract extends PowerVmAl
 	}
 
 	/**
-	 * Gets the most under utilized host.
+	 * Gets the most under utilized host, the candidate host with the lowest
+	 * {@link #getUnderUtilizationKey(PowerHost) key}, scanning all the hosts.
 	 * 
 	 * @param excludedHosts the excluded hosts
 	 * @return the most under utilized host
 	 */
 	protected PowerHost getUnderUtilizedHost(Set<? extends Host> excludedHosts) { //非固定阈值，寻找最小负载主机
-		double minUtilization = 1;
+		double minKey = Double.POSITIVE_INFINITY;
 		PowerHost underUtilizedHost = null;
 		for (PowerHost host : this.<PowerHost> getHostList()) {
 			if (excludedHosts.contains(host)) {
 				continue;
 			}
-			double utilization = host.getUtilizationOfCpu();
-			if (utilization > 0 && utilization < minUtilization
-					&& !areAllVmsMigratingOutOrAnyVmMigratingIn(host)) {
-				minUtilization = utilization;
+			double key = getUnderUtilizationKey(host);
+			if (key < minKey && isUnderUtilizedHostCandidate(host)) {
+				minKey = key;
 				underUtilizedHost = host;
 			}
 		}
 		return underUtilizedHost;
 	}
 
+	/**
+	 * Gets the key under-utilized hosts are chosen by: the host with the lowest key is chosen
+	 * first, the first one in the host list if several hosts have the same key. The default key
+	 * is the CPU utilization of the host.
+	 * 
+	 * @param host the host
+	 * @return the key, or NaN if the host can't be an under-utilized host
+	 */
+	protected double getUnderUtilizationKey(PowerHost host) {
+		double utilization = host.getUtilizationOfCpu();
+		if (utilization > 0 && utilization < 1) {
+			return utilization;
+		}
+		return Double.NaN;
+	}
+
+	/**
+	 * Checks if a host with a key can be chosen as under-utilized host. By default, it can't if
+	 * all its VMs are migrating out or any VM is migrating in.
+	 * 
+	 * @param host the host
+	 * @return true, if the host can be chosen; false otherwise
+	 */
+	protected boolean isUnderUtilizedHostCandidate(PowerHost host) {
+		return !areAllVmsMigratingOutOrAnyVmMigratingIn(host);
+	}
+
+	/**
+	 * Builds the heap of the hosts that have a key and are not excluded.
+	 * 
+	 * @param excludedHosts the excluded hosts
+	 * @return the heap of the candidate hosts
+	 */
+	private PriorityQueue<UnderUtilizedHostCandidate> getUnderUtilizedHostCandidates(
+			Set<? extends Host> excludedHosts) {
+		List<UnderUtilizedHostCandidate> candidates = new ArrayList<UnderUtilizedHostCandidate>();
+		int index = 0;
+		for (PowerHost host : this.<PowerHost> getHostList()) {
+			if (!excludedHosts.contains(host)) {
+				double key = getUnderUtilizationKey(host);
+				if (!Double.isNaN(key)) {
+					candidates.add(new UnderUtilizedHostCandidate(host, key, index));
+				}
+			}
+			index++;
+		}
+		return new PriorityQueue<UnderUtilizedHostCandidate>(candidates);
+	}
+
+	/**
+	 * Takes the next under-utilized host from the heap, dropping the hosts excluded or not
+	 * candidates on the way. The excluded hosts must only grow during a round.
+	 * 
+	 * @param candidates the heap of the candidate hosts
+	 * @param excludedHosts the excluded hosts
+	 * @return the most under utilized host, or null if there is none
+	 */
+	private PowerHost pollUnderUtilizedHost(PriorityQueue<UnderUtilizedHostCandidate> candidates,
+			Set<? extends Host> excludedHosts) {
+		while (!candidates.isEmpty()) {
+			PowerHost host = candidates.poll().host;
+			if (!excludedHosts.contains(host) && isUnderUtilizedHostCandidate(host)) {
+				return host;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * A host in the heap of the under-utilized host candidates, ordered by key then by position
+	 * in the host list.
+	 */
+	private static final class UnderUtilizedHostCandidate implements Comparable<UnderUtilizedHostCandidate> {
+
+		private final PowerHost host;
+
+		private final double key;
+
+		private final int index;
+
+		UnderUtilizedHostCandidate(PowerHost host, double key, int index) {
+			this.host = host;
+			this.key = key;
+			this.index = index;
+		}
+
+		@Override
+		public int compareTo(UnderUtilizedHostCandidate other) {
+			if (key != other.key) {
+				return key < other.key ? -1 : 1;
+			}
+			return Integer.compare(index, other.index);
+		}
+	}
+
 	/**
 	 * Checks whether all VMs of a given host are in migration. 在迁移状态.
 	 * 
@@ -471,7 +844,7 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract extends PowerVmAl
 	 * @return true, if successful
 	 */
 	protected boolean areAllVmsMigratingOutOrAnyVmMigratingIn(PowerHost host) {
-		for (PowerVm vm : host.<PowerVm> getVmList()) {
+		for (PowerVm vm : getSnapshot(host).<PowerVm> getVmList()) {
 			if (!vm.isInMigration()) {
 				return false; //areAllVmsMigratingOut 迁出
 			}
@@ -485,18 +858,20 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract extends PowerVmAl
 	/**
 	 * Checks if host is over utilized.
 	 * 
-	 * @param host the host
+	 * @param host the snapshot of the host, with the VMs placed on it
 	 * @return true, if the host is over utilized; false otherwise
 	 */
-	protected abstract boolean isHostOverUtilized(PowerHost host);
+	protected abstract boolean isHostOverUtilized(PowerHostSnapshot host);
 
 	/**
-	 * Adds an entry for each history map of a host.
+	 * Adds an entry for each history map of a host, unless the host already has an entry for the
+	 * current time. The entries of a host are only added when the host is checked, so that the
+	 * histories are the same whether the hosts are checked in parallel or not.
 	 * 
 	 * @param host the host to add metric history entries
 	 * @param metric the metric to be added to the metric history map
 	 */
-	protected void addHistoryEntry(HostDynamicWorkload host, double metric) {
+	protected synchronized void addHistoryEntry(HostDynamicWorkload host, double metric) {
 		int hostId = host.getId();
 		if (!getTimeHistory().containsKey(hostId)) {
 			getTimeHistory().put(hostId, new LinkedList<Double>());
@@ -514,45 +889,6 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract extends PowerVmAl
 		}
 	}
 
-	/**
-	 * Updates the list of maps between a VM and the host where it is place. 更新虚拟机和它所在的主机之间的映射列表
-         * @see #savedAllocation
-	 */
-	protected void saveAllocation() {
-		getSavedAllocation().clear();
-		for (Host host : getHostList()) {
-			for (Vm vm : host.getVmList()) {
-				if (host.getVmsMigratingIn().contains(vm)) {
-					continue;
-				}
-				Map<String, Object> map = new HashMap<String, Object>();
-				map.put("host", host);
-				map.put("vm", vm);
-				getSavedAllocation().add(map);
-			}
-		}
-	}
-
-	/**
-	 * Restore VM allocation from the allocation history.
-         * @see #savedAllocation
-	 */
-	protected void restoreAllocation() {
-		for (Host host : getHostList()) {
-			host.vmDestroyAll();
-			host.reallocateMigratingInVms();
-		}
-		for (Map<String, Object> map : getSavedAllocation()) {
-			Vm vm = (Vm) map.get("vm");
-			PowerHost host = (PowerHost) map.get("host");
-			if (!host.vmCreate(vm)) {
-				Log.printConcatLine("Couldn't restore VM #", vm.getId(), " on host #", host.getId());
-				System.exit(0);
-			}
-			getVmTable().put(vm.getUid(), host);
-		}
-	}
-
 	/**
 	 * Gets the power consumption of a host after placement of a candidate VM.
          * The VM is not in fact placed at the host.
@@ -600,24 +936,7 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract extends PowerVmAl
 	 * @return the utilization of the CPU in MIPS
 	 */
 	protected double getUtilizationOfCpuMips(PowerHost host) {
-		double hostUtilizationMips = 0;
-		for (Vm vm2 : host.getVmList()) {
-			if (host.getVmsMigratingIn().contains(vm2)) {
-				// calculate additional potential CPU usage of a migrating in VM
-				hostUtilizationMips += host.getTotalAllocatedMipsForVm(vm2) * 0.9 / 0.1;
-			}
-			hostUtilizationMips += host.getTotalAllocatedMipsForVm(vm2);
-		}
-		return hostUtilizationMips;
-	}
-
-	/**
-	 * Gets the saved allocation.
-	 * 
-	 * @return the saved allocation
-	 */
-	protected List<Map<String, Object>> getSavedAllocation() {
-		return savedAllocation;
+		return getSnapshot(host).getUtilizationOfCpuMips();
 	}
 
 	/**
@@ -638,6 +957,31 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract extends PowerVmAl
 		return vmSelectionPolicy;
 	}
 
+	/**
+	 * Sets the pool the over-utilized hosts are detected and the VMs to migrate from them are
+	 * selected in. Each host is checked by a single task, which only reads the shared simulation
+	 * state, and the results are merged in the order of the host list, so the migrations are the
+	 * same as when the hosts are checked one after the other. The over-utilization check, the VM
+	 * selection policy and their fallbacks must then only modify state of the host they are given
+	 * (as the policies of this package do) and must not write to the {@link Log}.
+	 * 
+	 * @param pool the pool, or <tt>null</tt> to check the hosts in the simulation thread
+	 */
+	public void setParallelDetection(ForkJoinPool pool) {
+		detectionPool = pool;
+	}
+
+	/**
+	 * Gets the pool the over-utilized hosts are detected and the VMs to migrate from them are
+	 * selected in.
+	 * 
+	 * @return the pool, or <tt>null</tt> if the hosts are checked in the simulation thread
+	 * @see #setParallelDetection(ForkJoinPool)
+	 */
+	public ForkJoinPool getParallelDetection() {
+		return detectionPool;
+	}
+
 	/**
 	 * Gets the utilization history.
 	 * 
@@ -701,4 +1045,39 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract extends PowerVmAl
 		return executionTimeHistoryTotal;
 	}
 
+	/**
+	 * Gets the history of the number of hosts examined to find the under-utilized hosts.
+	 * 
+	 * @return the history of the number of hosts examined
+	 */
+	public List<Integer> getUnderUtilizedHostsExaminedHistory() {
+		return underUtilizedHostsExaminedHistory;
+	}
+
+	/**
+	 * The histories of the migration policies are not saved in checkpoints: a simulation is
+	 * checkpointed with a {@link PowerVmAllocationPolicySimple}, and the migration policy replaces
+	 * it once the simulation is restored (see
+	 * {@link PowerDatacenter#replaceVmAllocationPolicy(PowerVmAllocationPolicyAbstract)}).
+	 * 
+	 * @throws UnsupportedOperationException always
+	 */
+	@Override
+	public void saveState(CheckpointOutput out) throws IOException {
+		throw new UnsupportedOperationException(getClass().getSimpleName()
+				+ " can't be saved in a checkpoint: warm up the simulation with a PowerVmAllocationPolicySimple"
+				+ " and replace it with this policy once the simulation is restored.");
+	}
+
+	/**
+	 * @throws UnsupportedOperationException always
+	 * @see #saveState(CheckpointOutput)
+	 */
+	@Override
+	public void restoreState(CheckpointInput in) throws IOException {
+		throw new UnsupportedOperationException(getClass().getSimpleName()
+				+ " can't be restored from a checkpoint: replace the restored PowerVmAllocationPolicySimple"
+				+ " with this policy instead.");
+	}
+
 }
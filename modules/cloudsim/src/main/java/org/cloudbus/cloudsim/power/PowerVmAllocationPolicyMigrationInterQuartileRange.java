@@ -14,6 +14,7 @@ import org.cloudbus.cloudsim.Host;
 import org.cloudbus.cloudsim.Log;
 import org.cloudbus.cloudsim.Vm;
 import org.cloudbus.cloudsim.util.MathUtil;
+import org.cloudbus.cloudsim.util.WindowStatistics;
 
 /**
  * A VM allocation policy that uses Inter Quartile Range (IQR)  to compute
@@ -99,15 +100,14 @@ public class PowerVmAllocationPolicyMigrationInterQuartileRange extends
 	 * @return true, if the host is over utilized; false otherwise
 	 */
 	@Override
-	protected boolean isHostOverUtilized(PowerHost host) {
-		PowerHostUtilizationHistory _host = (PowerHostUtilizationHistory) host;
+	protected boolean isHostOverUtilized(PowerHostSnapshot host) {
 		double upperThreshold = 0;
 		try {
-			upperThreshold = 1 - getSafetyParameter() * getHostUtilizationIqr(_host);
+			upperThreshold = 1 - getSafetyParameter() * getHostUtilizationIqr(host);
 		} catch (IllegalArgumentException e) {
 			return getFallbackVmAllocationPolicy().isHostOverUtilized(host);
 		}
-		addHistoryEntry(host, upperThreshold);
+		addHistoryEntry(host.getHost(), upperThreshold);
 		double totalRequestedMips = 0;
 		for (Vm vm : host.getVmList()) {
 			totalRequestedMips += vm.getCurrentRequestedTotalMips();
@@ -122,10 +122,10 @@ public class PowerVmAllocationPolicyMigrationInterQuartileRange extends
 	 * @param host the host
 	 * @return the host CPU utilization percentage IQR
 	 */
-	protected double getHostUtilizationIqr(PowerHostUtilizationHistory host) throws IllegalArgumentException {
+	protected double getHostUtilizationIqr(PowerHostSnapshot host) throws IllegalArgumentException {
 		double[] data = host.getUtilizationHistory();
 		if (MathUtil.countNonZeroBeginning(data) >= 12) { // 12 has been suggested as a safe value
-			return MathUtil.iqr(data);
+			return WindowStatistics.forCurrentThread().iqr(data);
 		}
 		throw new IllegalArgumentException();
 	}
@@ -12,9 +12,10 @@ import java.util.*;
 
 import org.cloudbus.cloudsim.Host;
 import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.MigrationPlan;
 import org.cloudbus.cloudsim.Vm;
 import org.cloudbus.cloudsim.power.lists.PowerVmList;
-import org.cloudbus.cloudsim.util.MathUtil;
+import org.cloudbus.cloudsim.util.WindowStatistics;
 
 /**
  * A VM allocation policy that uses Local Regression (LR) to predict host utilization (load)
@@ -108,9 +109,8 @@ public class PowerVmAllocationPolicyMigrationLocalRegression extends PowerVmAllo
 	 * @return true, if is host over utilized; false otherwise
 	 */
 	@Override
-	protected boolean isHostOverUtilized(PowerHost host) {
-		PowerHostUtilizationHistory _host = (PowerHostUtilizationHistory) host;
-		double[] utilizationHistory = _host.getUtilizationHistory();
+	protected boolean isHostOverUtilized(PowerHostSnapshot host) {
+		double[] utilizationHistory = host.getUtilizationHistory();
 		int length = 10; // we use 10 to make the regression responsive enough to latest values
 		if (utilizationHistory.length < length) {
 			return getFallbackVmAllocationPolicy().isHostOverUtilized(host);
@@ -125,11 +125,11 @@ public class PowerVmAllocationPolicyMigrationLocalRegression extends PowerVmAllo
 		} catch (IllegalArgumentException e) {
 			return getFallbackVmAllocationPolicy().isHostOverUtilized(host);
 		}
-		double migrationIntervals = Math.ceil(getMaximumVmMigrationTime(_host) / getSchedulingInterval());
+		double migrationIntervals = Math.ceil(getMaximumVmMigrationTime(host) / getSchedulingInterval());
 		double predictedUtilization = estimates[0] + estimates[1] * (length + migrationIntervals);
 		predictedUtilization *= getSafetyParameter();
 
-		addHistoryEntry(host, predictedUtilization);
+		addHistoryEntry(host.getHost(), predictedUtilization);
 
 		return predictedUtilization >= 1;
 	}
@@ -141,7 +141,7 @@ public class PowerVmAllocationPolicyMigrationLocalRegression extends PowerVmAllo
 	 * @return the utilization estimates
 	 */
 	protected double[] getParameterEstimates(double[] utilizationHistoryReversed) {
-		return MathUtil.getLoessParameterEstimates(utilizationHistoryReversed);
+		return WindowStatistics.forCurrentThread().getLoessParameterEstimates(utilizationHistoryReversed);
 	}
 
 	/**
@@ -150,7 +150,7 @@ public class PowerVmAllocationPolicyMigrationLocalRegression extends PowerVmAllo
 	 * @param host the host
 	 * @return the maximum vm migration time
 	 */
-	protected double getMaximumVmMigrationTime(PowerHost host) {
+	protected double getMaximumVmMigrationTime(PowerHostSnapshot host) {
 		int maxRam = Integer.MIN_VALUE;
 		for (Vm vm : host.getVmList()) {
 			int ram = vm.getRam();
@@ -162,63 +162,34 @@ public class PowerVmAllocationPolicyMigrationLocalRegression extends PowerVmAllo
 	}
 
 	public PowerHost findHostForVm2(Vm vm, Set<? extends Host> excludedHosts) {
-		double minPower = Double.MAX_VALUE;
-		PowerHost allocatedHost = null;
-
-		for (PowerHost host : this.<PowerHost> getHostList()) {
-			if (excludedHosts.contains(host)) { //排除超载主机
-				continue;
-			}
-			if (host.isSuitableForVm(vm)) { //满足资源约束
-				if (getUtilizationOfCpuMips(host) != 0 && isHostOverUtilizedAfterAllocation(host, vm)) {
-					//if 主机为开机状态 且迁入虚拟机后会超载  then 跳过该主机
-					continue;
-				}
-				try {
-					//主要目标：选择一个能耗变化最小的host
-					double powerAfterAllocation = getPowerAfterAllocation(host, vm);//并未将虚拟机实际分配给主机进行的能耗计算
-					if (powerAfterAllocation != -1) {
-						double powerDiff = powerAfterAllocation - host.getPower();
-//                        if (powerDiff < minPower) {
-						if ((powerDiff < minPower) && utilization(host) ) { // 测试算法三
-							minPower = powerDiff;
-							allocatedHost = host;
-						}
-					}
-				} catch (Exception e) {
-				}
-			}
-		}
-		return allocatedHost;
+		// 测试算法三：只选择负载适中的主机
+		return findHostForVm(vm, excludedHosts, this::utilization);
 	}
 
 	protected  boolean utilization (PowerHost host) {
 		double totalRequestedMips = 0;
-		for (Vm vm : host.getVmList()) {
+		for (Vm vm : getSnapshot(host).getVmList()) {
 			totalRequestedMips += vm.getCurrentRequestedTotalMips();
 		}
 		double utilization = totalRequestedMips / host.getTotalMips();
 		return utilization < 0.6 && utilization > 0.4;
 	}
 
-	protected List<Map<String, Object>> getNewVmPlacement(
+	protected MigrationPlan<Vm, PowerHost> getNewVmPlacement(
 			List<? extends Vm> vmsToMigrate,
 			Set<? extends Host> excludedHosts) {
-		List<Map<String, Object>> migrationMap = new LinkedList<Map<String, Object>>();
+		MigrationPlan<Vm, PowerHost> migrationPlan = new MigrationPlan<Vm, PowerHost>();
 		PowerVmList.sortByCpuUtilization(vmsToMigrate);
 		for (Vm vm : vmsToMigrate) {
 			PowerHost allocatedHost = findHostForVm2(vm, excludedHosts);
 			if (allocatedHost != null) {
-				allocatedHost.vmCreate(vm); //在主机上创建虚拟机
+				planVmCreate(allocatedHost, vm); //在主机快照上放置虚拟机
 				Log.printConcatLine("VM #", vm.getId(), " allocated to host #", allocatedHost.getId());
 
-				Map<String, Object> migrate = new HashMap<String, Object>();
-				migrate.put("vm", vm);
-				migrate.put("host", allocatedHost);
-				migrationMap.add(migrate);
+				migrationPlan.add(vm, allocatedHost);
 			}
 		}
-		return migrationMap;
+		return migrationPlan;
 	}
 
 	/**
@@ -11,7 +11,7 @@ package org.cloudbus.cloudsim.power;
 import java.util.List;
 
 import org.cloudbus.cloudsim.Host;
-import org.cloudbus.cloudsim.util.MathUtil;
+import org.cloudbus.cloudsim.util.WindowStatistics;
 
 /**
  * A VM allocation policy that uses Local Regression Robust (LRR) to predict host utilization (load)
@@ -83,7 +83,7 @@ public class PowerVmAllocationPolicyMigrationLocalRegressionRobust extends
 	 */
 	@Override
 	protected double[] getParameterEstimates(double[] utilizationHistoryReversed) {
-		return MathUtil.getRobustLoessParameterEstimates(utilizationHistoryReversed);
+		return WindowStatistics.forCurrentThread().getRobustLoessParameterEstimates(utilizationHistoryReversed);
 	}
 
 }
@@ -2,6 +2,7 @@ package org.cloudbus.cloudsim.power;
 
 import org.cloudbus.cloudsim.Host;
 import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.MigrationPlan;
 import org.cloudbus.cloudsim.Vm;
 import org.cloudbus.cloudsim.power.lists.PowerVmList;
 
@@ -25,8 +26,8 @@ public class PowerVmAllocationPolicyMigrationM extends PowerVmAllocationPolicyMi
      * @return true, if the host is over utilized; false otherwise
      */
     @Override
-    protected boolean isHostOverUtilized(PowerHost host) {
-        addHistoryEntry(host, getUtilizationThreshold());
+    protected boolean isHostOverUtilized(PowerHostSnapshot host) {
+        addHistoryEntry(host.getHost(), getUtilizationThreshold());
         double totalRequestedMips = 0;
         for (Vm vm : host.getVmList()) {
             totalRequestedMips += vm.getCurrentRequestedTotalMips();
@@ -36,63 +37,34 @@ public class PowerVmAllocationPolicyMigrationM extends PowerVmAllocationPolicyMi
     }
 
     public PowerHost findHostForVm2(Vm vm, Set<? extends Host> excludedHosts) {
-        double minPower = Double.MAX_VALUE;
-        PowerHost allocatedHost = null;
-
-        for (PowerHost host : this.<PowerHost> getHostList()) {
-            if (excludedHosts.contains(host)) { //排除超载主机
-                continue;
-            }
-            if (host.isSuitableForVm(vm)) { //满足资源约束
-                if (getUtilizationOfCpuMips(host) != 0 && isHostOverUtilizedAfterAllocation(host, vm)) {
-                    //if 主机为开机状态 且迁入虚拟机后会超载  then 跳过该主机
-                    continue;
-                }
-                try {
-                    //主要目标：选择一个能耗变化最小的host
-                    double powerAfterAllocation = getPowerAfterAllocation(host, vm);//并未将虚拟机实际分配给主机进行的能耗计算
-                    if (powerAfterAllocation != -1) {
-                        double powerDiff = powerAfterAllocation - host.getPower();
-//                        if (powerDiff < minPower) {
-                        if ((powerDiff < minPower) && utilization(host) ) { // 测试算法三
-                            minPower = powerDiff;
-                            allocatedHost = host;
-                        }
-                    }
-                } catch (Exception e) {
-                }
-            }
-        }
-        return allocatedHost;
+        // 测试算法三：只选择负载适中的主机
+        return findHostForVm(vm, excludedHosts, this::utilization);
     }
 
     protected  boolean utilization (PowerHost host) {
         double totalRequestedMips = 0;
-        for (Vm vm : host.getVmList()) {
+        for (Vm vm : getSnapshot(host).getVmList()) {
             totalRequestedMips += vm.getCurrentRequestedTotalMips();
         }
         double utilization = totalRequestedMips / host.getTotalMips();
         return utilization < 0.6 && utilization > 0.4;
     }
 
-    protected List<Map<String, Object>> getNewVmPlacement(
+    protected MigrationPlan<Vm, PowerHost> getNewVmPlacement(
             List<? extends Vm> vmsToMigrate,
             Set<? extends Host> excludedHosts) {
-        List<Map<String, Object>> migrationMap = new LinkedList<Map<String, Object>>();
+        MigrationPlan<Vm, PowerHost> migrationPlan = new MigrationPlan<Vm, PowerHost>();
         PowerVmList.sortByCpuUtilization(vmsToMigrate);
         for (Vm vm : vmsToMigrate) {
             PowerHost allocatedHost = findHostForVm2(vm, excludedHosts);
             if (allocatedHost != null) {
-                allocatedHost.vmCreate(vm); //在主机上创建虚拟机
+                planVmCreate(allocatedHost, vm); //在主机快照上放置虚拟机
                 Log.printConcatLine("VM #", vm.getId(), " allocated to host #", allocatedHost.getId());
 
-                Map<String, Object> migrate = new HashMap<String, Object>();
-                migrate.put("vm", vm);
-                migrate.put("host", allocatedHost);
-                migrationMap.add(migrate);
+                migrationPlan.add(vm, allocatedHost);
             }
         }
-        return migrationMap;
+        return migrationPlan;
     }
 
     protected void setUtilizationThreshold(double utilizationThreshold) {
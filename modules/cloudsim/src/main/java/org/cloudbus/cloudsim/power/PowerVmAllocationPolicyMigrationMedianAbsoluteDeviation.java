@@ -14,6 +14,7 @@ import org.cloudbus.cloudsim.Host;
 import org.cloudbus.cloudsim.Log;
 import org.cloudbus.cloudsim.Vm;
 import org.cloudbus.cloudsim.util.MathUtil;
+import org.cloudbus.cloudsim.util.WindowStatistics;
 
 /**
  * A VM allocation policy that uses Median Absolute Deviation (MAD) to compute
@@ -109,15 +110,14 @@ public class PowerVmAllocationPolicyMigrationMedianAbsoluteDeviation extends
 	 * @return true, if the host is over utilized; false otherwise
 	 */
 	@Override
-	protected boolean isHostOverUtilized(PowerHost host) {
-		PowerHostUtilizationHistory _host = (PowerHostUtilizationHistory) host;
+	protected boolean isHostOverUtilized(PowerHostSnapshot host) {
 		double upperThreshold = 0;
 		try {
-    			upperThreshold = 1 - getSafetyParameter() * getHostUtilizationMad(_host);
+    			upperThreshold = 1 - getSafetyParameter() * getHostUtilizationMad(host);
 		} catch (IllegalArgumentException e) {
 			return getFallbackVmAllocationPolicy().isHostOverUtilized(host);
 		}
-		addHistoryEntry(host, upperThreshold);
+		addHistoryEntry(host.getHost(), upperThreshold);
 		double totalRequestedMips = 0;
 		for (Vm vm : host.getVmList()) {
 			totalRequestedMips += vm.getCurrentRequestedTotalMips();
@@ -132,10 +132,10 @@ public class PowerVmAllocationPolicyMigrationMedianAbsoluteDeviation extends
 	 * @param host the host
 	 * @return the host utilization MAD
 	 */
-	protected double getHostUtilizationMad(PowerHostUtilizationHistory host) throws IllegalArgumentException {
+	protected double getHostUtilizationMad(PowerHostSnapshot host) throws IllegalArgumentException {
 		double[] data = host.getUtilizationHistory();
 		if (MathUtil.countNonZeroBeginning(data) >= 12) { // 12 has been suggested as a safe value
-			return MathUtil.mad(data);
+			return WindowStatistics.forCurrentThread().mad(data);
 		}
 		throw new IllegalArgumentException();
 	}
@@ -38,15 +38,25 @@ public abstract class PowerVmSelectionPolicy {
 	 * @param host the host
 	 * @return the vm to migrate
 	 */
-	public abstract Vm getVmToMigrate(PowerHost host);
+	public Vm getVmToMigrate(PowerHost host) {
+		return getVmToMigrate(new PowerHostSnapshot(host));
+	}
+
+	/**
+	 * Gets a VM to migrate from a given host, among the VMs placed on its snapshot.
+	 * 
+	 * @param host the snapshot of the host
+	 * @return the vm to migrate
+	 */
+	public abstract Vm getVmToMigrate(PowerHostSnapshot host);
 
 	/**
 	 * Gets the list of migratable VMs from a given host.
 	 * 
-	 * @param host the host
+	 * @param host the snapshot of the host
 	 * @return the list of migratable VMs
 	 */
-	protected List<PowerVm> getMigratableVms(PowerHost host) {
+	protected List<PowerVm> getMigratableVms(PowerHostSnapshot host) {
 		List<PowerVm> migratableVms = new ArrayList<PowerVm>();
 		for (PowerVm vm : host.<PowerVm> getVmList()) {
 			if (!vm.isInMigration()) {
@@ -8,11 +8,11 @@
 
 package org.cloudbus.cloudsim.power;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 
-import org.apache.commons.math3.linear.Array2DRowRealMatrix;
 import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.util.DoubleRingBuffer;
 import org.cloudbus.cloudsim.util.MathUtil;
 
 /**
@@ -49,21 +49,21 @@ public class PowerVmSelectionPolicyMaximumCorrelation extends PowerVmSelectionPo
 	}
 
 	@Override
-	public Vm getVmToMigrate(final PowerHost host) {//得到需要迁移的虚拟机
+	public Vm getVmToMigrate(final PowerHostSnapshot host) {//得到需要迁移的虚拟机
 		List<PowerVm> migratableVms = getMigratableVms(host);//从给定主机获取可迁移VM的列表
 		if (migratableVms.isEmpty()) {
 			return null;
 		}
-		List<Double> metrics = null;
+		double[] metrics = null;
 		try {
-			metrics = getCorrelationCoefficients(getUtilizationMatrix(migratableVms));//通过利用率矩阵来获取相关系数
+			metrics = getMultipleCorrelationCoefficients(getUtilizationMatrix(migratableVms));//通过利用率矩阵来获取相关系数
 		} catch (IllegalArgumentException e) { // the degrees of freedom must be greater than zero
 			return getFallbackPolicy().getVmToMigrate(host);//通过备用方案返回需要迁移的虚拟机
 		}
 		double maxMetric = Double.MIN_VALUE;//定义最大标准
 		int maxIndex = 0;//定义最大标准对应的虚拟机的下标
-		for (int i = 0; i < metrics.size(); i++) {//遍历相关系数列表
-			double metric = metrics.get(i);//依次获取每一个相关系数
+		for (int i = 0; i < metrics.length; i++) {//遍历相关系数列表
+			double metric = metrics[i];//依次获取每一个相关系数
 			if (metric > maxMetric) {//如果相关系数大于最大标准
 				maxMetric = metric;//更新相关系数
 				maxIndex = i;//得到对应的坐标
@@ -81,17 +81,11 @@ public class PowerVmSelectionPolicyMaximumCorrelation extends PowerVmSelectionPo
 	 */
 	protected double[][] getUtilizationMatrix(final List<PowerVm> vmList) {//获取给定VM列表的CPU利用率百分比矩阵
 		int n = vmList.size();
-                /*@todo It gets the min size of the history among all VMs considering
-                that different VMs can have different history sizes.
-                However, the j loop is not using the m variable
-                but the size of the vm list. If a VM list has 
-                a size greater than m, it will thow an exception.
-                It as to be included a test case for that.*/
 		int m = getMinUtilizationHistorySize(vmList);//得到虚拟机历史利用率的大小
 		double[][] utilization = new double[n][m];//构造二维数组来存储相关系数
 		for (int i = 0; i < n; i++) {
-			List<Double> vmUtilization = vmList.get(i).getUtilizationHistory();//获取每台虚拟机的历史利用率
-			for (int j = 0; j < vmUtilization.size(); j++) {
+			DoubleRingBuffer vmUtilization = vmList.get(i).getUtilizationHistory();//获取每台虚拟机的历史利用率
+			for (int j = 0; j < m; j++) {
 				utilization[i][j] = vmUtilization.get(j);
 			}
 		}
@@ -120,30 +114,29 @@ public class PowerVmSelectionPolicyMaximumCorrelation extends PowerVmSelectionPo
 	 * 
 	 * @param data the data
 	 * @return the correlation coefficients
+	 * @see #getMultipleCorrelationCoefficients(double[][])
 	 */
 	protected List<Double> getCorrelationCoefficients(final double[][] data) {
-		int n = data.length;
-		int m = data[0].length;
-		List<Double> correlationCoefficients = new LinkedList<Double>();
-		for (int i = 0; i < n; i++) {
-			double[][] x = new double[n - 1][m];
-			int k = 0;
-			for (int j = 0; j < n; j++) {
-				if (j != i) {
-					x[k++] = data[j];
-				}
-			}
-
-			// Transpose the matrix so that it fits the linear model
-			double[][] xT = new Array2DRowRealMatrix(x).transpose().getData();
-
-			// RSquare is the "coefficient of determination"
-			correlationCoefficients.add(MathUtil.createLinearRegression(xT,
-					data[i]).calculateRSquared());
+		double[] coefficients = getMultipleCorrelationCoefficients(data);
+		List<Double> correlationCoefficients = new ArrayList<Double>(coefficients.length);
+		for (double coefficient : coefficients) {
+			correlationCoefficients.add(coefficient);
 		}
 		return correlationCoefficients;
 	}
 
+	/**
+	 * Gets the correlation coefficients, that is the coefficient of determination of the
+	 * regression of the utilization of each VM on the utilization of the other ones.
+	 * 
+	 * @param data the data
+	 * @return the correlation coefficients
+	 * @see MathUtil#getMultipleCorrelationCoefficients(double[][])
+	 */
+	protected double[] getMultipleCorrelationCoefficients(final double[][] data) {
+		return MathUtil.getMultipleCorrelationCoefficients(data);
+	}
+
 	/**
 	 * Gets the fallback policy.
 	 * 
@@ -8,12 +8,11 @@
 
 package org.cloudbus.cloudsim.power.lists;
 
-import java.util.Collections;
-import java.util.Comparator;
 import java.util.List;
 
 import org.cloudbus.cloudsim.Vm;
 import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.lists.KeySort;
 import org.cloudbus.cloudsim.lists.VmList;
 
 /**
@@ -44,20 +43,14 @@ import org.cloudbus.cloudsim.lists.VmList;
 public class PowerVmList extends VmList {
 
 	/**
-	 * Sort a given list of VMs by cpu utilization.
+	 * Sort a given list of VMs by cpu utilization, in descending order. The utilization of each
+	 * VM is computed once.
 	 * 
 	 * @param vmList the vm list to be sorted
 	 */
 	public static <T extends Vm> void sortByCpuUtilization(List<T> vmList) {
-		Collections.sort(vmList, new Comparator<T>() {
-
-			@Override
-			public int compare(T a, T b) throws ClassCastException {
-				Double aUtilization = a.getTotalUtilizationOfCpuMips(CloudSim.clock());
-				Double bUtilization = b.getTotalUtilizationOfCpuMips(CloudSim.clock());
-				return bUtilization.compareTo(aUtilization);
-			}
-		});
+		final double time = CloudSim.clock();
+		KeySort.sortDescending(vmList, vm -> vm.getTotalUtilizationOfCpuMips(time));
 	}
 
 }
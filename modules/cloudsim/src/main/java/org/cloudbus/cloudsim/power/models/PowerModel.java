@@ -39,4 +39,24 @@ public interface PowerModel {
 	 */
 	double getPower(double utilization) throws IllegalArgumentException;
 
+	/**
+	 * Gets the mean power consumption of the Power Model while the utilization percentage of the
+	 * critical resource changes linearly from a value to another, that is the integral of the power
+	 * over the utilization path divided by its length. Multiplied by the length of a time frame, it
+	 * gives the energy consumed in the time frame.
+	 * 
+	 * <p/>The default implementation averages the power at both ends of the path, which is exact
+	 * only for models linear in the utilization. The models of the power package integrate their
+	 * power exactly.
+	 * 
+	 * @param fromUtilization the utilization percentage (between [0 and 1]) at the start of the path
+	 * @param toUtilization the utilization percentage (between [0 and 1]) at the end of the path
+	 * @return the mean power consumption
+	 * @throws IllegalArgumentException when a utilization percentage is not between [0 and 1]
+	 */
+	default double getMeanPower(double fromUtilization, double toUtilization)
+			throws IllegalArgumentException {
+		return (getPower(fromUtilization) + getPower(toUtilization)) / 2;
+	}
+
 }
@@ -62,6 +62,26 @@ public class PowerModelCubic implements PowerModel {
 		return getStaticPower() + getConstant() * Math.pow(utilization * 100, 3);
 	}
 
+	/**
+	 * {@inheritDoc} It is computed from the integral of the cube of the
+	 * utilization. The power at zero utilization, when the host is
+	 * switched off, is only taken into account if the utilization stays at zero.
+	 */
+	@Override
+	public double getMeanPower(double fromUtilization, double toUtilization)
+			throws IllegalArgumentException {
+		if (fromUtilization < 0 || fromUtilization > 1 || toUtilization < 0 || toUtilization > 1) {
+			throw new IllegalArgumentException("Utilization value must be between 0 and 1");
+		}
+		if (fromUtilization == 0 && toUtilization == 0) {
+			return 0;
+		}
+		// the mean of the cube of a utilization going linearly from a to b is (a + b)(a^2 + b^2) / 4
+		double meanCube = (fromUtilization + toUtilization)
+				* (fromUtilization * fromUtilization + toUtilization * toUtilization) / 4;
+		return getStaticPower() + getConstant() * meanCube * Math.pow(100, 3);
+	}
+
 	/**
 	 * Gets the max power.
 	 * 
@@ -66,6 +66,23 @@ public class PowerModelLinear implements PowerModel {
 		return getStaticPower() + getConstant() * utilization * 100;
 	}
 
+	/**
+	 * {@inheritDoc} The power being linear in the utilization, it is the
+	 * power at the mean utilization. The power at zero utilization, when the host is
+	 * switched off, is only taken into account if the utilization stays at zero.
+	 */
+	@Override
+	public double getMeanPower(double fromUtilization, double toUtilization)
+			throws IllegalArgumentException {
+		if (fromUtilization < 0 || fromUtilization > 1 || toUtilization < 0 || toUtilization > 1) {
+			throw new IllegalArgumentException("Utilization value must be between 0 and 1");
+		}
+		if (fromUtilization == 0 && toUtilization == 0) {
+			return 0;
+		}
+		return getStaticPower() + getConstant() * (fromUtilization + toUtilization) / 2 * 100;
+	}
+
 	/**
 	 * Gets the max power.
 	 * 
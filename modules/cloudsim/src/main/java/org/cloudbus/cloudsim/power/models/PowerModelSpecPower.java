@@ -26,21 +26,82 @@ package org.cloudbus.cloudsim.power.models;
  * @since CloudSim Toolkit 3.0
  */
 public abstract class PowerModelSpecPower implements PowerModel {
+	/** The number of utilization segments of the power data, of 10% each. */
+	private static final int SEGMENTS = 10;
+
+	/**
+	 * The power data followed by the slope of each segment, built from {@link #getPowerData(int)}
+	 * on the first call to {@link #getPower(double)}. It cannot be built by the constructor, as the
+	 * power data of the subclasses is only initialized after it.
+	 */
+	private volatile double[] table;
+
 	@Override
 	public double getPower(double utilization) throws IllegalArgumentException {
 		if (utilization < 0 || utilization > 1) {
 			throw new IllegalArgumentException("Utilization value must be between 0 and 1");
 		}
-		if (utilization % 0.1 == 0) {
-			return getPowerData((int) (utilization * 10));
+		double[] table = this.table;
+		if (table == null) {
+			table = buildTable();
+		}
+		double scaled = utilization * SEGMENTS;
+		int utilization1 = (int) scaled;
+		if (utilization1 == scaled) {
+			return table[utilization1];
+		}
+		// the same operations as in the interpolation of the power data of the bounds of the
+		// segment, with its slope computed once
+		return table[utilization1] + table[SEGMENTS + 1 + utilization1]
+				* (utilization - (double) utilization1 / 10) * 100;
+	}
+
+	/**
+	 * {@inheritDoc} The power being linear on each segment of 10% of utilization, it is the sum
+	 * over the segments crossed by the utilization path of their length times the mean of the power
+	 * at their ends.
+	 */
+	@Override
+	public double getMeanPower(double fromUtilization, double toUtilization)
+			throws IllegalArgumentException {
+		double low = Math.min(fromUtilization, toUtilization);
+		double high = Math.max(fromUtilization, toUtilization);
+		double lowPower = getPower(low);
+		double highPower = getPower(high);
+		if (low == high) {
+			return lowPower;
+		}
+		double[] table = this.table;
+		double energy = 0;
+		double utilization = low;
+		double power = lowPower;
+		for (int i = (int) (low * SEGMENTS) + 1; i < SEGMENTS && (double) i / 10 < high; i++) {
+			double bound = (double) i / 10;
+			if (bound > utilization) {
+				energy += (bound - utilization) * (power + table[i]) / 2;
+				utilization = bound;
+				power = table[i];
+			}
+		}
+		energy += (high - utilization) * (power + highPower) / 2;
+		return energy / (high - low);
+	}
+
+	/**
+	 * Builds the table of the power data and of the slope of each segment.
+	 * 
+	 * @return the table
+	 */
+	private double[] buildTable() {
+		double[] table = new double[2 * SEGMENTS + 1];
+		for (int i = 0; i <= SEGMENTS; i++) {
+			table[i] = getPowerData(i);
+		}
+		for (int i = 0; i < SEGMENTS; i++) {
+			table[SEGMENTS + 1 + i] = (table[i + 1] - table[i]) / 10;
 		}
-		int utilization1 = (int) Math.floor(utilization * 10);
-		int utilization2 = (int) Math.ceil(utilization * 10);
-		double power1 = getPowerData(utilization1);
-		double power2 = getPowerData(utilization2);
-		double delta = (power2 - power1) / 10;
-		double power = power1 + delta * (utilization - (double) utilization1 / 10) * 100;
-		return power;
+		this.table = table;
+		return table;
 	}
 
 	/**
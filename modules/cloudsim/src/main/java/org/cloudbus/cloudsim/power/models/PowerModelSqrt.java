@@ -60,6 +60,29 @@ public class PowerModelSqrt implements PowerModel {
 		return getStaticPower() + getConstant() * Math.sqrt(utilization * 100);
 	}
 
+	/**
+	 * {@inheritDoc} It is computed from the integral of the square root
+	 * of the utilization. The power at zero utilization, when the host is
+	 * switched off, is only taken into account if the utilization stays at zero.
+	 */
+	@Override
+	public double getMeanPower(double fromUtilization, double toUtilization)
+			throws IllegalArgumentException {
+		if (fromUtilization < 0 || fromUtilization > 1 || toUtilization < 0 || toUtilization > 1) {
+			throw new IllegalArgumentException("Utilization value must be between 0 and 1");
+		}
+		if (fromUtilization == 0 && toUtilization == 0) {
+			return 0;
+		}
+		// the mean of the square root of a utilization going linearly from a to b is
+		// 2/3 (b^1.5 - a^1.5) / (b - a), written without the difference of close values
+		double fromSqrt = Math.sqrt(fromUtilization);
+		double toSqrt = Math.sqrt(toUtilization);
+		double meanSqrt = 2.0 / 3 * (fromUtilization + fromSqrt * toSqrt + toUtilization)
+				/ (fromSqrt + toSqrt);
+		return getStaticPower() + getConstant() * meanSqrt * Math.sqrt(100);
+	}
+
 	/**
 	 * Gets the max power.
 	 * 
@@ -61,6 +61,26 @@ public class PowerModelSquare implements PowerModel {
 		return getStaticPower() + getConstant() * Math.pow(utilization * 100, 2);
 	}
 
+	/**
+	 * {@inheritDoc} It is computed from the integral of the square of the
+	 * utilization. The power at zero utilization, when the host is
+	 * switched off, is only taken into account if the utilization stays at zero.
+	 */
+	@Override
+	public double getMeanPower(double fromUtilization, double toUtilization)
+			throws IllegalArgumentException {
+		if (fromUtilization < 0 || fromUtilization > 1 || toUtilization < 0 || toUtilization > 1) {
+			throw new IllegalArgumentException("Utilization value must be between 0 and 1");
+		}
+		if (fromUtilization == 0 && toUtilization == 0) {
+			return 0;
+		}
+		// the mean of the square of a utilization going linearly from a to b is (a^2 + ab + b^2) / 3
+		double meanSquare = (fromUtilization * fromUtilization + fromUtilization * toUtilization
+				+ toUtilization * toUtilization) / 3;
+		return getStaticPower() + getConstant() * meanSquare * Math.pow(100, 2);
+	}
+
 	/**
 	 * Gets the max power.
 	 * 
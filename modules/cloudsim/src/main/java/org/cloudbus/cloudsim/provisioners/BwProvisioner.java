@@ -8,7 +8,11 @@
 
 package org.cloudbus.cloudsim.provisioners;
 
+import java.io.IOException;
+
 import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.core.CheckpointInput;
+import org.cloudbus.cloudsim.core.CheckpointOutput;
 
 /**
  * BwProvisioner is an abstract class that represents the provisioning policy used by a host
@@ -148,4 +152,29 @@ public abstract class BwProvisioner {
 		this.availableBw = availableBw;
 	}
 
+	/**
+	 * Saves the state of the provisioner in a checkpoint of the simulation: its bandwidth and its
+	 * available bandwidth. Subclasses keeping the allocations of the VMs override this method, calling
+	 * it first, and {@link #restoreState(CheckpointInput)} along with it.
+	 * 
+	 * @param out the checkpoint stream
+	 * @throws IOException if the state can't be written
+	 * @see org.cloudbus.cloudsim.core.CloudSim#saveCheckpoint(String)
+	 */
+	public void saveState(CheckpointOutput out) throws IOException {
+		out.writeLong(getBw());
+		out.writeLong(getAvailableBw());
+	}
+
+	/**
+	 * Restores the state of the provisioner saved by {@link #saveState(CheckpointOutput)}.
+	 * 
+	 * @param in the checkpoint stream
+	 * @throws IOException if the state can't be read
+	 */
+	public void restoreState(CheckpointInput in) throws IOException {
+		setBw(in.readLong());
+		setAvailableBw(in.readLong());
+	}
+
 }
@@ -8,10 +8,13 @@
 
 package org.cloudbus.cloudsim.provisioners;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 
 import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.core.CheckpointInput;
+import org.cloudbus.cloudsim.core.CheckpointOutput;
 
 /**
  * BwProvisionerSimple is an extension of {@link BwProvisioner} which uses a best-effort policy to
@@ -106,4 +109,24 @@ public class BwProvisionerSimple extends BwProvisioner {
 		this.bwTable = bwTable;
 	}
 
+	@Override
+	public void saveState(CheckpointOutput out) throws IOException {
+		super.saveState(out);
+		out.writeInt(getBwTable().size());
+		for (Map.Entry<String, Long> entry : getBwTable().entrySet()) {
+			out.writeUTF(entry.getKey());
+			out.writeLong(entry.getValue());
+		}
+	}
+
+	@Override
+	public void restoreState(CheckpointInput in) throws IOException {
+		super.restoreState(in);
+		Map<String, Long> table = new HashMap<String, Long>();
+		for (int i = in.readInt(); i > 0; i--) {
+			table.put(in.readUTF(), in.readLong());
+		}
+		setBwTable(table);
+	}
+
 }
@@ -8,10 +8,13 @@
 
 package org.cloudbus.cloudsim.provisioners;
 
+import java.io.IOException;
 import java.util.List;
 import org.cloudbus.cloudsim.DatacenterCharacteristics;
 
 import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.core.CheckpointInput;
+import org.cloudbus.cloudsim.core.CheckpointOutput;
 
 /**
 /**
@@ -213,4 +216,29 @@ public abstract class PeProvisioner {
 		return getTotalAllocatedMips() / getMips();
 	}
 
+	/**
+	 * Saves the state of the provisioner in a checkpoint of the simulation: its MIPS and its
+	 * available MIPS. Subclasses keeping the allocations of the VMs override this method, calling
+	 * it first, and {@link #restoreState(CheckpointInput)} along with it.
+	 * 
+	 * @param out the checkpoint stream
+	 * @throws IOException if the state can't be written
+	 * @see org.cloudbus.cloudsim.core.CloudSim#saveCheckpoint(String)
+	 */
+	public void saveState(CheckpointOutput out) throws IOException {
+		out.writeDouble(getMips());
+		out.writeDouble(getAvailableMips());
+	}
+
+	/**
+	 * Restores the state of the provisioner saved by {@link #saveState(CheckpointOutput)}.
+	 * 
+	 * @param in the checkpoint stream
+	 * @throws IOException if the state can't be read
+	 */
+	public void restoreState(CheckpointInput in) throws IOException {
+		setMips(in.readDouble());
+		setAvailableMips(in.readDouble());
+	}
+
 }
@@ -8,12 +8,15 @@
 
 package org.cloudbus.cloudsim.provisioners;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.core.CheckpointInput;
+import org.cloudbus.cloudsim.core.CheckpointOutput;
 
 /**
  * PeProvisionerSimple is an extension of {@link PeProvisioner} which uses a best-effort policy to
@@ -155,4 +158,24 @@ public class PeProvisionerSimple extends PeProvisioner {
 		this.peTable = (Map<String, List<Double>>) peTable;
 	}
 
+	@Override
+	public void saveState(CheckpointOutput out) throws IOException {
+		super.saveState(out);
+		out.writeInt(getPeTable().size());
+		for (Map.Entry<String, List<Double>> entry : getPeTable().entrySet()) {
+			out.writeUTF(entry.getKey());
+			out.writeDoubleList(entry.getValue());
+		}
+	}
+
+	@Override
+	public void restoreState(CheckpointInput in) throws IOException {
+		super.restoreState(in);
+		Map<String, List<Double>> peTable = new HashMap<String, List<Double>>();
+		for (int i = in.readInt(); i > 0; i--) {
+			peTable.put(in.readUTF(), in.readDoubleList());
+		}
+		setPeTable(peTable);
+	}
+
 }
@@ -8,7 +8,11 @@
 
 package org.cloudbus.cloudsim.provisioners;
 
+import java.io.IOException;
+
 import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.core.CheckpointInput;
+import org.cloudbus.cloudsim.core.CheckpointOutput;
 
 /**
  * RamProvisioner is an abstract class that represents the provisioning policy used by a host
@@ -147,4 +151,29 @@ public abstract class RamProvisioner {
 		this.availableRam = availableRam;
 	}
 
+	/**
+	 * Saves the state of the provisioner in a checkpoint of the simulation: its RAM and its
+	 * available RAM. Subclasses keeping the allocations of the VMs override this method, calling
+	 * it first, and {@link #restoreState(CheckpointInput)} along with it.
+	 * 
+	 * @param out the checkpoint stream
+	 * @throws IOException if the state can't be written
+	 * @see org.cloudbus.cloudsim.core.CloudSim#saveCheckpoint(String)
+	 */
+	public void saveState(CheckpointOutput out) throws IOException {
+		out.writeInt(getRam());
+		out.writeInt(getAvailableRam());
+	}
+
+	/**
+	 * Restores the state of the provisioner saved by {@link #saveState(CheckpointOutput)}.
+	 * 
+	 * @param in the checkpoint stream
+	 * @throws IOException if the state can't be read
+	 */
+	public void restoreState(CheckpointInput in) throws IOException {
+		setRam(in.readInt());
+		setAvailableRam(in.readInt());
+	}
+
 }
@@ -8,10 +8,13 @@
 
 package org.cloudbus.cloudsim.provisioners;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 
 import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.core.CheckpointInput;
+import org.cloudbus.cloudsim.core.CheckpointOutput;
 
 /**
  * RamProvisionerSimple is an extension of {@link RamProvisioner} which uses a best-effort policy to
@@ -114,4 +117,24 @@ public class RamProvisionerSimple extends RamProvisioner {
 		this.ramTable = ramTable;
 	}
 
+	@Override
+	public void saveState(CheckpointOutput out) throws IOException {
+		super.saveState(out);
+		out.writeInt(getRamTable().size());
+		for (Map.Entry<String, Integer> entry : getRamTable().entrySet()) {
+			out.writeUTF(entry.getKey());
+			out.writeInt(entry.getValue());
+		}
+	}
+
+	@Override
+	public void restoreState(CheckpointInput in) throws IOException {
+		super.restoreState(in);
+		Map<String, Integer> table = new HashMap<String, Integer>();
+		for (int i = in.readInt(); i > 0; i--) {
+			table.put(in.readUTF(), in.readInt());
+		}
+		setRamTable(table);
+	}
+
 }
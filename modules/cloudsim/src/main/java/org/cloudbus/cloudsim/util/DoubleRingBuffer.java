@@ -0,0 +1,229 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.util;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * A fixed-capacity history of double values, stored in a circular array. The latest value added
+ * is at index 0; once the buffer is full, adding a value drops the oldest one. Adding a value and
+ * accessing a value by its index take constant time, and the sum of the values and the sum of
+ * their squared deviations from the mean are kept up to date as values are added, with Welford's
+ * method, so that the mean and the variance are computed in constant time too. Unlike a sum of
+ * squares, the squared deviations keep the variance accurate when the values are large compared
+ * to their spread.
+ *
+ * @since CloudSim Toolkit 4.0
+ */
+public class DoubleRingBuffer {
+
+	/** The values, the latest one being at {@link #head}. */
+	private final double[] values;
+
+	/** The position of the latest value in {@link #values}. */
+	private int head;
+
+	/** The number of values in the buffer. */
+	private int size;
+
+	/** The sum of the values. */
+	private double sum;
+
+	/** The sum of the squared deviations of the values from their mean. */
+	private double squaredDeviations;
+
+	/**
+	 * Creates an empty buffer.
+	 *
+	 * @param capacity the maximum number of values kept
+	 */
+	public DoubleRingBuffer(int capacity) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("The capacity must be greater than 0");
+		}
+		values = new double[capacity];
+	}
+
+	/**
+	 * Adds a value as the latest one, dropping the oldest value if the buffer is full.
+	 *
+	 * @param value the value
+	 */
+	public void add(double value) {
+		head = head == 0 ? values.length - 1 : head - 1;
+		if (size == values.length) {
+			// the value replaces the oldest one, the number of values staying the same
+			double oldest = values[head];
+			double oldMean = sum / size;
+			sum += value - oldest;
+			squaredDeviations += (value - oldest) * (value - sum / size + oldest - oldMean);
+		} else {
+			double oldMean = size == 0 ? value : sum / size;
+			size++;
+			sum += value;
+			squaredDeviations += (value - oldMean) * (value - sum / size);
+		}
+		values[head] = value;
+		if (head == 0 && size == values.length) {
+			// once per round over the buffer, so the running sums don't drift
+			sum = 0;
+			for (double v : values) {
+				sum += v;
+			}
+			double mean = sum / size;
+			squaredDeviations = 0;
+			for (double v : values) {
+				squaredDeviations += (v - mean) * (v - mean);
+			}
+		}
+	}
+
+	/**
+	 * Gets a value.
+	 *
+	 * @param index the index of the value, 0 being the latest value added
+	 * @return the value
+	 */
+	public double get(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		}
+		int i = head + index;
+		return values[i < values.length ? i : i - values.length];
+	}
+
+	/**
+	 * Gets the number of values in the buffer.
+	 *
+	 * @return the number of values
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Checks if the buffer is empty.
+	 *
+	 * @return true, if there is no value in the buffer; false otherwise
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Gets the maximum number of values kept.
+	 *
+	 * @return the capacity
+	 */
+	public int getCapacity() {
+		return values.length;
+	}
+
+	/**
+	 * Gets the sum of the values.
+	 *
+	 * @return the sum
+	 */
+	public double getSum() {
+		return sum;
+	}
+
+	/**
+	 * Gets the sum of the squares of the values.
+	 *
+	 * @return the sum of squares
+	 */
+	public double getSumOfSquares() {
+		if (size == 0) {
+			return 0;
+		}
+		return squaredDeviations + sum * sum / size;
+	}
+
+	/**
+	 * Gets the mean of the values.
+	 *
+	 * @return the mean, or 0 if the buffer is empty
+	 */
+	public double getMean() {
+		if (size == 0) {
+			return 0;
+		}
+		return sum / size;
+	}
+
+	/**
+	 * Gets the population variance of the values.
+	 *
+	 * @return the variance, or 0 if the buffer is empty
+	 */
+	public double getVariance() {
+		if (size == 0) {
+			return 0;
+		}
+		// the rounding of the running updates may leave a tiny negative sum for equal values
+		return Math.max(0, squaredDeviations / size);
+	}
+
+	/**
+	 * Copies the values into an array, the latest value first.
+	 *
+	 * @return the values
+	 */
+	public double[] toArray() {
+		double[] result = new double[size];
+		int first = Math.min(size, values.length - head);
+		System.arraycopy(values, head, result, 0, first);
+		System.arraycopy(values, 0, result, first, size - first);
+		return result;
+	}
+
+	/**
+	 * Writes the state of the buffer, including its running sums, so that a buffer restored with
+	 * {@link #readState(DataInput)} gives exactly the same results as this one.
+	 *
+	 * @param out the output
+	 * @throws IOException if the state can't be written
+	 */
+	public void writeState(DataOutput out) throws IOException {
+		out.writeInt(values.length);
+		out.writeInt(head);
+		out.writeInt(size);
+		out.writeDouble(sum);
+		out.writeDouble(squaredDeviations);
+		for (double value : values) {
+			out.writeDouble(value);
+		}
+	}
+
+	/**
+	 * Reads the state of the buffer written by {@link #writeState(DataOutput)}.
+	 *
+	 * @param in the input
+	 * @throws IOException if the state can't be read
+	 * @throws IllegalStateException if the saved buffer didn't have the capacity of this one
+	 */
+	public void readState(DataInput in) throws IOException {
+		int capacity = in.readInt();
+		if (capacity != values.length) {
+			throw new IllegalStateException("The saved buffer has a capacity of " + capacity + " instead of "
+					+ values.length);
+		}
+		head = in.readInt();
+		size = in.readInt();
+		sum = in.readDouble();
+		squaredDeviations = in.readDouble();
+		for (int i = 0; i < values.length; i++) {
+			values[i] = in.readDouble();
+		}
+	}
+
+}
@@ -29,8 +29,16 @@ public class ExecutionTimeMeasurer {
          * @todo The name of the attribute doesn't match with what it stores.
          * It in fact stores the method/process start time,
          * no the time it spent executing.
+         * There is one map per thread, so that entities running in parallel
+         * can measure the same method/process at the same time.
          */
-	private final static Map<String, Long> executionTimes = new HashMap<String, Long>();
+	private final static ThreadLocal<Map<String, Long>> executionTimes = new ThreadLocal<Map<String, Long>>() {
+
+		@Override
+		protected Map<String, Long> initialValue() {
+			return new HashMap<String, Long>();
+		}
+	};
 
 	/**
 	 * Start measuring the execution time of a method/process.
@@ -58,13 +66,13 @@ public class ExecutionTimeMeasurer {
 	}
 
 	/**
-	 * Gets map the execution times.
+	 * Gets map the execution times of the current thread.
 	 * 
 	 * @return the execution times map
          * @see #executionTimes
 	 */
 	public static Map<String, Long> getExecutionTimes() {
-		return executionTimes;
+		return executionTimes.get();
 	}
 
 }
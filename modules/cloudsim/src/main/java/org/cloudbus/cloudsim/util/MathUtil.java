@@ -11,6 +11,7 @@ package org.cloudbus.cloudsim.util;
 import java.util.Arrays;
 import java.util.List;
 
+import org.apache.commons.math3.linear.Array2DRowRealMatrix;
 import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics;
 import org.apache.commons.math3.stat.regression.OLSMultipleLinearRegression;
 import org.apache.commons.math3.stat.regression.SimpleRegression;
@@ -24,6 +25,13 @@ import org.apache.commons.math3.stat.regression.SimpleRegression;
  */
 public class MathUtil {
 
+	/**
+	 * The smallest part of the variance of a variable that is not explained by the other ones, for
+	 * {@link #getMultipleCorrelationCoefficients(double[][])} to compute the coefficients from the
+	 * correlation matrix rather than by fitting the regressions.
+	 */
+	private static final double MULTIPLE_CORRELATION_SINGULARITY_THRESHOLD = 1e-8;
+
 	/**
 	 * Sums a list of numbers.
 	 * 
@@ -365,6 +373,183 @@ public class MathUtil {
 		return weights2;
 	}
 
+	/**
+	 * Gets the coefficient of determination (R<sup>2</sup>) of the multiple linear regression, with
+	 * an intercept, of each variable on all the other ones. They are all computed from the
+	 * correlation matrix C of the variables, as the R<sup>2</sup> of the variable i is
+	 * 1 - 1 / (C<sup>-1</sup>)<sub>ii</sub>, instead of fitting a regression for each variable.
+	 * 
+	 * <br/>When the regressions are degenerate, that is when there are as many values as
+	 * variables, when a variable is constant or when a variable is almost a linear combination of
+	 * other ones, the coefficients are those of
+	 * {@link #getMultipleCorrelationCoefficientsByRegression(double[][])}, whatever they are.
+	 * 
+	 * @param data the data, where each row holds the values of a variable
+	 * @return the R<sup>2</sup> of each variable
+	 * @throws IllegalArgumentException if there are less than 2 variables or less values than
+	 *             variables, or if the regressions cannot be fitted
+	 */
+	public static double[] getMultipleCorrelationCoefficients(final double[][] data) {
+		int n = data.length;
+		if (n < 2) {
+			throw new IllegalArgumentException("At least 2 variables are needed, got " + n);
+		}
+		int m = data[0].length;
+		for (double[] row : data) {
+			if (row.length != m) {
+				throw new IllegalArgumentException("The variables have different numbers of values");
+			}
+		}
+		if (m < n) {
+			throw new IllegalArgumentException("Not enough values for " + n + " variables: " + m);
+		}
+		double[] coefficients = null;
+		if (m > n) {
+			coefficients = getMultipleCorrelationCoefficientsFromCorrelationMatrix(data);
+		}
+		if (coefficients == null) {
+			coefficients = getMultipleCorrelationCoefficientsByRegression(data);
+		}
+		return coefficients;
+	}
+
+	/**
+	 * Gets the coefficient of determination (R<sup>2</sup>) of the multiple linear regression, with
+	 * an intercept, of each variable on all the other ones, by fitting an ordinary least squares
+	 * regression for each variable.
+	 * 
+	 * @param data the data, where each row holds the values of a variable
+	 * @return the R<sup>2</sup> of each variable
+	 * @throws IllegalArgumentException if there are less than 2 variables or less values than
+	 *             variables, or if a regression cannot be fitted
+	 */
+	public static double[] getMultipleCorrelationCoefficientsByRegression(final double[][] data) {
+		int n = data.length;
+		int m = data[0].length;
+		double[] coefficients = new double[n];
+		for (int i = 0; i < n; i++) {
+			double[][] x = new double[n - 1][m];
+			int k = 0;
+			for (int j = 0; j < n; j++) {
+				if (j != i) {
+					x[k++] = data[j];
+				}
+			}
+
+			// Transpose the matrix so that it fits the linear model
+			double[][] xT = new Array2DRowRealMatrix(x).transpose().getData();
+
+			// RSquare is the "coefficient of determination"
+			coefficients[i] = createLinearRegression(xT, data[i]).calculateRSquared();
+		}
+		return coefficients;
+	}
+
+	/**
+	 * Gets the multiple correlation coefficients from the correlation matrix, factored by
+	 * Cholesky.
+	 * 
+	 * @param data the data, where each row holds the values of a variable, with more values than
+	 *            variables
+	 * @return the R<sup>2</sup> of each variable, or null if a variable is constant or almost a
+	 *         linear combination of other ones
+	 */
+	private static double[] getMultipleCorrelationCoefficientsFromCorrelationMatrix(final double[][] data) {
+		int n = data.length;
+		int m = data[0].length;
+
+		// the variables centered
+		double[][] centered = new double[n][];
+		for (int i = 0; i < n; i++) {
+			if (isConstant(data[i])) {
+				return null;
+			}
+			double mean = 0;
+			for (int k = 0; k < m; k++) {
+				mean += data[i][k];
+			}
+			mean /= m;
+			double[] row = new double[m];
+			for (int k = 0; k < m; k++) {
+				row[k] = data[i][k] - mean;
+			}
+			centered[i] = row;
+		}
+
+		// the lower triangle of the correlation matrix, overwritten by its Cholesky factor L
+		double[][] l = new double[n][n];
+		for (int i = 0; i < n; i++) {
+			for (int j = 0; j <= i; j++) {
+				double sum = 0;
+				for (int k = 0; k < m; k++) {
+					sum += centered[i][k] * centered[j][k];
+				}
+				l[i][j] = sum;
+			}
+		}
+		double[] deviation = new double[n];
+		for (int i = 0; i < n; i++) {
+			deviation[i] = Math.sqrt(l[i][i]);
+		}
+		for (int i = 0; i < n; i++) {
+			for (int j = 0; j < i; j++) {
+				l[i][j] /= deviation[i] * deviation[j];
+			}
+			l[i][i] = 1;
+		}
+		for (int j = 0; j < n; j++) {
+			double pivot = l[j][j];
+			for (int k = 0; k < j; k++) {
+				pivot -= l[j][k] * l[j][k];
+			}
+			// the pivot is 1 - R2 of the variable j on the previous ones
+			if (!(pivot > MULTIPLE_CORRELATION_SINGULARITY_THRESHOLD)) {
+				return null;
+			}
+			l[j][j] = Math.sqrt(pivot);
+			for (int i = j + 1; i < n; i++) {
+				double sum = l[i][j];
+				for (int k = 0; k < j; k++) {
+					sum -= l[i][k] * l[j][k];
+				}
+				l[i][j] = sum / l[j][j];
+			}
+		}
+
+		// (C^-1)ii is the squared norm of the column i of L^-1, computed column by column
+		double[] coefficients = new double[n];
+		double[] column = new double[n];
+		for (int i = 0; i < n; i++) {
+			column[i] = 1 / l[i][i];
+			double inverseDiagonal = column[i] * column[i];
+			for (int r = i + 1; r < n; r++) {
+				double sum = 0;
+				for (int k = i; k < r; k++) {
+					sum += l[r][k] * column[k];
+				}
+				column[r] = -sum / l[r][r];
+				inverseDiagonal += column[r] * column[r];
+			}
+			coefficients[i] = 1 - 1 / inverseDiagonal;
+		}
+		return coefficients;
+	}
+
+	/**
+	 * Checks if all the values of an array are equal.
+	 * 
+	 * @param data the array of values
+	 * @return true, if the array has no two different values; false otherwise
+	 */
+	private static boolean isConstant(final double[] data) {
+		for (int i = 1; i < data.length; i++) {
+			if (data[i] != data[0]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
 	/**
 	 * Gets the absolute values of an array of values
 	 * 
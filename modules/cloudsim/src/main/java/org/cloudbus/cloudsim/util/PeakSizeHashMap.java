@@ -0,0 +1,93 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.util;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A hash map remembering the largest number of entries it has held. The order in which a hash map
+ * iterates over its entries depends on its capacity, which grows with the number of entries and
+ * never shrinks, even when the map is cleared. A map created with {@link #PeakSizeHashMap(int)}
+ * for the peak size of another map has the same capacity: once the entries of the other map are
+ * put in it in their iteration order, it iterates over them, and over the entries added next, in
+ * the same order. This is how the maps iterated by the VM schedulers are restored from a
+ * checkpoint of the simulation.
+ * 
+ * <br/>The peak size is only tracked by {@link #put(Object, Object)} and {@link #putAll(Map)}.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ * @since CloudSim Toolkit 4.0
+ */
+public class PeakSizeHashMap<K, V> extends HashMap<K, V> {
+
+	private static final long serialVersionUID = 1L;
+
+	/** The default capacity of a hash map. */
+	private static final int DEFAULT_CAPACITY = 16;
+
+	/** The largest number of entries the map has held. */
+	private int peakSize;
+
+	/**
+	 * Creates an empty map.
+	 */
+	public PeakSizeHashMap() {
+		super();
+	}
+
+	/**
+	 * Creates an empty map with the capacity of a hash map which has held a given number of entries.
+	 *
+	 * @param peakSize the largest number of entries the hash map has held
+	 */
+	public PeakSizeHashMap(int peakSize) {
+		super(getCapacity(peakSize));
+		this.peakSize = peakSize;
+	}
+
+	@Override
+	public V put(K key, V value) {
+		V previous = super.put(key, value);
+		peakSize = Math.max(peakSize, size());
+		return previous;
+	}
+
+	@Override
+	public void putAll(Map<? extends K, ? extends V> m) {
+		super.putAll(m);
+		peakSize = Math.max(peakSize, size());
+	}
+
+	/**
+	 * Gets the largest number of entries the map has held.
+	 *
+	 * @return the peak size
+	 */
+	public int getPeakSize() {
+		return peakSize;
+	}
+
+	/**
+	 * Gets the capacity a hash map created with the default capacity has once it has held a given
+	 * number of entries: the capacity doubles whenever the entries exceed three quarters of it.
+	 *
+	 * @param peakSize the largest number of entries the hash map has held
+	 * @return the capacity
+	 */
+	private static int getCapacity(int peakSize) {
+		int capacity = DEFAULT_CAPACITY;
+		while (peakSize > capacity * 3 / 4) {
+			capacity *= 2;
+		}
+		return capacity;
+	}
+
+}
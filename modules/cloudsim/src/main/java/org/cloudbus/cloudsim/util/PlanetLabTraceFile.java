@@ -0,0 +1,247 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.util;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A PlanetLab workload day packed into a single binary file. The text traces of a day folder, one
+ * file per VM with one CPU utilization percentage per line, are converted once with
+ * {@link #convert(File, File, int)}; the binary file is then opened with {@link #open(File)}, which
+ * maps it read-only in memory, so that loading a day does not parse any text and all the VMs of
+ * the day read their samples from the same pages.
+ *
+ * <p/>
+ * The file starts with a header made of the magic number, the format version, the number of
+ * traces, the number of samples of each trace and the number of bytes of each sample, followed by
+ * the names of the trace files in the order they were converted. The samples follow as a
+ * row-major VM &times; sample table of unsigned bytes, or unsigned shorts if any percentage is
+ * greater than 255.
+ *
+ * @see org.cloudbus.cloudsim.UtilizationModelPlanetLabMapped
+ * @since CloudSim Toolkit 4.0
+ */
+public class PlanetLabTraceFile {
+
+	/** The magic number at the start of a trace file, "PLTR". */
+	public static final int MAGIC = 0x504c5452;
+
+	/** The version of the format. */
+	public static final int VERSION = 1;
+
+	/** The number of samples in a day of PlanetLab trace (5 min * 288 = 24 hours). */
+	public static final int DAY_SAMPLES = 288;
+
+	/** The file. */
+	private final File file;
+
+	/** The mapped content of the file. */
+	private final MappedByteBuffer buffer;
+
+	/** The names of the traces. */
+	private final String[] names;
+
+	/** The number of samples of each trace. */
+	private final int samples;
+
+	/** The number of bytes of each sample, 1 or 2. */
+	private final int sampleBytes;
+
+	/** The position of the first sample in the buffer. */
+	private final int dataOffset;
+
+	private PlanetLabTraceFile(File file, MappedByteBuffer buffer, String[] names, int samples,
+			int sampleBytes, int dataOffset) {
+		this.file = file;
+		this.buffer = buffer;
+		this.names = names;
+		this.samples = samples;
+		this.sampleBytes = sampleBytes;
+		this.dataOffset = dataOffset;
+	}
+
+	/**
+	 * Converts the text traces of a folder into a binary trace file. The traces are stored in the
+	 * order the folder lists its files, which is the order the PlanetLab examples create their
+	 * cloudlets in.
+	 *
+	 * @param inputFolder the folder of the text traces
+	 * @param outputFile the binary trace file to be written
+	 * @param samples the number of samples to read from each trace
+	 * @throws IOException if a trace cannot be read, has fewer samples than requested or if the
+	 *             output file cannot be written
+	 */
+	public static void convert(File inputFolder, File outputFile, int samples) throws IOException {
+		if (samples < 1) {
+			throw new IllegalArgumentException("The number of samples must be positive");
+		}
+		File[] files = inputFolder.listFiles();
+		if (files == null) {
+			throw new IOException(inputFolder + " is not a readable folder");
+		}
+
+		int[][] data = new int[files.length][samples];
+		int max = 0;
+		for (int i = 0; i < files.length; i++) {
+			BufferedReader input = new BufferedReader(new FileReader(files[i]));
+			try {
+				for (int j = 0; j < samples; j++) {
+					String line = input.readLine();
+					if (line == null) {
+						throw new IOException(files[i] + " has fewer than " + samples + " samples");
+					}
+					int value = Integer.parseInt(line);
+					if (value < 0 || value > 0xffff) {
+						throw new IOException(files[i] + " has an out of range sample: " + value);
+					}
+					data[i][j] = value;
+					max = Math.max(max, value);
+				}
+			} finally {
+				input.close();
+			}
+		}
+		int sampleBytes = max > 0xff ? 2 : 1;
+
+		DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(
+				outputFile)));
+		try {
+			output.writeInt(MAGIC);
+			output.writeInt(VERSION);
+			output.writeInt(files.length);
+			output.writeInt(samples);
+			output.writeInt(sampleBytes);
+			for (File file : files) {
+				output.writeUTF(file.getName());
+			}
+			for (int[] trace : data) {
+				for (int value : trace) {
+					if (sampleBytes == 1) {
+						output.writeByte(value);
+					} else {
+						output.writeShort(value);
+					}
+				}
+			}
+		} finally {
+			output.close();
+		}
+	}
+
+	/**
+	 * Opens a binary trace file, mapping it read-only in memory.
+	 *
+	 * @param file the binary trace file
+	 * @return the trace file
+	 * @throws IOException if the file cannot be read or is not a trace file
+	 */
+	public static PlanetLabTraceFile open(File file) throws IOException {
+		MappedByteBuffer buffer;
+		RandomAccessFile input = new RandomAccessFile(file, "r");
+		try {
+			FileChannel channel = input.getChannel();
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		} finally {
+			input.close();
+		}
+
+		if (buffer.remaining() < 20 || buffer.getInt() != MAGIC) {
+			throw new IOException(file + " is not a PlanetLab trace file");
+		}
+		int version = buffer.getInt();
+		if (version != VERSION) {
+			throw new IOException(file + " has the unsupported format version " + version);
+		}
+		int traces = buffer.getInt();
+		int samples = buffer.getInt();
+		int sampleBytes = buffer.getInt();
+		if (traces < 0 || samples < 1 || sampleBytes != 1 && sampleBytes != 2) {
+			throw new IOException(file + " has a corrupted header");
+		}
+
+		String[] names = new String[traces];
+		for (int i = 0; i < traces; i++) {
+			byte[] name = new byte[buffer.getShort() & 0xffff];
+			buffer.get(name);
+			// the names are plain file names, for which modified UTF-8 is the same as UTF-8
+			names[i] = new String(name, StandardCharsets.UTF_8);
+		}
+		int dataOffset = buffer.position();
+		if (buffer.limit() - dataOffset != (long) traces * samples * sampleBytes) {
+			throw new IOException(file + " is truncated");
+		}
+		return new PlanetLabTraceFile(file, buffer, names, samples, sampleBytes, dataOffset);
+	}
+
+	/**
+	 * Gets the file.
+	 *
+	 * @return the file
+	 */
+	public File getFile() {
+		return file;
+	}
+
+	/**
+	 * Gets the number of traces, one for each VM.
+	 *
+	 * @return the number of traces
+	 */
+	public int getNumberOfTraces() {
+		return names.length;
+	}
+
+	/**
+	 * Gets the number of samples of each trace.
+	 *
+	 * @return the number of samples
+	 */
+	public int getNumberOfSamples() {
+		return samples;
+	}
+
+	/**
+	 * Gets the name of the text file a trace was converted from.
+	 *
+	 * @param trace the index of the trace
+	 * @return the name of the trace
+	 */
+	public String getTraceName(int trace) {
+		return names[trace];
+	}
+
+	/**
+	 * Gets a sample of a trace, as the CPU utilization percentage of the text trace.
+	 *
+	 * @param trace the index of the trace
+	 * @param sample the index of the sample
+	 * @return the sample
+	 */
+	public int getSample(int trace, int sample) {
+		if (trace < 0 || trace >= names.length || sample < 0 || sample >= samples) {
+			throw new IndexOutOfBoundsException("Sample " + sample + " of trace " + trace);
+		}
+		int index = dataOffset + (trace * samples + sample) * sampleBytes;
+		if (sampleBytes == 1) {
+			return buffer.get(index) & 0xff;
+		}
+		return buffer.getShort(index) & 0xffff;
+	}
+
+}
@@ -0,0 +1,130 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.util;
+
+/**
+ * The linear interpolation of a {@link UtilizationTrace} sampled at a fixed scheduling interval,
+ * with the utilization of each sample and the slope of each segment between two samples computed
+ * once. As in the PlanetLab utilization models, the trace is followed by a copy of its last sample.
+ *
+ * <p/>
+ * {@link #getUtilization(double)} gives exactly the same result as the interpolation of the
+ * PlanetLab models it replaces: the slopes are computed with the same operations, and the times
+ * for which the two could differ, such as negative times or times rounding to a sample without
+ * being a multiple of the interval, are handed over to that interpolation.
+ *
+ * @since CloudSim Toolkit 4.0
+ */
+public final class UtilizationInterpolationTable {
+
+	/** The scheduling interval. */
+	private final double interval;
+
+	/** The utilization of each sample, followed by a copy of the last one. */
+	private final double[] utilization;
+
+	/** The slope of the segment starting at each sample, in utilization per unit of time. */
+	private final double[] slope;
+
+	/**
+	 * Whether the interval is an integer such that the multiples of the interval up to the end of
+	 * the trace are exact, and can be compared with the time instead of computing the remainder of
+	 * the time by the interval.
+	 */
+	private final boolean exactMultiples;
+
+	/**
+	 * Instantiates a new interpolation table.
+	 *
+	 * @param trace the trace
+	 * @param interval the scheduling interval
+	 */
+	public UtilizationInterpolationTable(UtilizationTrace trace, double interval) {
+		int samples = trace.getNumberOfSamples();
+		this.interval = interval;
+		utilization = new double[samples + 1];
+		for (int i = 0; i < samples; i++) {
+			utilization[i] = trace.getUtilization(i);
+		}
+		utilization[samples] = utilization[samples - 1];
+		slope = new double[samples];
+		for (int i = 0; i < samples; i++) {
+			slope[i] = (utilization[i + 1] - utilization[i]) / interval;
+		}
+		exactMultiples = interval > 0 && interval == Math.rint(interval)
+				&& samples * interval < Integer.MAX_VALUE;
+	}
+
+	/**
+	 * Gets the utilization at a given time, interpolated between the samples around it.
+	 *
+	 * @param time the time
+	 * @return the utilization
+	 */
+	public double getUtilization(double time) {
+		double position = time / interval;
+		int time1 = (int) position;
+		if (time1 != position) {
+			if (position > 0 && time1 < slope.length) {
+				return utilization[time1] + slope[time1] * (time - time1 * interval);
+			}
+		} else if (exactMultiples && time1 >= 0 && time1 < utilization.length
+				&& time == time1 * interval) {
+			return utilization[time1];
+		}
+		return interpolate(time);
+	}
+
+	/**
+	 * Gets the utilization at a given time with the interpolation of the PlanetLab models.
+	 *
+	 * @param time the time
+	 * @return the utilization
+	 */
+	private double interpolate(double time) {
+		if (time % interval == 0) {
+			return utilization[(int) time / (int) interval];
+		}
+		int time1 = (int) Math.floor(time / interval);
+		int time2 = (int) Math.ceil(time / interval);
+		double utilization1 = utilization[time1];
+		double utilization2 = utilization[time2];
+		double delta = (utilization2 - utilization1) / ((time2 - time1) * interval);
+		return utilization1 + delta * (time - time1 * interval);
+	}
+
+	/**
+	 * Gets the scheduling interval.
+	 *
+	 * @return the scheduling interval
+	 */
+	public double getInterval() {
+		return interval;
+	}
+
+	/**
+	 * Gets the number of samples, including the copy of the last one.
+	 *
+	 * @return the number of samples
+	 */
+	public int getNumberOfSamples() {
+		return utilization.length;
+	}
+
+	/**
+	 * Gets the utilization of a sample.
+	 *
+	 * @param index the index of the sample
+	 * @return the utilization
+	 */
+	public double getSample(int index) {
+		return utilization[index];
+	}
+
+}
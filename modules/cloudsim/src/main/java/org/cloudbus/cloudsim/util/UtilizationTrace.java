@@ -0,0 +1,140 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.util;
+
+import java.util.Arrays;
+
+/**
+ * An immutable utilization trace, made of CPU utilization percentages such as the ones of the
+ * PlanetLab trace files. The percentages are stored as shorts when they all fit in a short, which
+ * is the case of the PlanetLab traces, and as ints otherwise. Two traces are equal if they have the
+ * same samples, so that a {@link UtilizationTraceCache} keeps a single copy of identical traces.
+ *
+ * @since CloudSim Toolkit 4.0
+ */
+public final class UtilizationTrace {
+
+	/** The samples, when they all fit in a short. */
+	private final short[] shortSamples;
+
+	/** The samples, when some of them do not fit in a short. */
+	private final int[] intSamples;
+
+	/** The hash code of the samples. */
+	private final int hash;
+
+	/** The interpolation table of the last scheduling interval it was requested for. */
+	private volatile UtilizationInterpolationTable interpolationTable;
+
+	/**
+	 * Instantiates a new trace.
+	 *
+	 * @param samples the utilization percentages, which are copied
+	 */
+	public UtilizationTrace(int[] samples) {
+		boolean fitsInShort = true;
+		for (int sample : samples) {
+			if (sample != (short) sample) {
+				fitsInShort = false;
+				break;
+			}
+		}
+		if (fitsInShort) {
+			shortSamples = new short[samples.length];
+			for (int i = 0; i < samples.length; i++) {
+				shortSamples[i] = (short) samples[i];
+			}
+			intSamples = null;
+		} else {
+			shortSamples = null;
+			intSamples = samples.clone();
+		}
+		hash = Arrays.hashCode(samples);
+	}
+
+	/**
+	 * Gets the number of samples.
+	 *
+	 * @return the number of samples
+	 */
+	public int getNumberOfSamples() {
+		return shortSamples != null ? shortSamples.length : intSamples.length;
+	}
+
+	/**
+	 * Gets a sample, as a utilization percentage.
+	 *
+	 * @param index the index of the sample
+	 * @return the sample
+	 */
+	public int getSample(int index) {
+		return shortSamples != null ? shortSamples[index] : intSamples[index];
+	}
+
+	/**
+	 * Gets a sample as a utilization, that is the percentage divided by 100.
+	 *
+	 * @param index the index of the sample
+	 * @return the utilization
+	 */
+	public double getUtilization(int index) {
+		return getSample(index) / 100.0;
+	}
+
+	/**
+	 * Gets the number of bytes taken by the samples.
+	 *
+	 * @return the size of the samples in bytes
+	 */
+	public long getResidentBytes() {
+		return shortSamples != null ? 2L * shortSamples.length : 4L * intSamples.length;
+	}
+
+	/**
+	 * Gets the interpolation table of the trace for a scheduling interval. The table is built on
+	 * the first request and shared by the following requests for the same interval, so that the
+	 * models of a trace share their table too. It is not counted in the resident bytes of the
+	 * trace.
+	 *
+	 * @param interval the scheduling interval
+	 * @return the interpolation table
+	 */
+	public UtilizationInterpolationTable getInterpolationTable(double interval) {
+		UtilizationInterpolationTable table = interpolationTable;
+		if (table == null || table.getInterval() != interval) {
+			table = new UtilizationInterpolationTable(this, interval);
+			interpolationTable = table;
+		}
+		return table;
+	}
+
+	@Override
+	public int hashCode() {
+		return hash;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof UtilizationTrace)) {
+			return false;
+		}
+		UtilizationTrace other = (UtilizationTrace) obj;
+		if (hash != other.hash) {
+			return false;
+		}
+		if (shortSamples != null) {
+			return Arrays.equals(shortSamples, other.shortSamples);
+		}
+		return Arrays.equals(intSamples, other.intSamples);
+	}
+
+}
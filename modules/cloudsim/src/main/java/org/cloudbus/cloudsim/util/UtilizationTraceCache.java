@@ -0,0 +1,307 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.util;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A cache of the utilization traces read from text files with one utilization percentage per
+ * line, such as the PlanetLab trace files. A trace file is read once as long as it stays in the
+ * cache and is not modified, so that the experiments run one after the other in the same JVM, and
+ * the VMs running the same trace, share a single copy of it. Traces with the same content are also
+ * stored once, whatever file they are read from.
+ *
+ * <p/>
+ * The cache is bounded by the number of bytes of the traces it holds: when the bound is exceeded,
+ * the least recently used traces are evicted. An evicted trace stays valid for the models using
+ * it; it is only read again the next time it is requested.
+ *
+ * @see org.cloudbus.cloudsim.UtilizationModelPlanetLabInMemory
+ * @since CloudSim Toolkit 4.0
+ */
+public class UtilizationTraceCache {
+
+	/** The default bound of the cache, in bytes. */
+	public static final long DEFAULT_MAX_RESIDENT_BYTES = 64L * 1024 * 1024;
+
+	/** The cache used by the utilization models of the PlanetLab traces. */
+	private static final UtilizationTraceCache DEFAULT = new UtilizationTraceCache(
+			DEFAULT_MAX_RESIDENT_BYTES);
+
+	/** A trace read from a file, as long as the file is not modified. */
+	private static class FileEntry {
+
+		final long lastModified;
+
+		final long length;
+
+		final int lines;
+
+		final UtilizationTrace trace;
+
+		FileEntry(long lastModified, long length, int lines, UtilizationTrace trace) {
+			this.lastModified = lastModified;
+			this.length = length;
+			this.lines = lines;
+			this.trace = trace;
+		}
+	}
+
+	/** A distinct trace, with the paths of the files it was read from. */
+	private static class TraceEntry {
+
+		final UtilizationTrace trace;
+
+		final List<String> paths = new ArrayList<String>(1);
+
+		TraceEntry(UtilizationTrace trace) {
+			this.trace = trace;
+		}
+	}
+
+	/** The bound of the cache, in bytes. */
+	private long maxResidentBytes;
+
+	/** The traces by file path. */
+	private final Map<String, FileEntry> files = new HashMap<String, FileEntry>();
+
+	/** The distinct traces, in least recently used order. */
+	private final LinkedHashMap<UtilizationTrace, TraceEntry> traces = new LinkedHashMap<UtilizationTrace, TraceEntry>(
+			16,
+			0.75f,
+			true);
+
+	/** The number of bytes of the traces in the cache. */
+	private long residentBytes;
+
+	/** The number of requests served from the cache. */
+	private long hits;
+
+	/** The number of requests for which a file has been read. */
+	private long misses;
+
+	/** The number of files read whose trace was already in the cache. */
+	private long duplicates;
+
+	/** The number of traces evicted. */
+	private long evictions;
+
+	/**
+	 * Instantiates a new cache.
+	 *
+	 * @param maxResidentBytes the bound of the cache, in bytes
+	 */
+	public UtilizationTraceCache(long maxResidentBytes) {
+		setMaxResidentBytes(maxResidentBytes);
+	}
+
+	/**
+	 * Gets the cache shared by the whole JVM.
+	 *
+	 * @return the default cache
+	 */
+	public static UtilizationTraceCache getDefault() {
+		return DEFAULT;
+	}
+
+	/**
+	 * Gets the trace of a file, reading the file if its trace is not in the cache or if the file
+	 * has been modified since it was read.
+	 *
+	 * @param inputPath the path of the trace file
+	 * @param lines the number of lines to read
+	 * @return the trace
+	 * @throws NumberFormatException if a line is not an integer, or the file has fewer lines
+	 * @throws IOException if the file cannot be read
+	 */
+	public synchronized UtilizationTrace getTrace(String inputPath, int lines)
+			throws NumberFormatException,
+			IOException {
+		File file = new File(inputPath);
+		long lastModified = file.lastModified();
+		long length = file.length();
+		FileEntry entry = files.get(inputPath);
+		if (entry != null && entry.lines == lines && entry.lastModified == lastModified
+				&& entry.length == length && traces.get(entry.trace) != null) {
+			hits++;
+			return entry.trace;
+		}
+
+		misses++;
+		UtilizationTrace trace = read(inputPath, lines);
+		if (entry != null) {
+			remove(inputPath, entry.trace);
+		}
+		TraceEntry traceEntry = traces.get(trace);
+		if (traceEntry == null) {
+			traceEntry = new TraceEntry(trace);
+			traces.put(trace, traceEntry);
+			residentBytes += trace.getResidentBytes();
+		} else {
+			duplicates++;
+		}
+		traceEntry.paths.add(inputPath);
+		files.put(inputPath, new FileEntry(lastModified, length, lines, traceEntry.trace));
+		evict();
+		return traceEntry.trace;
+	}
+
+	/**
+	 * Reads the first lines of a trace file.
+	 *
+	 * @param inputPath the path of the trace file
+	 * @param lines the number of lines to read
+	 * @return the trace
+	 * @throws NumberFormatException if a line is not an integer, or the file has fewer lines
+	 * @throws IOException if the file cannot be read
+	 */
+	private static UtilizationTrace read(String inputPath, int lines)
+			throws NumberFormatException,
+			IOException {
+		int[] samples = new int[lines];
+		BufferedReader input = new BufferedReader(new FileReader(inputPath));
+		try {
+			for (int i = 0; i < lines; i++) {
+				samples[i] = Integer.parseInt(input.readLine());
+			}
+		} finally {
+			input.close();
+		}
+		return new UtilizationTrace(samples);
+	}
+
+	/**
+	 * Removes a path from the paths of a trace, and the trace once it has no path left.
+	 *
+	 * @param inputPath the path
+	 * @param trace the trace read from the path
+	 */
+	private void remove(String inputPath, UtilizationTrace trace) {
+		TraceEntry traceEntry = traces.get(trace);
+		if (traceEntry == null) {
+			return;
+		}
+		traceEntry.paths.remove(inputPath);
+		if (traceEntry.paths.isEmpty()) {
+			traces.remove(trace);
+			residentBytes -= trace.getResidentBytes();
+		}
+	}
+
+	/**
+	 * Evicts the least recently used traces until the cache fits in its bound.
+	 */
+	private void evict() {
+		Iterator<TraceEntry> iterator = traces.values().iterator();
+		while (residentBytes > maxResidentBytes && iterator.hasNext()) {
+			TraceEntry eldest = iterator.next();
+			for (String path : eldest.paths) {
+				files.remove(path);
+			}
+			residentBytes -= eldest.trace.getResidentBytes();
+			iterator.remove();
+			evictions++;
+		}
+	}
+
+	/**
+	 * Removes all the traces from the cache. The statistics are kept.
+	 */
+	public synchronized void clear() {
+		files.clear();
+		traces.clear();
+		residentBytes = 0;
+	}
+
+	/**
+	 * Sets the bound of the cache, evicting traces if the cache exceeds the new bound.
+	 *
+	 * @param maxResidentBytes the bound of the cache, in bytes
+	 */
+	public synchronized void setMaxResidentBytes(long maxResidentBytes) {
+		if (maxResidentBytes < 0) {
+			throw new IllegalArgumentException("The bound of the cache cannot be negative");
+		}
+		this.maxResidentBytes = maxResidentBytes;
+		evict();
+	}
+
+	/**
+	 * Gets the bound of the cache.
+	 *
+	 * @return the bound of the cache, in bytes
+	 */
+	public synchronized long getMaxResidentBytes() {
+		return maxResidentBytes;
+	}
+
+	/**
+	 * Gets the number of bytes of the traces in the cache.
+	 *
+	 * @return the resident bytes
+	 */
+	public synchronized long getResidentBytes() {
+		return residentBytes;
+	}
+
+	/**
+	 * Gets the number of distinct traces in the cache.
+	 *
+	 * @return the number of traces
+	 */
+	public synchronized int getNumberOfTraces() {
+		return traces.size();
+	}
+
+	/**
+	 * Gets the number of requests served from the cache.
+	 *
+	 * @return the number of hits
+	 */
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	/**
+	 * Gets the number of requests for which a file has been read.
+	 *
+	 * @return the number of misses
+	 */
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * Gets the number of files read whose trace was already in the cache, read from another file.
+	 *
+	 * @return the number of duplicates
+	 */
+	public synchronized long getDuplicates() {
+		return duplicates;
+	}
+
+	/**
+	 * Gets the number of traces evicted to keep the cache in its bound.
+	 *
+	 * @return the number of evictions
+	 */
+	public synchronized long getEvictions() {
+		return evictions;
+	}
+
+}
@@ -0,0 +1,353 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.util;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Computes the statistics the overload detection policies use on a window of utilization history
+ * (median, MAD, IQR and local regression estimates) without allocating statistics or regression
+ * objects. The results are exactly those of {@link MathUtil#median(double[])},
+ * {@link MathUtil#mad(double[])}, {@link MathUtil#iqr(double[])},
+ * {@link MathUtil#getLoessParameterEstimates(double[])} and
+ * {@link MathUtil#getRobustLoessParameterEstimates(double[])}: the window is sorted once into a
+ * work buffer the order statistics are read from, the tricube weights are computed once per window
+ * length, and the least-squares fits accumulate their sums the way
+ * {@link org.apache.commons.math3.stat.regression.SimpleRegression} does.
+ *
+ * <br/>An instance reuses its work buffers, so it must not be shared between threads: use
+ * {@link #forCurrentThread()}.
+ *
+ * @since CloudSim Toolkit 4.0
+ */
+public class WindowStatistics {
+
+	/** The instance of each thread. */
+	private static final ThreadLocal<WindowStatistics> INSTANCES = new ThreadLocal<WindowStatistics>() {
+
+		@Override
+		protected WindowStatistics initialValue() {
+			return new WindowStatistics();
+		}
+	};
+
+	/** The tricube weights, by number of weights. */
+	private static final Map<Integer, double[]> TRICUBE_WEIGHTS = new ConcurrentHashMap<Integer, double[]>();
+
+	/** The buffer the values of a window are sorted in. */
+	private double[] sorted = new double[0];
+
+	/** The buffer of the deviations or residuals of a window. */
+	private double[] deviations = new double[0];
+
+	/** The buffer of the weights of a window. */
+	private double[] weights = new double[0];
+
+	/** The number of points of the last fit. */
+	private int n;
+
+	/** The sum of the x values of the last fit. */
+	private double sumX;
+
+	/** The sum of the y values of the last fit. */
+	private double sumY;
+
+	/** The sum of the squared deviations of the x values from their mean, of the last fit. */
+	private double sumXX;
+
+	/** The sum of the products of the x and y deviations from their means, of the last fit. */
+	private double sumXY;
+
+	/**
+	 * Gets the instance of the current thread.
+	 *
+	 * @return the instance
+	 */
+	public static WindowStatistics forCurrentThread() {
+		return INSTANCES.get();
+	}
+
+	/**
+	 * Gets the median of an array of numbers, as {@link MathUtil#median(double[])} does.
+	 *
+	 * @param data the array of numbers
+	 * @return the median, or NaN if the array is empty
+	 */
+	public double median(final double[] data) {
+		int n = data.length;
+		double[] sorted = sortedBuffer(n);
+		System.arraycopy(data, 0, sorted, 0, n);
+		Arrays.sort(sorted, 0, n);
+		return sortedMedian(sorted, n);
+	}
+
+	/**
+	 * Gets the Median absolute deviation (MAD) of an array of numbers, as
+	 * {@link MathUtil#mad(double[])} does.
+	 *
+	 * @param data the array of numbers
+	 * @return the mad
+	 */
+	public double mad(final double[] data) {
+		int n = data.length;
+		if (n == 0) {
+			return 0;
+		}
+		double median = median(data);
+		double[] deviations = deviationsBuffer(n);
+		for (int i = 0; i < n; i++) {
+			deviations[i] = Math.abs(median - data[i]);
+		}
+		Arrays.sort(deviations, 0, n);
+		return sortedMedian(deviations, n);
+	}
+
+	/**
+	 * Gets the Interquartile Range (IQR) of an array of numbers, as {@link MathUtil#iqr(double[])}
+	 * does, but without sorting the array.
+	 *
+	 * @param data the array of numbers
+	 * @return the IQR
+	 */
+	public double iqr(final double[] data) {
+		int n = data.length;
+		double[] sorted = sortedBuffer(n);
+		System.arraycopy(data, 0, sorted, 0, n);
+		Arrays.sort(sorted, 0, n);
+		int q1 = (int) Math.round(0.25 * (n + 1)) - 1;
+		int q3 = (int) Math.round(0.75 * (n + 1)) - 1;
+		if (q1 < 0 || q3 >= n) {
+			throw new ArrayIndexOutOfBoundsException(q1 < 0 ? q1 : q3);
+		}
+		return sorted[q3] - sorted[q1];
+	}
+
+	/**
+	 * Gets the Local Regression (Loess) parameter estimates, as
+	 * {@link MathUtil#getLoessParameterEstimates(double[])} does.
+	 *
+	 * @param y the y array
+	 * @return the intercept and the slope
+	 * @throws IllegalArgumentException if there are less than 3 values
+	 */
+	public double[] getLoessParameterEstimates(final double[] y) {
+		int n = y.length;
+		checkRegressionData(n);
+		fit(y, getTricubeWeights(n), n);
+		return regress();
+	}
+
+	/**
+	 * Gets the robust Local Regression (Loess) parameter estimates, as
+	 * {@link MathUtil#getRobustLoessParameterEstimates(double[])} does.
+	 *
+	 * @param y the y array
+	 * @return the intercept and the slope
+	 * @throws IllegalArgumentException if there are less than 3 values
+	 */
+	public double[] getRobustLoessParameterEstimates(final double[] y) {
+		int n = y.length;
+		checkRegressionData(n);
+		double[] tricubeWeights = getTricubeWeights(n);
+		fit(y, tricubeWeights, n);
+		double tricubeSlope = getSlope();
+		double tricubeIntercept = getIntercept(tricubeSlope);
+
+		double[] residuals = deviationsBuffer(n);
+		for (int i = 0; i < n; i++) {
+			residuals[i] = y[i] - (tricubeIntercept + tricubeSlope * (i + 1));
+		}
+		double[] sorted = sortedBuffer(n);
+		for (int i = 0; i < n; i++) {
+			sorted[i] = Math.abs(residuals[i]);
+		}
+		Arrays.sort(sorted, 0, n);
+		double s6 = sortedMedian(sorted, n) * 6;
+		double[] weights = weightsBuffer(n);
+		for (int i = 2; i < n; i++) {
+			double k = Math.pow(1 - Math.pow(residuals[i] / s6, 2), 2);
+			if (k > 0) {
+				weights[i] = (1 / k) * tricubeWeights[i];
+			} else {
+				weights[i] = Double.MAX_VALUE;
+			}
+		}
+		weights[0] = weights[1] = weights[2];
+
+		fit(y, weights, n);
+		double[] estimates = regress();
+		if (Double.isNaN(estimates[0]) || Double.isNaN(estimates[1])) {
+			fit(y, tricubeWeights, n);
+			return regress();
+		}
+		return estimates;
+	}
+
+	/**
+	 * Gets the tricube weights, as {@link MathUtil#getTricubeWeigts(int)} does, computed once for
+	 * each number of weights. The array returned must not be modified.
+	 *
+	 * @param n the number of weights
+	 * @return the tricube weights
+	 */
+	static double[] getTricubeWeights(final int n) {
+		double[] weights = TRICUBE_WEIGHTS.get(n);
+		if (weights == null) {
+			weights = MathUtil.getTricubeWeigts(n);
+			TRICUBE_WEIGHTS.put(n, weights);
+		}
+		return weights;
+	}
+
+	/**
+	 * Fits a line to the points (i + 1, y[i]), as
+	 * {@link MathUtil#createWeigthedLinearRegression(double[], double[], double[])} does, and keeps
+	 * its sums.
+	 *
+	 * @param y the y array
+	 * @param weights the weights of the points
+	 * @param n the number of points
+	 */
+	private void fit(final double[] y, final double[] weights, final int n) {
+		int numZeroWeights = 0;
+		for (int i = 0; i < n; i++) {
+			if (weights[i] <= 0) {
+				numZeroWeights++;
+			}
+		}
+		boolean weighted = numZeroWeights >= 0.4 * n;
+
+		this.n = n;
+		sumX = 0;
+		sumY = 0;
+		sumXX = 0;
+		sumXY = 0;
+		double xbar = 0;
+		double ybar = 0;
+		for (int i = 0; i < n; i++) {
+			double x = i + 1;
+			double yi = y[i];
+			if (weighted) {
+				x = Math.sqrt(weights[i]) * x;
+				yi = Math.sqrt(weights[i]) * yi;
+			}
+			if (i == 0) {
+				xbar = x;
+				ybar = yi;
+			} else {
+				double fact1 = 1.0 + i;
+				double fact2 = i / (1.0 + i);
+				double dx = x - xbar;
+				double dy = yi - ybar;
+				sumXX += dx * dx * fact2;
+				sumXY += dx * dy * fact2;
+				xbar += dx / fact1;
+				ybar += dy / fact1;
+			}
+			sumX += x;
+			sumY += yi;
+		}
+	}
+
+	/**
+	 * Gets the slope of the last fit.
+	 *
+	 * @return the slope, or NaN if it cannot be computed
+	 */
+	private double getSlope() {
+		if (n < 2 || Math.abs(sumXX) < 10 * Double.MIN_VALUE) {
+			return Double.NaN;
+		}
+		return sumXY / sumXX;
+	}
+
+	/**
+	 * Gets the intercept of the last fit.
+	 *
+	 * @param slope the slope of the last fit
+	 * @return the intercept
+	 */
+	private double getIntercept(final double slope) {
+		return (sumY - slope * sumX) / n;
+	}
+
+	/**
+	 * Gets the parameter estimates of the last fit.
+	 *
+	 * @return the intercept and the slope
+	 */
+	private double[] regress() {
+		if (Math.abs(sumXX) > Double.MIN_NORMAL) {
+			return new double[] { getIntercept(getSlope()), getSlope() };
+		}
+		return new double[] { sumY / n, Double.NaN };
+	}
+
+	/**
+	 * Checks there are enough values to fit a line with an intercept.
+	 *
+	 * @param n the number of values
+	 */
+	private static void checkRegressionData(final int n) {
+		if (n < 3) {
+			throw new IllegalArgumentException("Not enough data to fit a line: " + n + " values");
+		}
+	}
+
+	/**
+	 * Gets the median of sorted values, as the default estimation of
+	 * {@link org.apache.commons.math3.stat.descriptive.rank.Percentile} does.
+	 *
+	 * @param sorted the sorted values
+	 * @param n the number of values
+	 * @return the median, or NaN if there is no value
+	 */
+	private static double sortedMedian(final double[] sorted, final int n) {
+		if (n == 0) {
+			return Double.NaN;
+		}
+		double pos = 0.5 * (n + 1);
+		double fpos = Math.floor(pos);
+		int intPos = (int) fpos;
+		double dif = pos - fpos;
+		if (pos < 1) {
+			return sorted[0];
+		}
+		if (pos >= n) {
+			return sorted[n - 1];
+		}
+		double lower = sorted[intPos - 1];
+		double upper = sorted[intPos];
+		return lower + dif * (upper - lower);
+	}
+
+	private double[] sortedBuffer(final int n) {
+		if (sorted.length < n) {
+			sorted = new double[n];
+		}
+		return sorted;
+	}
+
+	private double[] deviationsBuffer(final int n) {
+		if (deviations.length < n) {
+			deviations = new double[n];
+		}
+		return deviations;
+	}
+
+	private double[] weightsBuffer(final int n) {
+		if (weights.length < n) {
+			weights = new double[n];
+		}
+		return weights;
+	}
+
+}
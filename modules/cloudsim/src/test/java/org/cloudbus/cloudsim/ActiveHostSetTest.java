@@ -0,0 +1,120 @@
+package org.cloudbus.cloudsim;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.cloudbus.cloudsim.provisioners.BwProvisionerSimple;
+import org.cloudbus.cloudsim.provisioners.PeProvisionerSimple;
+import org.cloudbus.cloudsim.provisioners.RamProvisionerSimple;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ActiveHostSetTest {
+
+	private static final int HOSTS = 3;
+
+	private static final double MIPS = 1000;
+
+	private List<HostDynamicWorkload> hostList;
+
+	private ActiveHostSet activeHostSet;
+
+	@Before
+	public void setUp() {
+		hostList = new ArrayList<HostDynamicWorkload>();
+		for (int i = 0; i < HOSTS; i++) {
+			List<Pe> peList = new ArrayList<Pe>();
+			peList.add(new Pe(0, new PeProvisionerSimple(MIPS)));
+			hostList.add(new HostDynamicWorkload(
+					i,
+					new RamProvisionerSimple(1024),
+					new BwProvisionerSimple(10000),
+					Consts.MILLION,
+					peList,
+					new VmSchedulerTimeShared(peList)));
+		}
+		activeHostSet = new ActiveHostSet(hostList);
+	}
+
+	private void update(double time) {
+		for (int i = activeHostSet.nextActive(0); i >= 0; i = activeHostSet.nextActive(i + 1)) {
+			hostList.get(i).updateVmsProcessing(time);
+		}
+		activeHostSet.deactivateIdleHosts();
+	}
+
+	@Test
+	public void testHostsAreActiveUntilUpdated() {
+		assertEquals(HOSTS, activeHostSet.size());
+		assertFalse(hostList.get(0).isIdle());
+
+		update(0);
+		assertEquals(0, activeHostSet.size());
+		assertEquals(-1, activeHostSet.nextActive(0));
+		for (HostDynamicWorkload host : hostList) {
+			assertTrue(host.isIdle());
+			assertEquals(1, host.getStateHistory().size());
+			assertFalse(host.getStateHistory().get(0).isActive());
+		}
+
+		activeHostSet.activateAll();
+		assertEquals(HOSTS, activeHostSet.size());
+	}
+
+	@Test
+	public void testVmCreateActivatesTheHost() {
+		update(0);
+		Vm vm = new Vm(0, 0, MIPS / 2, 1, 512, 1000, 0, "", new CloudletSchedulerTimeShared());
+		assertTrue(hostList.get(1).vmCreate(vm));
+		assertFalse(hostList.get(1).isIdle());
+		assertEquals(1, activeHostSet.size());
+		assertTrue(activeHostSet.isActive(1));
+		assertEquals(1, activeHostSet.nextActive(0));
+
+		hostList.get(1).vmDestroy(vm);
+		activeHostSet.deactivateIdleHosts();
+		assertEquals(0, activeHostSet.size());
+	}
+
+	@Test
+	public void testMigrationInActivatesTheHost() {
+		update(0);
+		Vm vm = new Vm(0, 0, MIPS / 2, 1, 512, 1000, 0, "", new CloudletSchedulerTimeShared());
+		assertTrue(hostList.get(1).vmCreate(vm));
+		assertFalse(activeHostSet.isActive(0));
+		hostList.get(0).addMigratingInVm(vm);
+		assertFalse(hostList.get(0).isIdle());
+		assertTrue(activeHostSet.isActive(0));
+		activeHostSet.deactivateIdleHosts();
+		assertTrue(activeHostSet.isActive(0));
+
+		hostList.get(2).reallocateMigratingInVms();
+		assertFalse(activeHostSet.isActive(2));
+		Vm otherVm = new Vm(1, 0, MIPS / 2, 1, 512, 1000, 0, "", new CloudletSchedulerTimeShared());
+		hostList.get(2).getVmsMigratingIn().add(otherVm);
+		hostList.get(2).reallocateMigratingInVms();
+		assertTrue(activeHostSet.isActive(2));
+		assertTrue(hostList.get(2).getVmList().contains(otherVm));
+		assertEquals(HOSTS, activeHostSet.size());
+	}
+
+	@Test
+	public void testSwitchedOffHostIsDeactivatedOnceRecorded() {
+		update(0);
+		HostDynamicWorkload host = hostList.get(2);
+		activeHostSet.activate(2);
+		host.setUtilizationMips(MIPS / 2);
+		update(300);
+		assertTrue(activeHostSet.isActive(2));
+		assertEquals(MIPS / 2, host.getPreviousUtilizationMips(), 0);
+		update(600);
+		assertFalse(activeHostSet.isActive(2));
+		assertEquals(3, host.getStateHistory().size());
+		assertEquals(600, host.getStateHistory().get(2).getTime(), 0);
+	}
+
+}
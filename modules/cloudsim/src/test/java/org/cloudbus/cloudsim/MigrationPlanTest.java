@@ -0,0 +1,64 @@
+package org.cloudbus.cloudsim;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class MigrationPlanTest {
+
+	private static final int MIGRATIONS = 20;
+
+	@Test
+	public void testAddKeepsOrderAndHosts() {
+		MigrationPlan<String, Integer> plan = new MigrationPlan<String, Integer>();
+		assertTrue(plan.isEmpty());
+		for (int i = 0; i < MIGRATIONS; i++) {
+			plan.add("vm" + i, i % 3);
+		}
+		assertEquals(MIGRATIONS, plan.size());
+		for (int i = 0; i < MIGRATIONS; i++) {
+			assertEquals("vm" + i, plan.getVm(i));
+			assertEquals(Integer.valueOf(i % 3), plan.getHost(i));
+		}
+		assertEquals(3, plan.getHosts().size());
+		assertTrue(plan.containsHost(2));
+		assertFalse(plan.containsHost(3));
+
+		plan.clear();
+		assertTrue(plan.isEmpty());
+		assertFalse(plan.containsHost(2));
+	}
+
+	@Test
+	public void testMigrationMapConversion() {
+		MigrationPlan<String, Integer> plan = new MigrationPlan<String, Integer>();
+		plan.add("vm0", 1);
+		plan.add("vm1", 0);
+		List<Map<String, Object>> migrationMap = plan.toMigrationMap();
+		assertEquals(2, migrationMap.size());
+		assertEquals("vm1", migrationMap.get(1).get("vm"));
+		assertEquals(0, migrationMap.get(1).get("host"));
+
+		MigrationPlan<String, Integer> converted = MigrationPlan.fromMigrationMap(migrationMap);
+		assertEquals(plan.size(), converted.size());
+		for (int i = 0; i < plan.size(); i++) {
+			assertSame(plan.getVm(i), converted.getVm(i));
+			assertSame(plan.getHost(i), converted.getHost(i));
+		}
+		assertTrue(MigrationPlan.fromMigrationMap(null).isEmpty());
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testGetOutOfBounds() {
+		MigrationPlan<String, Integer> plan = new MigrationPlan<String, Integer>();
+		plan.add("vm0", 0);
+		plan.getVm(1);
+	}
+
+}
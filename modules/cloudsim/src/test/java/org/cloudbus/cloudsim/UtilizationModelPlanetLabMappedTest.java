@@ -0,0 +1,84 @@
+package org.cloudbus.cloudsim;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import org.cloudbus.cloudsim.util.PlanetLabTraceFile;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class UtilizationModelPlanetLabMappedTest {
+
+	public static final double SCHEDULING_INTERVAL = 300;
+
+	public static final String FILE = UtilizationModelPlanetLabInMemoryTest.FILE;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private String inputPath;
+
+	private File workload;
+
+	@Before
+	public void setUp() throws Exception {
+		inputPath = getClass().getClassLoader().getResource(FILE).getPath();
+		workload = folder.newFolder("workload");
+		Files.copy(Paths.get(inputPath), new File(workload, FILE).toPath());
+	}
+
+	@Test
+	public void testSameUtilizationAsInMemory() throws Exception {
+		File traceFile = folder.newFile("workload.trace");
+		PlanetLabTraceFile.convert(workload, traceFile, PlanetLabTraceFile.DAY_SAMPLES);
+		PlanetLabTraceFile trace = PlanetLabTraceFile.open(traceFile);
+		assertEquals(1, trace.getNumberOfTraces());
+		assertEquals(FILE, trace.getTraceName(0));
+
+		UtilizationModelPlanetLabInMemory expected = new UtilizationModelPlanetLabInMemory(
+				inputPath,
+				SCHEDULING_INTERVAL);
+		UtilizationModelPlanetLabMapped actual = new UtilizationModelPlanetLabMapped(
+				trace,
+				0,
+				SCHEDULING_INTERVAL);
+		for (double time = 0; time <= PlanetLabTraceFile.DAY_SAMPLES * SCHEDULING_INTERVAL; time += 7.5) {
+			assertEquals(expected.getUtilization(time), actual.getUtilization(time), 0);
+		}
+	}
+
+	@Test
+	public void testWideSamples() throws Exception {
+		FileWriter writer = new FileWriter(new File(workload, "wide"));
+		for (int i = 0; i < PlanetLabTraceFile.DAY_SAMPLES; i++) {
+			writer.write(i * 100 + "\n");
+		}
+		writer.close();
+		File traceFile = folder.newFile("workload.trace");
+		PlanetLabTraceFile.convert(workload, traceFile, PlanetLabTraceFile.DAY_SAMPLES);
+		PlanetLabTraceFile trace = PlanetLabTraceFile.open(traceFile);
+
+		int wide = trace.getTraceName(0).equals("wide") ? 0 : 1;
+		UtilizationModelPlanetLabMapped model = new UtilizationModelPlanetLabMapped(
+				trace,
+				wide,
+				SCHEDULING_INTERVAL);
+		assertEquals(287.0, model.getUtilization(287 * SCHEDULING_INTERVAL), 0);
+		assertEquals(287.0, model.getUtilization(288 * SCHEDULING_INTERVAL), 0);
+		assertEquals(0.24, new UtilizationModelPlanetLabMapped(trace, 1 - wide, SCHEDULING_INTERVAL)
+				.getUtilization(0), 0);
+	}
+
+	@Test(expected = IOException.class)
+	public void testOpenTextFile() throws Exception {
+		PlanetLabTraceFile.open(new File(inputPath));
+	}
+
+}
@@ -0,0 +1,146 @@
+package org.cloudbus.cloudsim.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Random;
+
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.core.predicates.PredicateType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class CheckpointTest {
+
+	private static final int ENTITIES = 4;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private OutputStream output;
+
+	@Before
+	public void setUp() {
+		output = Log.getOutput();
+	}
+
+	@After
+	public void tearDown() {
+		Log.setOutput(output);
+	}
+
+	@Test
+	public void testRestoreCheckpoint() throws Exception {
+		File file = new File(folder.getRoot(), "simulation.checkpoint");
+
+		RandomEntity saved = createSimulation();
+		assertTrue(CloudSim.runUntil(5));
+		CloudSim.saveCheckpoint(file.getPath());
+
+		ByteArrayOutputStream expected = new ByteArrayOutputStream();
+		Log.setOutput(expected);
+		CloudSim.startSimulation();
+		String expectedReceived = saved.received.toString();
+		Log.setOutput(output);
+
+		RandomEntity restored = createSimulation();
+		CloudSim.restoreCheckpoint(file.getPath());
+		assertEquals(5, CloudSim.clock(), 0);
+		File resaved = new File(folder.getRoot(), "restored.checkpoint");
+		CloudSim.saveCheckpoint(resaved.getPath());
+		assertArrayEquals(Files.readAllBytes(file.toPath()), Files.readAllBytes(resaved.toPath()));
+
+		ByteArrayOutputStream actual = new ByteArrayOutputStream();
+		Log.setOutput(actual);
+		CloudSim.startSimulation();
+
+		assertTrue(expected.toString().contains("received"));
+		assertEquals(expected.toString(), actual.toString());
+		assertEquals(expectedReceived, restored.received.toString());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testRestoreCheckpointWithOtherEntities() throws Exception {
+		File file = new File(folder.getRoot(), "simulation.checkpoint");
+
+		createSimulation();
+		assertTrue(CloudSim.runUntil(5));
+		CloudSim.saveCheckpoint(file.getPath());
+		CloudSim.startSimulation();
+
+		CloudSim.init(0, null, false);
+		new RandomEntity("Other");
+		CloudSim.restoreCheckpoint(file.getPath());
+	}
+
+	private static RandomEntity createSimulation() {
+		CloudSim.init(0, null, false);
+		RandomEntity first = new RandomEntity("Random0");
+		for (int i = 1; i < ENTITIES; i++) {
+			new RandomEntity("Random" + i);
+		}
+		return first;
+	}
+
+	private static class RandomEntity extends SimEntity {
+
+		private StringBuilder received = new StringBuilder();
+
+		private int count = 0;
+
+		RandomEntity(String name) {
+			super(name);
+		}
+
+		@Override
+		public void startEntity() {
+			schedule(getId(), 0, 1);
+		}
+
+		@Override
+		public void processEvent(SimEvent ev) {
+			received.append(CloudSim.clock()).append(' ').append(ev.getSource()).append(' ').append(ev.getTag())
+					.append('\n');
+			Log.printConcatLine(CloudSim.clock(), ": ", getName(), " received ", ev.getTag(), " from #", ev.getSource());
+			if (++count > 40) {
+				return;
+			}
+			// the random numbers of each event only depend on the state saved in checkpoints
+			Random random = new Random(getId() * 1000L + count);
+			int peer = 2 + random.nextInt(ENTITIES);
+			schedule(peer, random.nextInt(5) * 0.5, 1 + random.nextInt(3));
+			schedule(getId(), 2, 4);
+			if (random.nextBoolean()) {
+				cancelEvent(new PredicateType(4));
+			}
+		}
+
+		@Override
+		public void shutdownEntity() {
+		}
+
+		@Override
+		protected void saveState(CheckpointOutput out) throws IOException {
+			super.saveState(out);
+			out.writeInt(count);
+			out.writeString(received.toString());
+		}
+
+		@Override
+		protected void restoreState(CheckpointInput in) throws IOException {
+			super.restoreState(in);
+			count = in.readInt();
+			received = new StringBuilder(in.readString());
+		}
+	}
+
+}
@@ -0,0 +1,86 @@
+package org.cloudbus.cloudsim.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import org.cloudbus.cloudsim.core.predicates.PredicateType;
+import org.junit.Test;
+
+public class DeferredQueueTest {
+
+	@Test
+	public void testEmptyQueue() {
+		DeferredQueue queue = new DeferredQueue();
+		assertEquals(0, queue.size());
+		assertEquals(0, queue.size(3));
+		assertNull(queue.getLast());
+		assertNull(queue.findFirst(0, CloudSim.SIM_ANY));
+		assertNull(queue.removeFirst(0, CloudSim.SIM_ANY));
+		assertFalse(queue.iterator().hasNext());
+	}
+
+	@Test
+	public void testEntityScopedLookups() {
+		DeferredQueue queue = new DeferredQueue();
+		queue.addEvent(new SimEvent(SimEvent.SEND, 1, 0, 2, 10, null));
+		queue.addEvent(new SimEvent(SimEvent.SEND, 2, 0, 3, 10, null));
+		queue.addEvent(new SimEvent(SimEvent.SEND, 2, 0, 2, 11, null));
+		queue.addEvent(new SimEvent(SimEvent.SEND, 3, 0, 2, 10, null));
+
+		assertEquals(4, queue.size());
+		assertEquals(3, queue.size(2));
+		assertEquals(2, queue.count(2, new PredicateType(10)));
+		assertEquals(0, queue.count(3, new PredicateType(11)));
+		assertEquals(11, queue.findFirst(2, new PredicateType(11)).getTag());
+		assertNull(queue.findFirst(3, new PredicateType(11)));
+
+		SimEvent removed = queue.removeFirst(2, new PredicateType(10));
+		assertEquals(1, removed.eventTime(), 0);
+		assertEquals(3, queue.size());
+		assertEquals(3, queue.getLast().eventTime(), 0);
+	}
+
+	@Test
+	public void testTemporalOrder() {
+		DeferredQueue queue = new DeferredQueue();
+		List<SimEvent> expected = new ArrayList<SimEvent>();
+		Random random = new Random(7);
+		for (int i = 0; i < 500; i++) {
+			SimEvent event = new SimEvent(SimEvent.SEND, random.nextInt(20), 0, random.nextInt(5), i, null);
+			queue.addEvent(event);
+
+			// Keeps the expected list sorted by time, with events at the same time in insertion order
+			int position = expected.size();
+			while (position > 0 && expected.get(position - 1).eventTime() > event.eventTime()) {
+				position--;
+			}
+			expected.add(position, event);
+		}
+
+		Iterator<SimEvent> iterator = queue.iterator();
+		for (SimEvent event : expected) {
+			assertTrue(iterator.hasNext());
+			assertEquals(event.getTag(), iterator.next().getTag());
+		}
+		assertFalse(iterator.hasNext());
+		assertEquals(expected.get(expected.size() - 1).getTag(), queue.getLast().getTag());
+
+		for (int destination = 0; destination < 5; destination++) {
+			for (SimEvent event : expected) {
+				if (event.getDestination() == destination) {
+					assertEquals(event.getTag(), queue.removeFirst(destination, CloudSim.SIM_ANY).getTag());
+				}
+			}
+			assertEquals(0, queue.size(destination));
+		}
+		assertEquals(0, queue.size());
+	}
+
+}
@@ -0,0 +1,206 @@
+package org.cloudbus.cloudsim.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class EventQueueTest {
+
+	private static final int OPERATIONS = 20000;
+
+	private static EventQueue[] createQueues() {
+		return new EventQueue[] { new FutureQueue(), new CalendarEventQueue(), new HeapEventQueue(),
+				new HeapEventQueue(2) };
+	}
+
+	@Test
+	public void testEmptyQueue() {
+		for (EventQueue queue : createQueues()) {
+			assertEquals(0, queue.size());
+			assertNull(queue.peek());
+			assertNull(queue.poll());
+			assertFalse(queue.iterator().hasNext());
+		}
+	}
+
+	@Test
+	public void testAddEventFirst() {
+		for (EventQueue queue : createQueues()) {
+			queue.addEvent(new SimEvent(SimEvent.SEND, 0, 0, 1, 0, null));
+			queue.addEvent(new SimEvent(SimEvent.SEND, 10, 0, 1, 1, null));
+			queue.addEvent(new SimEvent(SimEvent.SEND, 10, 0, 1, 2, null));
+			queue.addEventFirst(new SimEvent(SimEvent.SEND, 10, 0, 1, 3, null));
+			queue.addEventFirst(new SimEvent(SimEvent.SEND, 10, 0, 1, 4, null));
+			queue.addEvent(new SimEvent(SimEvent.SEND, 5, 0, 1, 5, null));
+
+			// Events added first at the same time keep their insertion order
+			int[] expected = { 0, 5, 3, 4, 1, 2 };
+			for (int tag : expected) {
+				assertEquals(tag, queue.poll().getTag());
+			}
+			assertNull(queue.poll());
+		}
+	}
+
+	@Test
+	public void testPollAllAt() {
+		List<SimEvent> batch = new ArrayList<SimEvent>();
+		for (EventQueue queue : createQueues()) {
+			for (int i = 0; i < 10; i++) {
+				queue.addEvent(new SimEvent(SimEvent.SEND, i % 2 == 0 ? 300 : 600, 0, 1, i, null));
+			}
+
+			assertEquals(0, queue.pollAllAt(0, batch));
+			assertEquals(5, queue.pollAllAt(300, batch));
+			assertEquals(5, queue.size());
+			assertEquals(5, queue.pollAllAt(600, batch));
+			assertEquals(0, queue.size());
+
+			int[] expected = { 0, 2, 4, 6, 8, 1, 3, 5, 7, 9 };
+			for (int i = 0; i < expected.length; i++) {
+				assertEquals(expected[i], batch.get(i).getTag());
+			}
+			batch.clear();
+		}
+	}
+
+	@Test
+	public void testRemove() {
+		for (EventQueue queue : createQueues()) {
+			List<SimEvent> events = new ArrayList<SimEvent>();
+			for (int i = 0; i < 100; i++) {
+				SimEvent event = new SimEvent(SimEvent.SEND, i % 7, 0, 1, i, null);
+				events.add(event);
+				queue.addEvent(event);
+			}
+
+			assertTrue(queue.remove(events.get(50)));
+			assertFalse(queue.remove(events.get(50)));
+			assertTrue(queue.removeAll(events.subList(0, 10)));
+			assertEquals(89, queue.size());
+
+			double previousTime = -1;
+			int count = 0;
+			for (SimEvent event = queue.poll(); event != null; event = queue.poll()) {
+				assertTrue(event.eventTime() >= previousTime);
+				assertTrue(event.getTag() >= 10 && event.getTag() != 50);
+				previousTime = event.eventTime();
+				count++;
+			}
+			assertEquals(89, count);
+		}
+	}
+
+	@Test
+	public void testIndexedRemoval() {
+		for (EventQueue wrapped : createQueues()) {
+			IndexedEventQueue queue = new IndexedEventQueue(wrapped);
+			List<SimEvent> events = new ArrayList<SimEvent>();
+			Random random = new Random(42);
+			for (int i = 0; i < 1000; i++) {
+				SimEvent event = new SimEvent(SimEvent.SEND, random.nextInt(50), random.nextInt(4), 0,
+						random.nextInt(5), null);
+				events.add(event);
+				queue.addEvent(event);
+
+				if (i == 500) {
+					// Indexes the events sent by entity 1 with tag 2, which are also added afterwards
+					assertTrue(queue.removeAll(1, new int[] { 2 }));
+				}
+			}
+
+			SimEvent first = queue.removeFirst(2, new int[] { 3, 4 });
+			for (SimEvent event : events) {
+				if (event.getSource() == 2 && event.getTag() >= 3 && event != first) {
+					assertTrue(first.compareTo(event) < 0);
+				}
+			}
+			assertTrue(queue.removeAll(1, new int[] { 2 }));
+			assertFalse(queue.removeAll(1, new int[] { 2 }));
+			assertTrue(queue.removeAll(3, new int[] { 0, 1 }));
+
+			int expected = 0;
+			for (SimEvent event : events) {
+				boolean removed = event == first || event.getSource() == 1 && event.getTag() == 2
+						|| event.getSource() == 3 && event.getTag() <= 1;
+				if (!removed) {
+					expected++;
+				}
+			}
+			assertEquals(expected, queue.size());
+			for (SimEvent event = queue.poll(); event != null; event = queue.poll()) {
+				assertTrue(event != first);
+				assertFalse(event.getSource() == 1 && event.getTag() == 2);
+				assertFalse(event.getSource() == 3 && event.getTag() <= 1);
+			}
+		}
+	}
+
+	@Test
+	public void testSameOrderAsFutureQueue() {
+		List<Integer> expected = null;
+		for (EventQueue queue : createQueues()) {
+			List<Integer> tags = runRandomOperations(queue, new Random(1234));
+			if (expected == null) {
+				expected = tags;
+			} else {
+				assertEquals(expected, tags);
+			}
+		}
+	}
+
+	/**
+	 * Adds, polls and removes events at random, simulating the way the queue is used by
+	 * {@link CloudSim}, and returns the tags of the polled events in order.
+	 */
+	private static List<Integer> runRandomOperations(EventQueue queue, Random random) {
+		List<Integer> polled = new ArrayList<Integer>();
+		List<SimEvent> added = new ArrayList<SimEvent>();
+		double clock = 0;
+		for (int i = 0; i < OPERATIONS; i++) {
+			int operation = random.nextInt(10);
+			if (operation < 5) {
+				// Many events at the same times, as it happens in the power datacenters
+				double delay = random.nextInt(4) == 0 ? random.nextDouble() * 1000 : random.nextInt(3) * 300;
+				SimEvent event = new SimEvent(SimEvent.SEND, clock + delay, 0, 1, i, null);
+				if (random.nextInt(20) == 0) {
+					queue.addEventFirst(event);
+				} else {
+					queue.addEvent(event);
+				}
+				added.add(event);
+			} else if (operation == 5 && queue.size() > 0) {
+				List<SimEvent> batch = new ArrayList<SimEvent>();
+				queue.pollAllAt(queue.peek().eventTime(), batch);
+				for (SimEvent event : batch) {
+					assertTrue(event.eventTime() >= clock);
+					clock = event.eventTime();
+					polled.add(event.getTag());
+				}
+			} else if (operation < 9) {
+				SimEvent event = queue.poll();
+				if (event != null) {
+					assertTrue(event.eventTime() >= clock);
+					clock = event.eventTime();
+					polled.add(event.getTag());
+				}
+			} else if (!added.isEmpty()) {
+				queue.remove(added.get(random.nextInt(added.size())));
+			}
+		}
+
+		for (SimEvent event = queue.poll(); event != null; event = queue.poll()) {
+			polled.add(event.getTag());
+		}
+		assertEquals(0, queue.size());
+		return polled;
+	}
+
+}
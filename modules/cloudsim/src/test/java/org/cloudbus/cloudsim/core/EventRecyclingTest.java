@@ -0,0 +1,102 @@
+package org.cloudbus.cloudsim.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+
+import org.cloudbus.cloudsim.Log;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class EventRecyclingTest {
+
+	private OutputStream output;
+
+	@Before
+	public void setUp() {
+		output = Log.getOutput();
+	}
+
+	@After
+	public void tearDown() {
+		Log.setOutput(output);
+	}
+
+	@Test
+	public void testSameResultsWithRecycling() {
+		String expected = simulate(false, false, false);
+		long allocated = CloudSim.getEventsAllocated();
+		assertEquals(0, CloudSim.getEventsReused());
+
+		assertEquals(expected, simulate(true, false, false));
+		assertTrue(CloudSim.getEventsReused() > 0);
+		assertTrue(CloudSim.getEventsAllocated() < allocated / 10);
+		assertEquals(allocated, CloudSim.getEventsAllocated() + CloudSim.getEventsReused());
+
+		assertEquals(expected, simulate(true, true, false));
+		assertEquals(0, CloudSim.getEventsReused());
+		assertEquals(allocated, CloudSim.getEventsAllocated());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testGuardDetectsKeptEvents() {
+		simulate(true, true, true);
+	}
+
+	/**
+	 * Runs a simulation where a few entities send events to each other and returns its log.
+	 */
+	private static String simulate(boolean recycling, boolean guard, boolean keepEvents) {
+		ByteArrayOutputStream log = new ByteArrayOutputStream();
+		Log.setOutput(log);
+		CloudSim.init(0, null, false);
+		for (int i = 0; i < 4; i++) {
+			new CountingEntity("Counter" + i, keepEvents);
+		}
+		CloudSim.setEventRecycling(recycling, guard);
+		CloudSim.startSimulation();
+		return log.toString();
+	}
+
+	private static class CountingEntity extends SimEntity {
+
+		private final boolean keepEvents;
+
+		private SimEvent last;
+
+		private int count = 0;
+
+		CountingEntity(String name, boolean keepEvents) {
+			super(name);
+			this.keepEvents = keepEvents;
+		}
+
+		@Override
+		public void startEntity() {
+			schedule(getId(), 0, 0, count);
+		}
+
+		@Override
+		public void processEvent(SimEvent ev) {
+			if (last != null) {
+				last.getTag();
+			}
+			Log.printConcatLine(CloudSim.clock(), ": ", getName(), " received ", ev.getData(), " from ", ev.getSource());
+			if (++count < 1000) {
+				int peer = 2 + (getId() + count) % 4;
+				schedule(peer, count % 7, count % 3, count);
+			}
+			if (keepEvents) {
+				last = ev;
+			}
+		}
+
+		@Override
+		public void shutdownEntity() {
+		}
+	}
+
+}
@@ -0,0 +1,310 @@
+package org.cloudbus.cloudsim.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.core.predicates.PredicateType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ParallelExecutionTest {
+
+	private static final int ENTITIES = 8;
+
+	private static final int TAG_PING = 1;
+
+	private static final int TAG_CANCELLED = 2;
+
+	private static final int TAG_REMOTE = 3;
+
+	/** The minimum delay of the events sent between logical processes in the window scenario. */
+	private static final double REMOTE_DELAY = 2;
+
+	private OutputStream output;
+
+	private ForkJoinPool pool;
+
+	@Before
+	public void setUp() {
+		output = Log.getOutput();
+		pool = new ForkJoinPool(4);
+	}
+
+	@After
+	public void tearDown() {
+		Log.setOutput(output);
+		pool.shutdown();
+	}
+
+	@Test
+	public void testSameResultsAsSequentialExecution() {
+		String sequential = simulate(null);
+		String parallel = simulate(pool);
+		assertTrue(sequential.contains("received"));
+		assertEquals(sequential, parallel);
+	}
+
+	@Test
+	public void testSameResultsOverManyTicks() {
+		// the tasks and buffers of the logical processes are reused from tick to tick
+		String first = simulate(pool);
+		assertEquals(first, simulate(pool));
+		assertEquals(simulate(null), first);
+	}
+
+	@Test(expected = UncheckedIOException.class)
+	public void testLogOutputFailureIsReported() {
+		CloudSim.init(0, null, false);
+		List<PingEntity> entities = new ArrayList<PingEntity>();
+		for (int i = 0; i < ENTITIES; i++) {
+			PingEntity entity = new PingEntity("Ping" + i, entities);
+			entity.setLogicalProcess(i % 3);
+			entities.add(entity);
+		}
+		Log.setOutput(new OutputStream() {
+
+			@Override
+			public void write(int b) throws IOException {
+				throw new IOException("Disk full");
+			}
+		});
+		CloudSim.setParallelExecution(pool);
+		CloudSim.startSimulation();
+	}
+
+	@Test
+	public void testWindowsGiveSameResultsAsSequentialExecution() {
+		String sequential = simulateWindows(null, 0);
+		assertTrue(sequential.contains("received " + TAG_REMOTE));
+		assertEquals(sequential, simulateWindows(pool, 0));
+		assertEquals(sequential, simulateWindows(pool, 0.5));
+		assertEquals(sequential, simulateWindows(pool, 1));
+		assertEquals(sequential, simulateWindows(pool, REMOTE_DELAY));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testSendWithinWindowToAnotherProcessFails() {
+		CloudSim.init(0, null, false);
+		List<WindowEntity> entities = new ArrayList<WindowEntity>();
+		for (int i = 0; i < ENTITIES; i++) {
+			WindowEntity entity = new WindowEntity("Window" + i, entities);
+			entity.setLogicalProcess(i % 3);
+			entities.add(entity);
+		}
+		Log.setOutput(new ByteArrayOutputStream());
+		// the remote events are sent with a delay of at least REMOTE_DELAY
+		CloudSim.setParallelExecution(pool, 2 * REMOTE_DELAY);
+		CloudSim.startSimulation();
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testCancellingEventOfAnotherProcessWithinWindowFails() {
+		CloudSim.init(0, null, false);
+		List<WindowEntity> entities = new ArrayList<WindowEntity>();
+		for (int i = 0; i < ENTITIES; i++) {
+			WindowEntity entity = new WindowEntity("Window" + i, entities);
+			entity.setLogicalProcess(i % 3);
+			entity.cancelRemote = true;
+			entities.add(entity);
+		}
+		Log.setOutput(new ByteArrayOutputStream());
+		CloudSim.setParallelExecution(pool, REMOTE_DELAY);
+		CloudSim.startSimulation();
+	}
+
+	/**
+	 * Runs a simulation where the entities exchange events and returns its log along with
+	 * the events received by each entity.
+	 */
+	private String simulate(ForkJoinPool pool) {
+		ByteArrayOutputStream log = new ByteArrayOutputStream();
+		Log.setOutput(log);
+		CloudSim.init(0, null, false);
+
+		List<PingEntity> entities = new ArrayList<PingEntity>();
+		for (int i = 0; i < ENTITIES; i++) {
+			PingEntity entity = new PingEntity("Ping" + i, entities);
+			entity.setLogicalProcess(i % 3);
+			entities.add(entity);
+		}
+		CloudSim.setParallelExecution(pool);
+		CloudSim.startSimulation();
+
+		StringBuilder result = new StringBuilder(log.toString());
+		for (PingEntity entity : entities) {
+			result.append(entity.received);
+		}
+		return result.toString();
+	}
+
+	/**
+	 * Runs a simulation where the entities of a logical process exchange events without delay
+	 * while the events between logical processes have a delay of at least {@link #REMOTE_DELAY},
+	 * and returns its log along with the events received by each entity and the final state.
+	 */
+	private String simulateWindows(ForkJoinPool pool, double lookahead) {
+		ByteArrayOutputStream log = new ByteArrayOutputStream();
+		Log.setOutput(log);
+		CloudSim.init(0, null, false);
+
+		List<WindowEntity> entities = new ArrayList<WindowEntity>();
+		for (int i = 0; i < ENTITIES; i++) {
+			WindowEntity entity = new WindowEntity("Window" + i, entities);
+			entity.setLogicalProcess(i % 3);
+			entities.add(entity);
+		}
+		CloudSim.setParallelExecution(pool, lookahead);
+		double clock = CloudSim.startSimulation();
+
+		StringBuilder result = new StringBuilder(log.toString());
+		for (WindowEntity entity : entities) {
+			result.append(entity.received);
+		}
+		result.append(clock).append(' ').append(CloudSim.getEventsDispatched()).append(' ')
+				.append(CloudSim.getEventsDispatchedInLastTick());
+		return result.toString();
+	}
+
+	private static class WindowEntity extends SimEntity {
+
+		private final List<WindowEntity> peers;
+
+		private final Random random;
+
+		private final StringBuilder received = new StringBuilder();
+
+		private boolean cancelRemote = false;
+
+		private int count = 0;
+
+		WindowEntity(String name, List<WindowEntity> peers) {
+			super(name);
+			this.peers = peers;
+			random = new Random(getId());
+		}
+
+		@Override
+		public void startEntity() {
+			schedule(getId(), 0, TAG_PING);
+			schedule(getId(), 1, TAG_PING);
+		}
+
+		@Override
+		public void processEvent(SimEvent ev) {
+			SimEvent deferred = CloudSim.findFirstDeferred(getId(), new PredicateType(TAG_PING));
+			received.append(CloudSim.clock()).append(' ').append(getId()).append(' ')
+					.append(ev.getSource()).append(' ').append(ev.getTag()).append(' ')
+					.append(deferred == null ? "-" : deferred.eventTime() + "/" + deferred.getDestination())
+					.append('\n');
+			Log.printConcatLine(CloudSim.clock(), ": ", getName(), " received ", ev.getTag(), " from #", ev.getSource());
+			if (++count > 40) {
+				return;
+			}
+
+			WindowEntity peer = peers.get(random.nextInt(peers.size()));
+			if (peer.getLogicalProcess() == getLogicalProcess()) {
+				double delay = random.nextInt(3) * 0.5;
+				if (random.nextBoolean()) {
+					schedule(peer.getId(), delay, TAG_PING);
+				} else {
+					scheduleFirst(peer.getId(), delay, TAG_PING);
+				}
+				schedule(peer.getId(), delay, TAG_CANCELLED);
+				if (random.nextBoolean()) {
+					CloudSim.cancelAll(getId(), new PredicateType(TAG_CANCELLED));
+				} else {
+					cancelEvent(new PredicateType(TAG_CANCELLED));
+				}
+			} else {
+				double delay = REMOTE_DELAY + random.nextInt(3) * 0.5;
+				if (random.nextBoolean()) {
+					schedule(peer.getId(), delay, TAG_REMOTE);
+				} else {
+					scheduleFirst(peer.getId(), delay, TAG_REMOTE);
+				}
+			}
+			if (cancelRemote && count % 3 == 0) {
+				// the first remote event may be one sent earlier, which another logical process dispatches
+				cancelEvent(new PredicateType(TAG_REMOTE));
+			}
+
+			switch (random.nextInt(6)) {
+				case 0:
+					pause(0.5);
+					break;
+				case 1:
+					waitForEvent(new PredicateType(TAG_REMOTE));
+					break;
+				default:
+					break;
+			}
+		}
+
+		@Override
+		public void shutdownEntity() {
+		}
+	}
+
+	private static class PingEntity extends SimEntity {
+
+		private final List<PingEntity> peers;
+
+		private final Random random;
+
+		private final StringBuilder received = new StringBuilder();
+
+		private int count = 0;
+
+		PingEntity(String name, List<PingEntity> peers) {
+			super(name);
+			this.peers = peers;
+			random = new Random(getId());
+		}
+
+		@Override
+		public void startEntity() {
+			schedule(getId(), 0, TAG_PING);
+			schedule(getId(), 1, TAG_PING);
+		}
+
+		@Override
+		public void processEvent(SimEvent ev) {
+			received.append(CloudSim.clock()).append(' ').append(getId()).append(' ')
+					.append(ev.getSource()).append(' ').append(ev.getTag()).append('\n');
+			Log.printConcatLine(CloudSim.clock(), ": ", getName(), " received ", ev.getTag(), " from #", ev.getSource());
+			if (++count > 50) {
+				return;
+			}
+
+			int peer = peers.get(random.nextInt(peers.size())).getId();
+			double delay = random.nextInt(3) * 0.5;
+			if (random.nextBoolean()) {
+				schedule(peer, delay, TAG_PING);
+			} else {
+				scheduleFirst(peer, delay, TAG_PING);
+			}
+			schedule(peer, delay, TAG_CANCELLED);
+			if (random.nextInt(4) > 0) {
+				CloudSim.cancelAll(getId(), new PredicateType(TAG_CANCELLED));
+			} else {
+				cancelEvent(new PredicateType(TAG_PING));
+			}
+		}
+
+		@Override
+		public void shutdownEntity() {
+		}
+	}
+
+}
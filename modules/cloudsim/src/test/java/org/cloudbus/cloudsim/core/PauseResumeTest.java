@@ -0,0 +1,157 @@
+package org.cloudbus.cloudsim.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.cloudbus.cloudsim.Log;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PauseResumeTest {
+
+	private static final double DELTA = 1e-9;
+
+	private static final int EVENTS = 100;
+
+	private boolean disabled;
+
+	private TickEntity entity;
+
+	@Before
+	public void setUp() {
+		disabled = Log.isDisabled();
+		Log.disable();
+		CloudSim.init(0, null, false);
+		entity = new TickEntity("Tick");
+	}
+
+	@After
+	public void tearDown() {
+		Log.setDisabled(disabled);
+	}
+
+	@Test
+	public void testRunUntilAndStepInPlace() {
+		assertTrue(CloudSim.runUntil(10.5));
+		assertEquals(10.5, CloudSim.clock(), DELTA);
+		assertEquals(10, entity.count);
+		assertEquals(10.0, entity.last, DELTA);
+
+		assertTrue(CloudSim.runUntil(20));
+		assertEquals(20, CloudSim.clock(), DELTA);
+		assertEquals(19, entity.count);
+
+		assertTrue(CloudSim.step(5));
+		assertEquals(24, entity.count);
+
+		assertFalse(CloudSim.runUntil(1000));
+		assertEquals(EVENTS, entity.count);
+
+		CloudSim.startSimulation();
+		assertEquals(EVENTS, entity.count);
+		assertTrue(entity.shutdown);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testRunUntilPastTime() {
+		assertTrue(CloudSim.runUntil(10));
+		CloudSim.runUntil(5);
+	}
+
+	@Test
+	public void testPauseAndResumeFromController() throws Exception {
+		assertTrue(CloudSim.pauseSimulation(20));
+		Thread simulation = new Thread(new Runnable() {
+
+			@Override
+			public void run() {
+				CloudSim.startSimulation();
+			}
+		});
+		simulation.start();
+
+		while (!CloudSim.isPaused()) {
+			Thread.sleep(10);
+		}
+		assertEquals(20, CloudSim.clock(), DELTA);
+		assertEquals(19, entity.count);
+
+		assertTrue(CloudSim.runUntil(30));
+		assertEquals(30, CloudSim.clock(), DELTA);
+		assertEquals(29, entity.count);
+
+		assertTrue(CloudSim.step(10));
+		assertEquals(39, entity.count);
+
+		CloudSim.resumeSimulation();
+		simulation.join();
+		assertEquals(EVENTS, entity.count);
+		assertTrue(entity.shutdown);
+	}
+
+	@Test
+	public void testPauseSimulationAfterDispatchingEvents() throws Exception {
+		assertTrue(CloudSim.pauseSimulation(10));
+		entity.delay = 1.5;
+		Thread simulation = new Thread(new Runnable() {
+
+			@Override
+			public void run() {
+				CloudSim.startSimulation();
+			}
+		});
+		simulation.start();
+
+		while (!CloudSim.isPaused()) {
+			Thread.sleep(10);
+		}
+		// the event at 10.5 has been dispatched, but is processed at the pause time
+		assertEquals(10, CloudSim.clock(), DELTA);
+		assertEquals(6, entity.count);
+
+		assertTrue(CloudSim.runUntil(11.5));
+		assertEquals(7, entity.count);
+		assertEquals(10, entity.last, DELTA);
+
+		CloudSim.resumeSimulation();
+		simulation.join();
+		assertEquals(EVENTS, entity.count);
+	}
+
+	private static class TickEntity extends SimEntity {
+
+		private int count = 0;
+
+		private double last = -1;
+
+		private boolean shutdown = false;
+
+		private double delay = 1;
+
+		TickEntity(String name) {
+			super(name);
+		}
+
+		@Override
+		public void startEntity() {
+			schedule(getId(), delay, 0);
+		}
+
+		@Override
+		public void processEvent(SimEvent ev) {
+			count++;
+			last = CloudSim.clock();
+			if (count < EVENTS) {
+				schedule(getId(), delay, 0);
+			}
+		}
+
+		@Override
+		public void shutdownEntity() {
+			shutdown = true;
+		}
+	}
+
+}
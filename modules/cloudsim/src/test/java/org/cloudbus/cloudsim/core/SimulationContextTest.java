@@ -0,0 +1,112 @@
+package org.cloudbus.cloudsim.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.cloudbus.cloudsim.Log;
+import org.junit.Test;
+
+public class SimulationContextTest {
+
+	@Test
+	public void testBindContext() throws Exception {
+		SimulationContext defaultContext = CloudSim.getContext();
+		SimulationContext context = new SimulationContext();
+		CloudSim.setContext(context);
+		try {
+			assertSame(context, CloudSim.getContext());
+			Future<SimulationContext> other = Executors.newSingleThreadExecutor().submit(new Callable<SimulationContext>() {
+
+				@Override
+				public SimulationContext call() {
+					return CloudSim.getContext();
+				}
+			});
+			assertSame(defaultContext, other.get());
+		} finally {
+			CloudSim.setContext(null);
+		}
+		assertSame(defaultContext, CloudSim.getContext());
+		assertNotSame(defaultContext, context);
+	}
+
+	@Test
+	public void testConcurrentSimulations() throws Exception {
+		ExecutorService pool = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<String>> results = new ArrayList<Future<String>>();
+			for (int i = 0; i < 8; i++) {
+				results.add(pool.submit(new Callable<String>() {
+
+					@Override
+					public String call() {
+						CloudSim.setContext(new SimulationContext());
+						try {
+							return simulate();
+						} finally {
+							CloudSim.setContext(null);
+						}
+					}
+				}));
+			}
+
+			String expected = results.get(0).get();
+			for (Future<String> result : results) {
+				assertEquals(expected, result.get());
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Runs a simulation where a few entities send events to each other and returns its log.
+	 */
+	private static String simulate() {
+		ByteArrayOutputStream log = new ByteArrayOutputStream();
+		Log.setOutput(log);
+		CloudSim.init(0, null, false);
+		for (int i = 0; i < 4; i++) {
+			new CountingEntity("Counter" + i);
+		}
+		CloudSim.startSimulation();
+		return log.toString();
+	}
+
+	private static class CountingEntity extends SimEntity {
+
+		private int count = 0;
+
+		CountingEntity(String name) {
+			super(name);
+		}
+
+		@Override
+		public void startEntity() {
+			schedule(getId(), getId(), 0);
+		}
+
+		@Override
+		public void processEvent(SimEvent ev) {
+			Log.printConcatLine(CloudSim.clock(), ": ", getName(), " received #", count, " from ", ev.getSource());
+			if (++count < 1000) {
+				int peer = 2 + (getId() + count) % 4;
+				schedule(peer, count % 7, 0);
+			}
+		}
+
+		@Override
+		public void shutdownEntity() {
+		}
+	}
+
+}
@@ -0,0 +1,96 @@
+package org.cloudbus.cloudsim.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringWriter;
+
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.core.SimulationMetrics.EventMetrics;
+import org.cloudbus.cloudsim.core.SimulationMetrics.LatencyHistogram;
+import org.junit.Test;
+
+public class SimulationMetricsTest {
+
+	private static final int TAG = 1234;
+
+	private static final int EVENTS = 100;
+
+	@Test
+	public void testMetrics() {
+		boolean disabled = Log.isDisabled();
+		Log.disable();
+		try {
+			CloudSim.init(0, null, false);
+			new PingEntity("Ping0");
+			new PingEntity("Ping1");
+			SimulationMetrics metrics = new SimulationMetrics();
+			CloudSim.setMetrics(metrics);
+			CloudSim.startSimulation();
+
+			EventMetrics tagMetrics = metrics.getTagMetrics(TAG);
+			assertEquals(2 * EVENTS, tagMetrics.getDispatched());
+			assertEquals(2 * EVENTS, tagMetrics.getLatency().getCount());
+			EventMetrics entityMetrics = metrics.getEntityMetrics(PingEntity.class);
+			assertEquals(2 * EVENTS, entityMetrics.getDispatched());
+			assertEquals(2 * EVENTS, entityMetrics.getLatency().getCount());
+			assertNull(metrics.getTagMetrics(TAG + 1));
+			assertEquals(2, metrics.getMaxFutureSize());
+			assertTrue(metrics.getQueueSamples() >= EVENTS);
+
+			StringWriter csv = new StringWriter();
+			metrics.writeEventsCsv(csv);
+			assertTrue(csv.toString().startsWith("kind,key,dispatched,processed"));
+			assertTrue(csv.toString().contains("tag," + TAG + "," + 2 * EVENTS + "," + 2 * EVENTS + ","));
+			StringWriter json = new StringWriter();
+			metrics.writeJson(json);
+			assertTrue(json.toString().contains("\"" + PingEntity.class.getName() + "\": {\"dispatched\": " + 2 * EVENTS));
+		} finally {
+			Log.setDisabled(disabled);
+		}
+	}
+
+	@Test
+	public void testLatencyHistogram() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		assertEquals(0, histogram.getPercentile(50));
+		for (int i = 1; i <= 100; i++) {
+			histogram.add(i * 10);
+		}
+		assertEquals(100, histogram.getCount());
+		assertEquals(50500, histogram.getTotal());
+		assertEquals(505, histogram.getMean());
+		assertEquals(10, histogram.getMin());
+		assertEquals(1000, histogram.getMax());
+		assertEquals(511, histogram.getPercentile(50));
+		assertEquals(1000, histogram.getPercentile(99));
+		assertEquals(15, histogram.getPercentile(1));
+	}
+
+	private static class PingEntity extends SimEntity {
+
+		private int count = 0;
+
+		PingEntity(String name) {
+			super(name);
+		}
+
+		@Override
+		public void startEntity() {
+			schedule(getId(), 1, TAG);
+		}
+
+		@Override
+		public void processEvent(SimEvent ev) {
+			if (++count < EVENTS) {
+				schedule(getId(), 1, TAG);
+			}
+		}
+
+		@Override
+		public void shutdownEntity() {
+		}
+	}
+
+}
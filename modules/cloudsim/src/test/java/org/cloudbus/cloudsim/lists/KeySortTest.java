@@ -0,0 +1,72 @@
+package org.cloudbus.cloudsim.lists;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class KeySortTest {
+
+	private static final double[] VALUES = { 0.5, 0.0, -0.0, 1.0, Double.NaN, 0.25, Double.NEGATIVE_INFINITY };
+
+	/** An element with a key, and its position in the list before sorting. */
+	private static class Element {
+
+		private final double key;
+
+		private final int position;
+
+		Element(double key, int position) {
+			this.key = key;
+			this.position = position;
+		}
+	}
+
+	@Test
+	public void testSameOrderAsComparatorSort() {
+		Random random = new Random(1);
+		for (int size = 0; size < 200; size += 1 + size / 4) {
+			List<Element> list = new ArrayList<Element>();
+			for (int i = 0; i < size; i++) {
+				list.add(new Element(VALUES[random.nextInt(VALUES.length)], i));
+			}
+
+			List<Element> expected = new ArrayList<Element>(list);
+			Collections.sort(expected, new Comparator<Element>() {
+
+				@Override
+				public int compare(Element a, Element b) {
+					return Double.compare(a.key, b.key);
+				}
+			});
+			List<Element> actual = new LinkedList<Element>(list);
+			KeySort.sort(actual, element -> element.key);
+			assertSameOrder(expected, actual);
+
+			Collections.sort(expected, new Comparator<Element>() {
+
+				@Override
+				public int compare(Element a, Element b) {
+					return Double.valueOf(b.key).compareTo(a.key);
+				}
+			});
+			actual = new ArrayList<Element>(list);
+			KeySort.sortDescending(actual, element -> element.key);
+			assertSameOrder(expected, actual);
+		}
+	}
+
+	private static void assertSameOrder(List<Element> expected, List<Element> actual) {
+		assertEquals(expected.size(), actual.size());
+		for (int i = 0; i < expected.size(); i++) {
+			assertEquals(expected.get(i).position, actual.get(i).position);
+		}
+	}
+
+}
@@ -0,0 +1,129 @@
+package org.cloudbus.cloudsim.power;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.OutputStream;
+import java.util.List;
+
+import org.cloudbus.cloudsim.HostStateHistoryEntry;
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.VmAllocationPolicy;
+import org.cloudbus.cloudsim.VmStateHistoryEntry;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class PowerDatacenterCheckpointTest {
+
+	/** The end of the warm-up, before the second wave of VMs. */
+	private static final double WARM_UP_TIME = 10 * PowerDatacenterSimulation.SCHEDULING_INTERVAL;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private OutputStream output;
+
+	private boolean disabled;
+
+	private String checkpoint;
+
+	@Before
+	public void setUp() throws Exception {
+		output = Log.getOutput();
+		disabled = Log.isDisabled();
+		Log.enable();
+		checkpoint = new File(folder.getRoot(), "workload.checkpoint").getPath();
+	}
+
+	@After
+	public void tearDown() {
+		Log.setOutput(output);
+		Log.setDisabled(disabled);
+	}
+
+	@Test
+	public void testPoliciesRestoredFromOneCheckpoint() throws Exception {
+		String staticThreshold = run(false, true, 0);
+		String medianAbsoluteDeviation = run(false, false, 1);
+
+		assertTrue(staticThreshold.contains("Migration of VM"));
+		assertTrue(medianAbsoluteDeviation.contains("Migration of VM"));
+		assertFalse(staticThreshold.equals(medianAbsoluteDeviation));
+		assertEquals(staticThreshold, run(true, false, 0));
+		assertEquals(medianAbsoluteDeviation, run(true, false, 1));
+	}
+
+	/**
+	 * Runs the simulation warmed up with a simple policy, then with a migration policy.
+	 *
+	 * @param restore true to restore the warm-up from the checkpoint rather than simulating it
+	 * @param save true to save the warm-up to the checkpoint
+	 * @param policy the migration policy
+	 * @return the log of the simulation after the warm-up, followed by its results
+	 */
+	private String run(final boolean restore, final boolean save, final int policy) throws Exception {
+		final ByteArrayOutputStream log = new ByteArrayOutputStream();
+		PowerDatacenterSimulation simulation = new PowerDatacenterSimulation(40, 30, 3) {
+
+			@Override
+			protected VmAllocationPolicy newVmAllocationPolicy(List<PowerHost> hostList) {
+				return new PowerVmAllocationPolicySimple(hostList);
+			}
+
+			@Override
+			protected void startSimulation() throws Exception {
+				Log.setOutput(new ByteArrayOutputStream());
+				CloudSim.terminateSimulation(SIMULATION_LIMIT);
+				if (restore) {
+					CloudSim.restoreCheckpoint(checkpoint);
+				} else {
+					assertTrue(CloudSim.runUntil(WARM_UP_TIME));
+					if (save) {
+						CloudSim.saveCheckpoint(checkpoint);
+					}
+				}
+				getDatacenter().replaceVmAllocationPolicy(newMigrationPolicy(getHostList(), policy));
+				Log.setOutput(log);
+				CloudSim.startSimulation();
+			}
+		};
+		simulation.run();
+
+		StringBuilder results = new StringBuilder(log.toString());
+		PowerDatacenter datacenter = simulation.getDatacenter();
+		results.append(datacenter.getPower()).append(' ').append(datacenter.getMigrationCount()).append('\n');
+		for (PowerHost host : simulation.getHostList()) {
+			for (HostStateHistoryEntry entry : host.getStateHistory()) {
+				results.append(entry.getTime()).append(' ').append(entry.getAllocatedMips()).append(' ')
+						.append(entry.getRequestedMips()).append(' ').append(entry.isActive()).append('\n');
+			}
+		}
+		for (Vm vm : datacenter.getVmList()) {
+			for (VmStateHistoryEntry entry : vm.getStateHistory()) {
+				results.append(entry.getTime()).append(' ').append(entry.getAllocatedMips()).append(' ')
+						.append(entry.getRequestedMips()).append(' ').append(entry.isInMigration()).append('\n');
+			}
+		}
+		return results.toString();
+	}
+
+	private static PowerVmAllocationPolicyAbstract newMigrationPolicy(List<PowerHost> hostList, int policy) {
+		if (policy == 0) {
+			return new PowerVmAllocationPolicyMigrationStaticThreshold(hostList,
+					new PowerVmSelectionPolicyMinimumMigrationTime(), 0.8);
+		}
+		return new PowerVmAllocationPolicyMigrationMedianAbsoluteDeviation(hostList,
+				new PowerVmSelectionPolicyMaximumCorrelation(new PowerVmSelectionPolicyMinimumMigrationTime()),
+				2.5, new PowerVmAllocationPolicyMigrationStaticThreshold(hostList,
+						new PowerVmSelectionPolicyMinimumMigrationTime(), 0.8));
+	}
+
+}
@@ -0,0 +1,195 @@
+package org.cloudbus.cloudsim.power;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+
+import org.cloudbus.cloudsim.Cloudlet;
+import org.cloudbus.cloudsim.CloudletSchedulerDynamicWorkload;
+import org.cloudbus.cloudsim.DatacenterBroker;
+import org.cloudbus.cloudsim.DatacenterCharacteristics;
+import org.cloudbus.cloudsim.Pe;
+import org.cloudbus.cloudsim.Storage;
+import org.cloudbus.cloudsim.UtilizationModelNull;
+import org.cloudbus.cloudsim.UtilizationModelStochastic;
+import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.VmAllocationPolicy;
+import org.cloudbus.cloudsim.VmSchedulerTimeSharedOverSubscription;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.SimEvent;
+import org.cloudbus.cloudsim.power.models.PowerModel;
+import org.cloudbus.cloudsim.power.models.PowerModelSpecPowerHpProLiantMl110G4Xeon3040;
+import org.cloudbus.cloudsim.power.models.PowerModelSpecPowerHpProLiantMl110G5Xeon3075;
+import org.cloudbus.cloudsim.provisioners.BwProvisionerSimple;
+import org.cloudbus.cloudsim.provisioners.PeProvisionerSimple;
+import org.cloudbus.cloudsim.provisioners.RamProvisionerSimple;
+
+/**
+ * A small simulation of a power datacenter for the tests. Its hosts, of two types, are more than
+ * needed by its VMs, whose cloudlets have a random CPU utilization, and a second wave of VMs is
+ * created halfway through the simulation. The hosts, the datacenter and the VM allocation policy
+ * are created by methods that the tests override to observe them.
+ */
+class PowerDatacenterSimulation {
+
+	static final double SCHEDULING_INTERVAL = 300;
+
+	static final double SIMULATION_LIMIT = 24 * SCHEDULING_INTERVAL;
+
+	private static final int[] HOST_MIPS = { 1860, 2660 };
+
+	private static final PowerModel[] HOST_POWER = {
+			new PowerModelSpecPowerHpProLiantMl110G4Xeon3040(),
+			new PowerModelSpecPowerHpProLiantMl110G5Xeon3075() };
+
+	private static final int[] VM_MIPS = { 2500, 2000, 1000, 500 };
+
+	private static final int[] VM_RAM = { 870, 1740, 1740, 613 };
+
+	private final int hosts;
+
+	private final int vms;
+
+	private final long seed;
+
+	private List<PowerHost> hostList;
+
+	private PowerDatacenter datacenter;
+
+	/**
+	 * Creates a simulation.
+	 *
+	 * @param hosts the number of hosts
+	 * @param vms the number of VMs created at the start, a quarter more being created later
+	 * @param seed the seed of the VM types and of the utilization of their cloudlets
+	 */
+	PowerDatacenterSimulation(int hosts, int vms, long seed) {
+		this.hosts = hosts;
+		this.vms = vms;
+		this.seed = seed;
+	}
+
+	/**
+	 * Runs the simulation up to {@link #SIMULATION_LIMIT}.
+	 */
+	void run() throws Exception {
+		CloudSim.init(1, null, false);
+		Random random = new Random(seed);
+
+		hostList = new ArrayList<PowerHost>();
+		for (int i = 0; i < hosts; i++) {
+			int type = i % HOST_MIPS.length;
+			List<Pe> peList = new ArrayList<Pe>();
+			peList.add(new Pe(0, new PeProvisionerSimple(HOST_MIPS[type])));
+			peList.add(new Pe(1, new PeProvisionerSimple(HOST_MIPS[type])));
+			hostList.add(newHost(i, peList, HOST_POWER[type]));
+		}
+
+		DatacenterCharacteristics characteristics = new DatacenterCharacteristics(
+				"x86", "Linux", "Xen", hostList, 10.0, 3.0, 0.05, 0.001, 0.0);
+		datacenter = newDatacenter("Datacenter", characteristics, newVmAllocationPolicy(hostList));
+		datacenter.setDisableMigrations(false);
+
+		WaveBroker broker = new WaveBroker("Broker");
+		List<Vm> vmList = new ArrayList<Vm>();
+		List<Cloudlet> cloudletList = new ArrayList<Cloudlet>();
+		for (int i = 0; i < vms + vms / 4; i++) {
+			int type = random.nextInt(VM_MIPS.length);
+			vmList.add(new PowerVm(i, broker.getId(), VM_MIPS[type], 1, VM_RAM[type], 100000, 2500, 1,
+					"Xen", new CloudletSchedulerDynamicWorkload(VM_MIPS[type], 1), SCHEDULING_INTERVAL));
+			Cloudlet cloudlet = new Cloudlet(i, (long) (2500 * SIMULATION_LIMIT), 1, 300, 300,
+					new UtilizationModelStochastic(random.nextLong()), new UtilizationModelNull(),
+					new UtilizationModelNull());
+			cloudlet.setUserId(broker.getId());
+			cloudlet.setVmId(i);
+			cloudletList.add(cloudlet);
+		}
+		broker.submitVmList(vmList.subList(0, vms));
+		broker.submitCloudletList(cloudletList.subList(0, vms));
+		broker.wave = vmList.subList(vms, vmList.size());
+		broker.waveCloudlets = cloudletList.subList(vms, cloudletList.size());
+
+		startSimulation();
+		CloudSim.stopSimulation();
+	}
+
+	/**
+	 * Starts the simulation once it is built.
+	 */
+	protected void startSimulation() throws Exception {
+		CloudSim.terminateSimulation(SIMULATION_LIMIT);
+		CloudSim.startSimulation();
+	}
+
+	/**
+	 * Creates a host.
+	 */
+	protected PowerHost newHost(int id, List<Pe> peList, PowerModel powerModel) {
+		return new PowerHostUtilizationHistory(id, new RamProvisionerSimple(4096),
+				new BwProvisionerSimple(1000000), 1000000, peList,
+				new VmSchedulerTimeSharedOverSubscription(peList), powerModel);
+	}
+
+	/**
+	 * Creates the datacenter.
+	 */
+	protected PowerDatacenter newDatacenter(String name, DatacenterCharacteristics characteristics,
+			VmAllocationPolicy vmAllocationPolicy) throws Exception {
+		return new PowerDatacenter(name, characteristics, vmAllocationPolicy, new LinkedList<Storage>(),
+				SCHEDULING_INTERVAL);
+	}
+
+	/**
+	 * Creates the VM allocation policy: a static threshold with the minimum migration time
+	 * selection policy.
+	 */
+	protected VmAllocationPolicy newVmAllocationPolicy(List<PowerHost> hostList) {
+		return new PowerVmAllocationPolicyMigrationStaticThreshold(hostList,
+				new PowerVmSelectionPolicyMinimumMigrationTime(), 0.8);
+	}
+
+	List<PowerHost> getHostList() {
+		return hostList;
+	}
+
+	PowerDatacenter getDatacenter() {
+		return datacenter;
+	}
+
+	/**
+	 * A broker that creates a second wave of VMs halfway through the simulation.
+	 */
+	private static class WaveBroker extends DatacenterBroker {
+
+		private static final int CREATE_WAVE = 1000;
+
+		private List<Vm> wave;
+
+		private List<Cloudlet> waveCloudlets;
+
+		WaveBroker(String name) throws Exception {
+			super(name);
+		}
+
+		@Override
+		public void startEntity() {
+			super.startEntity();
+			// halfway between two time frames, which would deallocate the new VMs before their
+			// cloudlets are submitted
+			schedule(getId(), (SIMULATION_LIMIT + SCHEDULING_INTERVAL) / 2, CREATE_WAVE);
+		}
+
+		@Override
+		protected void processOtherEvent(SimEvent ev) {
+			if (ev.getTag() != CREATE_WAVE) {
+				super.processOtherEvent(ev);
+				return;
+			}
+			submitVmList(wave);
+			submitCloudletList(waveCloudlets);
+			createVmsInDatacenter(getDatacenterIdsList().get(0));
+		}
+	}
+
+}
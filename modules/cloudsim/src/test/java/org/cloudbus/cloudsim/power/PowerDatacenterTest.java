@@ -0,0 +1,301 @@
+package org.cloudbus.cloudsim.power;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+
+import org.cloudbus.cloudsim.DatacenterCharacteristics;
+import org.cloudbus.cloudsim.HostStateHistoryEntry;
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.Pe;
+import org.cloudbus.cloudsim.Storage;
+import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.VmAllocationPolicy;
+import org.cloudbus.cloudsim.VmSchedulerTimeSharedOverSubscription;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.power.models.PowerModel;
+import org.cloudbus.cloudsim.provisioners.BwProvisionerSimple;
+import org.cloudbus.cloudsim.provisioners.RamProvisionerSimple;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PowerDatacenterTest {
+
+	private static final double DELTA = 1e-9;
+
+	private boolean disabled;
+
+	private PowerDatacenterSimulation simulation;
+
+	private FrameCheckingDatacenter datacenter;
+
+	@Before
+	public void setUp() throws Exception {
+		disabled = Log.isDisabled();
+		Log.disable();
+		simulation = new PowerDatacenterSimulation(40, 30, 3) {
+
+			@Override
+			protected PowerDatacenter newDatacenter(String name, DatacenterCharacteristics characteristics,
+					VmAllocationPolicy vmAllocationPolicy) throws Exception {
+				datacenter = new FrameCheckingDatacenter(name, characteristics, vmAllocationPolicy);
+				return datacenter;
+			}
+		};
+		simulation.run();
+	}
+
+	@After
+	public void tearDown() {
+		Log.setDisabled(disabled);
+	}
+
+	@Test
+	public void testHostEnergySumsToDatacenterEnergy() {
+		double energy = 0;
+		int consumingHosts = 0;
+		for (int i = 0; i < simulation.getHostList().size(); i++) {
+			energy += datacenter.getHostEnergy(i);
+			if (datacenter.getHostEnergy(i) > 0) {
+				consumingHosts++;
+			}
+		}
+		assertTrue(datacenter.getPower() > 0);
+		assertTrue(consumingHosts > 1);
+		assertEquals(datacenter.getPower(), energy, datacenter.getPower() * DELTA);
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testGetHostEnergyOutOfBounds() {
+		datacenter.getHostEnergy(simulation.getHostList().size());
+	}
+
+	@Test
+	public void testTimeFramePower() {
+		assertEquals(0, datacenter.initialTimeFramePower, 0);
+		assertTrue(datacenter.frames > 20);
+		assertTrue(datacenter.maxRelativeError < DELTA);
+		assertEquals(datacenter.getTimeFrameEnergy() / datacenter.getTimeFrameLength(),
+				datacenter.getTimeFramePower(), 0);
+	}
+
+	@Test
+	public void testSkippingIdleHostsGivesSameResults() throws Exception {
+		ActiveHostsSimulation skipping = new ActiveHostsSimulation(true);
+		skipping.run();
+		ActiveHostsSimulation updatingAll = new ActiveHostsSimulation(false);
+		updatingAll.run();
+
+		assertEquals(updatingAll.getDatacenter().getPower(), skipping.getDatacenter().getPower(), 0);
+		assertEquals(updatingAll.getDatacenter().getMigrationCount(), skipping.getDatacenter().getMigrationCount());
+		assertEquals(updatingAll.frameEnergies, skipping.frameEnergies);
+		assertEquals(updatingAll.hostUtilization.toString(), skipping.hostUtilization.toString());
+		for (int i = 0; i < skipping.getHostList().size(); i++) {
+			assertEquals(updatingAll.getDatacenter().getHostEnergy(i), skipping.getDatacenter().getHostEnergy(i), 0);
+			assertEquals(getSwitches(updatingAll.getHostList().get(i)), getSwitches(skipping.getHostList().get(i)));
+		}
+
+		assertTrue(skipping.getDatacenter().getMigrationCount() > 0);
+		assertTrue(skipping.skippedHosts > 0);
+		assertTrue(skipping.reactivationsByVmCreate > 0);
+		assertTrue(skipping.reactivationsByMigration > 0);
+		assertTrue(skipping.deactivationsOfUsedHosts > 0);
+		assertEquals(0, updatingAll.skippedHosts);
+	}
+
+	@Test
+	public void testLogListsSkippedIdleHosts() throws Exception {
+		OutputStream output = Log.getOutput();
+		ByteArrayOutputStream skippingLog = new ByteArrayOutputStream();
+		ByteArrayOutputStream updatingAllLog = new ByteArrayOutputStream();
+		ActiveHostsSimulation skipping = new ActiveHostsSimulation(true);
+		ActiveHostsSimulation updatingAll = new ActiveHostsSimulation(false);
+		Log.enable();
+		try {
+			Log.setOutput(skippingLog);
+			skipping.run();
+			Log.setOutput(updatingAllLog);
+			updatingAll.run();
+		} finally {
+			Log.setOutput(output);
+			Log.disable();
+		}
+
+		assertTrue(skipping.skippedHosts > 0);
+		assertEquals(updatingAll.getDatacenter().getPower(), skipping.getDatacenter().getPower(), 0);
+		assertTrue(skippingLog.toString().contains("[Host #0] utilization is 0.00%"));
+		assertEquals(updatingAllLog.toString(), skippingLog.toString());
+	}
+
+	/**
+	 * Gets the times at which a host was switched on or off, from its state history.
+	 */
+	private static List<String> getSwitches(PowerHost host) {
+		List<String> switches = new ArrayList<String>();
+		Boolean active = null;
+		for (HostStateHistoryEntry entry : host.getStateHistory()) {
+			if (active == null || entry.isActive() != active) {
+				active = entry.isActive();
+				switches.add(entry.getTime() + (active ? " on" : " off"));
+			}
+		}
+		return switches;
+	}
+
+	/**
+	 * A simulation whose datacenter either skips the idle hosts at each time frame, or activates
+	 * all the hosts before each time frame, as it was before the set of active hosts. It records
+	 * the energy of each time frame, the utilization of the hosts after it, the hosts skipped, the
+	 * idle hosts activated again by a VM created on them or migrating to them, and the hosts
+	 * deactivated after losing their VMs.
+	 */
+	private static class ActiveHostsSimulation extends PowerDatacenterSimulation {
+
+		private final boolean skipIdleHosts;
+
+		private final List<Double> frameEnergies = new ArrayList<Double>();
+
+		private final StringBuilder hostUtilization = new StringBuilder();
+
+		private final Set<PowerHost> usedHosts = new HashSet<PowerHost>();
+
+		private int skippedHosts = 0;
+
+		private int reactivationsByVmCreate = 0;
+
+		private int reactivationsByMigration = 0;
+
+		private int deactivationsOfUsedHosts = 0;
+
+		ActiveHostsSimulation(boolean skipIdleHosts) {
+			super(40, 30, 5);
+			this.skipIdleHosts = skipIdleHosts;
+		}
+
+		private boolean isActive(PowerHost host) {
+			return getDatacenter().getActiveHostSet().isActive(getHostList().indexOf(host));
+		}
+
+		@Override
+		protected PowerHost newHost(int id, List<Pe> peList, PowerModel powerModel) {
+			return new PowerHostUtilizationHistory(id, new RamProvisionerSimple(4096),
+					new BwProvisionerSimple(1000000), 1000000, peList,
+					new VmSchedulerTimeSharedOverSubscription(peList), powerModel) {
+
+				@Override
+				public boolean vmCreate(Vm vm) {
+					boolean active = isActive(this);
+					boolean result = super.vmCreate(vm);
+					if (result && !active && isActive(this)) {
+						reactivationsByVmCreate++;
+					}
+					if (result) {
+						usedHosts.add(this);
+					}
+					return result;
+				}
+
+				@Override
+				public void addMigratingInVm(Vm vm) {
+					boolean active = isActive(this);
+					super.addMigratingInVm(vm);
+					if (!active && isActive(this)) {
+						reactivationsByMigration++;
+					}
+					usedHosts.add(this);
+				}
+			};
+		}
+
+		@Override
+		protected PowerDatacenter newDatacenter(String name, DatacenterCharacteristics characteristics,
+				VmAllocationPolicy vmAllocationPolicy) throws Exception {
+			return new PowerDatacenter(name, characteristics, vmAllocationPolicy, new LinkedList<Storage>(),
+					SCHEDULING_INTERVAL) {
+
+				@Override
+				protected double updateCloudetProcessingWithoutSchedulingFutureEventsForce() {
+					if (!skipIdleHosts) {
+						getActiveHostSet().activateAll();
+					}
+					boolean frame = CloudSim.clock() > getLastProcessTime();
+					List<PowerHost> hosts = getHostList();
+					boolean[] active = new boolean[hosts.size()];
+					for (int i = 0; i < hosts.size(); i++) {
+						active[i] = getActiveHostSet().isActive(i);
+						if (!active[i]) {
+							skippedHosts++;
+						}
+					}
+					double minTime = super.updateCloudetProcessingWithoutSchedulingFutureEventsForce();
+					for (int i = 0; i < hosts.size(); i++) {
+						if (active[i] && !getActiveHostSet().isActive(i) && usedHosts.contains(hosts.get(i))) {
+							deactivationsOfUsedHosts++;
+						}
+						// a skipped host keeps the utilization that updating it would give
+						hostUtilization.append(hosts.get(i).getPreviousUtilizationMips()).append(' ')
+								.append(hosts.get(i).getUtilizationMips()).append(' ');
+					}
+					hostUtilization.append('\n');
+					if (frame) {
+						frameEnergies.add(getTimeFrameEnergy());
+					}
+					return minTime;
+				}
+			};
+		}
+	}
+
+	/**
+	 * A datacenter comparing, after every time frame, its time frame energy, length and power with
+	 * the energy added to the datacenter, the time elapsed and the energy of every host over the
+	 * time frame.
+	 */
+	private static class FrameCheckingDatacenter extends PowerDatacenter {
+
+		private final double initialTimeFramePower;
+
+		private int frames = 0;
+
+		private double maxRelativeError = 0;
+
+		FrameCheckingDatacenter(String name, DatacenterCharacteristics characteristics,
+				VmAllocationPolicy vmAllocationPolicy) throws Exception {
+			super(name, characteristics, vmAllocationPolicy, new LinkedList<Storage>(),
+					PowerDatacenterSimulation.SCHEDULING_INTERVAL);
+			initialTimeFramePower = getTimeFramePower();
+		}
+
+		@Override
+		protected double updateCloudetProcessingWithoutSchedulingFutureEventsForce() {
+			double timeDiff = CloudSim.clock() - getLastProcessTime();
+			double power = getPower();
+			double minTime = super.updateCloudetProcessingWithoutSchedulingFutureEventsForce();
+			if (timeDiff > 0) {
+				double hostEnergy = 0;
+				for (PowerHost host : this.<PowerHost> getHostList()) {
+					hostEnergy += host.getEnergy(host.getPreviousUtilizationOfCpu(), host.getUtilizationOfCpu(),
+							timeDiff);
+				}
+				double energy = getTimeFrameEnergy();
+				double scale = Math.max(energy, 1);
+				maxRelativeError = Math.max(maxRelativeError, Math.abs(timeDiff - getTimeFrameLength()));
+				maxRelativeError = Math.max(maxRelativeError, Math.abs(getPower() - power - energy) / scale);
+				maxRelativeError = Math.max(maxRelativeError, Math.abs(hostEnergy - energy) / scale);
+				maxRelativeError = Math.max(maxRelativeError,
+						Math.abs(getTimeFramePower() * timeDiff - energy) / scale);
+				frames++;
+			}
+			return minTime;
+		}
+	}
+
+}
@@ -0,0 +1,96 @@
+package org.cloudbus.cloudsim.power;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.cloudbus.cloudsim.CloudletSchedulerDynamicWorkload;
+import org.cloudbus.cloudsim.Pe;
+import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.VmSchedulerTimeShared;
+import org.cloudbus.cloudsim.power.models.PowerModelLinear;
+import org.cloudbus.cloudsim.provisioners.BwProvisionerSimple;
+import org.cloudbus.cloudsim.provisioners.PeProvisionerSimple;
+import org.cloudbus.cloudsim.provisioners.RamProvisionerSimple;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PowerHostSnapshotTest {
+
+	private static final double DELTA = 1e-9;
+
+	private PowerHost host;
+
+	@Before
+	public void setUp() {
+		List<Pe> peList = new ArrayList<Pe>();
+		peList.add(new Pe(0, new PeProvisionerSimple(1000)));
+		peList.add(new Pe(1, new PeProvisionerSimple(1000)));
+		host = new PowerHost(0, new RamProvisionerSimple(4096), new BwProvisionerSimple(10000), 100000, peList,
+				new VmSchedulerTimeShared(peList), new PowerModelLinear(200, 0.3));
+		host.vmCreate(newVm(0, 2, 600, 1024));
+	}
+
+	@Test
+	public void testWithVmMatchesVmCreate() {
+		Vm vm = newVm(1, 1, 800, 2048);
+		PowerHostSnapshot before = new PowerHostSnapshot(host);
+		assertTrue(before.isSuitableForVm(vm));
+
+		PowerHostSnapshot after = before.withVm(vm);
+		assertEquals(1, before.getVmList().size());
+		assertEquals(800, host.getAvailableMips(), DELTA);
+
+		host.vmCreate(vm);
+		assertSnapshotOf(host, after);
+		assertSnapshotOf(host, new PowerHostSnapshot(host));
+	}
+
+	@Test
+	public void testWithoutVmMatchesVmDestroy() {
+		Vm vm = host.getVmList().get(0);
+		PowerHostSnapshot after = new PowerHostSnapshot(host).withoutVm(vm);
+		assertEquals(1, host.getVmList().size());
+
+		host.vmDestroy(vm);
+		assertSnapshotOf(host, after);
+
+		PowerHostSnapshot empty = new PowerHostSnapshot(host);
+		assertSame(empty, empty.withoutVm(vm));
+	}
+
+	@Test
+	public void testWithVmNotSuitable() {
+		Vm vm = newVm(1, 1, 900, 1024);
+		PowerHostSnapshot snapshot = new PowerHostSnapshot(host);
+		assertFalse(snapshot.isSuitableForVm(vm));
+		assertNull(snapshot.withVm(vm));
+		assertFalse(host.isSuitableForVm(vm));
+	}
+
+	private static void assertSnapshotOf(PowerHost host, PowerHostSnapshot snapshot) {
+		assertEquals(host.getVmList(), snapshot.getVmList());
+		assertEquals(host.getAvailableMips(), snapshot.getAvailableMips(), DELTA);
+		assertEquals(host.getRamProvisioner().getAvailableRam(), snapshot.getAvailableRam());
+		assertEquals(host.getBwProvisioner().getAvailableBw(), snapshot.getAvailableBw());
+		assertEquals(host.getStorage(), snapshot.getAvailableStorage());
+		double utilizationMips = 0;
+		for (Vm vm : host.getVmList()) {
+			utilizationMips += host.getTotalAllocatedMipsForVm(vm);
+			assertEquals(host.getRamProvisioner().getAllocatedRamForVm(vm), snapshot.getAllocatedRamForVm(vm));
+			assertEquals(host.getBwProvisioner().getAllocatedBwForVm(vm), snapshot.getAllocatedBwForVm(vm));
+		}
+		assertEquals(utilizationMips, snapshot.getUtilizationOfCpuMips(), DELTA);
+	}
+
+	private static Vm newVm(int id, int pes, double mips, int ram) {
+		return new PowerVm(id, 1, mips, pes, ram, 1000, 2500, 1, "Xen", new CloudletSchedulerDynamicWorkload(mips,
+				pes), 300);
+	}
+
+}
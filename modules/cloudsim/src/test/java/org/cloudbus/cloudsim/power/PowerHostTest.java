@@ -15,6 +15,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import org.cloudbus.cloudsim.Pe;
+import org.cloudbus.cloudsim.power.models.PowerModelCubic;
 import org.cloudbus.cloudsim.power.models.PowerModelLinear;
 import org.cloudbus.cloudsim.provisioners.PeProvisionerSimple;
 import org.junit.Before;
@@ -58,4 +59,19 @@ public class PowerHostTest {
 		assertEquals(expectedEnergy, host.getEnergyLinearInterpolation(0.2, 0.9, TIME), 0);
 	}
 
+	@Test
+	public void testGetEnergyIntegratesThePowerModel() {
+		assertEquals(0, host.getEnergy(0, 0.5, TIME), 0);
+		assertEquals(host.getEnergyLinearInterpolation(0.2, 0.9, TIME), host.getEnergy(0.2, 0.9, TIME), 1e-9);
+
+		host = new PowerHost(0, null, null, 0, host.getPeList(), null, new PowerModelCubic(MAX_POWER, STATIC_POWER_PERCENT));
+		assertEquals(host.getPowerModel().getMeanPower(0.2, 0.9) * TIME, host.getEnergy(0.2, 0.9, TIME), 0);
+		assertEquals(host.getPower(0.6) * TIME, host.getEnergy(0.6, 0.6, TIME), 1e-9);
+	}
+
+	@Test (expected = IllegalArgumentException.class)
+	public void testGetEnergyArgumentLargerThenOne() {
+		host.getEnergy(0.5, 1.5, TIME);
+	}
+
 }
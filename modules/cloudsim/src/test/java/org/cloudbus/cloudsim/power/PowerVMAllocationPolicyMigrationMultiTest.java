@@ -0,0 +1,112 @@
+package org.cloudbus.cloudsim.power;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.MigrationPlan;
+import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.VmAllocationPolicy;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PowerVMAllocationPolicyMigrationMultiTest {
+
+	private static final double DELTA = 1e-9;
+
+	private boolean disabled;
+
+	private CountingPolicy policy;
+
+	@Before
+	public void setUp() throws Exception {
+		disabled = Log.isDisabled();
+		Log.disable();
+		new PowerDatacenterSimulation(40, 30, 42) {
+
+			@Override
+			protected VmAllocationPolicy newVmAllocationPolicy(List<PowerHost> hostList) {
+				PowerVmSelectionPolicy vmSelectionPolicy = new PowerVmSelectionPolicyMinimumMigrationTime();
+				policy = new CountingPolicy(hostList, vmSelectionPolicy, 0.5,
+						new PowerVmAllocationPolicyMigrationStaticThreshold(hostList, vmSelectionPolicy, 0.8));
+				return policy;
+			}
+		}.run();
+	}
+
+	@After
+	public void tearDown() {
+		Log.setDisabled(disabled);
+	}
+
+	@Test
+	public void testThresholdUpdatedOncePerRound() {
+		assertTrue(policy.rounds > 10);
+		assertEquals(policy.rounds, policy.thresholdUpdates);
+		assertTrue(policy.overUtilizationChecks > 10 * policy.rounds);
+	}
+
+	@Test
+	public void testEnergyFromTimeFrameMatchesPerHostSum() {
+		assertEquals(policy.rounds, policy.energies);
+		assertTrue(policy.maxRelativeEnergyError < DELTA);
+	}
+
+	/**
+	 * A Multi policy counting the threshold updates and the over-utilization checks of each round,
+	 * which also compares the energy it gets from the datacenter with the energy computed from
+	 * the utilization of every host, as it was before the datacenter recorded its time frames.
+	 */
+	private static class CountingPolicy extends PowerVMAllocationPolicyMigrationMulti {
+
+		private int rounds = 0;
+
+		private int thresholdUpdates = 0;
+
+		private int overUtilizationChecks = 0;
+
+		private int energies = 0;
+
+		private double maxRelativeEnergyError = 0;
+
+		CountingPolicy(List<PowerHost> hostList, PowerVmSelectionPolicy vmSelectionPolicy, double energyMax,
+				PowerVmAllocationPolicyMigrationAbstract fallbackVmAllocationPolicy) {
+			super(hostList, vmSelectionPolicy, energyMax, fallbackVmAllocationPolicy);
+		}
+
+		@Override
+		public MigrationPlan<Vm, PowerHost> planMigrations(List<? extends Vm> vmList) {
+			rounds++;
+			return super.planMigrations(vmList);
+		}
+
+		@Override
+		protected void updateHigherUtilizationThreshold() {
+			thresholdUpdates++;
+			super.updateHigherUtilizationThreshold();
+		}
+
+		@Override
+		protected boolean isHostOverUtilized(PowerHostSnapshot host) {
+			overUtilizationChecks++;
+			return super.isHostOverUtilized(host);
+		}
+
+		@Override
+		protected double getEnergy() {
+			double energy = super.getEnergy();
+			double perHostEnergy = 0;
+			for (PowerHost host : this.<PowerHost> getHostList()) {
+				perHostEnergy += host.getEnergy(host.getPreviousUtilizationOfCpu(), host.getUtilizationOfCpu(), 300);
+			}
+			maxRelativeEnergyError = Math.max(maxRelativeEnergyError,
+					Math.abs(energy - perHostEnergy) / Math.max(perHostEnergy, 1));
+			energies++;
+			return energy;
+		}
+	}
+
+}
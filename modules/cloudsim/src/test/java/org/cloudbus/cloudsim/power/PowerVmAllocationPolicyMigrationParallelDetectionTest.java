@@ -0,0 +1,104 @@
+package org.cloudbus.cloudsim.power;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.MigrationPlan;
+import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.VmAllocationPolicy;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PowerVmAllocationPolicyMigrationParallelDetectionTest {
+
+	private static final int HOSTS = 40;
+
+	private boolean disabled;
+
+	private ForkJoinPool pool;
+
+	@Before
+	public void setUp() {
+		disabled = Log.isDisabled();
+		Log.disable();
+		pool = new ForkJoinPool(4);
+	}
+
+	@After
+	public void tearDown() {
+		Log.setDisabled(disabled);
+		pool.shutdown();
+	}
+
+	@Test
+	public void testSameMigrationsAsSequentialDetection() throws Exception {
+		RecordingPolicy sequential = run(null);
+		RecordingPolicy parallel = run(pool);
+		assertEquals(pool, parallel.getParallelDetection());
+
+		assertTrue(sequential.migrations > 0);
+		assertEquals(sequential.migrationPlans.toString(), parallel.migrationPlans.toString());
+		assertEquals(sequential.getMetricHistory(), parallel.getMetricHistory());
+		assertEquals(sequential.getUtilizationHistory(), parallel.getUtilizationHistory());
+		// the MAD threshold was computed for many hosts, once their history was long enough
+		assertTrue(parallel.getMetricHistory().size() > HOSTS / 4);
+		assertEquals(sequential.getUnderUtilizedHostsExaminedHistory(),
+				parallel.getUnderUtilizedHostsExaminedHistory());
+	}
+
+	/**
+	 * Runs the test simulation with a MAD policy and the Maximum Correlation selection policy,
+	 * detecting the over-utilized hosts on a pool if any.
+	 */
+	private static RecordingPolicy run(final ForkJoinPool pool) throws Exception {
+		final RecordingPolicy[] policy = new RecordingPolicy[1];
+		new PowerDatacenterSimulation(HOSTS, 30, 42) {
+
+			@Override
+			protected VmAllocationPolicy newVmAllocationPolicy(List<PowerHost> hostList) {
+				policy[0] = new RecordingPolicy(hostList);
+				policy[0].setParallelDetection(pool);
+				return policy[0];
+			}
+		}.run();
+		return policy[0];
+	}
+
+	/**
+	 * A MAD policy recording the migrations it plans in each round.
+	 */
+	private static class RecordingPolicy extends PowerVmAllocationPolicyMigrationMedianAbsoluteDeviation {
+
+		private final StringBuilder migrationPlans = new StringBuilder();
+
+		private int migrations = 0;
+
+		RecordingPolicy(List<PowerHost> hostList) {
+			this(hostList, new PowerVmSelectionPolicyMaximumCorrelation(
+					new PowerVmSelectionPolicyMinimumMigrationTime()));
+		}
+
+		private RecordingPolicy(List<PowerHost> hostList, PowerVmSelectionPolicy vmSelectionPolicy) {
+			super(hostList, vmSelectionPolicy, 2.5, new PowerVmAllocationPolicyMigrationStaticThreshold(
+					hostList, vmSelectionPolicy, 0.7));
+		}
+
+		@Override
+		public MigrationPlan<Vm, PowerHost> planMigrations(List<? extends Vm> vmList) {
+			MigrationPlan<Vm, PowerHost> migrationPlan = super.planMigrations(vmList);
+			migrationPlans.append('|');
+			for (int i = 0; i < migrationPlan.size(); i++) {
+				migrationPlans.append(' ').append(migrationPlan.getVm(i).getId()).append("->")
+						.append(migrationPlan.getHost(i).getId());
+			}
+			migrations += migrationPlan.size();
+			return migrationPlan;
+		}
+	}
+
+}
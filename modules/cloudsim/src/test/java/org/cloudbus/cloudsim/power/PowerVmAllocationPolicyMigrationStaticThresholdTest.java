@@ -0,0 +1,121 @@
+package org.cloudbus.cloudsim.power;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Set;
+
+import org.cloudbus.cloudsim.Host;
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.VmAllocationPolicy;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PowerVmAllocationPolicyMigrationStaticThresholdTest {
+
+	private static final int VMS = 300;
+
+	private boolean disabled;
+
+	private CountingPolicy policy;
+
+	@Before
+	public void setUp() throws Exception {
+		disabled = Log.isDisabled();
+		Log.disable();
+		new PowerDatacenterSimulation(200, VMS, 42) {
+
+			@Override
+			protected VmAllocationPolicy newVmAllocationPolicy(List<PowerHost> hostList) {
+				policy = new CountingPolicy(hostList);
+				return policy;
+			}
+		}.run();
+	}
+
+	@After
+	public void tearDown() {
+		Log.setDisabled(disabled);
+	}
+
+	@Test
+	public void testFindHostForVmMatchesFullScan() {
+		assertTrue(policy.placements > VMS);
+		assertTrue(policy.allocatedPlacements > VMS / 2);
+		assertEquals(0, policy.mismatches);
+		assertTrue(policy.rankedChecks < policy.fullScanChecks / 5);
+	}
+
+	/**
+	 * A policy counting the over-utilization checks, which also finds the host for each VM the
+	 * way it was done before hosts were ranked, by checking every host, and counts the VMs for
+	 * which both ways do not give the same host.
+	 */
+	private static class CountingPolicy extends PowerVmAllocationPolicyMigrationStaticThreshold {
+
+		private boolean fullScan = false;
+
+		private int fullScanChecks = 0;
+
+		private int rankedChecks = 0;
+
+		private int placements = 0;
+
+		private int allocatedPlacements = 0;
+
+		private int mismatches = 0;
+
+		CountingPolicy(List<? extends Host> hostList) {
+			super(hostList, new PowerVmSelectionPolicyMinimumMigrationTime(), 0.8);
+		}
+
+		@Override
+		protected boolean isHostOverUtilizedAfterAllocation(PowerHost host, Vm vm) {
+			if (fullScan) {
+				fullScanChecks++;
+			} else {
+				rankedChecks++;
+			}
+			return super.isHostOverUtilizedAfterAllocation(host, vm);
+		}
+
+		@Override
+		public PowerHost findHostForVm(Vm vm, Set<? extends Host> excludedHosts) {
+			PowerHost expected = findHostForVmFullScan(vm, excludedHosts);
+			PowerHost allocatedHost = super.findHostForVm(vm, excludedHosts);
+			placements++;
+			if (allocatedHost != null) {
+				allocatedPlacements++;
+			}
+			if (allocatedHost != expected) {
+				mismatches++;
+			}
+			return allocatedHost;
+		}
+
+		private PowerHost findHostForVmFullScan(Vm vm, Set<? extends Host> excludedHosts) {
+			fullScan = true;
+			double minPower = Double.MAX_VALUE;
+			PowerHost allocatedHost = null;
+			for (PowerHost host : this.<PowerHost> getHostList()) {
+				if (excludedHosts.contains(host) || !host.isSuitableForVm(vm)) {
+					continue;
+				}
+				if (getUtilizationOfCpuMips(host) != 0 && isHostOverUtilizedAfterAllocation(host, vm)) {
+					continue;
+				}
+				double powerDiff = getPowerAfterAllocation(host, vm) - host.getPower();
+				if (powerDiff < minPower) {
+					minPower = powerDiff;
+					allocatedHost = host;
+				}
+			}
+			fullScan = false;
+			return allocatedHost;
+		}
+	}
+
+}
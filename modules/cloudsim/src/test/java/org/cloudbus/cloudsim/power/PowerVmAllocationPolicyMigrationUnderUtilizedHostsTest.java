@@ -0,0 +1,162 @@
+package org.cloudbus.cloudsim.power;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.MigrationPlan;
+import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.VmAllocationPolicy;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PowerVmAllocationPolicyMigrationUnderUtilizedHostsTest {
+
+	private boolean disabled;
+
+	@Before
+	public void setUp() {
+		disabled = Log.isDisabled();
+		Log.disable();
+	}
+
+	@After
+	public void tearDown() {
+		Log.setDisabled(disabled);
+	}
+
+	@Test
+	public void testHeapChoosesHostsAsLinearScan() throws Exception {
+		RecordingPolicy heap = run(false, false);
+		RecordingPolicy scan = run(true, false);
+		assertEquals(scan.chosenHosts.toString(), heap.chosenHosts.toString());
+		assertTrue(heap.choices > 20);
+		assertEquals(scan.migrations, heap.migrations);
+	}
+
+	@Test
+	public void testHeapBreaksTiesAsLinearScan() throws Exception {
+		RecordingPolicy heap = run(false, true);
+		RecordingPolicy scan = run(true, true);
+		assertEquals(scan.chosenHosts.toString(), heap.chosenHosts.toString());
+		assertTrue(heap.choices > 20);
+		assertTrue(heap.ties > 0);
+		assertEquals(scan.migrations, heap.migrations);
+	}
+
+	/**
+	 * Runs the test simulation, recording the under-utilized hosts chosen in each round.
+	 */
+	private static RecordingPolicy run(final boolean scan, final boolean tiedKeys) throws Exception {
+		final RecordingPolicy[] policy = new RecordingPolicy[1];
+		new PowerDatacenterSimulation(40, 30, 7) {
+
+			@Override
+			protected VmAllocationPolicy newVmAllocationPolicy(List<PowerHost> hostList) {
+				policy[0] = new RecordingPolicy(hostList, scan, tiedKeys);
+				return policy[0];
+			}
+		}.run();
+		return policy[0];
+	}
+
+	/**
+	 * A static threshold policy recording the under-utilized hosts it chooses, which chooses them
+	 * either from the heap or by scanning the hosts each time, as it was done before the heap.
+	 * Its keys may be rounded to quarters, so that many hosts have the same key.
+	 */
+	private static class RecordingPolicy extends PowerVmAllocationPolicyMigrationStaticThreshold {
+
+		private final boolean scan;
+
+		private final boolean tiedKeys;
+
+		private final StringBuilder chosenHosts = new StringBuilder();
+
+		private int choices = 0;
+
+		private int ties = 0;
+
+		private double lastKey = Double.NaN;
+
+		private int migrations = 0;
+
+		RecordingPolicy(List<PowerHost> hostList, boolean scan, boolean tiedKeys) {
+			super(hostList, new PowerVmSelectionPolicyMinimumMigrationTime(), 0.8);
+			this.scan = scan;
+			this.tiedKeys = tiedKeys;
+		}
+
+		@Override
+		public MigrationPlan<Vm, PowerHost> planMigrations(List<? extends Vm> vmList) {
+			chosenHosts.append('|');
+			lastKey = Double.NaN;
+			MigrationPlan<Vm, PowerHost> migrationPlan = super.planMigrations(vmList);
+			migrations += migrationPlan.size();
+			return migrationPlan;
+		}
+
+		@Override
+		protected double getUnderUtilizationKey(PowerHost host) {
+			double key = super.getUnderUtilizationKey(host);
+			return tiedKeys ? Math.ceil(key * 4) / 4 : key;
+		}
+
+		@Override
+		protected List<? extends Vm> getVmsToMigrateFromUnderUtilizedHost(PowerHost host) {
+			double key = getUnderUtilizationKey(host);
+			if (key == lastKey) {
+				ties++;
+			}
+			lastKey = key;
+			chosenHosts.append(' ').append(host.getId());
+			choices++;
+			return super.getVmsToMigrateFromUnderUtilizedHost(host);
+		}
+
+		@Override
+		protected MigrationPlan<Vm, PowerHost> getMigrationMapFromUnderUtilizedHosts(
+				List<PowerHostUtilizationHistory> overUtilizedHosts) {
+			if (!scan) {
+				return super.getMigrationMapFromUnderUtilizedHosts(overUtilizedHosts);
+			}
+
+			MigrationPlan<Vm, PowerHost> migrationPlan = new MigrationPlan<Vm, PowerHost>();
+			List<PowerHost> switchedOffHosts = getSwitchedOffHosts();
+
+			Set<PowerHost> excludedHostsForFindingUnderUtilizedHost = new HashSet<PowerHost>();
+			excludedHostsForFindingUnderUtilizedHost.addAll(overUtilizedHosts);
+			excludedHostsForFindingUnderUtilizedHost.addAll(switchedOffHosts);
+
+			Set<PowerHost> excludedHostsForFindingNewVmPlacement = new HashSet<PowerHost>();
+			excludedHostsForFindingNewVmPlacement.addAll(overUtilizedHosts);
+			excludedHostsForFindingNewVmPlacement.addAll(switchedOffHosts);
+
+			while (excludedHostsForFindingUnderUtilizedHost.size() < getHostList().size()) {
+				PowerHost underUtilizedHost = getUnderUtilizedHost(excludedHostsForFindingUnderUtilizedHost);
+				if (underUtilizedHost == null) {
+					break;
+				}
+				excludedHostsForFindingUnderUtilizedHost.add(underUtilizedHost);
+				excludedHostsForFindingNewVmPlacement.add(underUtilizedHost);
+
+				List<? extends Vm> vmsToMigrateFromUnderUtilizedHost = getVmsToMigrateFromUnderUtilizedHost(underUtilizedHost);
+				if (vmsToMigrateFromUnderUtilizedHost.isEmpty()) {
+					continue;
+				}
+				MigrationPlan<Vm, PowerHost> newVmPlacement = getNewVmPlacementFromUnderUtilizedHost(
+						vmsToMigrateFromUnderUtilizedHost,
+						excludedHostsForFindingNewVmPlacement);
+				excludedHostsForFindingUnderUtilizedHost.addAll(newVmPlacement.getHosts());
+				migrationPlan.addAll(newVmPlacement);
+			}
+			return migrationPlan;
+		}
+	}
+
+}
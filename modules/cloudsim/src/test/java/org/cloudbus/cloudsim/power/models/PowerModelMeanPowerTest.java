@@ -0,0 +1,65 @@
+package org.cloudbus.cloudsim.power.models;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+/**
+ * Tests the closed forms of the mean power of the models defined by their maximum and static
+ * power against the power integrated with the midpoint rule.
+ */
+@RunWith(Parameterized.class)
+public class PowerModelMeanPowerTest {
+
+	private static final double MAX_POWER = 200;
+	private static final double STATIC_POWER_PERCENT = 0.3;
+
+	private final PowerModel powerModel;
+
+	public PowerModelMeanPowerTest(PowerModel powerModel) {
+		this.powerModel = powerModel;
+	}
+
+	@Parameters
+	public static Collection<Object[]> powerModels() {
+		return Arrays.asList(new Object[][] {
+				{ new PowerModelLinear(MAX_POWER, STATIC_POWER_PERCENT) },
+				{ new PowerModelSquare(MAX_POWER, STATIC_POWER_PERCENT) },
+				{ new PowerModelCubic(MAX_POWER, STATIC_POWER_PERCENT) },
+				{ new PowerModelSqrt(MAX_POWER, STATIC_POWER_PERCENT) } });
+	}
+
+	@Test
+	public void testGetMeanPower() {
+		String name = powerModel.getClass().getSimpleName();
+		assertEquals(name, 0, powerModel.getMeanPower(0, 0), 0);
+		assertEquals(name, powerModel.getPower(0.5), powerModel.getMeanPower(0.5, 0.5), 1e-9);
+		double[][] ranges = { { 0, 1 }, { 0.2, 0.9 }, { 0.9, 0.2 }, { 0.45, 0.55 } };
+		for (double[] range : ranges) {
+			assertEquals(name + " from " + range[0] + " to " + range[1], integrate(range[0], range[1]),
+					powerModel.getMeanPower(range[0], range[1]), 1e-6);
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testGetMeanPowerArgumentLargerThenOne() {
+		powerModel.getMeanPower(0.5, 2);
+	}
+
+	/** The mean power between two utilization values, integrated with the midpoint rule. */
+	private double integrate(double from, double to) {
+		int steps = 100000;
+		double energy = 0;
+		for (int i = 0; i < steps; i++) {
+			energy += powerModel.getPower(from + (to - from) * (i + 0.5) / steps);
+		}
+		return energy / steps;
+	}
+
+}
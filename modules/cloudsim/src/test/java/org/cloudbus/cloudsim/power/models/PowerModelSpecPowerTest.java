@@ -0,0 +1,99 @@
+package org.cloudbus.cloudsim.power.models;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class PowerModelSpecPowerTest {
+
+	private static final PowerModelSpecPower[] MODELS = {
+			new PowerModelSpecPowerHpProLiantMl110G3PentiumD930(),
+			new PowerModelSpecPowerHpProLiantMl110G4Xeon3040(),
+			new PowerModelSpecPowerHpProLiantMl110G5Xeon3075(),
+			new PowerModelSpecPowerIbmX3250XeonX3470(),
+			new PowerModelSpecPowerIbmX3250XeonX3480(),
+			new PowerModelSpecPowerIbmX3550XeonX5670(),
+			new PowerModelSpecPowerIbmX3550XeonX5675() };
+
+	/** The interpolation of the power data before the slope table. */
+	private static double interpolate(PowerModelSpecPower model, double utilization) {
+		if (utilization % 0.1 == 0) {
+			return model.getPowerData((int) (utilization * 10));
+		}
+		int utilization1 = (int) Math.floor(utilization * 10);
+		int utilization2 = (int) Math.ceil(utilization * 10);
+		double power1 = model.getPowerData(utilization1);
+		double power2 = model.getPowerData(utilization2);
+		double delta = (power2 - power1) / 10;
+		return power1 + delta * (utilization - (double) utilization1 / 10) * 100;
+	}
+
+	private static void assertSamePower(PowerModelSpecPower model, double utilization) {
+		assertEquals(
+				model.getClass().getSimpleName() + " at " + utilization,
+				Double.doubleToLongBits(interpolate(model, utilization)),
+				Double.doubleToLongBits(model.getPower(utilization)));
+	}
+
+	@Test
+	public void testSamePowerAsInterpolation() {
+		Random random = new Random(1);
+		for (PowerModelSpecPower model : MODELS) {
+			for (int i = 0; i <= 10; i++) {
+				double utilization = i * 0.1;
+				if (utilization <= 1) {
+					assertSamePower(model, utilization);
+				}
+				assertSamePower(model, i / 10.0);
+				if (i > 0) {
+					assertSamePower(model, Math.nextDown(i / 10.0));
+				}
+				if (i < 10) {
+					assertSamePower(model, i / 10.0 + 0.05);
+					assertSamePower(model, Math.nextUp(i / 10.0));
+				}
+			}
+			for (int i = 0; i <= 1000; i++) {
+				assertSamePower(model, i / 1000.0);
+			}
+			for (int i = 0; i < 10000; i++) {
+				assertSamePower(model, random.nextDouble());
+			}
+			assertSamePower(model, -0.0);
+			assertSamePower(model, Double.NaN);
+		}
+	}
+
+	@Test
+	public void testGetMeanPower() {
+		Random random = new Random(1);
+		for (PowerModelSpecPower model : MODELS) {
+			assertEquals(model.getPower(0.35), model.getMeanPower(0.35, 0.35), 0);
+			assertEquals(model.getMeanPower(0.2, 0.9), model.getMeanPower(0.9, 0.2), 0);
+			double[][] ranges = { { 0, 1 }, { 0.1, 0.2 }, { 0.15, 0.18 }, { 0.05, 0.95 }, { 0.3, 0.4000001 } };
+			for (double[] range : ranges) {
+				assertMeanPower(model, range[0], range[1]);
+			}
+			for (int i = 0; i < 100; i++) {
+				assertMeanPower(model, random.nextDouble(), random.nextDouble());
+			}
+		}
+	}
+
+	/** Compares the mean power with the power integrated with the midpoint rule. */
+	private static void assertMeanPower(PowerModelSpecPower model, double from, double to) {
+		int steps = 100000;
+		double energy = 0;
+		for (int i = 0; i < steps; i++) {
+			energy += model.getPower(from + (to - from) * (i + 0.5) / steps);
+		}
+		assertEquals(
+				model.getClass().getSimpleName() + " from " + from + " to " + to,
+				energy / steps,
+				model.getMeanPower(from, to),
+				1e-6);
+	}
+
+}
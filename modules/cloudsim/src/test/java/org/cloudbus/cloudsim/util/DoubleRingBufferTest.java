@@ -0,0 +1,91 @@
+package org.cloudbus.cloudsim.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class DoubleRingBufferTest {
+
+	private static final int CAPACITY = 5;
+
+	@Test
+	public void testAddKeepsLatestValuesFirst() {
+		DoubleRingBuffer buffer = new DoubleRingBuffer(CAPACITY);
+		assertTrue(buffer.isEmpty());
+		assertArrayEquals(new double[0], buffer.toArray(), 0);
+
+		for (int i = 1; i <= 7; i++) {
+			buffer.add(i);
+		}
+		assertEquals(CAPACITY, buffer.size());
+		assertEquals(7, buffer.get(0), 0);
+		assertEquals(3, buffer.get(CAPACITY - 1), 0);
+		assertArrayEquals(new double[] { 7, 6, 5, 4, 3 }, buffer.toArray(), 0);
+		assertEquals(25, buffer.getSum(), 0);
+		assertEquals(135, buffer.getSumOfSquares(), 0);
+		assertEquals(5, buffer.getMean(), 0);
+		assertEquals(2, buffer.getVariance(), 1e-12);
+	}
+
+	@Test
+	public void testMatchesLinkedList() {
+		Random random = new Random(1);
+		DoubleRingBuffer buffer = new DoubleRingBuffer(CAPACITY);
+		List<Double> list = new LinkedList<Double>();
+		for (int i = 0; i < 100; i++) {
+			double value = random.nextDouble();
+			buffer.add(value);
+			list.add(0, value);
+			if (list.size() > CAPACITY) {
+				list.remove(CAPACITY);
+			}
+
+			assertEquals(list.size(), buffer.size());
+			assertArrayEquals(MathUtil.listToArray(list), buffer.toArray(), 0);
+			for (int j = 0; j < list.size(); j++) {
+				assertEquals(list.get(j), buffer.get(j), 0);
+			}
+			assertEquals(MathUtil.sum(list), buffer.getSum(), 1e-12);
+			assertEquals(MathUtil.mean(list), buffer.getMean(), 1e-12);
+		}
+	}
+
+	@Test
+	public void testVarianceOfLargeValuesWithLowSpread() {
+		Random random = new Random(1);
+		DoubleRingBuffer buffer = new DoubleRingBuffer(CAPACITY);
+		for (int i = 0; i < 1000; i++) {
+			buffer.add(1e6 + 1e-3 * random.nextDouble());
+			if (i % (CAPACITY - 1) != 0) {
+				// out of step with the recomputation once per round over the buffer
+				double[] values = buffer.toArray();
+				double mean = 0;
+				for (double value : values) {
+					mean += value;
+				}
+				mean /= values.length;
+				double variance = 0;
+				for (double value : values) {
+					variance += (value - mean) * (value - mean);
+				}
+				variance /= values.length;
+				assertEquals(variance, buffer.getVariance(), variance * 1e-4);
+			}
+		}
+		assertTrue(buffer.getVariance() > 1e-8);
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testGetOutOfBounds() {
+		DoubleRingBuffer buffer = new DoubleRingBuffer(CAPACITY);
+		buffer.add(1);
+		buffer.get(1);
+	}
+
+}
@@ -2,9 +2,12 @@ package org.cloudbus.cloudsim.util;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
 
 import org.junit.Test;
 
@@ -69,4 +72,101 @@ public class MathUtilTest {
 		assertEquals(SUM1 / 10, MathUtil.sum(data2), 0);
 	}
 
+	@Test
+	public void testMultipleCorrelationCoefficientsMatchRegressions() {
+		Random random = new Random(1);
+		for (int t = 0; t < 500; t++) {
+			int n = 2 + random.nextInt(8);
+			double[][] data = getRandomData(random, n, n + 1 + random.nextInt(20));
+			if (n > 2) {
+				// a correlated variable, as the utilization of VMs of the same host can be
+				for (int k = 0; k < data[0].length; k++) {
+					data[1][k] = 0.8 * data[0][k] + 0.2 * data[1][k];
+				}
+			}
+			assertSameAsRegressions(data, 1e-9);
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testMultipleCorrelationCoefficientsOneVariable() {
+		MathUtil.getMultipleCorrelationCoefficients(new double[][] { DATA1 });
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testMultipleCorrelationCoefficientsNotEnoughValues() {
+		MathUtil.getMultipleCorrelationCoefficients(new double[][] { { 1, 2 }, { 2, 1 }, { 3, 5 } });
+	}
+
+	@Test
+	public void testMultipleCorrelationCoefficientsAsManyValuesAsVariables() {
+		assertSameAsRegressions(new double[][] { { 1, 2, 4 }, { 2, 1, 5 }, { 3, 5, 3 } }, 0);
+		Random random = new Random(2);
+		for (int n = 2; n < 10; n++) {
+			assertSameAsRegressions(getRandomData(random, n, n), 0);
+		}
+	}
+
+	@Test
+	public void testMultipleCorrelationCoefficientsConstantVariable() {
+		double[] other = { 3, 1, 4, 1, 5, 9, 2 };
+		double[] constant = { 0.3, 0.3, 0.3, 0.3, 0.3, 0.3, 0.3 };
+		double[] zero = new double[DATA3.length];
+		assertSameAsRegressions(new double[][] { DATA3, constant, other }, 0);
+		assertSameAsRegressions(new double[][] { constant, DATA3 }, 0);
+		assertSameAsRegressions(new double[][] { zero, DATA3, other }, 0);
+		assertSameAsRegressions(new double[][] { zero, constant, other }, 0);
+
+		Random random = new Random(3);
+		for (int t = 0; t < 100; t++) {
+			int n = 2 + random.nextInt(8);
+			double[][] data = getRandomData(random, n, n + random.nextInt(20));
+			Arrays.fill(data[random.nextInt(n)], random.nextInt(2) * random.nextDouble());
+			assertSameAsRegressions(data, 0);
+		}
+	}
+
+	@Test
+	public void testMultipleCorrelationCoefficientsDependentVariables() {
+		double[] other = { 3, 1, 4, 1, 5, 9, 2 };
+		double[] sum = new double[DATA3.length];
+		double[] almostSum = new double[DATA3.length];
+		for (int k = 0; k < sum.length; k++) {
+			sum[k] = DATA3[k] + other[k];
+			almostSum[k] = sum[k] + (k % 2) * 1e-7;
+		}
+		assertSameAsRegressions(new double[][] { DATA3, other, sum }, 0);
+		assertSameAsRegressions(new double[][] { DATA3, other, almostSum }, 0);
+		assertSameAsRegressions(new double[][] { DATA3, DATA3, other }, 0);
+	}
+
+	private static double[][] getRandomData(Random random, int n, int m) {
+		double[][] data = new double[n][m];
+		for (double[] row : data) {
+			for (int k = 0; k < m; k++) {
+				row[k] = random.nextDouble();
+			}
+		}
+		return data;
+	}
+
+	/**
+	 * Checks that the multiple correlation coefficients are those of the regressions fitted for
+	 * each variable, or that both fail.
+	 */
+	private static void assertSameAsRegressions(double[][] data, double delta) {
+		double[] expected;
+		try {
+			expected = MathUtil.getMultipleCorrelationCoefficientsByRegression(data);
+		} catch (IllegalArgumentException e) {
+			try {
+				MathUtil.getMultipleCorrelationCoefficients(data);
+				fail("The regressions failed with " + e);
+			} catch (IllegalArgumentException expectedException) {
+			}
+			return;
+		}
+		assertArrayEquals(expected, MathUtil.getMultipleCorrelationCoefficients(data), delta);
+	}
+
 }
@@ -0,0 +1,42 @@
+package org.cloudbus.cloudsim.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class PeakSizeHashMapTest {
+
+	@Test
+	public void testRestoredMapIteratesInTheSameOrder() {
+		PeakSizeHashMap<String, Integer> map = new PeakSizeHashMap<String, Integer>();
+		for (int i = 0; i < 100; i++) {
+			map.put("vm" + i, i);
+		}
+		for (int i = 0; i < 95; i++) {
+			map.remove("vm" + i);
+		}
+		assertEquals(100, map.getPeakSize());
+
+		PeakSizeHashMap<String, Integer> restored = new PeakSizeHashMap<String, Integer>(map.getPeakSize());
+		Map<String, Integer> fresh = new HashMap<String, Integer>();
+		for (Map.Entry<String, Integer> entry : map.entrySet()) {
+			restored.put(entry.getKey(), entry.getValue());
+			fresh.put(entry.getKey(), entry.getValue());
+		}
+		for (int i = 200; i < 210; i++) {
+			map.put("vm" + i, i);
+			restored.put("vm" + i, i);
+			fresh.put("vm" + i, i);
+		}
+
+		assertEquals(new ArrayList<String>(map.keySet()), new ArrayList<String>(restored.keySet()));
+		assertEquals(map.getPeakSize(), restored.getPeakSize());
+		assertFalse(new ArrayList<String>(map.keySet()).equals(new ArrayList<String>(fresh.keySet())));
+	}
+
+}
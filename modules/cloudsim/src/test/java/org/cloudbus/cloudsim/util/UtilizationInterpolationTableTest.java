@@ -0,0 +1,97 @@
+package org.cloudbus.cloudsim.util;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class UtilizationInterpolationTableTest {
+
+	private static final int SAMPLES = 288;
+
+	private static final double[] INTERVALS = { 300, 300.5, 7, 0.1 };
+
+	/**
+	 * The interpolation of the PlanetLab models before the table, on the samples followed by a copy
+	 * of the last one.
+	 */
+	private static double interpolate(double[] data, double interval, double time) {
+		if (time % interval == 0) {
+			return data[(int) time / (int) interval];
+		}
+		int time1 = (int) Math.floor(time / interval);
+		int time2 = (int) Math.ceil(time / interval);
+		double utilization1 = data[time1];
+		double utilization2 = data[time2];
+		double delta = (utilization2 - utilization1) / ((time2 - time1) * interval);
+		return utilization1 + delta * (time - time1 * interval);
+	}
+
+	/** Asserts the same utilization, or the same exception, as the interpolation. */
+	private static void assertSameUtilization(double[] data, UtilizationInterpolationTable table,
+			double time) {
+		Object expected;
+		try {
+			expected = Double.doubleToLongBits(interpolate(data, table.getInterval(), time));
+		} catch (RuntimeException e) {
+			expected = e.getClass();
+		}
+		Object actual;
+		try {
+			actual = Double.doubleToLongBits(table.getUtilization(time));
+		} catch (RuntimeException e) {
+			actual = e.getClass();
+		}
+		assertEquals("time " + time, expected, actual);
+	}
+
+	@Test
+	public void testSameUtilizationAsInterpolation() {
+		Random random = new Random(1);
+		int[] samples = new int[SAMPLES];
+		for (int i = 0; i < SAMPLES; i++) {
+			samples[i] = random.nextInt(101);
+		}
+		UtilizationTrace trace = new UtilizationTrace(samples);
+		double[] data = new double[SAMPLES + 1];
+		for (int i = 0; i < SAMPLES; i++) {
+			data[i] = samples[i] / 100.0;
+		}
+		data[SAMPLES] = data[SAMPLES - 1];
+
+		for (double interval : INTERVALS) {
+			UtilizationInterpolationTable table = trace.getInterpolationTable(interval);
+			assertEquals(SAMPLES + 1, table.getNumberOfSamples());
+			double end = SAMPLES * interval;
+			for (int i = 0; i <= SAMPLES; i++) {
+				double time = i * interval;
+				assertSameUtilization(data, table, time);
+				if (i > 0) {
+					assertSameUtilization(data, table, Math.nextDown(time));
+				}
+				if (i < SAMPLES) {
+					assertSameUtilization(data, table, Math.nextUp(time));
+					assertSameUtilization(data, table, time + random.nextDouble() * interval);
+				}
+			}
+			for (int i = 0; i < 10000; i++) {
+				assertSameUtilization(data, table, random.nextDouble() * end);
+			}
+			assertSameUtilization(data, table, -interval);
+			assertSameUtilization(data, table, -0.5 * interval);
+			assertSameUtilization(data, table, end + 0.5 * interval);
+			assertSameUtilization(data, table, Double.NaN);
+		}
+	}
+
+	@Test
+	public void testTableSharedForSameInterval() {
+		UtilizationTrace trace = new UtilizationTrace(new int[] { 10, 20 });
+		UtilizationInterpolationTable table = trace.getInterpolationTable(300);
+		assertEquals(table, trace.getInterpolationTable(300));
+		assertEquals(0.15, trace.getInterpolationTable(60).getUtilization(30), 1e-12);
+		assertEquals(0.2, table.getUtilization(450), 0);
+	}
+
+}
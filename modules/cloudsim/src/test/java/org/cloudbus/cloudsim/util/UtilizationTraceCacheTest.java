@@ -0,0 +1,113 @@
+package org.cloudbus.cloudsim.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class UtilizationTraceCacheTest {
+
+	private static final int LINES = 288;
+
+	/** The size of a trace of percentages stored as shorts. */
+	private static final long TRACE_BYTES = 2 * LINES;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private UtilizationTraceCache cache;
+
+	@Before
+	public void setUp() {
+		cache = new UtilizationTraceCache(UtilizationTraceCache.DEFAULT_MAX_RESIDENT_BYTES);
+	}
+
+	private String writeTrace(String name, int offset) throws IOException {
+		File file = new File(folder.getRoot(), name);
+		FileWriter writer = new FileWriter(file);
+		for (int i = 0; i < LINES; i++) {
+			writer.write((i + offset) % 101 + "\n");
+		}
+		writer.close();
+		return file.getPath();
+	}
+
+	@Test
+	public void testHitsAndDuplicates() throws Exception {
+		String a = writeTrace("a", 0);
+		String b = writeTrace("b", 0);
+		String c = writeTrace("c", 1);
+
+		UtilizationTrace trace = cache.getTrace(a, LINES);
+		assertEquals(LINES, trace.getNumberOfSamples());
+		assertEquals(0.05, trace.getUtilization(5), 0);
+		assertSame(trace, cache.getTrace(a, LINES));
+		assertSame(trace, cache.getTrace(b, LINES));
+		assertNotSame(trace, cache.getTrace(c, LINES));
+
+		assertEquals(1, cache.getHits());
+		assertEquals(3, cache.getMisses());
+		assertEquals(1, cache.getDuplicates());
+		assertEquals(2, cache.getNumberOfTraces());
+		assertEquals(2 * TRACE_BYTES, cache.getResidentBytes());
+
+		assertSame(trace, cache.getTrace(b, LINES));
+		assertEquals(2, cache.getHits());
+	}
+
+	@Test
+	public void testEviction() throws Exception {
+		cache.setMaxResidentBytes(2 * TRACE_BYTES);
+		String a = writeTrace("a", 0);
+		String b = writeTrace("b", 1);
+		String c = writeTrace("c", 2);
+
+		UtilizationTrace traceA = cache.getTrace(a, LINES);
+		cache.getTrace(b, LINES);
+		cache.getTrace(a, LINES);
+		cache.getTrace(c, LINES);
+		assertEquals(1, cache.getEvictions());
+		assertEquals(2 * TRACE_BYTES, cache.getResidentBytes());
+
+		// b was the least recently used trace
+		assertSame(traceA, cache.getTrace(a, LINES));
+		long misses = cache.getMisses();
+		cache.getTrace(b, LINES);
+		assertEquals(misses + 1, cache.getMisses());
+
+		cache.setMaxResidentBytes(0);
+		assertEquals(0, cache.getNumberOfTraces());
+		assertEquals(0, cache.getResidentBytes());
+	}
+
+	@Test
+	public void testModifiedFileIsReadAgain() throws Exception {
+		String a = writeTrace("a", 0);
+		UtilizationTrace trace = cache.getTrace(a, LINES);
+		writeTrace("a", 1);
+		new File(a).setLastModified(new File(a).lastModified() + 2000);
+
+		UtilizationTrace modified = cache.getTrace(a, LINES);
+		assertEquals(1, modified.getSample(0));
+		assertEquals(0, trace.getSample(0));
+		assertEquals(1, cache.getNumberOfTraces());
+		assertEquals(TRACE_BYTES, cache.getResidentBytes());
+	}
+
+	@Test
+	public void testWideSamples() {
+		UtilizationTrace trace = new UtilizationTrace(new int[] { 1, 100000 });
+		assertEquals(100000, trace.getSample(1));
+		assertEquals(8, trace.getResidentBytes());
+		assertEquals(new UtilizationTrace(new int[] { 1, 100000 }), trace);
+	}
+
+}
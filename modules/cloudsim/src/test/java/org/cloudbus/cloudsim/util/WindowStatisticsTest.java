@@ -0,0 +1,86 @@
+package org.cloudbus.cloudsim.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class WindowStatisticsTest {
+
+	private static final int WINDOWS = 2000;
+
+	private final WindowStatistics statistics = WindowStatistics.forCurrentThread();
+
+	@Test
+	public void testOrderStatisticsMatchMathUtil() {
+		assertEquals(MathUtil.mad(MathUtilTest.DATA3), statistics.mad(MathUtilTest.DATA3), 0);
+		assertEquals(MathUtilTest.IQR1, statistics.iqr(MathUtilTest.DATA1), 0);
+		assertEquals(MathUtilTest.IQR2, statistics.iqr(MathUtilTest.DATA2), 0);
+		assertEquals(Double.NaN, statistics.median(new double[0]), 0);
+		assertEquals(0, statistics.mad(new double[0]), 0);
+
+		Random random = new Random(1);
+		for (int i = 0; i < WINDOWS; i++) {
+			double[] data = newWindow(random, 1 + random.nextInt(30));
+			assertEquals(MathUtil.median(data), statistics.median(data), 0);
+			assertEquals(MathUtil.mad(data), statistics.mad(data), 0);
+			if (data.length >= 12) {
+				double expected = MathUtil.iqr(data.clone());
+				double[] copy = data.clone();
+				assertEquals(expected, statistics.iqr(data), 0);
+				assertArrayEquals(copy, data, 0);
+			}
+		}
+	}
+
+	@Test
+	public void testLoessEstimatesMatchMathUtil() {
+		Random random = new Random(2);
+		for (int i = 0; i < WINDOWS; i++) {
+			double[] y = newWindow(random, 3 + random.nextInt(28));
+			assertArrayEquals(MathUtil.getLoessParameterEstimates(y), statistics.getLoessParameterEstimates(y), 0);
+			assertArrayEquals(MathUtil.getRobustLoessParameterEstimates(y),
+					statistics.getRobustLoessParameterEstimates(y), 0);
+		}
+
+		double[] line = new double[10];
+		double[] constant = new double[10];
+		for (int i = 0; i < line.length; i++) {
+			line[i] = 0.1 * (i + 1);
+			constant[i] = 0.5;
+		}
+		assertArrayEquals(MathUtil.getRobustLoessParameterEstimates(line),
+				statistics.getRobustLoessParameterEstimates(line), 0);
+		assertArrayEquals(MathUtil.getRobustLoessParameterEstimates(constant),
+				statistics.getRobustLoessParameterEstimates(constant), 0);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testLoessEstimatesNotEnoughData() {
+		statistics.getLoessParameterEstimates(new double[] { 0.1, 0.2 });
+	}
+
+	/**
+	 * Creates a window of utilization values, some of them repeated or zero as in the utilization
+	 * history of hosts.
+	 */
+	private static double[] newWindow(Random random, int length) {
+		double[] data = new double[length];
+		for (int i = 0; i < length; i++) {
+			switch (random.nextInt(5)) {
+			case 0:
+				data[i] = 0;
+				break;
+			case 1:
+				data[i] = i > 0 ? data[i - 1] : 1;
+				break;
+			default:
+				data[i] = random.nextDouble();
+			}
+		}
+		return data;
+	}
+
+}